@@ -13,6 +13,9 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins("*")
                 .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                // Lus par les clients pour les GET conditionnels (If-None-Match, If-Modified-Since)
+                // et pour reconnaître une réponse rejouée (Idempotency-Key)
+                .exposedHeaders("ETag", "Last-Modified", "Idempotent-Replayed")
                 .allowCredentials(true);
     }
 }
\ No newline at end of file
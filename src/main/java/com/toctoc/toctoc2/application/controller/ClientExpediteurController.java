@@ -12,6 +12,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/clients")
@@ -23,13 +24,21 @@ public class ClientExpediteurController {
 
     @GetMapping
     @Operation(summary = "Liste tous les clients")
-    public ResponseEntity<Page<ClientExpediteurDTO>> getAll(@PageableDefault(size = 20) Pageable pageable) {
+    public ResponseEntity<Page<ClientExpediteurDTO>> getAll(@PageableDefault(size = 20) Pageable pageable,
+            WebRequest request) {
+        if (service.getClientsVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getAllClients(pageable));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un client par ID")
-    public ResponseEntity<ClientExpediteurDTO> getById(@PathVariable String id) {
+    public ResponseEntity<ClientExpediteurDTO> getById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes
+        if (service.getClientVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getClientById(id));
     }
 
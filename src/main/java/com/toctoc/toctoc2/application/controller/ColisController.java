@@ -3,7 +3,13 @@ package com.toctoc.toctoc2.application.controller;
 import com.toctoc.toctoc2.domain.colis.dto.*;
 import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
 import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.service.ColisBulkService;
+import com.toctoc.toctoc2.domain.colis.service.ColisExportService;
+import com.toctoc.toctoc2.domain.colis.service.ColisImportService;
+import com.toctoc.toctoc2.domain.colis.service.ColisOverviewService;
 import com.toctoc.toctoc2.domain.colis.service.ColisService;
+import com.toctoc.toctoc2.domain.colis.service.ColisStatisticsService;
+import com.toctoc.toctoc2.domain.colis.service.ColisTrackingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,10 +17,18 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -24,6 +38,12 @@ import java.util.List;
 public class ColisController {
 
     private final ColisService colisService;
+    private final ColisBulkService colisBulkService;
+    private final ColisStatisticsService colisStatisticsService;
+    private final ColisOverviewService colisOverviewService;
+    private final ColisExportService colisExportService;
+    private final ColisImportService colisImportService;
+    private final ColisTrackingService colisTrackingService;
 
     @GetMapping
     @Operation(summary = "Liste tous les colis avec pagination")
@@ -32,9 +52,21 @@ public class ColisController {
         return ResponseEntity.ok(colisService.getAllColis(pageable));
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Liste tous les colis par curseur (cursor vide pour la première page)")
+    public ResponseEntity<ColisCursorPageDTO> getAllColisByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(colisService.getAllColis(cursor, size));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un colis par son ID")
-    public ResponseEntity<ColisDTO> getColisById(@PathVariable String id) {
+    public ResponseEntity<ColisDTO> getColisById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes, le colis n'est pas chargé
+        if (colisService.getColisVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(colisService.getColisById(id));
     }
 
@@ -59,6 +91,38 @@ public class ColisController {
                 colisService.getColisByMultipleCriteria(statut, priorite, zoneId, ville, livreurId, pageable));
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Exporte en flux (NDJSON ou CSV) les colis filtrés, sans pagination")
+    public ResponseEntity<StreamingResponseBody> exportColis(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) StatutColis statut,
+            @RequestParam(required = false) PrioriteColis priorite,
+            @RequestParam(required = false) String zoneId,
+            @RequestParam(required = false) String ville,
+            @RequestParam(required = false) String livreurId,
+            @RequestParam(required = false) String clientId) {
+        StreamingResponseBody body = out -> colisExportService.export(
+                format, statut, priorite, zoneId, ville, livreurId, clientId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"colis." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/filter", params = "cursor")
+    @Operation(summary = "Filtre les colis selon plusieurs critères, par curseur")
+    public ResponseEntity<ColisCursorPageDTO> filterColisByCursor(
+            @RequestParam(required = false) StatutColis statut,
+            @RequestParam(required = false) PrioriteColis priorite,
+            @RequestParam(required = false) String zoneId,
+            @RequestParam(required = false) String ville,
+            @RequestParam(required = false) String livreurId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(
+                colisService.getColisByMultipleCriteria(statut, priorite, zoneId, ville, livreurId, cursor, size));
+    }
+
     @GetMapping("/client/{clientId}")
     @Operation(summary = "Liste les colis d'un client expéditeur")
     public ResponseEntity<Page<ColisDTO>> getColisByClient(
@@ -67,6 +131,15 @@ public class ColisController {
         return ResponseEntity.ok(colisService.getColisByClientExpediteur(clientId, pageable));
     }
 
+    @GetMapping(value = "/client/{clientId}", params = "cursor")
+    @Operation(summary = "Liste les colis d'un client expéditeur, par curseur")
+    public ResponseEntity<ColisCursorPageDTO> getColisByClientByCursor(
+            @PathVariable String clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(colisService.getColisByClientExpediteur(clientId, cursor, size));
+    }
+
     @GetMapping("/destinataire/{destinataireId}")
     @Operation(summary = "Liste les colis d'un destinataire")
     public ResponseEntity<Page<ColisDTO>> getColisByDestinataire(
@@ -75,18 +148,51 @@ public class ColisController {
         return ResponseEntity.ok(colisService.getColisByDestinataire(destinataireId, pageable));
     }
 
+    @GetMapping(value = "/destinataire/{destinataireId}", params = "cursor")
+    @Operation(summary = "Liste les colis d'un destinataire, par curseur")
+    public ResponseEntity<ColisCursorPageDTO> getColisByDestinataireByCursor(
+            @PathVariable String destinataireId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(colisService.getColisByDestinataire(destinataireId, cursor, size));
+    }
+
     @GetMapping("/livreur/{livreurId}")
     @Operation(summary = "Liste les colis assignés à un livreur")
     public ResponseEntity<Page<ColisDTO>> getColisByLivreur(
             @PathVariable String livreurId,
-            @PageableDefault(size = 20) Pageable pageable) {
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest request) {
+        if (colisService.getColisByLivreurVersion(livreurId).isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(colisService.getColisByLivreur(livreurId, pageable));
     }
 
+    @GetMapping(value = "/livreur/{livreurId}", params = "cursor")
+    @Operation(summary = "Liste les colis assignés à un livreur, par curseur")
+    public ResponseEntity<ColisCursorPageDTO> getColisByLivreurByCursor(
+            @PathVariable String livreurId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
+        if (colisService.getColisByLivreurVersion(livreurId).isListNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(colisService.getColisByLivreur(livreurId, cursor, size));
+    }
+
+    @GetMapping(value = "/livreur/{livreurId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flux SSE des changements de statut des colis d'un livreur")
+    public SseEmitter trackLivreur(@PathVariable String livreurId) {
+        return colisTrackingService.trackLivreur(livreurId);
+    }
+
     @GetMapping("/overdue")
-    @Operation(summary = "Liste les colis en retard")
-    public ResponseEntity<List<ColisDTO>> getOverdueColis() {
-        return ResponseEntity.ok(colisService.getOverdueColis());
+    @Operation(summary = "Liste les colis en retard (marqués par la détection périodique)")
+    public ResponseEntity<Page<ColisDTO>> getOverdueColis(
+            @PageableDefault(size = 20, sort = "dateLimiteLivraison") Pageable pageable) {
+        return ResponseEntity.ok(colisService.getOverdueColis(pageable));
     }
 
     @PostMapping
@@ -96,6 +202,24 @@ public class ColisController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Crée des colis en masse avec un résultat par élément")
+    public ResponseEntity<BulkColisResultDTO> createColisBulk(@Valid @RequestBody BulkCreateColisRequest request) {
+        return ResponseEntity.ok(colisBulkService.createColis(request.getColis()));
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importe des colis depuis un fichier CSV, traité en arrière-plan")
+    public ResponseEntity<ColisImportStatusDTO> importColis(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(colisImportService.startImport(file));
+    }
+
+    @GetMapping("/import/{importId}")
+    @Operation(summary = "Avancement d'un import CSV et erreurs par ligne")
+    public ResponseEntity<ColisImportStatusDTO> getImport(@PathVariable String importId) {
+        return ResponseEntity.ok(colisImportService.getImport(importId));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Met à jour un colis")
     public ResponseEntity<ColisDTO> updateColis(
@@ -113,6 +237,12 @@ public class ColisController {
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping("/statut/bulk")
+    @Operation(summary = "Met à jour le statut de plusieurs colis en une opération")
+    public ResponseEntity<BulkStatutResultDTO> updateStatutBulk(@Valid @RequestBody BulkUpdateStatutRequest request) {
+        return ResponseEntity.ok(colisBulkService.updateStatut(request.getIds(), request.getChangement()));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Supprime un colis")
     public ResponseEntity<Void> deleteColis(@PathVariable String id) {
@@ -127,6 +257,30 @@ public class ColisController {
         return ResponseEntity.ok(colisService.getHistoriqueByColis(id));
     }
 
+    @GetMapping(value = "/{id}/historique", params = "page")
+    @Operation(summary = "Récupère l'historique d'un colis par page, le plus récent d'abord")
+    public ResponseEntity<Page<HistoriqueLivraisonDTO>> getHistoriquePage(
+            @PathVariable String id,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(colisService.getHistoriqueByColis(id, pageable));
+    }
+
+    @GetMapping(value = "/{id}/historique", params = "since")
+    @Operation(summary = "Récupère les entrées d'historique postérieures à une date, de la plus ancienne à la plus récente")
+    public ResponseEntity<List<HistoriqueLivraisonDTO>> getHistoriqueSince(
+            @PathVariable String id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(colisService.getHistoriqueByColisSince(id, since, size));
+    }
+
+    // Suivi en temps réel
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Flux SSE des changements de statut d'un colis (état courant envoyé à l'abonnement)")
+    public SseEmitter trackColis(@PathVariable String id) {
+        return colisTrackingService.trackColis(id);
+    }
+
     // Produits
     @GetMapping("/{id}/produits")
     @Operation(summary = "Liste les produits d'un colis")
@@ -162,4 +316,16 @@ public class ColisController {
     public ResponseEntity<List<ColisStatisticsDTO>> getStatsByZone() {
         return ResponseEntity.ok(colisService.getStatisticsByZone());
     }
+
+    @GetMapping("/statistics/overview")
+    @Operation(summary = "Nombre de colis par statut et par priorité (mis en cache quelques secondes)")
+    public ResponseEntity<ColisOverviewDTO> getOverview() {
+        return ResponseEntity.ok(colisOverviewService.getOverview());
+    }
+
+    @PostMapping("/statistics/reconcile")
+    @Operation(summary = "Recalcule les compteurs de statistiques et renvoie les écarts corrigés")
+    public ResponseEntity<StatisticsReconciliationDTO> reconcileStatistics() {
+        return ResponseEntity.ok(colisStatisticsService.reconcile());
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/destinataires")
@@ -24,13 +25,21 @@ public class DestinataireController {
     @GetMapping
     @Operation(summary = "Liste tous les destinataires")
     public ResponseEntity<Page<DestinataireDTO>> getAll(
-            @PageableDefault(size = 20, sort = "nom") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "nom") Pageable pageable,
+            WebRequest request) {
+        if (service.getDestinatairesVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getAllDestinataires(pageable));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un destinataire par ID")
-    public ResponseEntity<DestinataireDTO> getById(@PathVariable String id) {
+    public ResponseEntity<DestinataireDTO> getById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes
+        if (service.getDestinataireVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getDestinataireById(id));
     }
 
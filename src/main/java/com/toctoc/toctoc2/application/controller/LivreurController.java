@@ -12,6 +12,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -26,19 +27,30 @@ public class LivreurController {
     @GetMapping
     @Operation(summary = "Liste tous les livreurs")
     public ResponseEntity<Page<LivreurDTO>> getAll(
-            @PageableDefault(size = 20, sort = "nom") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "nom") Pageable pageable,
+            WebRequest request) {
+        if (service.getLivreursVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getAllLivreurs(pageable));
     }
 
     @GetMapping("/actifs")
     @Operation(summary = "Liste les livreurs actifs uniquement")
-    public ResponseEntity<List<LivreurDTO>> getActifs() {
+    public ResponseEntity<List<LivreurDTO>> getActifs(WebRequest request) {
+        if (service.getLivreursVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getActiveLivreurs());
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un livreur par ID")
-    public ResponseEntity<LivreurDTO> getById(@PathVariable String id) {
+    public ResponseEntity<LivreurDTO> getById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes
+        if (service.getLivreurVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getLivreurById(id));
     }
 
@@ -12,6 +12,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/produits")
@@ -24,13 +25,21 @@ public class ProduitController {
     @GetMapping
     @Operation(summary = "Liste tous les produits")
     public ResponseEntity<Page<ProduitDTO>> getAll(
-            @PageableDefault(size = 20, sort = "nom") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "nom") Pageable pageable,
+            WebRequest request) {
+        if (service.getProduitsVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getAllProduits(pageable));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupère un produit par ID")
-    public ResponseEntity<ProduitDTO> getById(@PathVariable String id) {
+    public ResponseEntity<ProduitDTO> getById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes
+        if (service.getProduitVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getProduitById(id));
     }
 
@@ -1,5 +1,9 @@
 package com.toctoc.toctoc2.application.controller;
 
+import com.toctoc.toctoc2.domain.colis.dto.ColisAssignmentResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.TourPlanDTO;
+import com.toctoc.toctoc2.domain.colis.service.ColisAssignmentService;
+import com.toctoc.toctoc2.domain.colis.service.ColisTourService;
 import com.toctoc.toctoc2.domain.livraison.dto.ZoneDTO;
 import com.toctoc.toctoc2.domain.livraison.service.ZoneService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +16,7 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/zones")
@@ -20,17 +25,27 @@ import org.springframework.web.bind.annotation.*;
 public class ZoneController {
 
     private final ZoneService service;
+    private final ColisAssignmentService assignmentService;
+    private final ColisTourService tourService;
 
     @GetMapping
     @Operation(summary = "Liste toutes les zones")
     public ResponseEntity<Page<ZoneDTO>> getAll(
-            @PageableDefault(size = 20, sort = "nom") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "nom") Pageable pageable,
+            WebRequest request) {
+        if (service.getZonesVersion().isListNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getAllZones(pageable));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Récupère une zone par ID")
-    public ResponseEntity<ZoneDTO> getById(@PathVariable String id) {
+    public ResponseEntity<ZoneDTO> getById(@PathVariable String id, WebRequest request) {
+        // 304 : checkNotModified a déjà écrit le statut et les en-têtes
+        if (service.getZoneVersion(id).isNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(service.getZoneById(id));
     }
 
@@ -56,6 +71,18 @@ public class ZoneController {
         return ResponseEntity.ok(service.updateZone(id, dto));
     }
 
+    @PostMapping("/{id}/assignation")
+    @Operation(summary = "Assigne les colis sans livreur de la zone aux livreurs actifs les moins chargés")
+    public ResponseEntity<ColisAssignmentResultDTO> assign(@PathVariable String id) {
+        return ResponseEntity.ok(assignmentService.assignZone(id));
+    }
+
+    @PostMapping("/{id}/tours")
+    @Operation(summary = "Répartit les colis en stock de la zone entre les véhicules des livreurs actifs, selon leur capacité et la priorité des colis")
+    public ResponseEntity<TourPlanDTO> buildTours(@PathVariable String id) {
+        return ResponseEntity.ok(tourService.buildTours(id));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Supprime une zone")
     public ResponseEntity<Void> delete(@PathVariable String id) {
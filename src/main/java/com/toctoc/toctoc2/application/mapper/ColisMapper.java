@@ -2,8 +2,10 @@ package com.toctoc.toctoc2.application.mapper;
 
 import com.toctoc.toctoc2.domain.colis.dto.*;
 import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.model.ColisArchive;
 import com.toctoc.toctoc2.domain.colis.model.ColisProduit;
 import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraison;
+import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraisonArchive;
 import org.mapstruct.*;
 
 import java.util.List;
@@ -23,6 +25,16 @@ public interface ColisMapper {
 
     List<ColisDTO> toDTOList(List<Colis> colis);
 
+    @Mapping(target = "livreurId", source = "livreur.id")
+    @Mapping(target = "livreurNom", expression = "java(getLivreurNom(colis))")
+    @Mapping(target = "clientExpediteurId", source = "clientExpediteur.id")
+    @Mapping(target = "clientExpediteurNom", expression = "java(getClientNom(colis))")
+    @Mapping(target = "destinataireId", source = "destinataire.id")
+    @Mapping(target = "destinataireNom", expression = "java(getDestinataireNom(colis))")
+    @Mapping(target = "zoneId", source = "zone.id")
+    @Mapping(target = "zoneNom", source = "zone.nom")
+    ColisDTO toDTO(ColisArchive colis);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "statut", constant = "CREE")
     @Mapping(target = "dateCreation", ignore = true)
@@ -60,11 +72,30 @@ public interface ColisMapper {
         return colis.getDestinataire().getNom() + " " + colis.getDestinataire().getPrenom();
     }
 
+    default String getLivreurNom(ColisArchive colis) {
+        if (colis.getLivreur() == null) return null;
+        return colis.getLivreur().getNom() + " " + colis.getLivreur().getPrenom();
+    }
+
+    default String getClientNom(ColisArchive colis) {
+        if (colis.getClientExpediteur() == null) return null;
+        return colis.getClientExpediteur().getNom() + " " + colis.getClientExpediteur().getPrenom();
+    }
+
+    default String getDestinataireNom(ColisArchive colis) {
+        if (colis.getDestinataire() == null) return null;
+        return colis.getDestinataire().getNom() + " " + colis.getDestinataire().getPrenom();
+    }
+
     @Mapping(target = "statut", source = "statut")
     HistoriqueLivraisonDTO toHistoriqueDTO(HistoriqueLivraison historique);
 
     List<HistoriqueLivraisonDTO> toHistoriqueDTOList(List<HistoriqueLivraison> historiques);
 
+    HistoriqueLivraisonDTO toHistoriqueDTO(HistoriqueLivraisonArchive historique);
+
+    List<HistoriqueLivraisonDTO> toHistoriqueArchiveDTOList(List<HistoriqueLivraisonArchive> historiques);
+
     @Mapping(target = "produitId", source = "produit.id")
     @Mapping(target = "produitNom", source = "produit.nom")
     ColisProduitDTO toColisProduitDTO(ColisProduit colisProduit);
@@ -1,5 +1,6 @@
 package com.toctoc.toctoc2.domain.client.model;
 
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -8,7 +9,8 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
 
@@ -20,8 +22,7 @@ import java.time.LocalDateTime;
 public class ClientExpediteur {
 
     @Id
-    @GeneratedValue(generator = "uuid")
-    @GenericGenerator(name = "uuid", strategy = "org.hibernate.id.UUIDGenerator")
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", length = 36)
     private String id;
 
@@ -57,6 +58,11 @@ public class ClientExpediteur {
     @Column(name = "date_modification")
     private LocalDateTime dateModification;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         dateCreation = LocalDateTime.now();
@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.client.repository;
 
 import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -23,4 +24,12 @@ public interface ClientExpediteurRepository extends JpaRepository<ClientExpedite
             "LOWER(c.email) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(c.telephone) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<ClientExpediteur> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les entités
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(c), MAX(c.dateModification)) " +
+            "FROM ClientExpediteur c WHERE c.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(c), MAX(c.dateModification)) FROM ClientExpediteur c")
+    ResourceVersion findVersion();
 }
\ No newline at end of file
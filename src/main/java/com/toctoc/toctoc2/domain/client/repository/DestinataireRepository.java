@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.client.repository;
 
 import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -16,4 +17,12 @@ public interface DestinataireRepository extends JpaRepository<Destinataire, Stri
             "LOWER(d.prenom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(d.telephone) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Destinataire> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les entités
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(d), MAX(d.dateModification)) " +
+            "FROM Destinataire d WHERE d.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(d), MAX(d.dateModification)) FROM Destinataire d")
+    ResourceVersion findVersion();
 }
\ No newline at end of file
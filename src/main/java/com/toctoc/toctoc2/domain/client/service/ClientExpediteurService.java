@@ -6,13 +6,21 @@ import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
 import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
 import com.toctoc.toctoc2.infrastructure.exception.DuplicateResourceException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import com.toctoc.toctoc2.infrastructure.search.NGramIndex;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,6 +30,14 @@ public class ClientExpediteurService {
     private final ClientExpediteurRepository repository;
     private final ClientExpediteurMapper mapper;
 
+    private final ReferenceSearchIndexes searchIndexes;
+
+    private final NGramIndex<ClientExpediteurDTO> searchIndex = new NGramIndex<>(
+            ClientExpediteurDTO::getId,
+            client -> Arrays.asList(client.getNom(), client.getPrenom(), client.getEmail(), client.getTelephone()),
+            Comparator.comparing(ClientExpediteurDTO::getNom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(ClientExpediteurDTO::getPrenom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
     public Page<ClientExpediteurDTO> getAllClients(Pageable pageable) {
         log.info("Récupération de tous les clients expéditeurs");
         return repository.findAll(pageable).map(mapper::toDTO);
@@ -32,9 +48,24 @@ public class ClientExpediteurService {
         return mapper.toDTO(findClientById(id));
     }
 
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getClientVersion(String id) {
+        return repository.findVersionById(id);
+    }
+
+    public ResourceVersion getClientsVersion() {
+        return repository.findVersion();
+    }
+
     public Page<ClientExpediteurDTO> searchClients(String keyword, Pageable pageable) {
         log.info("Recherche de clients avec: {}", keyword);
-        return repository.searchByKeyword(keyword, pageable).map(mapper::toDTO);
+        return searchIndexes.search(searchIndex, keyword, pageable,
+                () -> repository.searchByKeyword(keyword, pageable).map(mapper::toDTO));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndexes.rebuild(searchIndex, "clients", () -> mapper.toDTOList(repository.findAll()));
     }
 
     @Transactional
@@ -48,7 +79,7 @@ public class ClientExpediteurService {
         ClientExpediteur client = mapper.toEntity(dto);
         client = repository.save(client);
         log.info("Client créé avec id: {}", client.getId());
-        return mapper.toDTO(client);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(client));
     }
 
     @Transactional
@@ -64,7 +95,7 @@ public class ClientExpediteurService {
         mapper.updateEntity(dto, client);
         client = repository.save(client);
         log.info("Client mis à jour");
-        return mapper.toDTO(client);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(client));
     }
 
     @Transactional
@@ -72,10 +103,11 @@ public class ClientExpediteurService {
         log.info("Suppression du client: {}", id);
         ClientExpediteur client = findClientById(id);
         repository.delete(client);
+        searchIndexes.removeAfterCommit(searchIndex, id);
     }
 
     private ClientExpediteur findClientById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client non trouvé avec id: " + id));
     }
-}
\ No newline at end of file
+}
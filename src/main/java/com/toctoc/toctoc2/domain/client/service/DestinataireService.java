@@ -5,13 +5,21 @@ import com.toctoc.toctoc2.domain.client.dto.DestinataireDTO;
 import com.toctoc.toctoc2.domain.client.model.Destinataire;
 import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import com.toctoc.toctoc2.infrastructure.search.NGramIndex;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +29,14 @@ public class DestinataireService {
     private final DestinataireRepository repository;
     private final DestinataireMapper mapper;
 
+    private final ReferenceSearchIndexes searchIndexes;
+
+    private final NGramIndex<DestinataireDTO> searchIndex = new NGramIndex<>(
+            DestinataireDTO::getId,
+            destinataire -> Arrays.asList(destinataire.getNom(), destinataire.getPrenom(), destinataire.getTelephone()),
+            Comparator.comparing(DestinataireDTO::getNom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(DestinataireDTO::getPrenom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
     public Page<DestinataireDTO> getAllDestinataires(Pageable pageable) {
         log.info("Récupération de tous les destinataires");
         return repository.findAll(pageable).map(mapper::toDTO);
@@ -31,9 +47,24 @@ public class DestinataireService {
         return mapper.toDTO(findDestinataireById(id));
     }
 
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getDestinataireVersion(String id) {
+        return repository.findVersionById(id);
+    }
+
+    public ResourceVersion getDestinatairesVersion() {
+        return repository.findVersion();
+    }
+
     public Page<DestinataireDTO> searchDestinataires(String keyword, Pageable pageable) {
         log.info("Recherche de destinataires avec: {}", keyword);
-        return repository.searchByKeyword(keyword, pageable).map(mapper::toDTO);
+        return searchIndexes.search(searchIndex, keyword, pageable,
+                () -> repository.searchByKeyword(keyword, pageable).map(mapper::toDTO));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndexes.rebuild(searchIndex, "destinataires", () -> mapper.toDTOList(repository.findAll()));
     }
 
     @Transactional
@@ -42,7 +73,7 @@ public class DestinataireService {
         Destinataire destinataire = mapper.toEntity(dto);
         destinataire = repository.save(destinataire);
         log.info("Destinataire créé avec id: {}", destinataire.getId());
-        return mapper.toDTO(destinataire);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(destinataire));
     }
 
     @Transactional
@@ -51,7 +82,7 @@ public class DestinataireService {
         Destinataire destinataire = findDestinataireById(id);
         mapper.updateEntity(dto, destinataire);
         destinataire = repository.save(destinataire);
-        return mapper.toDTO(destinataire);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(destinataire));
     }
 
     @Transactional
@@ -59,10 +90,11 @@ public class DestinataireService {
         log.info("Suppression du destinataire: {}", id);
         Destinataire destinataire = findDestinataireById(id);
         repository.delete(destinataire);
+        searchIndexes.removeAfterCommit(searchIndex, id);
     }
 
     private Destinataire findDestinataireById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Destinataire non trouvé avec id: " + id));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,16 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkColisItemResultDTO {
+    // Position de l'élément dans la requête
+    private int index;
+    private String id;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkColisResultDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BulkColisItemResultDTO> results;
+}
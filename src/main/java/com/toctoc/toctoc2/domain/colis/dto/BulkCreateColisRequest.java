@@ -0,0 +1,20 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateColisRequest {
+
+    // Chaque élément est validé individuellement : un élément invalide n'empêche pas la création des autres
+    @NotEmpty(message = "La liste des colis est obligatoire")
+    @Size(max = 20000, message = "Au plus 20000 colis par requête")
+    private List<CreateColisRequest> colis;
+}
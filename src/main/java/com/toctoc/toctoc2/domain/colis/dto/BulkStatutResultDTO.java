@@ -0,0 +1,20 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatutResultDTO {
+    private int requested;
+    private List<String> updated;
+    // Colis déjà dans le statut demandé
+    private List<String> unchanged;
+    private List<String> notFound;
+    // Colis dont le statut courant n'autorise pas la transition demandée
+    private List<String> rejected;
+}
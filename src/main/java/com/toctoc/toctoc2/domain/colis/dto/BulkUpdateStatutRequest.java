@@ -0,0 +1,26 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateStatutRequest {
+
+    @NotEmpty(message = "La liste des colis est obligatoire")
+    @Size(max = 5000, message = "Au plus 5000 colis par requête")
+    private List<String> ids;
+
+    // Même changement appliqué à tous les colis
+    @Valid
+    @NotNull(message = "Le changement de statut est obligatoire")
+    private UpdateStatutRequest changement;
+}
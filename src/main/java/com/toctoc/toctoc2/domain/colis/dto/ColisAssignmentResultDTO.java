@@ -0,0 +1,19 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisAssignmentResultDTO {
+    private String zoneId;
+    private int assigned;
+    // Colis assignés par ailleurs pendant l'exécution, laissés à leur livreur
+    private int conflicts;
+    // Charge de chaque livreur actif de la zone après l'assignation (colis ouverts, poids total)
+    private List<ColisStatisticsDTO> livreurs;
+}
@@ -0,0 +1,52 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position dans une liste de colis triée par (dateCreation DESC, id DESC).
+ * Le client ne voit qu'une chaîne opaque (Base64 URL-safe).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime dateCreation;
+    private String id;
+
+    public String encode() {
+        String raw = dateCreation + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un curseur reçu du client. Un curseur vide ou absent désigne la première page.
+     */
+    public static ColisCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Curseur de pagination invalide");
+            }
+            return new ColisCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    raw.substring(separator + 1)
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisCursorPageDTO {
+    private List<ColisDTO> content;
+    private int size;
+    private boolean hasNext;
+
+    // Curseur à renvoyer pour obtenir la page suivante (null sur la dernière page)
+    private String nextCursor;
+}
@@ -22,6 +22,8 @@ public class ColisDTO {
     private LocalDateTime dateLimiteLivraison;
     private LocalDateTime dateCollecte;
     private LocalDateTime dateLivraison;
+    private Boolean enRetard;
+    private LocalDateTime dateRetard;
     private LocalDateTime dateCreation;
     private LocalDateTime dateModification;
 
@@ -0,0 +1,26 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisImportStatusDTO {
+    private String id;
+    private String fileName;
+    private ImportStatus status;
+    private long processed;
+    private long succeeded;
+    private long failed;
+    private List<ImportRowErrorDTO> errors;
+    // Seules les premières erreurs sont conservées, failed reste le total
+    private boolean errorsTruncated;
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
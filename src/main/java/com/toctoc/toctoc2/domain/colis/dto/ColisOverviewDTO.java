@@ -0,0 +1,22 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisOverviewDTO {
+    private long total;
+    private Map<StatutColis, Long> byStatut;
+    private Map<PrioriteColis, Long> byPriorite;
+
+    // Date du calcul : la réponse peut provenir du cache
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,22 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisStatusEventDTO {
+    // Identifiant stable : un événement peut être remis plusieurs fois, les consommateurs dédupliquent dessus
+    private String eventId;
+    private String colisId;
+    private StatutColis statut;
+    private StatutColis statutPrecedent;
+    private LocalDateTime dateChangement;
+    private String commentaire;
+    private String modifiePar;
+}
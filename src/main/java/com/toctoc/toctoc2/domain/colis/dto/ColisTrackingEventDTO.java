@@ -0,0 +1,21 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisTrackingEventDTO {
+    private String colisId;
+    private String livreurId;
+    private StatutColis statut;
+    // Null pour l'état initial envoyé à l'abonnement
+    private StatutColis statutPrecedent;
+    private LocalDateTime dateChangement;
+    private String commentaire;
+}
@@ -0,0 +1,14 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowErrorDTO {
+    // Ligne du fichier (l'en-tête est la ligne 1)
+    private long line;
+    private String message;
+}
@@ -0,0 +1,10 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+public enum ImportStatus {
+    // En attente d'un thread d'import
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    // Fichier illisible : les lots déjà écrits restent en base
+    FAILED
+}
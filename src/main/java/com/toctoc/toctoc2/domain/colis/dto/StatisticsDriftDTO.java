@@ -0,0 +1,24 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsDriftDTO {
+    private DimensionStatistique dimension;
+    private String key;
+
+    // Valeurs des compteurs avant correction
+    private long storedCount;
+    private BigDecimal storedWeight;
+
+    // Valeurs recalculées depuis la table colis
+    private long actualCount;
+    private BigDecimal actualWeight;
+}
@@ -0,0 +1,16 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsReconciliationDTO {
+    private int checked;
+    private int drifted;
+    private List<StatisticsDriftDTO> drifts;
+}
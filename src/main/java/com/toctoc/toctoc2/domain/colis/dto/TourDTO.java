@@ -0,0 +1,23 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import com.toctoc.toctoc2.domain.livraison.model.TypeVehicule;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourDTO {
+    private String livreurId;
+    private String livreurNom;
+    private TypeVehicule typeVehicule;
+    // Charge utile disponible (hors colis déjà engagés du livreur) et poids chargé, en kg
+    private BigDecimal capacite;
+    private BigDecimal poids;
+    // Colis dans l'ordre de chargement : priorité puis poids décroissants
+    private List<String> colisIds;
+}
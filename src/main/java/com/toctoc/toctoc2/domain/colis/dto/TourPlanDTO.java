@@ -0,0 +1,21 @@
+package com.toctoc.toctoc2.domain.colis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourPlanDTO {
+    private String zoneId;
+    private List<TourDTO> tours;
+    // Colis répartis trop lourds pour la capacité restante : retirés de leur livreur, pour la prochaine tournée
+    private List<String> nonPlaces;
+    // Livreurs actifs dont le véhicule ne correspond à aucun profil connu
+    private List<String> livreursIgnores;
+    // Colis modifiés pendant le calcul, laissés en l'état
+    private int conflicts;
+}
@@ -4,6 +4,7 @@ import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
 import com.toctoc.toctoc2.domain.client.model.Destinataire;
 import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -12,21 +13,34 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "colis")
+@NamedEntityGraph(
+        name = Colis.GRAPH_RELATIONS,
+        attributeNodes = {
+                @NamedAttributeNode("livreur"),
+                @NamedAttributeNode("clientExpediteur"),
+                @NamedAttributeNode("destinataire"),
+                @NamedAttributeNode("zone")
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Colis {
 
+    // Relations lues par ColisMapper.toDTO : chargées dans la même requête que le colis
+    public static final String GRAPH_RELATIONS = "Colis.relations";
+
     @Id
-    @GeneratedValue(generator = "uuid")
-    @GenericGenerator(name = "uuid", strategy = "org.hibernate.id.UUIDGenerator")
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", length = 36)
     private String id;
 
@@ -82,15 +96,30 @@ public class Colis {
     @Column(name = "date_livraison")
     private LocalDateTime dateLivraison;
 
+    // Positionné par ColisOverdueDetectionJob lorsque la date limite est dépassée
+    @Column(name = "en_retard", nullable = false)
+    private Boolean enRetard = false;
+
+    @Column(name = "date_retard")
+    private LocalDateTime dateRetard;
+
     @Column(name = "date_creation", nullable = false, updatable = false)
     private LocalDateTime dateCreation;
 
     @Column(name = "date_modification")
     private LocalDateTime dateModification;
 
+    // Verrouillage optimiste des écritures JPA (updateColis) ; les mises à jour JDBC du statut
+    // incrémentent aussi la version, pour qu'aucune des deux n'écrase l'autre
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
-        dateCreation = LocalDateTime.now();
+        // Précision de la colonne timestamp : la valeur en mémoire doit rester égale à celle stockée (curseurs)
+        dateCreation = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         dateModification = LocalDateTime.now();
     }
 
@@ -0,0 +1,99 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Colis clos (livré, retourné, annulé) déplacé hors de la table colis par ColisArchiveJob.
+ * Mêmes colonnes que {@link Colis}, en lecture seule : seul le job écrit dans colis_archive, par JDBC.
+ */
+@Entity
+@Immutable
+@Table(name = "colis_archive")
+@NamedEntityGraph(
+        name = ColisArchive.GRAPH_RELATIONS,
+        attributeNodes = {
+                @NamedAttributeNode("livreur"),
+                @NamedAttributeNode("clientExpediteur"),
+                @NamedAttributeNode("destinataire"),
+                @NamedAttributeNode("zone")
+        }
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisArchive {
+
+    public static final String GRAPH_RELATIONS = "ColisArchive.relations";
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "description", nullable = false, length = 500)
+    private String description;
+
+    @Column(name = "poids", nullable = false, precision = 10, scale = 2)
+    private BigDecimal poids;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private StatutColis statut;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "priorite", nullable = false, length = 20)
+    private PrioriteColis priorite;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "livreur_id")
+    private Livreur livreur;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "client_expediteur_id", nullable = false)
+    private ClientExpediteur clientExpediteur;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "destinataire_id", nullable = false)
+    private Destinataire destinataire;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "zone_id")
+    private Zone zone;
+
+    @Column(name = "ville_destination", nullable = false, length = 100)
+    private String villeDestination;
+
+    @Column(name = "date_limite_livraison")
+    private LocalDateTime dateLimiteLivraison;
+
+    @Column(name = "date_collecte")
+    private LocalDateTime dateCollecte;
+
+    @Column(name = "date_livraison")
+    private LocalDateTime dateLivraison;
+
+    @Column(name = "en_retard", nullable = false)
+    private Boolean enRetard;
+
+    @Column(name = "date_retard")
+    private LocalDateTime dateRetard;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+
+    @Column(name = "date_archivage", nullable = false)
+    private LocalDateTime dateArchivage;
+}
@@ -0,0 +1,32 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Remise d'un événement de l'outbox à un destinataire ({@code ColisEventSink.name()}).
+ * Écrite par ColisOutboxRelay, supprimée avec l'événement à la purge.
+ */
+@Entity
+@Table(name = "colis_outbox_envoi")
+@IdClass(ColisOutboxEnvoiId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisOutboxEnvoi {
+
+    @Id
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+
+    @Id
+    @Column(name = "sink", length = 50)
+    private String sink;
+
+    @Column(name = "date_envoi", nullable = false)
+    private LocalDateTime dateEnvoi;
+}
@@ -0,0 +1,15 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisOutboxEnvoiId implements Serializable {
+    private String eventId;
+    private String sink;
+}
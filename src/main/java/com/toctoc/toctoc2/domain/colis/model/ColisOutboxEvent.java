@@ -0,0 +1,60 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Changement de statut à diffuser aux consommateurs externes, écrit dans la même transaction que
+ * l'historique puis relayé par ColisOutboxRelay. Les ids UUIDv7 donnent l'ordre d'écriture des événements
+ * d'un même colis, écrits sous le verrou de sa ligne.
+ * <p>
+ * Pas de clé étrangère vers colis : un événement reste diffusable même si le colis est supprimé entre-temps.
+ */
+@Entity
+@Table(name = "colis_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisOutboxEvent {
+
+    @Id
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "colis_id", nullable = false, length = 36)
+    private String colisId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private StatutColis statut;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut_precedent", length = 20)
+    private StatutColis statutPrecedent;
+
+    @Column(name = "date_changement", nullable = false)
+    private LocalDateTime dateChangement;
+
+    @Column(name = "commentaire", length = 500)
+    private String commentaire;
+
+    @Column(name = "modifie_par", length = 100)
+    private String modifiePar;
+
+    // Null tant que l'événement n'a pas été remis à tous les destinataires
+    @Column(name = "date_envoi")
+    private LocalDateTime dateEnvoi;
+
+    @Column(name = "tentatives", nullable = false)
+    private int tentatives;
+
+    @Column(name = "derniere_erreur", length = 500)
+    private String derniereErreur;
+}
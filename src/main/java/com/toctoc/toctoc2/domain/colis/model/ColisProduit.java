@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.colis.model;
 
 import com.toctoc.toctoc2.domain.produit.model.Produit;
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -8,7 +9,9 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -21,14 +24,14 @@ import java.time.LocalDateTime;
 public class ColisProduit {
 
     @Id
-    @GeneratedValue(generator = "uuid")
-    @GenericGenerator(name = "uuid", strategy = "org.hibernate.id.UUIDGenerator")
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", length = 36)
     private String id;
 
     @NotNull(message = "Le colis est obligatoire")
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "colis_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Colis colis;
 
     @NotNull(message = "Le produit est obligatoire")
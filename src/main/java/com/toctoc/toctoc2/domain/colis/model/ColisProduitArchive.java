@@ -0,0 +1,41 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Produit d'un colis archivé, déplacé avec lui depuis colis_produit.
+ */
+@Entity
+@Immutable
+@Table(name = "colis_produit_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisProduitArchive {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "colis_id", nullable = false, length = 36)
+    private String colisId;
+
+    @Column(name = "produit_id", nullable = false, length = 36)
+    private String produitId;
+
+    @Column(name = "quantite", nullable = false)
+    private Integer quantite;
+
+    @Column(name = "prix", nullable = false, precision = 10, scale = 2)
+    private BigDecimal prix;
+
+    @Column(name = "date_ajout")
+    private LocalDateTime dateAjout;
+}
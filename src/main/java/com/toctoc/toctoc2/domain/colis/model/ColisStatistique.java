@@ -0,0 +1,46 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compteur agrégé des colis pour une valeur de dimension (id de livreur, id de zone, statut ou priorité).
+ * Maintenu par ColisStatisticsService dans la transaction qui modifie les colis.
+ */
+@Entity
+@Table(name = "colis_statistique")
+@IdClass(ColisStatistiqueId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ColisStatistique {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", length = 20)
+    private DimensionStatistique dimension;
+
+    @Id
+    @Column(name = "cle", length = 36)
+    private String cle;
+
+    @Column(name = "nombre", nullable = false)
+    private long nombre;
+
+    @Column(name = "poids_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal poidsTotal = BigDecimal.ZERO;
+
+    @Column(name = "date_modification")
+    private LocalDateTime dateModification;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        dateModification = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+public enum DimensionStatistique {
+    LIVREUR,
+    ZONE,
+    STATUT,
+    PRIORITE
+}
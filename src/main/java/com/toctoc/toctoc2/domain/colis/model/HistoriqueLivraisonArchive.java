@@ -0,0 +1,41 @@
+package com.toctoc.toctoc2.domain.colis.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée d'historique d'un colis archivé, déplacée avec lui depuis historique_livraison.
+ */
+@Entity
+@Immutable
+@Table(name = "historique_livraison_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoriqueLivraisonArchive {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "colis_id", nullable = false, length = 36)
+    private String colisId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private StatutColis statut;
+
+    @Column(name = "date_changement", nullable = false)
+    private LocalDateTime dateChangement;
+
+    @Column(name = "commentaire", length = 500)
+    private String commentaire;
+
+    @Column(name = "modifie_par", length = 100)
+    private String modifiePar;
+}
@@ -18,4 +18,9 @@ public enum StatutColis {
     public String getLibelle() {
         return libelle;
     }
+
+    // Statuts de fin de cycle : le colis ne peut plus être en retard
+    public boolean isTerminal() {
+        return this == LIVRE || this == RETOURNE || this == ANNULE;
+    }
 }
\ No newline at end of file
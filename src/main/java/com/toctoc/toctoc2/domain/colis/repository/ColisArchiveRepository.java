@@ -0,0 +1,59 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.ColisArchive;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lectures des colis archivés ; les écritures passent par {@link ColisJdbcRepository#archiveClosed}.
+ */
+@Repository
+public interface ColisArchiveRepository extends JpaRepository<ColisArchive, String> {
+
+    @Override
+    @EntityGraph(ColisArchive.GRAPH_RELATIONS)
+    Optional<ColisArchive> findById(String id);
+
+    // Version des comptes de colis archivés (index idx_colis_archive_date_archivage)
+    @Query("SELECT MAX(c.dateArchivage) FROM ColisArchive c")
+    Optional<LocalDateTime> findLastDateArchivage();
+
+    // Mêmes agrégats que ColisRepository : les compteurs de statistiques incluent les colis archivés
+    @Query("SELECT c.livreur.id, COUNT(c), SUM(c.poids) FROM ColisArchive c " +
+            "WHERE c.livreur IS NOT NULL " +
+            "GROUP BY c.livreur.id")
+    List<Object[]> countAndSumWeightByLivreur();
+
+    @Query("SELECT c.zone.id, c.zone.nom, COUNT(c), SUM(c.poids) FROM ColisArchive c " +
+            "WHERE c.zone IS NOT NULL " +
+            "GROUP BY c.zone.id, c.zone.nom")
+    List<Object[]> countAndSumWeightByZone();
+
+    @Query("SELECT c.statut, COUNT(c), SUM(c.poids) FROM ColisArchive c GROUP BY c.statut")
+    List<Object[]> countAndSumWeightByStatut();
+
+    @Query("SELECT c.priorite, COUNT(c), SUM(c.poids) FROM ColisArchive c GROUP BY c.priorite")
+    List<Object[]> countAndSumWeightByPriorite();
+
+    @Query("SELECT c.statut, COUNT(c) FROM ColisArchive c GROUP BY c.statut")
+    List<Object[]> countByStatut();
+
+    @Query("SELECT c.priorite, COUNT(c) FROM ColisArchive c GROUP BY c.priorite")
+    List<Object[]> countByPriorite();
+
+    // Même version que ColisRepository.findVersionById : les noms des entités liées peuvent encore changer
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(c), COUNT(l) + COUNT(z), " +
+            "MAX(GREATEST(c.dateModification, e.dateModification, d.dateModification, " +
+            "COALESCE(l.dateModification, c.dateModification), COALESCE(z.dateModification, c.dateModification)))) " +
+            "FROM ColisArchive c LEFT JOIN c.clientExpediteur e LEFT JOIN c.destinataire d " +
+            "LEFT JOIN c.livreur l LEFT JOIN c.zone z WHERE c.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+}
@@ -0,0 +1,523 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraison;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Écritures en masse via JDBC batch (COPY pour les colis et leur historique sur PostgreSQL),
+ * hors du contexte de persistance JPA.
+ * Les ids et les dates doivent être renseignés par l'appelant ; les entités passées
+ * ne sont pas rattachées à l'EntityManager.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ColisJdbcRepository {
+
+    static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_COLIS = "INSERT INTO colis (" +
+            "id, description, poids, statut, priorite, ville_destination, date_limite_livraison, " +
+            "livreur_id, client_expediteur_id, destinataire_id, zone_id, date_creation, date_modification, en_retard) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE)";
+
+    // Sur PostgreSQL, les imports écrivent les colis et leur historique par COPY (environ deux fois
+    // le débit des lots JDBC, voir ColisImportCopyBenchmarkTest)
+    private static final String COPY_COLIS = "COPY colis (" +
+            "id, description, poids, statut, priorite, ville_destination, date_limite_livraison, " +
+            "livreur_id, client_expediteur_id, destinataire_id, zone_id, date_creation, date_modification, en_retard) " +
+            "FROM STDIN (FORMAT csv)";
+
+    private static final String COPY_HISTORIQUE = "COPY historique_livraison (" +
+            "id, colis_id, statut, date_changement, commentaire, modifie_par) FROM STDIN (FORMAT csv)";
+
+    private static final String INSERT_HISTORIQUE = "INSERT INTO historique_livraison (" +
+            "id, colis_id, statut, date_changement, commentaire, modifie_par) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX = "INSERT INTO colis_outbox (" +
+            "id, colis_id, statut, statut_precedent, date_changement, commentaire, modifie_par, tentatives) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_OUTBOX_ENVOI = "INSERT INTO colis_outbox_envoi (event_id, sink, date_envoi) " +
+            "VALUES (?, ?, ?)";
+
+    // Prédicat identique à celui de l'index partiel idx_colis_ouverts_date_limite (PostgreSQL) :
+    // les statuts sont écrits en littéraux pour que le planificateur puisse l'utiliser.
+    // date_modification avance aussi : elle sert de version aux réponses conditionnelles (ETag)
+    private static final String MARK_OVERDUE = "UPDATE colis SET en_retard = TRUE, date_retard = :now, " +
+            "date_modification = :now, version = version + 1 " +
+            "WHERE id IN (SELECT id FROM colis " +
+            "WHERE en_retard = FALSE AND statut NOT IN ('LIVRE', 'RETOURNE', 'ANNULE') " +
+            "AND date_limite_livraison < :now " +
+            "ORDER BY date_limite_livraison LIMIT :limit)";
+
+    // Prédicat identique à celui de l'index partiel idx_colis_clos_date_modification (PostgreSQL).
+    // SKIP LOCKED : un colis en cours de modification sera archivé au prochain passage
+    private static final String SELECT_CLOSED = "SELECT id FROM colis " +
+            "WHERE statut IN ('LIVRE', 'RETOURNE', 'ANNULE') AND date_modification < :before " +
+            "ORDER BY date_modification LIMIT :limit FOR UPDATE SKIP LOCKED";
+
+    private static final String COLIS_COLUMNS = "id, description, poids, statut, priorite, ville_destination, " +
+            "date_limite_livraison, date_collecte, date_livraison, livreur_id, client_expediteur_id, destinataire_id, " +
+            "zone_id, en_retard, date_retard, date_creation, date_modification";
+
+    private static final String ARCHIVE_COLIS = "INSERT INTO colis_archive (" + COLIS_COLUMNS + ", date_archivage) " +
+            "SELECT " + COLIS_COLUMNS + ", :now FROM colis WHERE id IN (:ids)";
+
+    private static final String ARCHIVE_PRODUITS = "INSERT INTO colis_produit_archive (" +
+            "id, colis_id, produit_id, quantite, prix, date_ajout) " +
+            "SELECT id, colis_id, produit_id, quantite, prix, date_ajout FROM colis_produit WHERE colis_id IN (:ids)";
+
+    private static final String ARCHIVE_HISTORIQUES = "INSERT INTO historique_livraison_archive (" +
+            "id, colis_id, statut, date_changement, commentaire, modifie_par) " +
+            "SELECT id, colis_id, statut, date_changement, commentaire, modifie_par " +
+            "FROM historique_livraison WHERE colis_id IN (:ids) AND date_changement >= :depuis";
+
+    // Borne sur la clé de partition de historique_livraison : seules les partitions des mois
+    // écoulés depuis la création des colis sont parcourues (même borne que ColisService)
+    private static final String DELETE_HISTORIQUES = "DELETE FROM historique_livraison " +
+            "WHERE colis_id IN (:ids) AND date_changement >= :depuis";
+
+    private static final String SELECT_MIN_DATE_CREATION = "SELECT MIN(date_creation) FROM colis WHERE id IN (:ids)";
+
+    // Colis ouverts d'une zone sans livreur, par ordre d'id (pagination par clé)
+    private static final String SELECT_UNASSIGNED = "SELECT id, poids FROM colis " +
+            "WHERE zone_id = :zoneId AND livreur_id IS NULL AND statut NOT IN ('LIVRE', 'RETOURNE', 'ANNULE') " +
+            "AND id > :after ORDER BY id LIMIT :limit";
+
+    private static final String SELECT_OPEN_LOAD = "SELECT livreur_id, COUNT(*) AS nombre, SUM(poids) AS poids " +
+            "FROM colis WHERE livreur_id IN (:ids) AND statut NOT IN ('LIVRE', 'RETOURNE', 'ANNULE') " +
+            "GROUP BY livreur_id";
+
+    // Un colis assigné entre-temps (manuellement ou par une autre exécution) n'est pas réassigné
+    private static final String ASSIGN_LIVREUR = "UPDATE colis SET livreur_id = ?, date_modification = ?, " +
+            "version = version + 1 WHERE id = ? AND livreur_id IS NULL";
+
+    private static final String SELECT_STOCKED = "SELECT id, poids, priorite, livreur_id, version FROM colis " +
+            "WHERE zone_id = :zoneId AND statut = 'EN_STOCK'";
+
+    // La version lue avec le colis : un colis modifié depuis (statut, livreur) garde son état
+    private static final String REASSIGN_LIVREUR = "UPDATE colis SET livreur_id = ?, date_modification = ?, " +
+            "version = version + 1 WHERE id = ? AND version = ?";
+
+    // Premier incrément d'une clé : l'INSERT et l'UPDATE sont une seule instruction, deux transactions
+    // qui créent la même ligne se sérialisent sur la clé primaire au lieu d'échouer sur le doublon
+    private static final String UPSERT_STATISTIQUE_POSTGRES = "INSERT INTO colis_statistique " +
+            "(dimension, cle, nombre, poids_total, date_modification) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (dimension, cle) DO UPDATE SET " +
+            "nombre = colis_statistique.nombre + EXCLUDED.nombre, " +
+            "poids_total = colis_statistique.poids_total + EXCLUDED.poids_total, " +
+            "date_modification = EXCLUDED.date_modification";
+
+    // H2 (tests) ne connaît pas ON CONFLICT ... DO UPDATE
+    private static final String UPSERT_STATISTIQUE_MERGE = "MERGE INTO colis_statistique s USING (VALUES (" +
+            "CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(36)), CAST(? AS BIGINT), CAST(? AS DECIMAL(14,2)), " +
+            "CAST(? AS TIMESTAMP))) v (dimension, cle, nombre, poids_total, date_modification) " +
+            "ON s.dimension = v.dimension AND s.cle = v.cle " +
+            "WHEN MATCHED THEN UPDATE SET nombre = s.nombre + v.nombre, poids_total = s.poids_total + v.poids_total, " +
+            "date_modification = v.date_modification " +
+            "WHEN NOT MATCHED THEN INSERT (dimension, cle, nombre, poids_total, date_modification) " +
+            "VALUES (v.dimension, v.cle, v.nombre, v.poids_total, v.date_modification)";
+
+    // Taille maximale d'une liste IN (...)
+    static final int IN_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public record LockedColis(StatutColis statut, BigDecimal poids, String livreurId) {
+    }
+
+    public record UnassignedColis(String id, BigDecimal poids) {
+    }
+
+    public record OpenLoad(long nombre, BigDecimal poids) {
+    }
+
+    public record Assignment(String colisId, String livreurId) {
+    }
+
+    public record StockedColis(String id, BigDecimal poids, PrioriteColis priorite, String livreurId, long version) {
+    }
+
+    public record Reassignment(String colisId, String livreurId, long version) {
+    }
+
+    public record StatistiqueIncrement(DimensionStatistique dimension, String cle, long nombre, BigDecimal poids) {
+    }
+
+    public void insertColis(List<Colis> colis) {
+        if (postgres()) {
+            copy(COPY_COLIS, colis, c -> new Object[]{
+                    c.getId(), c.getDescription(), c.getPoids(), c.getStatut(), c.getPriorite(),
+                    c.getVilleDestination(), c.getDateLimiteLivraison(),
+                    c.getLivreur() != null ? c.getLivreur().getId() : null,
+                    c.getClientExpediteur().getId(), c.getDestinataire().getId(),
+                    c.getZone() != null ? c.getZone().getId() : null,
+                    c.getDateCreation(), c.getDateModification(), false});
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_COLIS, colis, BATCH_SIZE, (ps, c) -> {
+            ps.setString(1, c.getId());
+            ps.setString(2, c.getDescription());
+            ps.setBigDecimal(3, c.getPoids());
+            ps.setString(4, c.getStatut().name());
+            ps.setString(5, c.getPriorite().name());
+            ps.setString(6, c.getVilleDestination());
+            setTimestamp(ps, 7, c.getDateLimiteLivraison());
+            ps.setString(8, c.getLivreur() != null ? c.getLivreur().getId() : null);
+            ps.setString(9, c.getClientExpediteur().getId());
+            ps.setString(10, c.getDestinataire().getId());
+            ps.setString(11, c.getZone() != null ? c.getZone().getId() : null);
+            setTimestamp(ps, 12, c.getDateCreation());
+            setTimestamp(ps, 13, c.getDateModification());
+        });
+    }
+
+    public void insertHistoriques(List<HistoriqueLivraison> historiques) {
+        if (postgres()) {
+            copy(COPY_HISTORIQUE, historiques, h -> new Object[]{
+                    h.getId(), h.getColis().getId(), h.getStatut(), h.getDateChangement(),
+                    h.getCommentaire(), h.getModifiePar()});
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_HISTORIQUE, historiques, BATCH_SIZE, (ps, h) -> {
+            ps.setString(1, h.getId());
+            ps.setString(2, h.getColis().getId());
+            ps.setString(3, h.getStatut().name());
+            setTimestamp(ps, 4, h.getDateChangement());
+            ps.setString(5, h.getCommentaire());
+            ps.setString(6, h.getModifiePar());
+        });
+    }
+
+    public void insertOutboxEvents(List<ColisOutboxEvent> events) {
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, events, BATCH_SIZE, (ps, e) -> {
+            ps.setString(1, e.getId());
+            ps.setString(2, e.getColisId());
+            ps.setString(3, e.getStatut().name());
+            ps.setString(4, e.getStatutPrecedent() != null ? e.getStatutPrecedent().name() : null);
+            setTimestamp(ps, 5, e.getDateChangement());
+            ps.setString(6, e.getCommentaire());
+            ps.setString(7, e.getModifiePar());
+        });
+    }
+
+    public void insertOutboxEnvois(List<String> eventIds, String sink, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_ENVOI, eventIds, BATCH_SIZE, (ps, id) -> {
+            ps.setString(1, id);
+            ps.setString(2, sink);
+            setTimestamp(ps, 3, now);
+        });
+    }
+
+    /**
+     * Ajoute les deltas aux compteurs, en créant les lignes absentes. Les incréments sont écrits dans
+     * l'ordre reçu : l'appelant les trie pour que deux transactions verrouillent les lignes dans le même ordre.
+     */
+    public void incrementStatistiques(List<StatistiqueIncrement> increments, LocalDateTime now) {
+        jdbcTemplate.batchUpdate(upsertStatistique(), increments, BATCH_SIZE, (ps, i) -> {
+            ps.setString(1, i.dimension().name());
+            ps.setString(2, i.cle());
+            ps.setLong(3, i.nombre());
+            ps.setBigDecimal(4, i.poids());
+            setTimestamp(ps, 5, now);
+        });
+    }
+
+    /**
+     * Verrouille les colis demandés (SELECT ... FOR UPDATE) et renvoie leur statut courant,
+     * leur poids (statistiques par statut) et leur livreur (suivi en temps réel).
+     * Les ids absents de la map n'existent pas. Les lignes sont verrouillées dans l'ordre des ids,
+     * tranche après tranche : deux mises à jour en masse qui se recouvrent ne peuvent pas s'interbloquer.
+     */
+    public Map<String, LockedColis> lockStatuts(Collection<String> ids) {
+        Map<String, LockedColis> statuts = new HashMap<>();
+        for (List<String> chunk : chunks(new TreeSet<>(ids))) {
+            namedJdbcTemplate.query(
+                    "SELECT id, statut, poids, livreur_id FROM colis WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                    Map.of("ids", chunk),
+                    rs -> {
+                        statuts.put(rs.getString("id"), new LockedColis(
+                                StatutColis.valueOf(rs.getString("statut")), rs.getBigDecimal("poids"),
+                                rs.getString("livreur_id")));
+                    });
+        }
+        return statuts;
+    }
+
+    /**
+     * Statut, poids et livreur courants d'un colis, sans verrou ni chargement de l'entité :
+     * la lecture qui précède {@link #compareAndSetStatut}.
+     */
+    public Optional<LockedColis> findStatut(String id) {
+        List<LockedColis> rows = namedJdbcTemplate.query(
+                "SELECT statut, poids, livreur_id FROM colis WHERE id = :id",
+                Map.of("id", id),
+                (rs, rowNum) -> new LockedColis(StatutColis.valueOf(rs.getString("statut")),
+                        rs.getBigDecimal("poids"), rs.getString("livreur_id")));
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Passe les colis au statut donné en une requête par tranche d'ids, avec les mêmes règles
+     * de dates que ColisService : date de collecte / de livraison renseignées si encore vides.
+     */
+    public int updateStatut(Collection<String> ids, StatutColis statut, LocalDateTime now) {
+        String sql = statutUpdate(statut) + " WHERE id IN (:ids) AND statut <> :statut";
+
+        int updated = 0;
+        for (List<String> chunk : chunks(ids)) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("statut", statut.name())
+                    .addValue("now", Timestamp.valueOf(now))
+                    .addValue("ids", chunk);
+            updated += namedJdbcTemplate.update(sql, params);
+        }
+        return updated;
+    }
+
+    /**
+     * Passe le colis au statut donné seulement s'il est toujours au statut {@code expected}.
+     * Renvoie faux si une autre transaction l'a modifié entre-temps : l'appelant relit et réessaie.
+     */
+    public boolean compareAndSetStatut(String id, StatutColis expected, StatutColis statut, LocalDateTime now) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("statut", statut.name())
+                .addValue("expected", expected.name())
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("id", id);
+        return namedJdbcTemplate.update(statutUpdate(statut) + " WHERE id = :id AND statut = :expected", params) == 1;
+    }
+
+    private String statutUpdate(StatutColis statut) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE colis SET statut = :statut, date_modification = :now, version = version + 1");
+        if (statut == StatutColis.COLLECTE) {
+            sql.append(", date_collecte = COALESCE(date_collecte, :now)");
+        } else if (statut == StatutColis.LIVRE) {
+            sql.append(", date_livraison = COALESCE(date_livraison, :now)");
+        }
+        if (statut.isTerminal()) {
+            sql.append(", en_retard = FALSE");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Au plus {@code limit} colis ouverts de la zone sans livreur, d'id supérieur à {@code after}.
+     */
+    public List<UnassignedColis> findUnassigned(String zoneId, String after, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("zoneId", zoneId)
+                .addValue("after", after)
+                .addValue("limit", limit);
+        return namedJdbcTemplate.query(SELECT_UNASSIGNED, params,
+                (rs, rowNum) -> new UnassignedColis(rs.getString("id"), rs.getBigDecimal("poids")));
+    }
+
+    /**
+     * Nombre et poids total des colis ouverts de chaque livreur ; un livreur sans colis ouvert est absent.
+     */
+    public Map<String, OpenLoad> findOpenLoad(Collection<String> livreurIds) {
+        Map<String, OpenLoad> loads = new HashMap<>();
+        for (List<String> chunk : chunks(livreurIds)) {
+            namedJdbcTemplate.query(SELECT_OPEN_LOAD, Map.of("ids", chunk), rs -> {
+                BigDecimal poids = rs.getBigDecimal("poids");
+                loads.put(rs.getString("livreur_id"),
+                        new OpenLoad(rs.getLong("nombre"), poids != null ? poids : BigDecimal.ZERO));
+            });
+        }
+        return loads;
+    }
+
+    /**
+     * Assigne chaque colis à son livreur s'il n'en a toujours pas. Renvoie les assignations appliquées.
+     */
+    public List<Assignment> assignLivreurs(List<Assignment> assignments, LocalDateTime now) {
+        int[][] counts = jdbcTemplate.batchUpdate(ASSIGN_LIVREUR, assignments, BATCH_SIZE, (ps, a) -> {
+            ps.setString(1, a.livreurId());
+            setTimestamp(ps, 2, now);
+            ps.setString(3, a.colisId());
+        });
+        return applied(assignments, counts);
+    }
+
+    /**
+     * Colis en stock d'une zone, assignés ou non, avec leur version.
+     */
+    public List<StockedColis> findStocked(String zoneId) {
+        return namedJdbcTemplate.query(SELECT_STOCKED, Map.of("zoneId", zoneId),
+                (rs, rowNum) -> new StockedColis(rs.getString("id"), rs.getBigDecimal("poids"),
+                        PrioriteColis.valueOf(rs.getString("priorite")), rs.getString("livreur_id"),
+                        rs.getLong("version")));
+    }
+
+    /**
+     * Donne chaque colis à son nouveau livreur ({@code null} : retiré de son livreur) si sa version n'a pas
+     * changé. Renvoie les réassignations appliquées.
+     */
+    public List<Reassignment> reassignLivreurs(List<Reassignment> reassignments, LocalDateTime now) {
+        int[][] counts = jdbcTemplate.batchUpdate(REASSIGN_LIVREUR, reassignments, BATCH_SIZE, (ps, r) -> {
+            ps.setString(1, r.livreurId());
+            setTimestamp(ps, 2, now);
+            ps.setString(3, r.colisId());
+            ps.setLong(4, r.version());
+        });
+        return applied(reassignments, counts);
+    }
+
+    private static <T> List<T> applied(List<T> items, int[][] counts) {
+        List<T> applied = new ArrayList<>(items.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    applied.add(items.get(index));
+                }
+                index++;
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Marque en retard au plus {@code limit} colis ouverts dont la date limite est dépassée.
+     * Seuls les colis non encore marqués sont lus : chaque passage ne traite que les nouveaux retards.
+     */
+    public int markOverdue(LocalDateTime now, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("limit", limit);
+        return namedJdbcTemplate.update(MARK_OVERDUE, params);
+    }
+
+    /**
+     * Déplace au plus {@code limit} colis clos non modifiés depuis {@code before}, avec leurs produits
+     * et leur historique, vers les tables d'archive. Les colis sont verrouillés pendant le déplacement ;
+     * l'historique n'est lu qu'à partir du mois de création du plus ancien colis de chaque lot.
+     * Renvoie les ids archivés.
+     */
+    public List<String> archiveClosed(LocalDateTime before, LocalDateTime now, int limit) {
+        MapSqlParameterSource selection = new MapSqlParameterSource()
+                .addValue("before", Timestamp.valueOf(before))
+                .addValue("limit", limit);
+        List<String> ids = namedJdbcTemplate.queryForList(SELECT_CLOSED, selection, String.class);
+
+        for (List<String> chunk : chunks(ids)) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("now", Timestamp.valueOf(now))
+                    .addValue("ids", chunk);
+            Timestamp creation = namedJdbcTemplate.queryForObject(SELECT_MIN_DATE_CREATION, params, Timestamp.class);
+            params.addValue("depuis", Timestamp.valueOf(
+                    creation.toLocalDateTime().toLocalDate().withDayOfMonth(1).atStartOfDay()));
+            namedJdbcTemplate.update(ARCHIVE_COLIS, params);
+            namedJdbcTemplate.update(ARCHIVE_PRODUITS, params);
+            namedJdbcTemplate.update(ARCHIVE_HISTORIQUES, params);
+            namedJdbcTemplate.update("DELETE FROM colis_produit WHERE colis_id IN (:ids)", params);
+            namedJdbcTemplate.update(DELETE_HISTORIQUES, params);
+            namedJdbcTemplate.update("DELETE FROM colis WHERE id IN (:ids)", params);
+        }
+        return ids;
+    }
+
+    private String upsertStatistique() {
+        return postgres() ? UPSERT_STATISTIQUE_POSTGRES : UPSERT_STATISTIQUE_MERGE;
+    }
+
+    private boolean postgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equals(product);
+        }
+        return postgres;
+    }
+
+    // COPY FROM STDIN sur la connexion de la transaction courante, par paquets de BATCH_SIZE lignes
+    private <T> void copy(String sql, List<T> rows, Function<T, Object[]> values) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                StringBuilder csv = new StringBuilder();
+                for (T row : rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()))) {
+                    appendCsv(csv, values.apply(row));
+                }
+                try {
+                    copyManager.copyIn(sql, new StringReader(csv.toString()));
+                } catch (IOException e) {
+                    throw new SQLException("COPY interrompu", e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Une ligne au format CSV de COPY : un champ vide non guillemeté vaut NULL,
+     * toute valeur renseignée est guillemetée (chaîne vide, séparateurs et retours à la ligne compris).
+     */
+    static void appendCsv(StringBuilder csv, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text;
+            if (value instanceof BigDecimal decimal) {
+                text = decimal.toPlainString();
+            } else if (value instanceof Enum<?> constant) {
+                text = constant.name();
+            } else {
+                text = value.toString(); // LocalDateTime : format ISO accepté par PostgreSQL
+            }
+            csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+        csv.append('\n');
+    }
+
+    private static List<List<String>> chunks(Collection<String> ids) {
+        List<String> all = new ArrayList<>(ids);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(all.subList(from, Math.min(from + IN_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+}
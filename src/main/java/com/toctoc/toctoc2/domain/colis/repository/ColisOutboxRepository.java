@@ -0,0 +1,48 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ColisOutboxRepository extends JpaRepository<ColisOutboxEvent, String> {
+
+    // Délai de verrou -2 : SKIP LOCKED, deux relais ne prennent jamais le même lot
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM ColisOutboxEvent e WHERE e.dateEnvoi IS NULL ORDER BY e.id")
+    List<ColisOutboxEvent> findPendingForUpdate(Pageable pageable);
+
+    // Événements pas encore remis à ce destinataire, verrouillés comme ci-dessus
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM ColisOutboxEvent e WHERE e.dateEnvoi IS NULL AND NOT EXISTS (" +
+            "SELECT d FROM ColisOutboxEnvoi d WHERE d.eventId = e.id AND d.sink = :sink) ORDER BY e.id")
+    List<ColisOutboxEvent> findPendingForSinkForUpdate(@Param("sink") String sink, Pageable pageable);
+
+    // Parmi les ids donnés, ceux remis à chacun des destinataires nommés
+    @Query("SELECT d.eventId FROM ColisOutboxEnvoi d WHERE d.eventId IN :ids AND d.sink IN :sinks " +
+            "GROUP BY d.eventId HAVING COUNT(d) = :count")
+    List<String> findDeliveredToAll(@Param("ids") Collection<String> ids,
+                                    @Param("sinks") Collection<String> sinks,
+                                    @Param("count") long count);
+
+    long countByDateEnvoiIsNull();
+
+    @Modifying
+    @Query("DELETE FROM ColisOutboxEnvoi d WHERE d.eventId IN (" +
+            "SELECT e.id FROM ColisOutboxEvent e WHERE e.dateEnvoi < :limit)")
+    int deleteEnvoisSentBefore(@Param("limit") LocalDateTime limit);
+
+    @Modifying
+    @Query("DELETE FROM ColisOutboxEvent e WHERE e.dateEnvoi < :limit")
+    int deleteSentBefore(@Param("limit") LocalDateTime limit);
+}
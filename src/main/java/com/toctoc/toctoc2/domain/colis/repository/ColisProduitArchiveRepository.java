@@ -0,0 +1,23 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisProduitDTO;
+import com.toctoc.toctoc2.domain.colis.model.ColisProduitArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Produits des colis archivés, lus directement en {@link ColisProduitDTO}.
+ */
+@Repository
+public interface ColisProduitArchiveRepository extends JpaRepository<ColisProduitArchive, String> {
+
+    // L'archive ne garde que produit_id : le nom est joint comme dans ColisProduitRepository.findByColisId
+    @Query("SELECT new com.toctoc.toctoc2.domain.colis.dto.ColisProduitDTO(" +
+            "cp.id, cp.produitId, p.nom, cp.quantite, cp.prix, cp.dateAjout) " +
+            "FROM ColisProduitArchive cp LEFT JOIN Produit p ON p.id = cp.produitId WHERE cp.colisId = :colisId")
+    List<ColisProduitDTO> findDTOsByColisId(@Param("colisId") String colisId);
+}
@@ -1,7 +1,10 @@
 package com.toctoc.toctoc2.domain.colis.repository;
 
 import com.toctoc.toctoc2.domain.colis.model.ColisProduit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,7 +12,11 @@ import java.util.List;
 @Repository
 public interface ColisProduitRepository extends JpaRepository<ColisProduit, String> {
 
-    List<ColisProduit> findByColisId(String colisId);
+    // produit.nom est lu par ColisMapper.toColisProduitDTO. Requête explicite : la version dérivée
+    // filtre sur colis.id via une jointure et ne peut pas utiliser idx_colis_produit_colis
+    @EntityGraph(attributePaths = "produit")
+    @Query("SELECT cp FROM ColisProduit cp WHERE cp.colis.id = :colisId")
+    List<ColisProduit> findByColisId(@Param("colisId") String colisId);
 
     void deleteByColisId(String colisId);
 }
\ No newline at end of file
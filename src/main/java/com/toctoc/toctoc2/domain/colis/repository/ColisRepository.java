@@ -3,47 +3,73 @@ package com.toctoc.toctoc2.domain.colis.repository;
 import com.toctoc.toctoc2.domain.colis.model.Colis;
 import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
 import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ColisRepository extends JpaRepository<Colis, String> {
 
+    // Toutes les lectures destinées à ColisMapper.toDTO utilisent le graphe Colis.GRAPH_RELATIONS
+    // afin d'éviter une requête par relation LAZY et par ligne (N+1)
+    @Override
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    Page<Colis> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    Optional<Colis> findById(String id);
+
     // Recherche par statut
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByStatut(StatutColis statut, Pageable pageable);
 
     // Recherche par priorité
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByPriorite(PrioriteColis priorite, Pageable pageable);
 
     // Recherche par ville de destination
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByVilleDestinationContainingIgnoreCase(String ville, Pageable pageable);
 
     // Recherche par zone
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByZoneId(String zoneId, Pageable pageable);
 
     // Recherche par livreur
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByLivreurId(String livreurId, Pageable pageable);
 
     // Recherche par client expéditeur
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByClientExpediteurId(String clientId, Pageable pageable);
 
     // Recherche par destinataire
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     Page<Colis> findByDestinataireId(String destinataireId, Pageable pageable);
 
     // Recherche multi-critères
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     @Query("SELECT c FROM Colis c WHERE " +
             "(:statut IS NULL OR c.statut = :statut) AND " +
             "(:priorite IS NULL OR c.priorite = :priorite) AND " +
             "(:zoneId IS NULL OR c.zone.id = :zoneId) AND " +
-            "(:ville IS NULL OR LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', :ville, '%'))) AND " +
+            "(:ville IS NULL OR LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', CAST(:ville AS String), '%'))) AND " +
             "(:livreurId IS NULL OR c.livreur.id = :livreurId)")
     Page<Colis> findByMultipleCriteria(
             @Param("statut") StatutColis statut,
@@ -54,7 +80,129 @@ public interface ColisRepository extends JpaRepository<Colis, String> {
             Pageable pageable
     );
 
+    // Export en flux : curseur JDBC lu par lots (fetch size), entités en lecture seule
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Colis c WHERE " +
+            "(:statut IS NULL OR c.statut = :statut) AND " +
+            "(:priorite IS NULL OR c.priorite = :priorite) AND " +
+            "(:zoneId IS NULL OR c.zone.id = :zoneId) AND " +
+            "(:ville IS NULL OR LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', CAST(:ville AS String), '%'))) AND " +
+            "(:livreurId IS NULL OR c.livreur.id = :livreurId) AND " +
+            "(:clientId IS NULL OR c.clientExpediteur.id = :clientId) " +
+            "ORDER BY c.dateCreation, c.id")
+    Stream<Colis> streamByMultipleCriteria(
+            @Param("statut") StatutColis statut,
+            @Param("priorite") PrioriteColis priorite,
+            @Param("zoneId") String zoneId,
+            @Param("ville") String ville,
+            @Param("livreurId") String livreurId,
+            @Param("clientId") String clientId
+    );
+
+    // Pagination par curseur (keyset) sur (dateCreation, id), sans COUNT(*). La première page a sa propre
+    // requête : un « :cursorDate IS NULL OR ... » empêcherait le parcours d'index sur les plans génériques
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findFirstPage(Pageable pageable);
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE " +
+            "(c.dateCreation, c.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findAllAfterCursor(
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") String cursorId,
+            Pageable pageable
+    );
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE " +
+            "(:statut IS NULL OR c.statut = :statut) AND " +
+            "(:priorite IS NULL OR c.priorite = :priorite) AND " +
+            "(:zoneId IS NULL OR c.zone.id = :zoneId) AND " +
+            "(:ville IS NULL OR LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', CAST(:ville AS String), '%'))) AND " +
+            "(:livreurId IS NULL OR c.livreur.id = :livreurId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByMultipleCriteriaFirstPage(
+            @Param("statut") StatutColis statut,
+            @Param("priorite") PrioriteColis priorite,
+            @Param("zoneId") String zoneId,
+            @Param("ville") String ville,
+            @Param("livreurId") String livreurId,
+            Pageable pageable
+    );
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE " +
+            "(:statut IS NULL OR c.statut = :statut) AND " +
+            "(:priorite IS NULL OR c.priorite = :priorite) AND " +
+            "(:zoneId IS NULL OR c.zone.id = :zoneId) AND " +
+            "(:ville IS NULL OR LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', CAST(:ville AS String), '%'))) AND " +
+            "(:livreurId IS NULL OR c.livreur.id = :livreurId) AND " +
+            "(c.dateCreation, c.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByMultipleCriteriaAfterCursor(
+            @Param("statut") StatutColis statut,
+            @Param("priorite") PrioriteColis priorite,
+            @Param("zoneId") String zoneId,
+            @Param("ville") String ville,
+            @Param("livreurId") String livreurId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") String cursorId,
+            Pageable pageable
+    );
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.clientExpediteur.id = :clientId ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByClientExpediteurIdFirstPage(@Param("clientId") String clientId, Pageable pageable);
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.clientExpediteur.id = :clientId AND " +
+            "(c.dateCreation, c.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByClientExpediteurIdAfterCursor(
+            @Param("clientId") String clientId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") String cursorId,
+            Pageable pageable
+    );
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.destinataire.id = :destinataireId ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByDestinataireIdFirstPage(@Param("destinataireId") String destinataireId, Pageable pageable);
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.destinataire.id = :destinataireId AND " +
+            "(c.dateCreation, c.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByDestinataireIdAfterCursor(
+            @Param("destinataireId") String destinataireId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") String cursorId,
+            Pageable pageable
+    );
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.livreur.id = :livreurId ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByLivreurIdFirstPage(@Param("livreurId") String livreurId, Pageable pageable);
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    @Query("SELECT c FROM Colis c WHERE c.livreur.id = :livreurId AND " +
+            "(c.dateCreation, c.id) < (:cursorDate, :cursorId) " +
+            "ORDER BY c.dateCreation DESC, c.id DESC")
+    List<Colis> findByLivreurIdAfterCursor(
+            @Param("livreurId") String livreurId,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") String cursorId,
+            Pageable pageable
+    );
+
     // Recherche globale par mot-clé
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     @Query("SELECT c FROM Colis c WHERE " +
             "LOWER(c.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(c.villeDestination) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
@@ -62,13 +210,60 @@ public interface ColisRepository extends JpaRepository<Colis, String> {
             "LOWER(c.destinataire.nom) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Colis> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
+    // Recherche plein texte (PostgreSQL) : chaque branche de l'UNION peut utiliser son index GIN pg_trgm,
+    // le tri se fait par similarité décroissante. Ne renvoie que les ids, chargés ensuite par findByIdIn.
+    @Query(value = "SELECT c.id FROM colis c " +
+            "JOIN client_expediteur ce ON ce.id = c.client_expediteur_id " +
+            "JOIN destinataire d ON d.id = c.destinataire_id " +
+            "WHERE c.id IN (" +
+            "  SELECT c1.id FROM colis c1 " +
+            "  WHERE LOWER(c1.description) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+            "     OR LOWER(c1.ville_destination) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+            "  UNION " +
+            "  SELECT c2.id FROM colis c2 JOIN client_expediteur ce2 ON ce2.id = c2.client_expediteur_id " +
+            "  WHERE LOWER(ce2.nom) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+            "  UNION " +
+            "  SELECT c3.id FROM colis c3 JOIN destinataire d3 ON d3.id = c3.destinataire_id " +
+            "  WHERE LOWER(d3.nom) LIKE CONCAT('%', LOWER(:keyword), '%')" +
+            ") " +
+            "ORDER BY GREATEST(" +
+            "  similarity(LOWER(c.description), LOWER(:keyword)), " +
+            "  similarity(LOWER(c.ville_destination), LOWER(:keyword)), " +
+            "  similarity(LOWER(ce.nom), LOWER(:keyword)), " +
+            "  similarity(LOWER(d.nom), LOWER(:keyword))) DESC, c.date_creation DESC, c.id DESC",
+            countQuery = "SELECT COUNT(*) FROM (" +
+                    "  SELECT c1.id FROM colis c1 " +
+                    "  WHERE LOWER(c1.description) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+                    "     OR LOWER(c1.ville_destination) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+                    "  UNION " +
+                    "  SELECT c2.id FROM colis c2 JOIN client_expediteur ce2 ON ce2.id = c2.client_expediteur_id " +
+                    "  WHERE LOWER(ce2.nom) LIKE CONCAT('%', LOWER(:keyword), '%') " +
+                    "  UNION " +
+                    "  SELECT c3.id FROM colis c3 JOIN destinataire d3 ON d3.id = c3.destinataire_id " +
+                    "  WHERE LOWER(d3.nom) LIKE CONCAT('%', LOWER(:keyword), '%')" +
+                    ") matches",
+            nativeQuery = true)
+    Page<String> searchIdsByTrigram(@Param("keyword") String keyword, Pageable pageable);
+
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    List<Colis> findByIdIn(Collection<String> ids);
+
+    // Borne basse des requêtes sur l'historique (élagage des partitions)
+    @Query("SELECT c.dateCreation FROM Colis c WHERE c.id = :id")
+    Optional<LocalDateTime> findDateCreationById(@Param("id") String id);
+
     // Colis en retard
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     @Query("SELECT c FROM Colis c WHERE c.dateLimiteLivraison < :now AND c.statut NOT IN :excludedStatuses")
     List<Colis> findOverdueColis(
             @Param("now") LocalDateTime now,
             @Param("excludedStatuses") List<StatutColis> excludedStatuses
     );
 
+    // Colis marqués en retard par ColisOverdueDetectionJob et toujours ouverts
+    @EntityGraph(Colis.GRAPH_RELATIONS)
+    Page<Colis> findByEnRetardTrueAndStatutNotIn(Collection<StatutColis> excludedStatuses, Pageable pageable);
+
     // Statistiques par livreur
     @Query("SELECT c.livreur.id, COUNT(c), SUM(c.poids) FROM Colis c " +
             "WHERE c.livreur IS NOT NULL " +
@@ -81,6 +276,13 @@ public interface ColisRepository extends JpaRepository<Colis, String> {
             "GROUP BY c.zone.id, c.zone.nom")
     List<Object[]> countAndSumWeightByZone();
 
+    // Statistiques par statut et par priorité avec poids (réconciliation des compteurs)
+    @Query("SELECT c.statut, COUNT(c), SUM(c.poids) FROM Colis c GROUP BY c.statut")
+    List<Object[]> countAndSumWeightByStatut();
+
+    @Query("SELECT c.priorite, COUNT(c), SUM(c.poids) FROM Colis c GROUP BY c.priorite")
+    List<Object[]> countAndSumWeightByPriorite();
+
     // Statistiques par statut
     @Query("SELECT c.statut, COUNT(c) FROM Colis c GROUP BY c.statut")
     List<Object[]> countByStatut();
@@ -90,9 +292,27 @@ public interface ColisRepository extends JpaRepository<Colis, String> {
     List<Object[]> countByPriorite();
 
     // Colis d'un livreur non livrés
+    @EntityGraph(Colis.GRAPH_RELATIONS)
     @Query("SELECT c FROM Colis c WHERE c.livreur.id = :livreurId AND c.statut != :statut")
     List<Colis> findByLivreurIdAndStatutNot(
             @Param("livreurId") String livreurId,
             @Param("statut") StatutColis statut
     );
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les colis. Les noms du livreur,
+    // du client, du destinataire et de la zone figurent dans ColisDTO : leurs dates comptent aussi
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(c), COUNT(l) + COUNT(z), " +
+            "MAX(GREATEST(c.dateModification, e.dateModification, d.dateModification, " +
+            "COALESCE(l.dateModification, c.dateModification), COALESCE(z.dateModification, c.dateModification)))) " +
+            "FROM Colis c LEFT JOIN c.clientExpediteur e LEFT JOIN c.destinataire d " +
+            "LEFT JOIN c.livreur l LEFT JOIN c.zone z WHERE c.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    // Jointure explicite sur Livreur : le filtre reste sur colis.livreur_id et passe par son index
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(c), COUNT(l) + COUNT(z), " +
+            "MAX(GREATEST(c.dateModification, e.dateModification, d.dateModification, " +
+            "COALESCE(l.dateModification, c.dateModification), COALESCE(z.dateModification, c.dateModification)))) " +
+            "FROM Colis c LEFT JOIN c.clientExpediteur e LEFT JOIN c.destinataire d " +
+            "LEFT JOIN Livreur l ON l.id = c.livreur.id LEFT JOIN c.zone z WHERE c.livreur.id = :livreurId")
+    ResourceVersion findVersionByLivreurId(@Param("livreurId") String livreurId);
 }
\ No newline at end of file
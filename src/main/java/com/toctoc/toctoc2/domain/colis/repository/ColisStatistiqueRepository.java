@@ -0,0 +1,23 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.ColisStatistique;
+import com.toctoc.toctoc2.domain.colis.model.ColisStatistiqueId;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ColisStatistiqueRepository extends JpaRepository<ColisStatistique, ColisStatistiqueId> {
+
+    List<ColisStatistique> findByDimensionAndNombreGreaterThan(DimensionStatistique dimension, long nombre);
+
+    // Réconciliation : bloque les incréments concurrents le temps du recalcul
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ColisStatistique s")
+    List<ColisStatistique> findAllForUpdate();
+}
@@ -0,0 +1,36 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraisonArchive;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Historique des colis archivés, mêmes lectures que {@link HistoriqueLivraisonRepository}
+ * (index idx_historique_archive_colis_date).
+ */
+@Repository
+public interface HistoriqueLivraisonArchiveRepository extends JpaRepository<HistoriqueLivraisonArchive, String> {
+
+    @Query("SELECT h FROM HistoriqueLivraisonArchive h WHERE h.colisId = :colisId ORDER BY h.dateChangement DESC")
+    List<HistoriqueLivraisonArchive> findByColisId(@Param("colisId") String colisId);
+
+    @Query(value = "SELECT h FROM HistoriqueLivraisonArchive h WHERE h.colisId = :colisId " +
+            "ORDER BY h.dateChangement DESC",
+            countQuery = "SELECT COUNT(h) FROM HistoriqueLivraisonArchive h WHERE h.colisId = :colisId")
+    Page<HistoriqueLivraisonArchive> findByColisId(@Param("colisId") String colisId, Pageable pageable);
+
+    @Query("SELECT h FROM HistoriqueLivraisonArchive h WHERE h.colisId = :colisId AND h.dateChangement > :since " +
+            "ORDER BY h.dateChangement ASC")
+    List<HistoriqueLivraisonArchive> findByColisIdAfter(
+            @Param("colisId") String colisId,
+            @Param("since") LocalDateTime since,
+            Pageable pageable
+    );
+}
@@ -1,13 +1,46 @@
 package com.toctoc.toctoc2.domain.colis.repository;
 
 import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraison;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Sur PostgreSQL, historique_livraison est partitionnée par mois de date_changement : chaque requête
+ * porte une borne basse sur date_changement pour que seules les partitions concernées soient lues,
+ * et filtre sur la clé étrangère (et non via une jointure) pour utiliser idx_historique_colis_date.
+ */
 @Repository
 public interface HistoriqueLivraisonRepository extends JpaRepository<HistoriqueLivraison, String> {
 
-    List<HistoriqueLivraison> findByColisIdOrderByDateChangementDesc(String colisId);
-}
\ No newline at end of file
+    @Query("SELECT h FROM HistoriqueLivraison h WHERE h.colis.id = :colisId AND h.dateChangement >= :depuis " +
+            "ORDER BY h.dateChangement DESC")
+    List<HistoriqueLivraison> findByColisIdDepuis(
+            @Param("colisId") String colisId,
+            @Param("depuis") LocalDateTime depuis
+    );
+
+    @Query(value = "SELECT h FROM HistoriqueLivraison h WHERE h.colis.id = :colisId AND h.dateChangement >= :depuis " +
+            "ORDER BY h.dateChangement DESC",
+            countQuery = "SELECT COUNT(h) FROM HistoriqueLivraison h " +
+                    "WHERE h.colis.id = :colisId AND h.dateChangement >= :depuis")
+    Page<HistoriqueLivraison> findByColisIdDepuis(
+            @Param("colisId") String colisId,
+            @Param("depuis") LocalDateTime depuis,
+            Pageable pageable
+    );
+
+    @Query("SELECT h FROM HistoriqueLivraison h WHERE h.colis.id = :colisId AND h.dateChangement > :since " +
+            "ORDER BY h.dateChangement ASC")
+    List<HistoriqueLivraison> findByColisIdAfter(
+            @Param("colisId") String colisId,
+            @Param("since") LocalDateTime since,
+            Pageable pageable
+    );
+}
@@ -0,0 +1,105 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Partitions mensuelles de historique_livraison (PostgreSQL uniquement), nommées
+ * historique_livraison_AAAA_MM comme celles créées par le changeset 026.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistoriquePartitionRepository {
+
+    static final String TABLE = "historique_livraison";
+    static final String DEFAULT_PARTITION = TABLE + "_defaut";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String FIND_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = '" + TABLE + "'";
+
+    private static final String HAS_DEFAULT_PARTITION = "SELECT EXISTS (" + FIND_PARTITIONS +
+            " AND c.relname = '" + DEFAULT_PARTITION + "')";
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+
+    /**
+     * Mois des partitions rattachées, la partition par défaut exclue.
+     */
+    public List<YearMonth> findPartitions() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS, String.class).stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Crée la partition d'un mois. PostgreSQL refuse de la créer si la partition par défaut contient
+     * déjà des lignes de ce mois : la partition par défaut est alors détachée, ces lignes déplacées
+     * dans la nouvelle partition, puis elle est rattachée. À appeler dans une transaction ; le détachement
+     * verrouille historique_livraison jusqu'à la fin de celle-ci.
+     */
+    public void createPartition(YearMonth month) {
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        String create = "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM (" + from + ") TO (" + to + ")";
+        String range = " WHERE date_changement >= " + from + " AND date_changement < " + to;
+
+        if (!defaultPartitionHasRows(range)) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute(create);
+        jdbcTemplate.execute("INSERT INTO " + TABLE + " (id, colis_id, statut, date_changement, commentaire, modifie_par) " +
+                "SELECT id, colis_id, statut, date_changement, commentaire, modifie_par FROM " + DEFAULT_PARTITION + range);
+        jdbcTemplate.execute("DELETE FROM " + DEFAULT_PARTITION + range);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+    }
+
+    private boolean defaultPartitionHasRows(String range) {
+        Boolean attached = jdbcTemplate.queryForObject(HAS_DEFAULT_PARTITION, Boolean.class);
+        return Boolean.TRUE.equals(attached) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + range + ")", Boolean.class));
+    }
+
+    /**
+     * Parcourt une partition par lots ; à appeler dans une transaction pour que PostgreSQL utilise un curseur.
+     */
+    public void streamPartition(YearMonth month, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT id, colis_id, statut, date_changement, commentaire, " +
+                    "modifie_par FROM " + partitionName(month) + " ORDER BY date_changement, id");
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, handler);
+    }
+
+    public void dropPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+}
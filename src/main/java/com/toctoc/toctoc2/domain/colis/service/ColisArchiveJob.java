@@ -0,0 +1,62 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Déplace les colis clos (livrés, retournés, annulés) non modifiés depuis {@code after-days} jours
+ * vers les tables d'archive, avec leurs produits et leur historique. Les recherches, listes et
+ * statistiques sur la table colis ne parcourent ainsi que les colis récents ou en cours.
+ * Chaque lot est validé dans sa propre transaction pour ne pas garder de verrous longtemps.
+ */
+@Component
+@Slf4j
+public class ColisArchiveJob {
+
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterDays;
+    private final int batchSize;
+
+    public ColisArchiveJob(ColisJdbcRepository colisJdbcRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${toctoc.archive.after-days:90}") int afterDays,
+                           @Value("${toctoc.archive.batch-size:500}") int batchSize) {
+        this.colisJdbcRepository = colisJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${toctoc.archive.cron:0 45 2 * * *}")
+    public int archive() {
+        return archive(LocalDateTime.now().minusDays(afterDays));
+    }
+
+    /**
+     * Archive les colis clos dont la dernière modification est antérieure à {@code before}.
+     */
+    public int archive(LocalDateTime before) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int total = 0;
+        List<String> archived;
+        do {
+            archived = transactionTemplate.execute(status -> colisJdbcRepository.archiveClosed(before, now, batchSize));
+            total += archived.size();
+        } while (archived.size() == batchSize);
+
+        if (total > 0) {
+            log.info("{} colis clos archivés (modifiés avant le {})", total, before);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,125 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisAssignmentResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatisticsDTO;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assignation automatique des colis ouverts sans livreur d'une zone aux livreurs actifs de cette zone.
+ * La charge de départ (colis ouverts, poids total) est lue en une requête groupée, puis tenue à jour dans
+ * un {@link LivreurLoadIndex} ; les colis sont lus et assignés par lots, en JDBC batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisAssignmentService {
+
+    private final ZoneRepository zoneRepository;
+    private final LivreurRepository livreurRepository;
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final ColisStatisticsService statisticsService;
+    private final EntityManager entityManager;
+
+    @Value("${toctoc.assignment.batch-size:1000}")
+    private int batchSize;
+
+    @Transactional
+    public ColisAssignmentResultDTO assignZone(String zoneId) {
+        log.info("Assignation automatique des colis de la zone: {}", zoneId);
+        if (!zoneRepository.existsById(zoneId)) {
+            throw new ResourceNotFoundException("Zone non trouvée avec id: " + zoneId);
+        }
+
+        Map<String, Livreur> livreurs = livreurRepository.findByZoneAssigneeId(zoneId).stream()
+                .filter(l -> Boolean.TRUE.equals(l.getActif()))
+                .collect(Collectors.toMap(Livreur::getId, Function.identity()));
+        if (livreurs.isEmpty()) {
+            log.warn("Aucun livreur actif dans la zone {}, aucun colis assigné", zoneId);
+            return new ColisAssignmentResultDTO(zoneId, 0, 0, List.of());
+        }
+
+        // Le JDBC ne voit pas le contexte de persistance
+        entityManager.flush();
+        LivreurLoadIndex index = new LivreurLoadIndex();
+        Map<String, ColisJdbcRepository.OpenLoad> loads = colisJdbcRepository.findOpenLoad(livreurs.keySet());
+        livreurs.keySet().forEach(id -> {
+            ColisJdbcRepository.OpenLoad load = loads.get(id);
+            index.add(id, load != null ? load.nombre() : 0, load != null ? load.poids() : BigDecimal.ZERO);
+        });
+
+        int assigned = 0;
+        int conflicts = 0;
+        ColisStatisticsService.Delta delta = new ColisStatisticsService.Delta();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        String after = "";
+        List<ColisJdbcRepository.UnassignedColis> batch;
+        do {
+            batch = colisJdbcRepository.findUnassigned(zoneId, after, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            after = batch.get(batch.size() - 1).id();
+
+            // Les plus lourds d'abord : les derniers colis, plus légers, comblent les écarts de poids
+            List<ColisJdbcRepository.UnassignedColis> ordered = new ArrayList<>(batch);
+            ordered.sort(Comparator.comparing(ColisJdbcRepository.UnassignedColis::poids).reversed());
+            Map<String, BigDecimal> poids = new HashMap<>();
+            List<ColisJdbcRepository.Assignment> plan = new ArrayList<>(ordered.size());
+            for (ColisJdbcRepository.UnassignedColis colis : ordered) {
+                poids.put(colis.id(), colis.poids());
+                plan.add(new ColisJdbcRepository.Assignment(colis.id(), index.assign(colis.poids())));
+            }
+
+            List<ColisJdbcRepository.Assignment> applied = colisJdbcRepository.assignLivreurs(plan, now);
+            Set<String> appliedIds = applied.stream()
+                    .map(ColisJdbcRepository.Assignment::colisId)
+                    .collect(Collectors.toSet());
+            for (ColisJdbcRepository.Assignment assignment : plan) {
+                if (appliedIds.contains(assignment.colisId())) {
+                    delta.add(DimensionStatistique.LIVREUR, assignment.livreurId(), 1, poids.get(assignment.colisId()));
+                } else {
+                    index.release(assignment.livreurId(), poids.get(assignment.colisId()));
+                    conflicts++;
+                }
+            }
+            assigned += applied.size();
+        } while (batch.size() == batchSize);
+
+        if (assigned > 0) {
+            statisticsService.apply(delta);
+            // Les compteurs créés par apply() sont encore en attente dans le contexte de persistance
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        log.info("Assignation terminée pour la zone {}: {} colis assignés à {} livreurs, {} déjà assignés entre-temps",
+                zoneId, assigned, livreurs.size(), conflicts);
+        List<ColisStatisticsDTO> charges = index.loads().stream()
+                .map(load -> {
+                    Livreur livreur = livreurs.get(load.getLivreurId());
+                    return new ColisStatisticsDTO(load.getLivreurId(), livreur.getPrenom() + " " + livreur.getNom(),
+                            load.getNombre(), load.getPoids());
+                })
+                .collect(Collectors.toList());
+        return new ColisAssignmentResultDTO(zoneId, assigned, conflicts, charges);
+    }
+}
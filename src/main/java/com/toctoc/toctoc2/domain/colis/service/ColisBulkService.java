@@ -0,0 +1,267 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.application.mapper.ColisMapper;
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
+import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
+import com.toctoc.toctoc2.domain.colis.dto.BulkColisItemResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.BulkColisResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.BulkStatutResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.ColisTrackingEventDTO;
+import com.toctoc.toctoc2.domain.colis.dto.CreateColisRequest;
+import com.toctoc.toctoc2.domain.colis.dto.UpdateStatutRequest;
+import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import com.toctoc.toctoc2.domain.colis.model.HistoriqueLivraison;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opérations en masse sur les colis : références résolues en une requête par type,
+ * écritures via {@link ColisJdbcRepository} en batch JDBC.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisBulkService {
+
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final ClientExpediteurRepository clientRepository;
+    private final DestinataireRepository destinataireRepository;
+    private final ZoneRepository zoneRepository;
+    private final ColisMapper colisMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final ColisStatisticsService statisticsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ColisStateMachine stateMachine;
+
+    /**
+     * Références déjà résolues (clients, destinataires, zones), trouvées ou non. Réutilisée d'un appel
+     * à l'autre, par exemple entre les lots d'un même import, elle évite de relire les mêmes lignes.
+     */
+    public static class References {
+
+        private final Map<String, ClientExpediteur> clients = new HashMap<>();
+        private final Map<String, Destinataire> destinataires = new HashMap<>();
+        private final Map<String, Zone> zones = new HashMap<>();
+        private final Set<String> missingClients = new HashSet<>();
+        private final Set<String> missingDestinataires = new HashSet<>();
+        private final Set<String> missingZones = new HashSet<>();
+    }
+
+    @Transactional
+    public BulkColisResultDTO createColis(List<CreateColisRequest> requests) {
+        return createColis(requests, new References());
+    }
+
+    @Transactional
+    public BulkColisResultDTO createColis(List<CreateColisRequest> requests, References references) {
+        log.info("Création en masse de {} colis", requests.size());
+
+        resolve(references.clients, references.missingClients, collectIds(requests, CreateColisRequest::getClientExpediteurId),
+                clientRepository::findAllById, ClientExpediteur::getId);
+        resolve(references.destinataires, references.missingDestinataires, collectIds(requests, CreateColisRequest::getDestinataireId),
+                destinataireRepository::findAllById, Destinataire::getId);
+        resolve(references.zones, references.missingZones, collectIds(requests, CreateColisRequest::getZoneId),
+                zoneRepository::findAllById, Zone::getId);
+        Map<String, ClientExpediteur> clients = references.clients;
+        Map<String, Destinataire> destinataires = references.destinataires;
+        Map<String, Zone> zones = references.zones;
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<BulkColisItemResultDTO> results = new ArrayList<>(requests.size());
+        List<Colis> toInsert = new ArrayList<>(requests.size());
+        List<HistoriqueLivraison> historiques = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateColisRequest request = requests.get(i);
+            String error = validate(request, clients, destinataires, zones);
+            if (error != null) {
+                results.add(new BulkColisItemResultDTO(i, null, false, error));
+                continue;
+            }
+
+            Colis colis = colisMapper.toEntity(request);
+            colis.setId(UuidV7Generator.next().toString());
+            colis.setClientExpediteur(clients.get(request.getClientExpediteurId()));
+            colis.setDestinataire(destinataires.get(request.getDestinataireId()));
+            if (request.getZoneId() != null) {
+                colis.setZone(zones.get(request.getZoneId()));
+            }
+            colis.setDateCreation(now);
+            colis.setDateModification(now);
+            toInsert.add(colis);
+            historiques.add(initialHistorique(colis, now));
+
+            results.add(new BulkColisItemResultDTO(i, colis.getId(), true, null));
+        }
+
+        colisJdbcRepository.insertColis(toInsert);
+        colisJdbcRepository.insertHistoriques(historiques);
+        statisticsService.onCreated(toInsert);
+
+        log.info("Création en masse terminée: {} créés, {} en échec",
+                toInsert.size(), requests.size() - toInsert.size());
+        return new BulkColisResultDTO(requests.size(), toInsert.size(), requests.size() - toInsert.size(), results);
+    }
+
+    /**
+     * Applique un même changement de statut à une liste de colis : verrouillage, UPDATE ensembliste
+     * et insertion groupée de l'historique des seuls colis réellement modifiés.
+     */
+    @Transactional
+    public BulkStatutResultDTO updateStatut(List<String> ids, UpdateStatutRequest request) {
+        StatutColis statut = request.getStatut();
+        Set<String> requested = new LinkedHashSet<>(ids);
+        log.info("Mise à jour en masse de {} colis vers {}", requested.size(), statut);
+        stateMachine.checkReachable(statut);
+
+        // Comme @Modifying(flushAutomatically, clearAutomatically) : le JDBC ne voit pas le contexte de persistance
+        entityManager.flush();
+        Map<String, ColisJdbcRepository.LockedColis> current = colisJdbcRepository.lockStatuts(requested);
+
+        List<String> toUpdate = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        ColisStatisticsService.Delta delta = new ColisStatisticsService.Delta();
+        for (String id : requested) {
+            ColisJdbcRepository.LockedColis existing = current.get(id);
+            if (existing == null) {
+                notFound.add(id);
+            } else if (existing.statut() == statut) {
+                unchanged.add(id);
+            } else if (!stateMachine.accept(id, existing.statut(), statut)) {
+                rejected.add(id);
+            } else {
+                toUpdate.add(id);
+                delta.add(DimensionStatistique.STATUT, existing.statut().name(), -1, existing.poids());
+                delta.add(DimensionStatistique.STATUT, statut.name(), 1, existing.poids());
+            }
+        }
+
+        if (!toUpdate.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            colisJdbcRepository.updateStatut(toUpdate, statut, now);
+            colisJdbcRepository.insertHistoriques(toUpdate.stream()
+                    .map(id -> historique(id, statut, request.getCommentaire(), request.getModifiePar(), now))
+                    .collect(Collectors.toList()));
+            colisJdbcRepository.insertOutboxEvents(toUpdate.stream()
+                    .map(id -> outboxEvent(id, statut, current.get(id).statut(), request, now))
+                    .collect(Collectors.toList()));
+            toUpdate.forEach(id -> eventPublisher.publishEvent(new ColisTrackingEventDTO(id, current.get(id).livreurId(),
+                    statut, current.get(id).statut(), now, request.getCommentaire())));
+            statisticsService.apply(delta);
+            // Les compteurs créés par apply() sont encore en attente dans le contexte de persistance
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        log.info("Mise à jour en masse terminée: {} modifiés, {} inchangés, {} introuvables, {} refusés",
+                toUpdate.size(), unchanged.size(), notFound.size(), rejected.size());
+        return new BulkStatutResultDTO(requested.size(), toUpdate, unchanged, notFound, rejected);
+    }
+
+    private String validate(CreateColisRequest request,
+                            Map<String, ClientExpediteur> clients,
+                            Map<String, Destinataire> destinataires,
+                            Map<String, Zone> zones) {
+        if (request == null) {
+            return "Élément vide";
+        }
+
+        Set<ConstraintViolation<CreateColisRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        if (!clients.containsKey(request.getClientExpediteurId())) {
+            return "Client expéditeur non trouvé";
+        }
+        if (!destinataires.containsKey(request.getDestinataireId())) {
+            return "Destinataire non trouvé";
+        }
+        if (request.getZoneId() != null && !zones.containsKey(request.getZoneId())) {
+            return "Zone non trouvée";
+        }
+        return null;
+    }
+
+    private HistoriqueLivraison initialHistorique(Colis colis, LocalDateTime now) {
+        HistoriqueLivraison historique = new HistoriqueLivraison();
+        historique.setId(UuidV7Generator.next().toString());
+        historique.setColis(colis);
+        historique.setStatut(StatutColis.CREE);
+        historique.setDateChangement(now);
+        historique.setCommentaire("Colis créé");
+        return historique;
+    }
+
+    private HistoriqueLivraison historique(String colisId, StatutColis statut, String commentaire,
+                                           String modifiePar, LocalDateTime now) {
+        Colis colis = new Colis();
+        colis.setId(colisId);
+
+        HistoriqueLivraison historique = new HistoriqueLivraison();
+        historique.setId(UuidV7Generator.next().toString());
+        historique.setColis(colis);
+        historique.setStatut(statut);
+        historique.setDateChangement(now);
+        historique.setCommentaire(commentaire);
+        historique.setModifiePar(modifiePar);
+        return historique;
+    }
+
+    // Ne lit que les identifiants encore inconnus ; les absents sont mémorisés pour ne pas être recherchés à nouveau
+    private <T> void resolve(Map<String, T> known, Set<String> missing, Set<String> ids,
+                             Function<Set<String>, List<T>> loader, Function<T, String> idOf) {
+        Set<String> toLoad = ids.stream()
+                .filter(id -> !known.containsKey(id) && !missing.contains(id))
+                .collect(Collectors.toSet());
+        if (toLoad.isEmpty()) {
+            return;
+        }
+        loader.apply(toLoad).forEach(entity -> known.put(idOf.apply(entity), entity));
+        toLoad.stream().filter(id -> !known.containsKey(id)).forEach(missing::add);
+    }
+
+    private ColisOutboxEvent outboxEvent(String colisId, StatutColis statut, StatutColis statutPrecedent,
+                                         UpdateStatutRequest request, LocalDateTime now) {
+        ColisOutboxEvent event = ColisOutboxService.event(colisId, statut, statutPrecedent, now,
+                request.getCommentaire(), request.getModifiePar());
+        event.setId(UuidV7Generator.next().toString());
+        return event;
+    }
+
+    private Set<String> collectIds(List<CreateColisRequest> requests, Function<CreateColisRequest, String> extractor) {
+        return requests.stream()
+                .filter(Objects::nonNull)
+                .map(extractor)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+}
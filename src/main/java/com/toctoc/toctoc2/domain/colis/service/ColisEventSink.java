@@ -0,0 +1,17 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+
+import java.util.List;
+
+/**
+ * Destination des changements de statut relayés depuis l'outbox. Les événements arrivent par lots,
+ * dans l'ordre d'écriture pour un même colis ; un lot en échec est présenté à nouveau à ce seul
+ * destinataire, qui peut donc recevoir un événement plusieurs fois.
+ */
+public interface ColisEventSink {
+
+    String name();
+
+    void publish(List<ColisStatusEventDTO> events) throws Exception;
+}
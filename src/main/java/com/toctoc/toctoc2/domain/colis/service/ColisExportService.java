@@ -0,0 +1,136 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.application.mapper.ColisMapper;
+import com.toctoc.toctoc2.domain.colis.dto.ColisDTO;
+import com.toctoc.toctoc2.domain.colis.dto.ExportFormat;
+import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Export des colis en flux : les lignes sont lues par curseur et écrites une à une,
+ * la mémoire utilisée ne dépend pas du nombre de colis exportés.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisExportService {
+
+    // Fréquence d'envoi des données bufferisées au client
+    private static final int FLUSH_EVERY = 500;
+
+    // Vidage du contexte de persistance : le colis et les relations chargées par le graphe d'entités
+    // (client, destinataire, livreur, zone) restent attachés jusque-là
+    private static final int CLEAR_EVERY = 500;
+
+    // Valeurs numériques (poids négatif d'un avoir, par exemple) : ni formule ni préfixe
+    private static final Pattern NUMBER = Pattern.compile("[-+]?\\d+(\\.\\d+)?");
+
+    private static final List<String> CSV_HEADER = List.of(
+            "id", "description", "poids", "statut", "priorite", "villeDestination",
+            "dateLimiteLivraison", "dateCollecte", "dateLivraison", "dateCreation", "enRetard",
+            "clientExpediteurId", "clientExpediteurNom", "destinataireId", "destinataireNom",
+            "livreurId", "livreurNom", "zoneId", "zoneNom");
+
+    private final ColisRepository colisRepository;
+    private final ColisMapper colisMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    /**
+     * Écrit les colis correspondant aux filtres (mêmes critères que /colis/filter, plus le client expéditeur)
+     * dans le format demandé. Doit s'exécuter dans une transaction : le curseur JDBC y reste ouvert.
+     */
+    public long export(ExportFormat format,
+                       StatutColis statut,
+                       PrioriteColis priorite,
+                       String zoneId,
+                       String ville,
+                       String livreurId,
+                       String clientId,
+                       OutputStream out) throws IOException {
+        log.info("Export {} des colis", format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(writer, CSV_HEADER);
+        }
+
+        long count = 0;
+        try (Stream<Colis> rows = colisRepository.streamByMultipleCriteria(statut, priorite, zoneId, ville, livreurId, clientId)) {
+            Iterator<Colis> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Colis colis = iterator.next();
+                ColisDTO dto = colisMapper.toDTO(colis);
+
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, csvValues(dto));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+                if (count % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+
+        log.info("Export terminé: {} colis", count);
+        return count;
+    }
+
+    private List<String> csvValues(ColisDTO dto) {
+        return Stream.of(
+                        dto.getId(), dto.getDescription(), dto.getPoids(), dto.getStatut(), dto.getPriorite(),
+                        dto.getVilleDestination(), dto.getDateLimiteLivraison(), dto.getDateCollecte(),
+                        dto.getDateLivraison(), dto.getDateCreation(), dto.getEnRetard(),
+                        dto.getClientExpediteurId(), dto.getClientExpediteurNom(),
+                        dto.getDestinataireId(), dto.getDestinataireNom(),
+                        dto.getLivreurId(), dto.getLivreurNom(), dto.getZoneId(), dto.getZoneNom())
+                .map(value -> Objects.toString(value, ""))
+                .collect(Collectors.toList());
+    }
+
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180, et neutralisation des formules pour les tableurs (=, +, -, @ en tête d'une cellule non numérique)
+    static String csv(String value) {
+        String escaped = value;
+        if (!escaped.isEmpty() && "=+-@".indexOf(escaped.charAt(0)) >= 0 && !NUMBER.matcher(escaped).matches()) {
+            escaped = "'" + escaped;
+        }
+        if (escaped.contains(",") || escaped.contains("\"") || escaped.contains("\n") || escaped.contains("\r")) {
+            escaped = "\"" + escaped.replace("\"", "\"\"") + "\"";
+        }
+        return escaped;
+    }
+}
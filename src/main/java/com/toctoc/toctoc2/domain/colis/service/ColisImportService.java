@@ -0,0 +1,370 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.*;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.infrastructure.csv.CsvReader;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Import de colis depuis un fichier CSV : le fichier est lu enregistrement par enregistrement et écrit
+ * par lots via {@link ColisBulkService}, chaque lot dans sa propre transaction. Les références
+ * (clients, destinataires, zones) sont résolues une seule fois pour tout l'import.
+ * <p>
+ * L'import s'exécute en arrière-plan ; son avancement et les erreurs par ligne sont consultables
+ * par son identifiant. Pas de transaction au niveau du service : un échec n'annule que son lot.
+ */
+@Service
+@Slf4j
+public class ColisImportService {
+
+    static final List<String> REQUIRED_COLUMNS = List.of(
+            "description", "poids", "priorite", "villeDestination", "clientExpediteurId", "destinataireId");
+    // Colonnes facultatives : dateLimiteLivraison, zoneId
+
+    // Erreurs conservées par import, au-delà seul le compteur augmente
+    private static final int MAX_ERRORS = 1000;
+    // Imports terminés gardés en mémoire pour consultation
+    private static final long RETENTION_HOURS = 24;
+
+    private final ColisBulkService bulkService;
+    private final TaskExecutor executor;
+    private final int chunkSize;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ColisImportService(ColisBulkService bulkService,
+                              @Value("${toctoc.import.concurrency:2}") int concurrency,
+                              @Value("${toctoc.import.queue-capacity:4}") int queueCapacity,
+                              @Value("${toctoc.import.chunk-size:500}") int chunkSize) {
+        this(bulkService, executor(concurrency, queueCapacity), chunkSize);
+    }
+
+    ColisImportService(ColisBulkService bulkService, TaskExecutor executor, int chunkSize) {
+        this.bulkService = bulkService;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+    }
+
+    // Avec une concurrence de 0, l'import s'exécute dans le thread de la requête.
+    // File bornée : chaque import en attente garde son fichier temporaire sur le disque
+    private static TaskExecutor executor(int concurrency, int queueCapacity) {
+        if (concurrency <= 0) {
+            return new SyncTaskExecutor();
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("colis-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Copie le fichier reçu, vérifie son en-tête et planifie l'import.
+     *
+     * @throws TaskRejectedException si la file des imports en attente est pleine
+     */
+    public ColisImportStatusDTO startImport(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Le fichier CSV est vide");
+        }
+        purgeFinishedJobs();
+
+        Path path;
+        try {
+            // Le fichier multipart est supprimé à la fin de la requête
+            path = Files.createTempFile("colis-import-", ".csv");
+            file.transferTo(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'enregistrer le fichier importé", e);
+        }
+
+        Header header;
+        try {
+            header = readHeader(path);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(path);
+            if (e instanceof IllegalArgumentException illegal) {
+                throw illegal;
+            }
+            throw new IllegalArgumentException("Fichier CSV illisible: " + e.getMessage());
+        }
+
+        ImportJob job = new ImportJob(UuidV7Generator.next().toString(), file.getOriginalFilename());
+        jobs.put(job.id, job);
+        log.info("Import {} planifié: fichier {} ({} octets, séparateur '{}')",
+                job.id, job.fileName, file.getSize(), header.separator);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, path, header);
+                } finally {
+                    deleteQuietly(path);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Tâche refusée : personne ne lira le fichier ni ne terminera l'import
+            deleteQuietly(path);
+            job.finish(ImportStatus.FAILED, e.getMessage());
+            jobs.remove(job.id);
+            log.warn("Import {} refusé: {}", job.id, e.getMessage());
+            throw e;
+        }
+        return job.toDTO();
+    }
+
+    public ColisImportStatusDTO getImport(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import non trouvé avec id: " + id);
+        }
+        return job.toDTO();
+    }
+
+    void run(ImportJob job, Path path, Header header) {
+        job.start();
+        log.info("Import {} démarré", job.id);
+
+        ColisBulkService.References references = new ColisBulkService.References();
+        List<CreateColisRequest> chunk = new ArrayList<>(chunkSize);
+        List<Long> lines = new ArrayList<>(chunkSize);
+
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), header.separator)) {
+            reader.next(); // en-tête, déjà vérifié
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                long line = reader.getLine();
+                try {
+                    chunk.add(toRequest(record, header.columns));
+                    lines.add(line);
+                } catch (IllegalArgumentException e) {
+                    job.fail(line, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(job, chunk, lines, references);
+                }
+            }
+            writeChunk(job, chunk, lines, references);
+            job.finish(ImportStatus.COMPLETED, null);
+            log.info("Import {} terminé: {} lignes, {} créées, {} en erreur",
+                    job.id, job.processed, job.succeeded, job.failed);
+        } catch (IOException | RuntimeException e) {
+            job.finish(ImportStatus.FAILED, e.getMessage());
+            log.error("Import {} interrompu après {} lignes: {}", job.id, job.processed, e.getMessage());
+        }
+    }
+
+    private void writeChunk(ImportJob job, List<CreateColisRequest> chunk, List<Long> lines,
+                            ColisBulkService.References references) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            BulkColisResultDTO result = bulkService.createColis(chunk, references);
+            for (BulkColisItemResultDTO item : result.getResults()) {
+                if (item.isSuccess()) {
+                    job.succeed();
+                } else {
+                    job.fail(lines.get(item.getIndex()), item.getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Lot annulé par sa transaction ; l'import continue avec le lot suivant
+            log.error("Import {}: lot de {} lignes rejeté: {}", job.id, chunk.size(), e.getMessage());
+            lines.forEach(line -> job.fail(line, "Lot rejeté: " + e.getMessage()));
+        }
+        chunk.clear();
+        lines.clear();
+    }
+
+    private CreateColisRequest toRequest(List<String> record, Map<String, Integer> columns) {
+        CreateColisRequest request = new CreateColisRequest();
+        request.setDescription(value(record, columns, "description"));
+        request.setPoids(decimal(value(record, columns, "poids")));
+        request.setPriorite(priorite(value(record, columns, "priorite")));
+        request.setVilleDestination(value(record, columns, "villeDestination"));
+        request.setDateLimiteLivraison(dateTime(value(record, columns, "dateLimiteLivraison")));
+        request.setClientExpediteurId(value(record, columns, "clientExpediteurId"));
+        request.setDestinataireId(value(record, columns, "destinataireId"));
+        request.setZoneId(value(record, columns, "zoneId"));
+        return request;
+    }
+
+    // Cellule absente ou vide : null, laissé à la validation de CreateColisRequest
+    private String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal decimal(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            // Virgule décimale des tableurs français
+            return new BigDecimal(value.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("poids: valeur numérique invalide '" + value + "'");
+        }
+    }
+
+    private PrioriteColis priorite(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return PrioriteColis.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("priorite: valeur inconnue '" + value + "', attendu "
+                    + Arrays.toString(PrioriteColis.values()));
+        }
+    }
+
+    // Date seule : la livraison est attendue avant la fin de la journée
+    private LocalDateTime dateTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.length() == 10
+                    ? LocalDate.parse(value).atTime(23, 59, 59)
+                    : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("dateLimiteLivraison: date invalide '" + value
+                    + "', attendu AAAA-MM-JJ ou AAAA-MM-JJTHH:MM:SS");
+        }
+    }
+
+    // Séparateur déduit de l'en-tête : Excel en français enregistre les CSV avec des points-virgules
+    static Header readHeader(Path path) throws IOException {
+        String firstLine;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            firstLine = reader.readLine();
+        }
+        if (firstLine == null) {
+            throw new IllegalArgumentException("Le fichier CSV est vide");
+        }
+        char separator = firstLine.indexOf(';') >= 0 && firstLine.indexOf(',') < 0 ? ';' : ',';
+
+        List<String> names;
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), separator)) {
+            names = reader.next();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.putIfAbsent(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column.toLowerCase(Locale.ROOT)))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Colonnes obligatoires absentes de l'en-tête: " + String.join(", ", missing));
+        }
+        return new Header(separator, columns);
+    }
+
+    private void purgeFinishedJobs() {
+        LocalDateTime limit = LocalDateTime.now().minusHours(RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(limit));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Fichier temporaire {} non supprimé: {}", path, e.getMessage());
+        }
+    }
+
+    record Header(char separator, Map<String, Integer> columns) {
+    }
+
+    /**
+     * Avancement d'un import, écrit par le thread d'import et lu par les requêtes de suivi.
+     */
+    static class ImportJob {
+
+        private final String id;
+        private final String fileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<ImportRowErrorDTO> errors = new ArrayList<>();
+        private ImportStatus status = ImportStatus.PENDING;
+        private long processed;
+        private long succeeded;
+        private long failed;
+        private String message;
+        private LocalDateTime finishedAt;
+
+        ImportJob(String id, String fileName) {
+            this.id = id;
+            this.fileName = fileName;
+        }
+
+        synchronized void start() {
+            status = ImportStatus.RUNNING;
+        }
+
+        synchronized void succeed() {
+            processed++;
+            succeeded++;
+        }
+
+        synchronized void fail(long line, String error) {
+            processed++;
+            failed++;
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new ImportRowErrorDTO(line, error));
+            }
+        }
+
+        synchronized void finish(ImportStatus status, String message) {
+            this.status = status;
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        synchronized ColisImportStatusDTO toDTO() {
+            List<ImportRowErrorDTO> sorted = new ArrayList<>(errors);
+            sorted.sort(Comparator.comparingLong(ImportRowErrorDTO::getLine));
+            return new ColisImportStatusDTO(id, fileName, status, processed, succeeded, failed,
+                    sorted, failed > errors.size(), message, startedAt, finishedAt);
+        }
+    }
+}
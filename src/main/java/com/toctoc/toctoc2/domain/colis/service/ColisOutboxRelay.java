@@ -0,0 +1,176 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Relaie l'outbox vers les {@link ColisEventSink} par lots, chacun dans sa propre transaction.
+ * La remise est suivie par destinataire (colis_outbox_envoi) : chacun avance à son rythme,
+ * un destinataire en échec ne bloque pas les autres et ne leur fait pas renvoyer le lot.
+ * Un événement est marqué envoyé une fois remis à tous les destinataires (au moins une fois) ;
+ * après un échec, le relais attend de plus en plus longtemps avant de réessayer ce destinataire.
+ * <p>
+ * Ordre garanti : par colis. Les changements d'un colis sont écrits sous le verrou de sa ligne,
+ * leurs ids UUIDv7 croissent donc dans l'ordre d'écriture, et chaque destinataire les reçoit dans
+ * l'ordre des ids. Entre colis différents, deux transactions concurrentes peuvent valider leurs
+ * événements dans le désordre de leurs ids : l'ordre global d'écriture n'est pas garanti.
+ */
+@Component
+@Slf4j
+public class ColisOutboxRelay {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final ColisOutboxRepository outboxRepository;
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final List<ColisEventSink> sinks;
+    private final List<String> sinkNames;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration retention;
+
+    // Attente après échec, par destinataire
+    private final Map<String, Backoff> backoffs = new HashMap<>();
+
+    public ColisOutboxRelay(ColisOutboxRepository outboxRepository,
+                            ColisJdbcRepository colisJdbcRepository,
+                            List<ColisEventSink> sinks,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${toctoc.outbox.batch-size:200}") int batchSize,
+                            @Value("${toctoc.outbox.retention:7d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.colisJdbcRepository = colisJdbcRepository;
+        this.sinks = sinks;
+        this.sinkNames = sinks.stream().map(ColisEventSink::name).toList();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        meterRegistry.gauge("toctoc.outbox.pending", outboxRepository, ColisOutboxRepository::countByDateEnvoiIsNull);
+    }
+
+    /**
+     * Vide l'outbox lot par lot, destinataire par destinataire, et renvoie le nombre d'événements
+     * remis à tous les destinataires.
+     */
+    @Scheduled(cron = "${toctoc.outbox.relay-cron:* * * * * *}")
+    public synchronized int relay() {
+        int total = 0;
+        if (sinks.isEmpty()) {
+            int sent;
+            do {
+                sent = transactionTemplate.execute(status -> markBatchSent());
+                total += sent;
+            } while (sent == batchSize);
+        }
+        for (ColisEventSink sink : sinks) {
+            Backoff backoff = backoffs.computeIfAbsent(sink.name(), name -> new Backoff());
+            if (LocalDateTime.now().isBefore(backoff.nextAttempt)) {
+                continue;
+            }
+            BatchResult result;
+            do {
+                result = transactionTemplate.execute(status -> relayBatch(sink, backoff));
+                total += result.completed();
+            } while (result.delivered() == batchSize);
+        }
+
+        if (total > 0) {
+            log.info("{} événements de l'outbox relayés", total);
+        }
+        return total;
+    }
+
+    @Scheduled(cron = "${toctoc.outbox.purge-cron:0 0 4 * * *}")
+    public int purge() {
+        LocalDateTime limit = LocalDateTime.now().minus(retention);
+        int deleted = transactionTemplate.execute(status -> {
+            outboxRepository.deleteEnvoisSentBefore(limit);
+            return outboxRepository.deleteSentBefore(limit);
+        });
+        log.info("Purge de l'outbox: {} événements envoyés supprimés", deleted);
+        return deleted;
+    }
+
+    // Lot remis à un destinataire ; un lot en échec renvoie 0 remis, la boucle s'arrête sans rien marquer
+    private BatchResult relayBatch(ColisEventSink sink, Backoff backoff) {
+        List<ColisOutboxEvent> batch = outboxRepository.findPendingForSinkForUpdate(sink.name(), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        List<ColisStatusEventDTO> events = batch.stream().map(this::toDTO).collect(Collectors.toList());
+
+        try {
+            sink.publish(events);
+            meterRegistry.counter("toctoc.outbox.published", "sink", sink.name()).increment(events.size());
+        } catch (Exception e) {
+            meterRegistry.counter("toctoc.outbox.failures", "sink", sink.name()).increment();
+            onFailure(batch, sink, backoff, e);
+            return new BatchResult(0, 0);
+        }
+        backoff.consecutiveFailures = 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = batch.stream().map(ColisOutboxEvent::getId).toList();
+        colisJdbcRepository.insertOutboxEnvois(ids, sink.name(), now);
+        Set<String> complete = new HashSet<>(outboxRepository.findDeliveredToAll(ids, sinkNames, sinkNames.size()));
+        batch.stream().filter(event -> complete.contains(event.getId())).forEach(event -> event.setDateEnvoi(now));
+        return new BatchResult(batch.size(), complete.size());
+    }
+
+    // Aucun destinataire configuré : les événements sont marqués envoyés pour ne pas s'accumuler
+    private int markBatchSent() {
+        List<ColisOutboxEvent> batch = outboxRepository.findPendingForUpdate(PageRequest.of(0, batchSize));
+        LocalDateTime now = LocalDateTime.now();
+        batch.forEach(event -> event.setDateEnvoi(now));
+        return batch.size();
+    }
+
+    private void onFailure(List<ColisOutboxEvent> batch, ColisEventSink sink, Backoff backoff, Exception e) {
+        String error = sink.name() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        for (ColisOutboxEvent event : batch) {
+            event.setTentatives(event.getTentatives() + 1);
+            event.setDerniereErreur(error);
+        }
+
+        backoff.consecutiveFailures++;
+        long seconds = Math.min(1L << Math.min(backoff.consecutiveFailures, 20), MAX_BACKOFF.getSeconds());
+        backoff.nextAttempt = LocalDateTime.now().plusSeconds(seconds);
+        log.warn("Outbox: échec de remise de {} événements à {} ({}), nouvel essai dans {}s",
+                batch.size(), sink.name(), e.getMessage(), seconds);
+    }
+
+    private ColisStatusEventDTO toDTO(ColisOutboxEvent event) {
+        return new ColisStatusEventDTO(event.getId(), event.getColisId(), event.getStatut(),
+                event.getStatutPrecedent(), event.getDateChangement(), event.getCommentaire(), event.getModifiePar());
+    }
+
+    private record BatchResult(int delivered, int completed) {
+    }
+
+    private static class Backoff {
+        private int consecutiveFailures;
+        private LocalDateTime nextAttempt = LocalDateTime.MIN;
+    }
+}
@@ -0,0 +1,41 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Écriture des changements de statut dans l'outbox, toujours dans la transaction qui modifie le colis :
+ * l'événement existe si et seulement si le changement a été validé.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ColisOutboxService {
+
+    private final ColisOutboxRepository outboxRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String colisId, StatutColis statut, StatutColis statutPrecedent,
+                       LocalDateTime dateChangement, String commentaire, String modifiePar) {
+        outboxRepository.save(event(colisId, statut, statutPrecedent, dateChangement, commentaire, modifiePar));
+    }
+
+    public static ColisOutboxEvent event(String colisId, StatutColis statut, StatutColis statutPrecedent,
+                                         LocalDateTime dateChangement, String commentaire, String modifiePar) {
+        ColisOutboxEvent event = new ColisOutboxEvent();
+        event.setColisId(colisId);
+        event.setStatut(statut);
+        event.setStatutPrecedent(statutPrecedent);
+        event.setDateChangement(dateChangement);
+        event.setCommentaire(commentaire);
+        event.setModifiePar(modifiePar);
+        return event;
+    }
+}
@@ -0,0 +1,48 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marque périodiquement les colis ouverts dont la date limite de livraison vient d'être dépassée.
+ * Chaque lot est validé dans sa propre transaction pour ne pas garder de verrous longtemps.
+ */
+@Component
+@Slf4j
+public class ColisOverdueDetectionJob {
+
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ColisOverdueDetectionJob(ColisJdbcRepository colisJdbcRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${toctoc.overdue.batch-size:1000}") int batchSize) {
+        this.colisJdbcRepository = colisJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${toctoc.overdue.detection-cron:0 * * * * *}")
+    public int detect() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int marked;
+        do {
+            marked = transactionTemplate.execute(status -> colisJdbcRepository.markOverdue(now, batchSize));
+            total += marked;
+        } while (marked == batchSize);
+
+        if (total > 0) {
+            log.info("{} colis marqués en retard", total);
+        }
+        return total;
+    }
+}
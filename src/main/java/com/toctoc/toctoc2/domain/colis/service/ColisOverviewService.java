@@ -0,0 +1,100 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisOverviewDTO;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisArchiveRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.infrastructure.cache.SingleFlightCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Vue d'ensemble du tableau de bord (colis par statut et par priorité), calculée au plus une fois
+ * par TTL quel que soit le nombre de tableaux de bord qui interrogent l'endpoint.
+ * <p>
+ * Les colis archivés sont comptés à part, avec un TTL long : leurs comptes ne changent qu'au passage
+ * de ColisArchiveJob. Chaque calcul compare la date du dernier archivage en base à celle des comptes
+ * gardés et les recalcule si elle a changé, quelle que soit l'instance qui a archivé.
+ */
+@Service
+@Slf4j
+public class ColisOverviewService {
+
+    private final ColisRepository colisRepository;
+    private final ColisArchiveRepository archiveRepository;
+    private final SingleFlightCache<ColisOverviewDTO> cache;
+    private final SingleFlightCache<ArchiveCounts> archiveCache;
+
+    // Comptes des colis archivés et MAX(date_archivage) lue avant de les calculer
+    private record ArchiveCounts(LocalDateTime dernierArchivage, ColisOverviewDTO overview) {
+    }
+
+    public ColisOverviewService(ColisRepository colisRepository,
+                                ColisArchiveRepository archiveRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${toctoc.statistics.overview-ttl:10s}") Duration ttl,
+                                @Value("${toctoc.archive.overview-ttl:6h}") Duration archiveTtl) {
+        this.colisRepository = colisRepository;
+        this.archiveRepository = archiveRepository;
+        this.cache = new SingleFlightCache<>("colis-overview", ttl, this::computeOverview, meterRegistry);
+        this.archiveCache = new SingleFlightCache<>("colis-overview-archive", archiveTtl,
+                this::computeArchiveOverview, meterRegistry);
+    }
+
+    public ColisOverviewDTO getOverview() {
+        return cache.get();
+    }
+
+    private ColisOverviewDTO computeOverview() {
+        log.info("Calcul de la vue d'ensemble des colis");
+        ColisOverviewDTO archives = archiveOverview();
+        Map<StatutColis, Long> byStatut = counts(StatutColis.class, colisRepository.countByStatut());
+        Map<PrioriteColis, Long> byPriorite = counts(PrioriteColis.class, colisRepository.countByPriorite());
+        archives.getByStatut().forEach((statut, count) -> byStatut.merge(statut, count, Long::sum));
+        archives.getByPriorite().forEach((priorite, count) -> byPriorite.merge(priorite, count, Long::sum));
+        long total = byStatut.values().stream().mapToLong(Long::longValue).sum();
+        return new ColisOverviewDTO(total, byStatut, byPriorite, LocalDateTime.now());
+    }
+
+    private ColisOverviewDTO archiveOverview() {
+        LocalDateTime dernierArchivage = archiveRepository.findLastDateArchivage().orElse(null);
+        ArchiveCounts counts = archiveCache.get();
+        if (!Objects.equals(counts.dernierArchivage(), dernierArchivage)) {
+            archiveCache.invalidate();
+            counts = archiveCache.get();
+        }
+        return counts.overview();
+    }
+
+    private ArchiveCounts computeArchiveOverview() {
+        log.info("Calcul des comptes de colis archivés");
+        // Lue avant les comptes : un archivage concurrent sera vu au prochain calcul
+        LocalDateTime dernierArchivage = archiveRepository.findLastDateArchivage().orElse(null);
+        Map<StatutColis, Long> byStatut = counts(StatutColis.class, archiveRepository.countByStatut());
+        Map<PrioriteColis, Long> byPriorite = counts(PrioriteColis.class, archiveRepository.countByPriorite());
+        long total = byStatut.values().stream().mapToLong(Long::longValue).sum();
+        return new ArchiveCounts(dernierArchivage, new ColisOverviewDTO(total, byStatut, byPriorite, LocalDateTime.now()));
+    }
+
+    // Toutes les valeurs de l'énumération sont présentes, à 0 si aucun colis
+    private <E extends Enum<E>> Map<E, Long> counts(Class<E> type, List<Object[]> rows) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            counts.put(value, 0L);
+        }
+        for (Object[] row : rows) {
+            counts.put(type.cast(row[0]), (Long) row[1]);
+        }
+        return counts;
+    }
+}
@@ -5,28 +5,48 @@ import com.toctoc.toctoc2.domain.colis.dto.*;
 import com.toctoc.toctoc2.domain.colis.model.*;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
 import com.toctoc.toctoc2.domain.client.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisArchiveRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
 import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisProduitArchiveRepository;
 import com.toctoc.toctoc2.domain.colis.repository.ColisProduitRepository;
+import com.toctoc.toctoc2.domain.colis.repository.HistoriqueLivraisonArchiveRepository;
 import com.toctoc.toctoc2.domain.colis.repository.HistoriqueLivraisonRepository;
 import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
 import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
-import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
-import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
-import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
+import com.toctoc.toctoc2.infrastructure.exception.ConcurrentUpdateException;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -34,32 +54,92 @@ import java.util.List;
 @Transactional(readOnly = true)
 public class ColisService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final ColisRepository colisRepository;
+    private final ColisArchiveRepository archiveRepository;
     private final HistoriqueLivraisonRepository historiqueRepository;
     private final ColisProduitRepository colisProduitRepository;
+    private final HistoriqueLivraisonArchiveRepository historiqueArchiveRepository;
+    private final ColisProduitArchiveRepository colisProduitArchiveRepository;
     private final ClientExpediteurRepository clientRepository;
     private final DestinataireRepository destinataireRepository;
-    private final LivreurRepository livreurRepository;
-    private final ZoneRepository zoneRepository;
-    private final ProduitRepository produitRepository;
     private final ColisMapper colisMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final ColisStatisticsService statisticsService;
+    private final ColisOutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final EntityManager entityManager;
+    private final ColisStateMachine stateMachine;
+    private final PlatformTransactionManager transactionManager;
+
+    // Activé sur PostgreSQL (index pg_trgm) ; la recherche LIKE reste le repli pour H2
+    @Value("${toctoc.search.trigram-enabled:false}")
+    private boolean trigramSearchEnabled;
+
+    // Lecture des compteurs maintenus par ColisStatisticsService au lieu du GROUP BY sur colis
+    @Value("${toctoc.statistics.incremental-enabled:false}")
+    private boolean incrementalStatisticsEnabled;
+
+    // Nouvelles tentatives du compare-and-set de updateStatut, quand un autre écrivain est passé avant
+    @Value("${toctoc.colis.statut-retry.max-attempts:3}")
+    private int statutRetryMaxAttempts;
+
+    @Value("${toctoc.colis.statut-retry.backoff:20ms}")
+    private Duration statutRetryBackoff;
 
     public Page<ColisDTO> getAllColis(Pageable pageable) {
         log.info("Récupération de tous les colis avec pagination");
         return colisRepository.findAll(pageable).map(colisMapper::toDTO);
     }
 
+    // Un colis clos archivé par ColisArchiveJob reste consultable par son id
     public ColisDTO getColisById(String id) {
         log.info("Récupération du colis avec id: {}", id);
-        Colis colis = findColisById(id);
-        return colisMapper.toDTO(colis);
+        return colisRepository.findById(id)
+                .map(colisMapper::toDTO)
+                .or(() -> archiveRepository.findById(id).map(colisMapper::toDTO))
+                .orElseThrow(() -> new ResourceNotFoundException("Colis non trouvé avec l'id: " + id));
+    }
+
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getColisVersion(String id) {
+        ResourceVersion version = colisRepository.findVersionById(id);
+        return version.exists() ? version : archiveRepository.findVersionById(id);
+    }
+
+    public ResourceVersion getColisByLivreurVersion(String livreurId) {
+        return colisRepository.findVersionByLivreurId(livreurId);
     }
 
     public Page<ColisDTO> searchColis(String keyword, Pageable pageable) {
         log.info("Recherche de colis avec mot-clé: {}", keyword);
+        if (trigramSearchEnabled) {
+            return searchColisByTrigram(keyword, pageable);
+        }
         return colisRepository.searchByKeyword(keyword, pageable).map(colisMapper::toDTO);
     }
 
+    // Les résultats sont classés par pertinence : le tri éventuel du Pageable est ignoré
+    private Page<ColisDTO> searchColisByTrigram(String keyword, Pageable pageable) {
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<String> ids = colisRepository.searchIdsByTrigram(keyword, unsorted);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), unsorted, ids.getTotalElements());
+        }
+
+        Map<String, Colis> byId = colisRepository.findByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Colis::getId, Function.identity()));
+        List<ColisDTO> ranked = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(colisMapper::toDTO)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(ranked, unsorted, ids.getTotalElements());
+    }
+
     public Page<ColisDTO> getColisByMultipleCriteria(
             StatutColis statut,
             PrioriteColis priorite,
@@ -87,6 +167,65 @@ public class ColisService {
         return colisRepository.findByLivreurId(livreurId, pageable).map(colisMapper::toDTO);
     }
 
+    // Pagination par curseur : pas de COUNT(*), coût constant quelle que soit la profondeur
+    public ColisCursorPageDTO getAllColis(String cursor, int size) {
+        log.info("Récupération des colis par curseur");
+        ColisCursor position = ColisCursor.decode(cursor);
+        int limit = clampCursorPageSize(size);
+        Pageable page = PageRequest.of(0, limit + 1);
+        return toCursorPage(position == null
+                ? colisRepository.findFirstPage(page)
+                : colisRepository.findAllAfterCursor(position.getDateCreation(), position.getId(), page), limit);
+    }
+
+    public ColisCursorPageDTO getColisByMultipleCriteria(
+            StatutColis statut,
+            PrioriteColis priorite,
+            String zoneId,
+            String ville,
+            String livreurId,
+            String cursor,
+            int size) {
+        log.info("Filtrage des colis par curseur avec critères multiples");
+        ColisCursor position = ColisCursor.decode(cursor);
+        int limit = clampCursorPageSize(size);
+        Pageable page = PageRequest.of(0, limit + 1);
+        return toCursorPage(position == null
+                ? colisRepository.findByMultipleCriteriaFirstPage(statut, priorite, zoneId, ville, livreurId, page)
+                : colisRepository.findByMultipleCriteriaAfterCursor(statut, priorite, zoneId, ville, livreurId,
+                        position.getDateCreation(), position.getId(), page), limit);
+    }
+
+    public ColisCursorPageDTO getColisByClientExpediteur(String clientId, String cursor, int size) {
+        log.info("Récupération des colis du client expéditeur par curseur: {}", clientId);
+        ColisCursor position = ColisCursor.decode(cursor);
+        int limit = clampCursorPageSize(size);
+        Pageable page = PageRequest.of(0, limit + 1);
+        return toCursorPage(position == null
+                ? colisRepository.findByClientExpediteurIdFirstPage(clientId, page)
+                : colisRepository.findByClientExpediteurIdAfterCursor(clientId, position.getDateCreation(), position.getId(), page), limit);
+    }
+
+    public ColisCursorPageDTO getColisByDestinataire(String destinataireId, String cursor, int size) {
+        log.info("Récupération des colis du destinataire par curseur: {}", destinataireId);
+        ColisCursor position = ColisCursor.decode(cursor);
+        int limit = clampCursorPageSize(size);
+        Pageable page = PageRequest.of(0, limit + 1);
+        return toCursorPage(position == null
+                ? colisRepository.findByDestinataireIdFirstPage(destinataireId, page)
+                : colisRepository.findByDestinataireIdAfterCursor(destinataireId, position.getDateCreation(), position.getId(), page), limit);
+    }
+
+    public ColisCursorPageDTO getColisByLivreur(String livreurId, String cursor, int size) {
+        log.info("Récupération des colis du livreur par curseur: {}", livreurId);
+        ColisCursor position = ColisCursor.decode(cursor);
+        int limit = clampCursorPageSize(size);
+        Pageable page = PageRequest.of(0, limit + 1);
+        return toCursorPage(position == null
+                ? colisRepository.findByLivreurIdFirstPage(livreurId, page)
+                : colisRepository.findByLivreurIdAfterCursor(livreurId, position.getDateCreation(), position.getId(), page), limit);
+    }
+
     @Transactional
     public ColisDTO createColis(CreateColisRequest request) {
         log.info("Création d'un nouveau colis");
@@ -99,7 +238,7 @@ public class ColisService {
 
         Zone zone = null;
         if (request.getZoneId() != null) {
-            zone = zoneRepository.findById(request.getZoneId())
+            zone = referenceDataCache.findZone(request.getZoneId())
                     .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée"));
         }
 
@@ -114,6 +253,7 @@ public class ColisService {
         colis = colisRepository.save(colis);
 
         createHistorique(colis, StatutColis.CREE, "Colis créé", null);
+        statisticsService.onCreated(colis);
 
         log.info("Colis créé avec succès, id: {}", colis.getId());
         return colisMapper.toDTO(colis);
@@ -125,56 +265,112 @@ public class ColisService {
 
         Colis colis = findColisById(id);
         StatutColis oldStatut = colis.getStatut();
+        ColisStatisticsService.Snapshot before = ColisStatisticsService.Snapshot.of(colis);
+        if (request.getStatut() != null && request.getStatut() != oldStatut) {
+            stateMachine.check(id, oldStatut, request.getStatut());
+        }
 
         colisMapper.updateEntity(request, colis);
 
         // Gérer les relations si modifiées
         if (request.getLivreurId() != null) {
-            colis.setLivreur(livreurRepository.findById(request.getLivreurId())
+            colis.setLivreur(referenceDataCache.findLivreur(request.getLivreurId())
                     .orElseThrow(() -> new ResourceNotFoundException("Livreur non trouvé")));
         }
 
         if (request.getZoneId() != null) {
-            colis.setZone(zoneRepository.findById(request.getZoneId())
+            colis.setZone(referenceDataCache.findZone(request.getZoneId())
                     .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée")));
         }
 
         // Si le statut a changé, créer un historique
         if (request.getStatut() != null && request.getStatut() != oldStatut) {
-            createHistorique(colis, request.getStatut(), "Statut mis à jour", null);
+            recordStatusChange(colis, colis.getLivreur() != null ? colis.getLivreur().getId() : null,
+                    oldStatut, request.getStatut(), "Statut mis à jour", null);
             updateDatesByStatut(colis, request.getStatut());
         }
+        refreshRetard(colis);
 
         colis = colisRepository.save(colis);
+        statisticsService.onChanged(before, colis);
         log.info("Colis mis à jour avec succès");
         return colisMapper.toDTO(colis);
     }
 
-    @Transactional
+    /**
+     * Changement de statut sans charger le colis : lecture du statut courant puis UPDATE conditionnel
+     * sur ce statut (compare-and-set). Si un autre écrivain est passé entre les deux, le statut est relu
+     * après une attente croissante ; l'historique n'enregistre la transition qu'une fois. La transition est
+     * validée à chaque lecture : le statut relu peut ne plus autoriser le statut demandé.
+     * <p>
+     * Chaque tentative a sa propre transaction : l'attente entre deux tentatives ne garde ni connexion
+     * ni transaction ouverte.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void updateStatut(String id, UpdateStatutRequest request) {
         log.info("Mise à jour du statut du colis: {} vers {}", id, request.getStatut());
 
-        Colis colis = findColisById(id);
-        StatutColis oldStatut = colis.getStatut();
-
-        if (oldStatut == request.getStatut()) {
-            log.warn("Le statut est déjà: {}", request.getStatut());
-            return;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            if (Boolean.TRUE.equals(transaction.execute(status -> tryUpdateStatut(id, request)))) {
+                return;
+            }
+            if (attempt >= statutRetryMaxAttempts) {
+                throw new ConcurrentUpdateException(
+                        "Le statut du colis " + id + " a été modifié en parallèle, veuillez réessayer");
+            }
+            log.warn("Statut du colis {} modifié en parallèle, nouvelle tentative ({}/{})",
+                    id, attempt + 1, statutRetryMaxAttempts);
+            backoff(attempt);
         }
+    }
 
-        colis.setStatut(request.getStatut());
-        updateDatesByStatut(colis, request.getStatut());
-
-        colisRepository.save(colis);
-        createHistorique(colis, request.getStatut(), request.getCommentaire(), request.getModifiePar());
+    // Une tentative : faux si un autre écrivain a changé le statut entre la lecture et l'UPDATE
+    private boolean tryUpdateStatut(String id, UpdateStatutRequest request) {
+        StatutColis statut = request.getStatut();
+        // Le JDBC ne voit pas le contexte de persistance (transaction englobante éventuelle)
+        entityManager.flush();
+        ColisJdbcRepository.LockedColis current = colisJdbcRepository.findStatut(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Colis non trouvé avec l'id: " + id));
+        if (current.statut() == statut) {
+            log.warn("Le statut est déjà: {}", statut);
+            return true;
+        }
+        stateMachine.check(id, current.statut(), statut);
 
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (!colisJdbcRepository.compareAndSetStatut(id, current.statut(), statut, now)) {
+            return false;
+        }
+        recordStatusChange(colisRepository.getReferenceById(id), current.livreurId(), current.statut(), statut,
+                request.getCommentaire(), request.getModifiePar());
+        statisticsService.apply(new ColisStatisticsService.Delta()
+                .add(DimensionStatistique.STATUT, current.statut().name(), -1, current.poids())
+                .add(DimensionStatistique.STATUT, statut.name(), 1, current.poids()));
+        // Un colis déjà chargé dans ce contexte ne refléterait pas l'UPDATE JDBC
+        entityManager.flush();
+        entityManager.clear();
         log.info("Statut mis à jour avec succès");
+        return true;
+    }
+
+    // Attente exponentielle avec gigue : deux écrivains en conflit ne réessaient pas au même instant
+    private void backoff(int attempt) {
+        long base = statutRetryBackoff.toMillis() << (attempt - 1);
+        long delay = base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Mise à jour du statut du colis interrompue");
+        }
     }
 
     @Transactional
     public void deleteColis(String id) {
         log.info("Suppression du colis: {}", id);
         Colis colis = findColisById(id);
+        statisticsService.onDeleted(colis);
         colisRepository.delete(colis);
         log.info("Colis supprimé avec succès");
     }
@@ -182,15 +378,46 @@ public class ColisService {
     // Gestion de l'historique
     public List<HistoriqueLivraisonDTO> getHistoriqueByColis(String colisId) {
         log.info("Récupération de l'historique du colis: {}", colisId);
-        List<HistoriqueLivraison> historiques = historiqueRepository.findByColisIdOrderByDateChangementDesc(colisId);
-        return colisMapper.toHistoriqueDTOList(historiques);
+        return historiqueDepuis(colisId)
+                .map(depuis -> colisMapper.toHistoriqueDTOList(historiqueRepository.findByColisIdDepuis(colisId, depuis)))
+                .orElseGet(() -> colisMapper.toHistoriqueArchiveDTOList(historiqueArchiveRepository.findByColisId(colisId)));
+    }
+
+    public Page<HistoriqueLivraisonDTO> getHistoriqueByColis(String colisId, Pageable pageable) {
+        log.info("Récupération paginée de l'historique du colis: {}", colisId);
+        // Tri imposé : le plus récent d'abord, dans l'ordre de l'index
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        return historiqueDepuis(colisId)
+                .map(depuis -> historiqueRepository.findByColisIdDepuis(colisId, depuis, unsorted)
+                        .map(colisMapper::toHistoriqueDTO))
+                .orElseGet(() -> historiqueArchiveRepository.findByColisId(colisId, unsorted)
+                        .map(colisMapper::toHistoriqueDTO));
+    }
+
+    /**
+     * Entrées postérieures à {@code since}, de la plus ancienne à la plus récente : le client suivant
+     * un colis repasse la date de la dernière entrée reçue pour n'obtenir que les nouvelles.
+     */
+    public List<HistoriqueLivraisonDTO> getHistoriqueByColisSince(String colisId, LocalDateTime since, int size) {
+        log.info("Récupération de l'historique du colis {} depuis {}", colisId, since);
+        PageRequest page = PageRequest.of(0, clampCursorPageSize(size));
+        List<HistoriqueLivraison> historiques = historiqueRepository.findByColisIdAfter(colisId, since, page);
+        // Cas courant du suivi : rien de nouveau pour un colis toujours dans colis, l'archive n'est pas lue
+        if (!historiques.isEmpty() || colisRepository.existsById(colisId)) {
+            return colisMapper.toHistoriqueDTOList(historiques);
+        }
+        return colisMapper.toHistoriqueArchiveDTOList(historiqueArchiveRepository.findByColisIdAfter(colisId, since, page));
     }
 
     // Gestion des produits
     public List<ColisProduitDTO> getProduitsByColis(String colisId) {
         log.info("Récupération des produits du colis: {}", colisId);
         List<ColisProduit> produits = colisProduitRepository.findByColisId(colisId);
-        return colisMapper.toColisProduitDTOList(produits);
+        if (!produits.isEmpty()) {
+            return colisMapper.toColisProduitDTOList(produits);
+        }
+        // Colis sans produit, ou archivé avec ses produits
+        return colisProduitArchiveRepository.findDTOsByColisId(colisId);
     }
 
     @Transactional
@@ -199,7 +426,7 @@ public class ColisService {
 
         Colis colis = findColisById(colisId);
 
-        if (!canModifyProducts(colis.getStatut())) {
+        if (!stateMachine.canModifyProducts(colis.getStatut())) {
             throw new IllegalStateException(
                     "Impossible d'ajouter des produits au colis avec le statut: " + colis.getStatut().getLibelle()
             );
@@ -207,7 +434,7 @@ public class ColisService {
 
         ColisProduit colisProduit = new ColisProduit();
         colisProduit.setColis(colis);
-        colisProduit.setProduit(produitRepository.findById(request.getProduitId())
+        colisProduit.setProduit(referenceDataCache.findProduit(request.getProduitId())
                 .orElseThrow(() -> new ResourceNotFoundException("Produit non trouvé")));
         colisProduit.setQuantite(request.getQuantite());
         colisProduit.setPrix(request.getPrix());
@@ -224,7 +451,7 @@ public class ColisService {
         ColisProduit colisProduit = colisProduitRepository.findById(colisProduitId)
                 .orElseThrow(() -> new ResourceNotFoundException("Produit du colis non trouvé"));
 
-        if (!canModifyProducts(colisProduit.getColis().getStatut())) {
+        if (!stateMachine.canModifyProducts(colisProduit.getColis().getStatut())) {
             throw new IllegalStateException(
                     "Impossible de supprimer des produits du colis avec le statut: " +
                             colisProduit.getColis().getStatut().getLibelle()
@@ -234,28 +461,30 @@ public class ColisService {
         colisProduitRepository.deleteById(colisProduitId);
     }
 
-    private boolean canModifyProducts(StatutColis statut) {
-        return statut == StatutColis.CREE || statut == StatutColis.EN_STOCK;
-    }
-
     // Statistiques
     public List<ColisStatisticsDTO> getStatisticsByLivreur() {
         log.info("Calcul des statistiques par livreur");
+        if (incrementalStatisticsEnabled) {
+            return statisticsService.getStatisticsByLivreur();
+        }
         List<Object[]> results = colisRepository.countAndSumWeightByLivreur();
         return mapToStatistics(results);
     }
 
     public List<ColisStatisticsDTO> getStatisticsByZone() {
         log.info("Calcul des statistiques par zone");
+        if (incrementalStatisticsEnabled) {
+            return statisticsService.getStatisticsByZone();
+        }
         List<Object[]> results = colisRepository.countAndSumWeightByZone();
         return mapToStatistics(results);
     }
 
-    public List<ColisDTO> getOverdueColis() {
+    // Lit le marqueur posé par ColisOverdueDetectionJob : pas de parcours des colis ouverts à chaque appel
+    public Page<ColisDTO> getOverdueColis(Pageable pageable) {
         log.info("Récupération des colis en retard");
         List<StatutColis> excludedStatuses = Arrays.asList(StatutColis.LIVRE, StatutColis.ANNULE, StatutColis.RETOURNE);
-        List<Colis> overdue = colisRepository.findOverdueColis(LocalDateTime.now(), excludedStatuses);
-        return colisMapper.toDTOList(overdue);
+        return colisRepository.findByEnRetardTrueAndStatutNotIn(excludedStatuses, pageable).map(colisMapper::toDTO);
     }
 
     // Méthodes privées
@@ -264,14 +493,26 @@ public class ColisService {
                 .orElseThrow(() -> new ResourceNotFoundException("Colis non trouvé avec l'id: " + id));
     }
 
-    private void createHistorique(Colis colis, StatutColis statut, String commentaire, String modifiePar) {
+    private LocalDateTime createHistorique(Colis colis, StatutColis statut, String commentaire, String modifiePar) {
         HistoriqueLivraison historique = new HistoriqueLivraison();
         historique.setColis(colis);
         historique.setStatut(statut);
-        historique.setDateChangement(LocalDateTime.now());
+        // Précision de la colonne : la date renvoyée au client sert de borne à ?since=
+        historique.setDateChangement(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         historique.setCommentaire(commentaire);
         historique.setModifiePar(modifiePar);
         historiqueRepository.save(historique);
+        return historique.getDateChangement();
+    }
+
+    // Historique et événement d'outbox dans la même transaction
+    private void recordStatusChange(Colis colis, String livreurId, StatutColis oldStatut, StatutColis statut,
+                                    String commentaire, String modifiePar) {
+        LocalDateTime dateChangement = createHistorique(colis, statut, commentaire, modifiePar);
+        outboxService.record(colis.getId(), statut, oldStatut, dateChangement, commentaire, modifiePar);
+        // Diffusé aux abonnés SSE après validation de la transaction (ColisTrackingHub)
+        eventPublisher.publishEvent(new ColisTrackingEventDTO(colis.getId(), livreurId,
+                statut, oldStatut, dateChangement, commentaire));
     }
 
     private void updateDatesByStatut(Colis colis, StatutColis statut) {
@@ -289,6 +530,46 @@ public class ColisService {
         }
     }
 
+    // Le marqueur de retard est retiré si le colis est clos ou si sa date limite a été repoussée
+    private void refreshRetard(Colis colis) {
+        if (!Boolean.TRUE.equals(colis.getEnRetard())) {
+            return;
+        }
+        LocalDateTime limite = colis.getDateLimiteLivraison();
+        if (colis.getStatut().isTerminal() || limite == null || limite.isAfter(LocalDateTime.now())) {
+            colis.setEnRetard(false);
+        }
+    }
+
+    // Aucun historique n'est antérieur à la création du colis : borne alignée sur le début du mois
+    // (découpage des partitions), ce qui évite aussi tout écart de précision entre les deux dates.
+    // Vide pour un colis archivé (ou inconnu) : son historique est lu dans l'archive, non partitionnée
+    private Optional<LocalDateTime> historiqueDepuis(String colisId) {
+        return colisRepository.findDateCreationById(colisId)
+                .map(dateCreation -> YearMonth.from(dateCreation).atDay(1).atStartOfDay());
+    }
+
+    private int clampCursorPageSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("La taille de page doit être supérieure à 0");
+        }
+        return Math.min(size, MAX_CURSOR_PAGE_SIZE);
+    }
+
+    // La requête lit limit + 1 lignes : la ligne en trop indique seulement qu'une page suivante existe
+    private ColisCursorPageDTO toCursorPage(List<Colis> rows, int limit) {
+        boolean hasNext = rows.size() > limit;
+        List<Colis> content = hasNext ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Colis last = content.get(content.size() - 1);
+            nextCursor = new ColisCursor(last.getDateCreation(), last.getId()).encode();
+        }
+
+        return new ColisCursorPageDTO(colisMapper.toDTOList(content), content.size(), hasNext, nextCursor);
+    }
+
     private List<ColisStatisticsDTO> mapToStatistics(List<Object[]> results) {
         List<ColisStatisticsDTO> stats = new ArrayList<>();
         for (Object[] result : results) {
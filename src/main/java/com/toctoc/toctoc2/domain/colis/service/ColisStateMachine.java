@@ -0,0 +1,110 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.infrastructure.exception.InvalidTransitionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cycle de vie d'un colis : table des transitions autorisées, calculée une fois au chargement de la classe.
+ * <pre>
+ * CREE       → COLLECTE, EN_STOCK, ANNULE
+ * COLLECTE   → EN_STOCK, EN_TRANSIT, ANNULE
+ * EN_STOCK   → EN_TRANSIT, RETOURNE, ANNULE
+ * EN_TRANSIT → LIVRE, EN_STOCK, RETOURNE
+ * LIVRE, RETOURNE, ANNULE : terminaux
+ * </pre>
+ * Les transitions refusées sont comptées dans {@code toctoc.colis.transitions.rejected} (tags from, to).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ColisStateMachine {
+
+    private static final Map<StatutColis, Set<StatutColis>> TRANSITIONS = new EnumMap<>(StatutColis.class);
+    // Table inverse : statuts depuis lesquels chaque statut est atteignable
+    private static final Map<StatutColis, Set<StatutColis>> SOURCES = new EnumMap<>(StatutColis.class);
+    private static final Set<StatutColis> PRODUITS_MODIFIABLES = EnumSet.of(StatutColis.CREE, StatutColis.EN_STOCK);
+
+    static {
+        allow(StatutColis.CREE, StatutColis.COLLECTE, StatutColis.EN_STOCK, StatutColis.ANNULE);
+        allow(StatutColis.COLLECTE, StatutColis.EN_STOCK, StatutColis.EN_TRANSIT, StatutColis.ANNULE);
+        allow(StatutColis.EN_STOCK, StatutColis.EN_TRANSIT, StatutColis.RETOURNE, StatutColis.ANNULE);
+        allow(StatutColis.EN_TRANSIT, StatutColis.LIVRE, StatutColis.EN_STOCK, StatutColis.RETOURNE);
+        for (StatutColis statut : StatutColis.values()) {
+            TRANSITIONS.putIfAbsent(statut, Collections.unmodifiableSet(EnumSet.noneOf(StatutColis.class)));
+            SOURCES.putIfAbsent(statut, EnumSet.noneOf(StatutColis.class));
+        }
+        SOURCES.replaceAll((statut, sources) -> Collections.unmodifiableSet(sources));
+    }
+
+    private static void allow(StatutColis from, StatutColis first, StatutColis... rest) {
+        Set<StatutColis> targets = EnumSet.of(first, rest);
+        TRANSITIONS.put(from, Collections.unmodifiableSet(targets));
+        targets.forEach(to -> SOURCES.computeIfAbsent(to, s -> EnumSet.noneOf(StatutColis.class)).add(from));
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    public boolean isAllowed(StatutColis from, StatutColis to) {
+        return TRANSITIONS.get(from).contains(to);
+    }
+
+    public Set<StatutColis> nextStatuts(StatutColis from) {
+        return TRANSITIONS.get(from);
+    }
+
+    public Set<StatutColis> sourcesOf(StatutColis to) {
+        return SOURCES.get(to);
+    }
+
+    /**
+     * Refuse la transition {@code from → to} si la table ne la prévoit pas. Un statut inchangé n'est pas une
+     * transition : c'est à l'appelant de le traiter avant.
+     */
+    public void check(String colisId, StatutColis from, StatutColis to) {
+        if (!isAllowed(from, to)) {
+            throw new InvalidTransitionException(rejected(colisId, from, to));
+        }
+    }
+
+    /**
+     * Rejette la demande d'un lot avant toute lecture en base lorsque le statut cible n'est atteignable
+     * depuis aucun statut (retour à CREE).
+     */
+    public void checkReachable(StatutColis to) {
+        if (sourcesOf(to).isEmpty()) {
+            throw new IllegalArgumentException("Aucun colis ne peut passer au statut: " + to.getLibelle());
+        }
+    }
+
+    /**
+     * Pour les lots : comptabilise la transition refusée sans interrompre le traitement des autres colis.
+     */
+    public boolean accept(String colisId, StatutColis from, StatutColis to) {
+        if (isAllowed(from, to)) {
+            return true;
+        }
+        rejected(colisId, from, to);
+        return false;
+    }
+
+    public boolean canModifyProducts(StatutColis statut) {
+        return PRODUITS_MODIFIABLES.contains(statut);
+    }
+
+    private String rejected(String colisId, StatutColis from, StatutColis to) {
+        meterRegistry.counter("toctoc.colis.transitions.rejected", "from", from.name(), "to", to.name()).increment();
+        String message = "Transition du colis " + colisId + " refusée: " + from.getLibelle() + " → " + to.getLibelle();
+        log.warn(message);
+        return message;
+    }
+}
@@ -0,0 +1,25 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.StatisticsReconciliationDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recalcul périodique des compteurs de statistiques ; les écarts sont journalisés par le service.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ColisStatisticsReconciliationJob {
+
+    private final ColisStatisticsService statisticsService;
+
+    @Scheduled(cron = "${toctoc.statistics.reconciliation-cron:0 30 3 * * *}")
+    public void reconcile() {
+        StatisticsReconciliationDTO result = statisticsService.reconcile();
+        log.info("Job de réconciliation des statistiques: {} écarts sur {} compteurs",
+                result.getDrifted(), result.getChecked());
+    }
+}
@@ -0,0 +1,241 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatisticsDTO;
+import com.toctoc.toctoc2.domain.colis.dto.StatisticsDriftDTO;
+import com.toctoc.toctoc2.domain.colis.dto.StatisticsReconciliationDTO;
+import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisArchiveRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisStatistiqueRepository;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compteurs par livreur, zone, statut et priorité (nombre de colis et poids total), mis à jour
+ * dans la transaction de chaque écriture sur les colis. Les lectures ne parcourent plus la table colis.
+ * <p>
+ * {@link #reconcile()} recalcule les valeurs depuis la table et corrige les écarts éventuels.
+ * Les compteurs portent sur tous les colis : l'archivage des colis clos ne les modifie pas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisStatisticsService {
+
+    private final ColisStatistiqueRepository statistiqueRepository;
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final ColisRepository colisRepository;
+    private final ColisArchiveRepository archiveRepository;
+    private final LivreurRepository livreurRepository;
+    private final ZoneRepository zoneRepository;
+
+    /**
+     * Valeurs d'un colis qui comptent dans les statistiques, à capturer avant une modification.
+     */
+    public record Snapshot(String livreurId, String zoneId, StatutColis statut, PrioriteColis priorite, BigDecimal poids) {
+
+        public static Snapshot of(Colis colis) {
+            return new Snapshot(
+                    colis.getLivreur() != null ? colis.getLivreur().getId() : null,
+                    colis.getZone() != null ? colis.getZone().getId() : null,
+                    colis.getStatut(),
+                    colis.getPriorite(),
+                    colis.getPoids());
+        }
+    }
+
+    /**
+     * Variations cumulées par compteur ; les variations nulles ne donnent lieu à aucune écriture.
+     */
+    public static class Delta {
+
+        private final Map<ColisStatistiqueId, long[]> counts = new HashMap<>();
+        private final Map<ColisStatistiqueId, BigDecimal> weights = new HashMap<>();
+
+        public Delta add(Snapshot snapshot, int sign) {
+            add(DimensionStatistique.LIVREUR, snapshot.livreurId(), sign, snapshot.poids());
+            add(DimensionStatistique.ZONE, snapshot.zoneId(), sign, snapshot.poids());
+            add(DimensionStatistique.STATUT, name(snapshot.statut()), sign, snapshot.poids());
+            add(DimensionStatistique.PRIORITE, name(snapshot.priorite()), sign, snapshot.poids());
+            return this;
+        }
+
+        public Delta add(DimensionStatistique dimension, String cle, int sign, BigDecimal poids) {
+            if (cle == null) {
+                return this;
+            }
+            ColisStatistiqueId id = new ColisStatistiqueId(dimension, cle);
+            counts.computeIfAbsent(id, k -> new long[1])[0] += sign;
+            BigDecimal weight = poids != null ? poids : BigDecimal.ZERO;
+            weights.merge(id, sign < 0 ? weight.negate() : weight, BigDecimal::add);
+            return this;
+        }
+
+        boolean isEmpty() {
+            return entries().isEmpty();
+        }
+
+        // Ordre fixe des clés : deux transactions verrouillent toujours les lignes dans le même ordre
+        List<ColisStatistiqueId> entries() {
+            return counts.keySet().stream()
+                    .filter(id -> counts.get(id)[0] != 0 || weights.get(id).signum() != 0)
+                    .sorted(Comparator.comparing(ColisStatistiqueId::getDimension)
+                            .thenComparing(ColisStatistiqueId::getCle))
+                    .collect(Collectors.toList());
+        }
+
+        private static String name(Enum<?> value) {
+            return value != null ? value.name() : null;
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreated(Colis colis) {
+        apply(new Delta().add(Snapshot.of(colis), 1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreated(Collection<Colis> colis) {
+        Delta delta = new Delta();
+        colis.forEach(c -> delta.add(Snapshot.of(c), 1));
+        apply(delta);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onChanged(Snapshot before, Colis after) {
+        apply(new Delta().add(before, -1).add(Snapshot.of(after), 1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onDeleted(Colis colis) {
+        apply(new Delta().add(Snapshot.of(colis), -1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Delta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        List<ColisJdbcRepository.StatistiqueIncrement> increments = delta.entries().stream()
+                .map(id -> new ColisJdbcRepository.StatistiqueIncrement(
+                        id.getDimension(), id.getCle(), delta.counts.get(id)[0], delta.weights.get(id)))
+                .collect(Collectors.toList());
+        colisJdbcRepository.incrementStatistiques(increments, LocalDateTime.now());
+    }
+
+    public List<ColisStatisticsDTO> getStatisticsByLivreur() {
+        log.info("Lecture des compteurs par livreur");
+        List<ColisStatistique> rows = statistiqueRepository.findByDimensionAndNombreGreaterThan(DimensionStatistique.LIVREUR, 0);
+        Map<String, String> noms = livreurRepository.findAllById(cles(rows)).stream()
+                .collect(Collectors.toMap(Livreur::getId, l -> l.getPrenom() + " " + l.getNom()));
+        return toStatistics(rows, noms);
+    }
+
+    public List<ColisStatisticsDTO> getStatisticsByZone() {
+        log.info("Lecture des compteurs par zone");
+        List<ColisStatistique> rows = statistiqueRepository.findByDimensionAndNombreGreaterThan(DimensionStatistique.ZONE, 0);
+        Map<String, String> noms = zoneRepository.findAllById(cles(rows)).stream()
+                .collect(Collectors.toMap(Zone::getId, Zone::getNom));
+        return toStatistics(rows, noms);
+    }
+
+    /**
+     * Recalcule tous les compteurs par GROUP BY sur la table colis, réécrit ceux qui divergent
+     * et renvoie les écarts constatés.
+     */
+    @Transactional
+    public StatisticsReconciliationDTO reconcile() {
+        log.info("Réconciliation des compteurs de statistiques");
+
+        // Verrouillage avant le recalcul : un incrément déjà fait est visible dans le GROUP BY,
+        // un incrément postérieur attend la fin de la réconciliation
+        Map<ColisStatistiqueId, ColisStatistique> stored = statistiqueRepository.findAllForUpdate().stream()
+                .collect(Collectors.toMap(s -> new ColisStatistiqueId(s.getDimension(), s.getCle()), Function.identity()));
+
+        Map<ColisStatistiqueId, Object[]> actual = new HashMap<>();
+        addActual(actual, DimensionStatistique.LIVREUR, colisRepository.countAndSumWeightByLivreur(), 1);
+        addActual(actual, DimensionStatistique.ZONE, colisRepository.countAndSumWeightByZone(), 2);
+        addActual(actual, DimensionStatistique.STATUT, colisRepository.countAndSumWeightByStatut(), 1);
+        addActual(actual, DimensionStatistique.PRIORITE, colisRepository.countAndSumWeightByPriorite(), 1);
+        addActual(actual, DimensionStatistique.LIVREUR, archiveRepository.countAndSumWeightByLivreur(), 1);
+        addActual(actual, DimensionStatistique.ZONE, archiveRepository.countAndSumWeightByZone(), 2);
+        addActual(actual, DimensionStatistique.STATUT, archiveRepository.countAndSumWeightByStatut(), 1);
+        addActual(actual, DimensionStatistique.PRIORITE, archiveRepository.countAndSumWeightByPriorite(), 1);
+
+        Set<ColisStatistiqueId> keys = new HashSet<>(stored.keySet());
+        keys.addAll(actual.keySet());
+
+        List<StatisticsDriftDTO> drifts = new ArrayList<>();
+        for (ColisStatistiqueId id : keys) {
+            Object[] values = actual.get(id);
+            long actualCount = values != null ? (Long) values[0] : 0L;
+            BigDecimal actualWeight = values != null && values[1] != null ? (BigDecimal) values[1] : BigDecimal.ZERO;
+
+            ColisStatistique statistique = stored.get(id);
+            long storedCount = statistique != null ? statistique.getNombre() : 0L;
+            BigDecimal storedWeight = statistique != null ? statistique.getPoidsTotal() : BigDecimal.ZERO;
+
+            if (storedCount == actualCount && storedWeight.compareTo(actualWeight) == 0) {
+                continue;
+            }
+
+            drifts.add(new StatisticsDriftDTO(id.getDimension(), id.getCle(),
+                    storedCount, storedWeight, actualCount, actualWeight));
+            if (statistique == null) {
+                statistique = new ColisStatistique();
+                statistique.setDimension(id.getDimension());
+                statistique.setCle(id.getCle());
+            }
+            statistique.setNombre(actualCount);
+            statistique.setPoidsTotal(actualWeight);
+            statistiqueRepository.save(statistique);
+        }
+
+        drifts.sort(Comparator.comparing(StatisticsDriftDTO::getDimension).thenComparing(StatisticsDriftDTO::getKey));
+        if (drifts.isEmpty()) {
+            log.info("Réconciliation terminée: {} compteurs vérifiés, aucun écart", keys.size());
+        } else {
+            log.warn("Réconciliation terminée: {} compteurs vérifiés, {} écarts corrigés: {}",
+                    keys.size(), drifts.size(), drifts);
+        }
+        return new StatisticsReconciliationDTO(keys.size(), drifts.size(), drifts);
+    }
+
+    // Lignes (clé, ..., nombre, poids) : le nombre est à l'index countIndex, le poids juste après.
+    // Une même clé peut venir de colis et de colis_archive, les valeurs s'additionnent
+    private void addActual(Map<ColisStatistiqueId, Object[]> actual, DimensionStatistique dimension,
+                           List<Object[]> rows, int countIndex) {
+        for (Object[] row : rows) {
+            String cle = row[0] instanceof Enum<?> value ? value.name() : (String) row[0];
+            long count = (Long) row[countIndex];
+            BigDecimal weight = row[countIndex + 1] != null ? (BigDecimal) row[countIndex + 1] : BigDecimal.ZERO;
+            actual.merge(new ColisStatistiqueId(dimension, cle), new Object[]{count, weight},
+                    (a, b) -> new Object[]{(Long) a[0] + (Long) b[0], ((BigDecimal) a[1]).add((BigDecimal) b[1])});
+        }
+    }
+
+    private Set<String> cles(List<ColisStatistique> rows) {
+        return rows.stream().map(ColisStatistique::getCle).collect(Collectors.toSet());
+    }
+
+    private List<ColisStatisticsDTO> toStatistics(List<ColisStatistique> rows, Map<String, String> noms) {
+        return rows.stream()
+                .map(s -> new ColisStatisticsDTO(s.getCle(), noms.getOrDefault(s.getCle(), ""), s.getNombre(), s.getPoidsTotal()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,156 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.TourDTO;
+import com.toctoc.toctoc2.domain.colis.dto.TourPlanDTO;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.TypeVehicule;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tournées d'une zone : les colis en stock sont répartis entre les véhicules des livreurs actifs sans
+ * dépasser leur charge utile ({@link TypeVehicule}), les plus prioritaires d'abord ({@link TourPacker}).
+ * Seuls les colis sans livreur ou tenus par l'un de ces livreurs sont répartis : ceux d'un livreur inactif,
+ * ignoré ou d'une autre zone restent en l'état. La charge utile de chaque véhicule est diminuée des colis
+ * ouverts que son livreur garde hors de cette répartition (en transit, d'une autre zone).
+ * Chaque colis chargé est assigné au livreur de sa tournée ; un colis réparti qui ne tient dans aucun
+ * véhicule est retiré de son livreur et attend la tournée suivante.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisTourService {
+
+    private final ZoneRepository zoneRepository;
+    private final LivreurRepository livreurRepository;
+    private final ColisJdbcRepository colisJdbcRepository;
+    private final ColisStatisticsService statisticsService;
+    private final EntityManager entityManager;
+
+    @Transactional
+    public TourPlanDTO buildTours(String zoneId) {
+        log.info("Composition des tournées de la zone: {}", zoneId);
+        if (!zoneRepository.existsById(zoneId)) {
+            throw new ResourceNotFoundException("Zone non trouvée avec id: " + zoneId);
+        }
+
+        Map<String, Livreur> livreurs = new HashMap<>();
+        Map<String, TypeVehicule> vehicules = new LinkedHashMap<>();
+        List<TourPacker.Vehicle> vehicles = new ArrayList<>();
+        List<String> ignores = new ArrayList<>();
+        for (Livreur livreur : livreurRepository.findByZoneAssigneeId(zoneId)) {
+            if (!Boolean.TRUE.equals(livreur.getActif())) {
+                continue;
+            }
+            Optional<TypeVehicule> type = TypeVehicule.fromVehicule(livreur.getVehicule());
+            if (type.isEmpty()) {
+                log.warn("Véhicule '{}' du livreur {} sans profil de capacité, livreur ignoré",
+                        livreur.getVehicule(), livreur.getId());
+                ignores.add(livreur.getId());
+                continue;
+            }
+            livreurs.put(livreur.getId(), livreur);
+            vehicules.put(livreur.getId(), type.get());
+        }
+
+        // Le JDBC ne voit pas le contexte de persistance
+        entityManager.flush();
+        Map<String, ColisJdbcRepository.StockedColis> stock = colisJdbcRepository.findStocked(zoneId).stream()
+                .filter(c -> c.livreurId() == null || livreurs.containsKey(c.livreurId()))
+                .collect(Collectors.toMap(ColisJdbcRepository.StockedColis::id, Function.identity()));
+
+        // Charge déjà engagée : colis ouverts du livreur, moins ceux en stock qui sont répartis à nouveau
+        Map<String, BigDecimal> engages = new HashMap<>();
+        colisJdbcRepository.findOpenLoad(livreurs.keySet())
+                .forEach((livreurId, load) -> engages.put(livreurId, load.poids()));
+        stock.values().stream()
+                .filter(c -> c.livreurId() != null)
+                .forEach(c -> engages.merge(c.livreurId(), c.poids().negate(), BigDecimal::add));
+        for (Map.Entry<String, TypeVehicule> vehicule : vehicules.entrySet()) {
+            BigDecimal engage = engages.getOrDefault(vehicule.getKey(), BigDecimal.ZERO).max(BigDecimal.ZERO);
+            long capacite = grammes(vehicule.getValue().getCapacite()) - grammes(engage);
+            vehicles.add(new TourPacker.Vehicle(vehicule.getKey(), Math.max(capacite, 0)));
+        }
+
+        List<TourPacker.Parcel> parcels = stock.values().stream()
+                .map(c -> new TourPacker.Parcel(c.id(), grammes(c.poids()), c.priorite()))
+                .collect(Collectors.toList());
+        TourPacker.Plan plan = TourPacker.pack(vehicles, parcels);
+
+        // Seuls les colis qui changent de livreur sont écrits
+        List<ColisJdbcRepository.Reassignment> changes = new ArrayList<>();
+        for (TourPacker.Tour tour : plan.tours()) {
+            for (TourPacker.Parcel parcel : tour.colis()) {
+                reassign(stock.get(parcel.colisId()), tour.livreurId(), changes);
+            }
+        }
+        plan.nonPlaces().forEach(parcel -> reassign(stock.get(parcel.colisId()), null, changes));
+
+        int conflicts = 0;
+        if (!changes.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            List<ColisJdbcRepository.Reassignment> applied = colisJdbcRepository.reassignLivreurs(changes, now);
+            conflicts = changes.size() - applied.size();
+            ColisStatisticsService.Delta delta = new ColisStatisticsService.Delta();
+            for (ColisJdbcRepository.Reassignment reassignment : applied) {
+                ColisJdbcRepository.StockedColis colis = stock.get(reassignment.colisId());
+                delta.add(DimensionStatistique.LIVREUR, colis.livreurId(), -1, colis.poids());
+                delta.add(DimensionStatistique.LIVREUR, reassignment.livreurId(), 1, colis.poids());
+            }
+            if (!applied.isEmpty()) {
+                statisticsService.apply(delta);
+                // Les compteurs créés par apply() sont encore en attente dans le contexte de persistance
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        List<TourDTO> tours = plan.tours().stream()
+                .map(tour -> {
+                    Livreur livreur = livreurs.get(tour.livreurId());
+                    return new TourDTO(tour.livreurId(), livreur.getPrenom() + " " + livreur.getNom(),
+                            vehicules.get(tour.livreurId()), kilos(tour.capacite()), kilos(tour.charge()),
+                            tour.colis().stream().map(TourPacker.Parcel::colisId).collect(Collectors.toList()));
+                })
+                .collect(Collectors.toList());
+        List<String> nonPlaces = plan.nonPlaces().stream()
+                .map(TourPacker.Parcel::colisId)
+                .collect(Collectors.toList());
+        log.info("Tournées de la zone {}: {} colis chargés sur {} véhicules, {} non placés, {} modifiés entre-temps",
+                zoneId, parcels.size() - nonPlaces.size(), tours.size(), nonPlaces.size(), conflicts);
+        return new TourPlanDTO(zoneId, tours, nonPlaces, ignores, conflicts);
+    }
+
+    private static void reassign(ColisJdbcRepository.StockedColis colis, String livreurId,
+                                 List<ColisJdbcRepository.Reassignment> changes) {
+        if (!Objects.equals(colis.livreurId(), livreurId)) {
+            changes.add(new ColisJdbcRepository.Reassignment(colis.id(), livreurId, colis.version()));
+        }
+    }
+
+    // Poids arrondi au gramme supérieur : un colis n'est jamais compté plus léger qu'il n'est
+    private static long grammes(BigDecimal kilos) {
+        return kilos.movePointRight(3).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    private static BigDecimal kilos(long grammes) {
+        return BigDecimal.valueOf(grammes, 3).setScale(2, RoundingMode.HALF_UP);
+    }
+}
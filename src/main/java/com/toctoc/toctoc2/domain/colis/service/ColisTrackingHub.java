@@ -0,0 +1,256 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisTrackingEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diffusion en temps réel (SSE) des changements de statut, par colis et par livreur.
+ * <p>
+ * Les connexions inactives ne mobilisent aucun thread : SseEmitter repose sur le mode asynchrone
+ * des servlets, seul l'envoi d'un événement écrit sur la socket. Chaque abonné a sa file d'envoi,
+ * vidée dans l'ordre par un des threads dédiés, pour qu'un client lent ne bloque ni la requête qui a
+ * modifié le colis ni les autres abonnés. Un abonné dont la file déborde ou dont un envoi dure plus de
+ * {@code send-timeout} est déconnecté : EventSource se reconnecte et reçoit l'état courant.
+ */
+@Component
+@Slf4j
+public class ColisTrackingHub {
+
+    static final String STATUT_EVENT = "statut";
+    private static final Object PING = new Object();
+
+    private final Map<String, Set<Subscriber>> byColis = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byLivreur = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter dropped;
+    private final ExecutorService senders;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int maxPending;
+
+    @Autowired
+    public ColisTrackingHub(MeterRegistry meterRegistry,
+                            @Value("${toctoc.tracking.timeout:30m}") Duration timeout,
+                            @Value("${toctoc.tracking.sender-threads:4}") int senderThreads,
+                            @Value("${toctoc.tracking.send-timeout:10s}") Duration sendTimeout,
+                            @Value("${toctoc.tracking.max-pending:100}") int maxPending) {
+        this(meterRegistry, timeout, senders(senderThreads), sendTimeout, maxPending);
+    }
+
+    ColisTrackingHub(MeterRegistry meterRegistry, Duration timeout, ExecutorService senders,
+                     Duration sendTimeout, int maxPending) {
+        this.timeoutMillis = timeout.toMillis();
+        this.senders = senders;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.maxPending = maxPending;
+        meterRegistry.gauge("toctoc.tracking.connections", connections);
+        this.dropped = meterRegistry.counter("toctoc.tracking.dropped");
+    }
+
+    private static ExecutorService senders(int senderThreads) {
+        AtomicInteger index = new AtomicInteger();
+        return Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "colis-tracking-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+    }
+
+    /**
+     * Abonne un client aux changements d'un colis ; l'état courant lui est envoyé immédiatement.
+     */
+    public SseEmitter subscribeColis(String colisId, ColisTrackingEventDTO current) {
+        Subscriber subscriber = register(byColis, colisId);
+        subscriber.offer(current);
+        return subscriber.emitter;
+    }
+
+    /**
+     * Abonne un client aux changements de tous les colis assignés à un livreur.
+     */
+    public SseEmitter subscribeLivreur(String livreurId) {
+        return register(byLivreur, livreurId).emitter;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    // Après validation : un changement annulé n'est jamais diffusé. Ne fait que remplir les files d'envoi
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(ColisTrackingEventDTO event) {
+        offer(byColis.get(event.getColisId()), event);
+        if (event.getLivreurId() != null) {
+            offer(byLivreur.get(event.getLivreurId()), event);
+        }
+    }
+
+    // Commentaire SSE périodique : les proxys ne coupent pas les connexions inactives et les clients partis sont détectés.
+    // Le planificateur ne fait que remplir les files, les écritures passent par les threads d'envoi
+    @Scheduled(cron = "${toctoc.tracking.heartbeat-cron:*/30 * * * * *}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Map<String, Set<Subscriber>> topics : List.of(byColis, byLivreur)) {
+            topics.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+                if (subscriber.sendingFor(now) > sendTimeoutNanos) {
+                    subscriber.drop("envoi bloqué depuis plus de " + Duration.ofNanos(sendTimeoutNanos).toSeconds() + "s");
+                } else {
+                    subscriber.offer(PING);
+                }
+            }));
+        }
+    }
+
+    private Subscriber register(Map<String, Set<Subscriber>> topics, String key) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), topics, key);
+        topics.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        connections.incrementAndGet();
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(subscriber::unregister);
+        // Fin normale du flux : EventSource se reconnecte de lui-même
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscriber.unregister());
+        return subscriber;
+    }
+
+    private static void offer(Set<Subscriber> subscribers, Object message) {
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(message));
+        }
+    }
+
+    /**
+     * Un client connecté et sa file d'envoi. Un seul thread vide la file à la fois : les messages
+     * d'un abonné partent dans l'ordre où ils ont été ajoutés.
+     */
+    private class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Map<String, Set<Subscriber>> topics;
+        private final String key;
+        private final Deque<Object> pending = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        // Début de l'envoi en cours, 0 entre deux envois
+        private volatile long sendingSince;
+
+        Subscriber(SseEmitter emitter, Map<String, Set<Subscriber>> topics, String key) {
+            this.emitter = emitter;
+            this.topics = topics;
+            this.key = key;
+        }
+
+        void offer(Object message) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() < maxPending) {
+                    pending.add(message);
+                    if (draining) {
+                        return;
+                    }
+                    draining = true;
+                } else {
+                    message = null;
+                }
+            }
+            if (message == null) {
+                drop(maxPending + " messages en attente");
+                return;
+            }
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Arrêt de l'application
+                close(e);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Object message;
+                synchronized (this) {
+                    message = pending.poll();
+                    if (message == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                }
+                sendingSince = System.nanoTime();
+                try {
+                    if (message == PING) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(STATUT_EVENT).data(message, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client parti
+                    close(e);
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+
+        long sendingFor(long now) {
+            long since = sendingSince;
+            return since == 0 ? 0 : now - since;
+        }
+
+        void drop(String reason) {
+            log.warn("Suivi {}: abonné trop lent déconnecté ({})", key, reason);
+            dropped.increment();
+            close(new IOException("Abonné trop lent: " + reason));
+        }
+
+        private void close(Exception cause) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            unregister();
+            emitter.completeWithError(cause);
+        }
+
+        // Un seul des rappels (fin, délai, erreur) décrémente le compteur
+        void unregister() {
+            boolean[] removed = {false};
+            topics.computeIfPresent(key, (k, subscribers) -> {
+                removed[0] = subscribers.remove(this);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            if (removed[0]) {
+                connections.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisTrackingEventDTO;
+import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Abonnements au suivi en temps réel : remplace l'interrogation répétée de /colis/{id}/historique.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ColisTrackingService {
+
+    private final ColisRepository colisRepository;
+    private final LivreurRepository livreurRepository;
+    private final ColisTrackingHub trackingHub;
+
+    public SseEmitter trackColis(String colisId) {
+        log.debug("Abonnement au suivi du colis: {}", colisId);
+        Colis colis = colisRepository.findById(colisId)
+                .orElseThrow(() -> new ResourceNotFoundException("Colis non trouvé avec l'id: " + colisId));
+        ColisTrackingEventDTO current = new ColisTrackingEventDTO(colis.getId(),
+                colis.getLivreur() != null ? colis.getLivreur().getId() : null,
+                colis.getStatut(), null, colis.getDateModification(), null);
+        return trackingHub.subscribeColis(colisId, current);
+    }
+
+    public SseEmitter trackLivreur(String livreurId) {
+        log.debug("Abonnement au suivi du livreur: {}", livreurId);
+        if (!livreurRepository.existsById(livreurId)) {
+            throw new ResourceNotFoundException("Livreur non trouvé avec l'id: " + livreurId);
+        }
+        return trackingHub.subscribeLivreur(livreurId);
+    }
+}
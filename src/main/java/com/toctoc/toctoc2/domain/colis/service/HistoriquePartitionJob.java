@@ -0,0 +1,142 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.domain.colis.repository.HistoriquePartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintenance des partitions mensuelles de historique_livraison (PostgreSQL) : crée les mois à venir
+ * avant qu'ils ne commencent, puis archive les mois expirés en NDJSON compressé avant de détacher
+ * et supprimer leur partition. Une partition n'est supprimée qu'une fois son archive complète écrite.
+ */
+@Component
+@ConditionalOnProperty(name = "toctoc.historique.partitioning-enabled", havingValue = "true")
+@Slf4j
+public class HistoriquePartitionJob {
+
+    private final HistoriquePartitionRepository partitionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    public HistoriquePartitionJob(HistoriquePartitionRepository partitionRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${toctoc.historique.months-ahead:3}") int monthsAhead,
+                                  @Value("${toctoc.historique.retention-months:24}") int retentionMonths,
+                                  @Value("${toctoc.historique.archive-dir:archives/historique}") Path archiveDir) {
+        this.partitionRepository = partitionRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = archiveDir;
+    }
+
+    @Scheduled(cron = "${toctoc.historique.partition-cron:0 15 3 * * *}")
+    public void maintain() {
+        createUpcoming(YearMonth.now());
+        archiveExpired(YearMonth.now());
+    }
+
+    /**
+     * Crée les partitions manquantes du mois courant aux {@code monthsAhead} suivants.
+     */
+    public int createUpcoming(YearMonth current) {
+        List<YearMonth> existing = partitionRepository.findPartitions();
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (!existing.contains(month)) {
+                transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(month));
+                created++;
+            }
+        }
+        if (created > 0) {
+            log.info("{} partitions d'historique créées jusqu'à {}", created, current.plusMonths(monthsAhead));
+        }
+        return created;
+    }
+
+    /**
+     * Archive puis supprime les partitions antérieures à la période de rétention.
+     */
+    public int archiveExpired(YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        int archived = 0;
+        for (YearMonth month : partitionRepository.findPartitions()) {
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                long rows = archive(month);
+                transactionTemplate.executeWithoutResult(status -> partitionRepository.dropPartition(month));
+                log.info("Historique de {} archivé ({} lignes) et partition supprimée", month, rows);
+                archived++;
+            } catch (IOException | UncheckedIOException e) {
+                // La partition reste en place : nouvel essai au prochain passage
+                log.error("Échec de l'archivage de l'historique de {}: {}", month, e.getMessage());
+            }
+        }
+        return archived;
+    }
+
+    // Fichier temporaire renommé à la fin : une archive présente est toujours complète
+    private long archive(YearMonth month) throws IOException {
+        Files.createDirectories(archiveDir);
+        String name = HistoriquePartitionRepository.partitionName(month);
+        Path target = archiveDir.resolve(name + ".ndjson.gz");
+        Path temp = archiveDir.resolve(name + ".ndjson.gz.tmp");
+
+        long[] rows = {0};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            transactionTemplate.executeWithoutResult(status -> partitionRepository.streamPartition(month, rs -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", rs.getString("id"));
+                row.put("colisId", rs.getString("colis_id"));
+                row.put("statut", rs.getString("statut"));
+                Timestamp dateChangement = rs.getTimestamp("date_changement");
+                row.put("dateChangement", dateChangement.toLocalDateTime());
+                row.put("commentaire", rs.getString("commentaire"));
+                row.put("modifiePar", rs.getString("modifie_par"));
+                try {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            }));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows[0];
+    }
+}
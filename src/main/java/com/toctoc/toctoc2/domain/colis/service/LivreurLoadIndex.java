@@ -0,0 +1,88 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Charge des livreurs d'une zone pendant une exécution de l'assignation : tas des livreurs par nombre
+ * de colis ouverts puis poids total, mis à jour à chaque colis assigné. Le moins chargé est choisi en
+ * O(log n), sans relecture en base entre deux colis.
+ */
+public class LivreurLoadIndex {
+
+    private static final Comparator<Load> LEAST_LOADED = Comparator
+            .comparingLong(Load::getNombre)
+            .thenComparing(Load::getPoids)
+            .thenComparing(Load::getLivreurId);
+
+    private final PriorityQueue<Load> heap = new PriorityQueue<>(LEAST_LOADED);
+    private final Map<String, Load> byLivreur = new HashMap<>();
+
+    public void add(String livreurId, long nombre, BigDecimal poids) {
+        Load load = new Load(livreurId, nombre, poids != null ? poids : BigDecimal.ZERO);
+        byLivreur.put(livreurId, load);
+        heap.add(load);
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * Réserve le colis pour le livreur le moins chargé et renvoie son id.
+     */
+    public String assign(BigDecimal poids) {
+        Load load = heap.poll();
+        if (load == null) {
+            throw new IllegalStateException("Aucun livreur dans l'index de charge");
+        }
+        load.nombre++;
+        load.poids = load.poids.add(poids != null ? poids : BigDecimal.ZERO);
+        heap.add(load);
+        return load.livreurId;
+    }
+
+    // Assignation réservée mais non appliquée en base (colis assigné entre-temps)
+    public void release(String livreurId, BigDecimal poids) {
+        Load load = byLivreur.get(livreurId);
+        heap.remove(load);
+        load.nombre--;
+        load.poids = load.poids.subtract(poids != null ? poids : BigDecimal.ZERO);
+        heap.add(load);
+    }
+
+    public List<Load> loads() {
+        List<Load> loads = new ArrayList<>(byLivreur.values());
+        loads.sort(LEAST_LOADED);
+        return loads;
+    }
+
+    public static final class Load {
+        private final String livreurId;
+        private long nombre;
+        private BigDecimal poids;
+
+        private Load(String livreurId, long nombre, BigDecimal poids) {
+            this.livreurId = livreurId;
+            this.nombre = nombre;
+            this.poids = poids;
+        }
+
+        public String getLivreurId() {
+            return livreurId;
+        }
+
+        public long getNombre() {
+            return nombre;
+        }
+
+        public BigDecimal getPoids() {
+            return poids;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chargement des véhicules d'une zone par « first-fit decreasing » : les colis sont pris par priorité
+ * décroissante puis poids décroissant, et chacun va dans le premier véhicule (plus grande capacité
+ * d'abord) où il tient encore. Un colis urgent n'est donc jamais écarté au profit d'un colis normal.
+ * <p>
+ * La capacité restante des véhicules est tenue dans un arbre de maximums : le premier véhicule assez
+ * grand est trouvé en O(log m), soit O(n log n + n log m) pour n colis et m véhicules.
+ * Les poids sont en grammes.
+ */
+public final class TourPacker {
+
+    private static final Comparator<Parcel> ORDRE_CHARGEMENT = Comparator
+            .comparing(Parcel::priorite, Comparator.reverseOrder())
+            .thenComparing(Parcel::poids, Comparator.reverseOrder())
+            .thenComparing(Parcel::colisId);
+
+    private static final Comparator<Vehicle> ORDRE_VEHICULES = Comparator
+            .comparingLong(Vehicle::capacite).reversed()
+            .thenComparing(Vehicle::livreurId);
+
+    private TourPacker() {
+    }
+
+    public record Vehicle(String livreurId, long capacite) {
+    }
+
+    public record Parcel(String colisId, long poids, PrioriteColis priorite) {
+    }
+
+    public record Tour(String livreurId, long capacite, long charge, List<Parcel> colis) {
+    }
+
+    /**
+     * Tournées dans l'ordre de remplissage des véhicules (vides comprises), et colis qui ne tiennent
+     * dans aucun véhicule, dans l'ordre de chargement.
+     */
+    public record Plan(List<Tour> tours, List<Parcel> nonPlaces) {
+    }
+
+    public static Plan pack(List<Vehicle> vehicles, List<Parcel> parcels) {
+        List<Vehicle> ordered = new ArrayList<>(vehicles);
+        ordered.sort(ORDRE_VEHICULES);
+        Parcel[] queue = parcels.toArray(new Parcel[0]);
+        Arrays.sort(queue, ORDRE_CHARGEMENT);
+
+        RemainingCapacity remaining = new RemainingCapacity(ordered);
+        List<List<Parcel>> loads = new ArrayList<>(ordered.size());
+        ordered.forEach(v -> loads.add(new ArrayList<>()));
+        List<Parcel> nonPlaces = new ArrayList<>();
+        for (Parcel parcel : queue) {
+            int vehicle = remaining.firstFit(parcel.poids());
+            if (vehicle < 0) {
+                nonPlaces.add(parcel);
+            } else {
+                remaining.take(vehicle, parcel.poids());
+                loads.get(vehicle).add(parcel);
+            }
+        }
+
+        List<Tour> tours = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            Vehicle vehicle = ordered.get(i);
+            tours.add(new Tour(vehicle.livreurId(), vehicle.capacite(),
+                    vehicle.capacite() - remaining.get(i), List.copyOf(loads.get(i))));
+        }
+        return new Plan(tours, nonPlaces);
+    }
+
+    // Arbre binaire complet : chaque nœud porte la plus grande capacité restante de ses feuilles
+    private static final class RemainingCapacity {
+
+        private final int leaves;
+        private final long[] tree;
+
+        RemainingCapacity(List<Vehicle> vehicles) {
+            int size = 1;
+            while (size < vehicles.size()) {
+                size <<= 1;
+            }
+            leaves = size;
+            tree = new long[2 * size];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < vehicles.size(); i++) {
+                tree[size + i] = vehicles.get(i).capacite();
+            }
+            for (int node = size - 1; node > 0; node--) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        // Indice du premier véhicule dont la capacité restante suffit, -1 sinon
+        int firstFit(long poids) {
+            if (tree[1] < poids) {
+                return -1;
+            }
+            int node = 1;
+            while (node < leaves) {
+                node = tree[2 * node] >= poids ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+
+        void take(int vehicle, long poids) {
+            int node = leaves + vehicle;
+            tree[node] -= poids;
+            for (node >>= 1; node > 0; node >>= 1) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        long get(int vehicle) {
+            return tree[leaves + vehicle];
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.toctoc.toctoc2.domain.livraison.model;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Profils de véhicule et charge utile maximale (kg) utilisés pour composer les tournées.
+ * {@link Livreur#getVehicule()} reste un texte libre : le profil en est déduit par mots-clés.
+ */
+public enum TypeVehicule {
+    VELO("Vélo", 20, "velo", "bicyclette"),
+    SCOOTER("Scooter", 30, "scooter"),
+    MOTO("Moto", 50, "moto"),
+    VOITURE("Voiture", 300, "voiture", "berline"),
+    UTILITAIRE("Utilitaire", 1000, "utilitaire", "fourgon", "camionnette", "kangoo", "partner"),
+    CAMION("Camion", 3500, "camion");
+
+    // Les mots-clés les plus spécifiques d'abord : "camionnette" contient "camion"
+    private static final List<TypeVehicule> RECHERCHE = List.of(UTILITAIRE, CAMION, SCOOTER, MOTO, VELO, VOITURE);
+
+    private final String libelle;
+    private final BigDecimal capacite;
+    private final List<String> motsCles;
+
+    TypeVehicule(String libelle, int capacite, String... motsCles) {
+        this.libelle = libelle;
+        this.capacite = BigDecimal.valueOf(capacite);
+        this.motsCles = List.of(motsCles);
+    }
+
+    public String getLibelle() {
+        return libelle;
+    }
+
+    public BigDecimal getCapacite() {
+        return capacite;
+    }
+
+    /**
+     * Profil correspondant au véhicule saisi pour un livreur ("Scooter Peugeot", "Fourgon 3m3"...),
+     * vide si le texte est absent ou ne contient aucun mot-clé connu.
+     */
+    public static Optional<TypeVehicule> fromVehicule(String vehicule) {
+        if (vehicule == null || vehicule.isBlank()) {
+            return Optional.empty();
+        }
+        String texte = Normalizer.normalize(vehicule, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (TypeVehicule type : RECHERCHE) {
+            if (type.motsCles.stream().anyMatch(texte::contains)) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+}
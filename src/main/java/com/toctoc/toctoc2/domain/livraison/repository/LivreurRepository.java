@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.livraison.repository;
 
 import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -24,4 +25,16 @@ public interface LivreurRepository extends JpaRepository<Livreur, String> {
     Page<Livreur> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
 
     boolean existsByTelephone(String telephone);
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les entités.
+    // La zone assignée compte : son nom figure dans LivreurDTO
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(l), COUNT(z), " +
+            "MAX(GREATEST(l.dateModification, COALESCE(z.dateModification, l.dateModification)))) " +
+            "FROM Livreur l LEFT JOIN l.zoneAssignee z WHERE l.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(l), COUNT(z), " +
+            "MAX(GREATEST(l.dateModification, COALESCE(z.dateModification, l.dateModification)))) " +
+            "FROM Livreur l LEFT JOIN l.zoneAssignee z")
+    ResourceVersion findVersion();
 }
\ No newline at end of file
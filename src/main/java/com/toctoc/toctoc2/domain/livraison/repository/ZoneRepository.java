@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.livraison.repository;
 
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -22,4 +23,12 @@ public interface ZoneRepository extends JpaRepository<Zone, String> {
             "LOWER(z.codePostal) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(z.ville) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Zone> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les entités
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(z), MAX(z.dateModification)) " +
+            "FROM Zone z WHERE z.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(z), MAX(z.dateModification)) FROM Zone z")
+    ResourceVersion findVersion();
 }
\ No newline at end of file
@@ -5,15 +5,23 @@ import com.toctoc.toctoc2.domain.livraison.dto.LivreurDTO;
 import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
 import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.DuplicateResourceException;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import com.toctoc.toctoc2.infrastructure.search.NGramIndex;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 @Service
@@ -25,6 +33,15 @@ public class LivreurService {
     private final LivreurRepository repository;
     private final ZoneRepository zoneRepository;
     private final LivreurMapper mapper;
+    private final ReferenceDataCache referenceDataCache;
+
+    private final ReferenceSearchIndexes searchIndexes;
+
+    private final NGramIndex<LivreurDTO> searchIndex = new NGramIndex<>(
+            LivreurDTO::getId,
+            livreur -> Arrays.asList(livreur.getNom(), livreur.getPrenom(), livreur.getTelephone()),
+            Comparator.comparing(LivreurDTO::getNom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                    .thenComparing(LivreurDTO::getPrenom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
 
     public Page<LivreurDTO> getAllLivreurs(Pageable pageable) {
         log.info("Récupération de tous les livreurs");
@@ -41,9 +58,24 @@ public class LivreurService {
         return mapper.toDTO(findLivreurById(id));
     }
 
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getLivreurVersion(String id) {
+        return repository.findVersionById(id);
+    }
+
+    public ResourceVersion getLivreursVersion() {
+        return repository.findVersion();
+    }
+
     public Page<LivreurDTO> searchLivreurs(String keyword, Pageable pageable) {
         log.info("Recherche de livreurs avec: {}", keyword);
-        return repository.searchByKeyword(keyword, pageable).map(mapper::toDTO);
+        return searchIndexes.search(searchIndex, keyword, pageable,
+                () -> repository.searchByKeyword(keyword, pageable).map(mapper::toDTO));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndexes.rebuild(searchIndex, "livreurs", () -> mapper.toDTOList(repository.findAll()));
     }
 
     @Transactional
@@ -63,7 +95,7 @@ public class LivreurService {
 
         livreur = repository.save(livreur);
         log.info("Livreur créé avec id: {}", livreur.getId());
-        return mapper.toDTO(livreur);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(livreur));
     }
 
     @Transactional
@@ -85,7 +117,8 @@ public class LivreurService {
         }
 
         livreur = repository.save(livreur);
-        return mapper.toDTO(livreur);
+        referenceDataCache.evictLivreur(id);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(livreur));
     }
 
     @Transactional
@@ -93,10 +126,17 @@ public class LivreurService {
         log.info("Suppression du livreur: {}", id);
         Livreur livreur = findLivreurById(id);
         repository.delete(livreur);
+        referenceDataCache.evictLivreur(id);
+        searchIndexes.removeAfterCommit(searchIndex, id);
+    }
+
+    // Les entrées de l'index portent le nom de la zone assignée : ZoneService les remplace quand elle change
+    public void reindexAfterCommit(List<Livreur> livreurs) {
+        livreurs.forEach(livreur -> searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(livreur)));
     }
 
     private Livreur findLivreurById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Livreur non trouvé avec id: " + id));
     }
-}
\ No newline at end of file
+}
@@ -2,16 +2,29 @@ package com.toctoc.toctoc2.domain.livraison.service;
 
 import com.toctoc.toctoc2.application.mapper.ZoneMapper;
 import com.toctoc.toctoc2.domain.livraison.dto.ZoneDTO;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
 import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import com.toctoc.toctoc2.infrastructure.search.NGramIndex;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -19,7 +32,17 @@ import org.springframework.transaction.annotation.Transactional;
 public class ZoneService {
 
     private final ZoneRepository repository;
+    private final LivreurRepository livreurRepository;
+    private final LivreurService livreurService;
     private final ZoneMapper mapper;
+    private final ReferenceDataCache referenceDataCache;
+
+    private final ReferenceSearchIndexes searchIndexes;
+
+    private final NGramIndex<ZoneDTO> searchIndex = new NGramIndex<>(
+            ZoneDTO::getId,
+            zone -> Arrays.asList(zone.getNom(), zone.getCodePostal(), zone.getVille()),
+            Comparator.comparing(ZoneDTO::getNom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
 
     public Page<ZoneDTO> getAllZones(Pageable pageable) {
         return repository.findAll(pageable).map(mapper::toDTO);
@@ -29,33 +52,63 @@ public class ZoneService {
         return mapper.toDTO(findZoneById(id));
     }
 
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getZoneVersion(String id) {
+        return repository.findVersionById(id);
+    }
+
+    public ResourceVersion getZonesVersion() {
+        return repository.findVersion();
+    }
+
     public Page<ZoneDTO> searchZones(String keyword, Pageable pageable) {
-        return repository.searchByKeyword(keyword, pageable).map(mapper::toDTO);
+        return searchIndexes.search(searchIndex, keyword, pageable,
+                () -> repository.searchByKeyword(keyword, pageable).map(mapper::toDTO));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndexes.rebuild(searchIndex, "zones", () -> mapper.toDTOList(repository.findAll()));
     }
 
     @Transactional
     public ZoneDTO createZone(ZoneDTO dto) {
         Zone zone = mapper.toEntity(dto);
         zone = repository.save(zone);
-        return mapper.toDTO(zone);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(zone));
     }
 
     @Transactional
     public ZoneDTO updateZone(String id, ZoneDTO dto) {
         Zone zone = findZoneById(id);
+        String ancienNom = zone.getNom();
         mapper.updateEntity(dto, zone);
         zone = repository.save(zone);
-        return mapper.toDTO(zone);
+        referenceDataCache.evictZone(id);
+        if (!Objects.equals(ancienNom, zone.getNom())) {
+            livreurService.reindexAfterCommit(livreurRepository.findByZoneAssigneeId(id));
+        }
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(zone));
     }
 
+    // Livreurs détachés par l'ORM plutôt que par le ON DELETE SET NULL de la base : le cache de second niveau
+    // (région livreur) et le cache des données de référence ne garderaient sinon l'id d'une zone supprimée
     @Transactional
     public void deleteZone(String id) {
         Zone zone = findZoneById(id);
+        List<Livreur> livreurs = livreurRepository.findByZoneAssigneeId(id);
+        for (Livreur livreur : livreurs) {
+            livreur.setZoneAssignee(null);
+            referenceDataCache.evictLivreur(livreur.getId());
+        }
+        livreurService.reindexAfterCommit(livreurs);
         repository.delete(zone);
+        referenceDataCache.evictZone(id);
+        searchIndexes.removeAfterCommit(searchIndex, id);
     }
 
     private Zone findZoneById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Zone non trouvée avec id: " + id));
     }
-}
\ No newline at end of file
+}
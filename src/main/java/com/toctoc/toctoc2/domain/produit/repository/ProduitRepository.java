@@ -1,6 +1,7 @@
 package com.toctoc.toctoc2.domain.produit.repository;
 
 import com.toctoc.toctoc2.domain.produit.model.Produit;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,4 +18,12 @@ public interface ProduitRepository extends JpaRepository<Produit, String> {
             "LOWER(p.nom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
             "LOWER(p.categorie) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<Produit> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    // Versions lues par les GET conditionnels (ETag), sans charger les entités
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(p), MAX(p.dateModification)) " +
+            "FROM Produit p WHERE p.id = :id")
+    ResourceVersion findVersionById(@Param("id") String id);
+
+    @Query("SELECT new com.toctoc.toctoc2.infrastructure.http.ResourceVersion(COUNT(p), MAX(p.dateModification)) FROM Produit p")
+    ResourceVersion findVersion();
 }
\ No newline at end of file
@@ -4,14 +4,23 @@ import com.toctoc.toctoc2.application.mapper.ProduitMapper;
 import com.toctoc.toctoc2.domain.produit.dto.ProduitDTO;
 import com.toctoc.toctoc2.domain.produit.model.Produit;
 import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.http.ResourceVersion;
+import com.toctoc.toctoc2.infrastructure.search.NGramIndex;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -20,6 +29,14 @@ public class ProduitService {
 
     private final ProduitRepository repository;
     private final ProduitMapper mapper;
+    private final ReferenceDataCache referenceDataCache;
+
+    private final ReferenceSearchIndexes searchIndexes;
+
+    private final NGramIndex<ProduitDTO> searchIndex = new NGramIndex<>(
+            ProduitDTO::getId,
+            produit -> Arrays.asList(produit.getNom(), produit.getCategorie()),
+            Comparator.comparing(ProduitDTO::getNom, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
 
     public Page<ProduitDTO> getAllProduits(Pageable pageable) {
         return repository.findAll(pageable).map(mapper::toDTO);
@@ -29,15 +46,30 @@ public class ProduitService {
         return mapper.toDTO(findProduitById(id));
     }
 
+    // Versions pour les GET conditionnels : un agrégat COUNT/MAX, sans construire le DTO
+    public ResourceVersion getProduitVersion(String id) {
+        return repository.findVersionById(id);
+    }
+
+    public ResourceVersion getProduitsVersion() {
+        return repository.findVersion();
+    }
+
     public Page<ProduitDTO> searchProduits(String keyword, Pageable pageable) {
-        return repository.searchByKeyword(keyword, pageable).map(mapper::toDTO);
+        return searchIndexes.search(searchIndex, keyword, pageable,
+                () -> repository.searchByKeyword(keyword, pageable).map(mapper::toDTO));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        searchIndexes.rebuild(searchIndex, "produits", () -> mapper.toDTOList(repository.findAll()));
     }
 
     @Transactional
     public ProduitDTO createProduit(ProduitDTO dto) {
         Produit produit = mapper.toEntity(dto);
         produit = repository.save(produit);
-        return mapper.toDTO(produit);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(produit));
     }
 
     @Transactional
@@ -45,17 +77,20 @@ public class ProduitService {
         Produit produit = findProduitById(id);
         mapper.updateEntity(dto, produit);
         produit = repository.save(produit);
-        return mapper.toDTO(produit);
+        referenceDataCache.evictProduit(id);
+        return searchIndexes.putAfterCommit(searchIndex, mapper.toDTO(produit));
     }
 
     @Transactional
     public void deleteProduit(String id) {
         Produit produit = findProduitById(id);
         repository.delete(produit);
+        referenceDataCache.evictProduit(id);
+        searchIndexes.removeAfterCommit(searchIndex, id);
     }
 
     private Produit findProduitById(String id) {
         return repository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Produit non trouvé avec id: " + id));
     }
-}
\ No newline at end of file
+}
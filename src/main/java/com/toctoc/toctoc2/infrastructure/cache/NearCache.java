@@ -0,0 +1,101 @@
+package com.toctoc.toctoc2.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache local borné de valeurs lues par clé, pour les données de référence relues à chaque écriture
+ * (zones, livreurs, produits). Une valeur est relue après le TTL, ou dès son invalidation par le service
+ * qui la modifie ; les clés absentes ne sont pas mises en cache.
+ * <p>
+ * Mêmes métriques que {@link SingleFlightCache} (tag {@code cache}) : {@code toctoc.cache.requests}
+ * (result=hit|miss), {@code toctoc.cache.loads}, plus {@code toctoc.cache.size}.
+ */
+public class NearCache<K, V> {
+
+    private final Cache<K, V> cache;
+    private final Function<K, Optional<V>> loader;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loads;
+
+    public NearCache(String name, Duration ttl, long maximumSize, Function<K, Optional<V>> loader,
+                     MeterRegistry registry) {
+        this(name, ttl, maximumSize, loader, registry, Ticker.systemTicker());
+    }
+
+    public NearCache(String name, Duration ttl, long maximumSize, Function<K, Optional<V>> loader,
+                     MeterRegistry registry, Ticker ticker) {
+        this.loader = loader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                // Éviction dans le thread appelant : taille et expiration immédiatement à jour
+                .executor(Runnable::run)
+                .build();
+        this.hits = Counter.builder("toctoc.cache.requests").tag("cache", name).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("toctoc.cache.requests").tag("cache", name).tag("result", "miss").register(registry);
+        this.loads = Counter.builder("toctoc.cache.loads").tag("cache", name).register(registry);
+        Gauge.builder("toctoc.cache.size", cache, Cache::estimatedSize)
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    public Optional<V> get(K key) {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            hits.increment();
+            return Optional.of(value);
+        }
+        misses.increment();
+        loads.increment();
+        Optional<V> loaded = loader.apply(key);
+        loaded.ifPresent(v -> cache.put(key, v));
+        return loaded;
+    }
+
+    // Valeur connue sans passer par le loader, par exemple celle que l'appelant vient d'écrire
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    public void invalidate(K key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Invalide la clé tout de suite puis à nouveau à la fin de la transaction courante : une lecture
+     * concurrente qui aurait remis en cache l'ancienne valeur, encore visible avant le commit, est écartée.
+     */
+    public void invalidateAfterCommit(K key) {
+        invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(key);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,71 @@
+package com.toctoc.toctoc2.infrastructure.cache;
+
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.domain.produit.model.Produit;
+import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Zones, livreurs et produits relus par les écritures de colis. Les entités en cache sont détachées :
+ * elles servent de référence de clé étrangère et à l'affichage des noms, jamais à être modifiées.
+ * ZoneService, LivreurService et ProduitService invalident l'entrée à chaque modification ou suppression.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private final boolean enabled;
+    private final ZoneRepository zoneRepository;
+    private final LivreurRepository livreurRepository;
+    private final ProduitRepository produitRepository;
+    private final NearCache<String, Zone> zones;
+    private final NearCache<String, Livreur> livreurs;
+    private final NearCache<String, Produit> produits;
+
+    public ReferenceDataCache(ZoneRepository zoneRepository,
+                              LivreurRepository livreurRepository,
+                              ProduitRepository produitRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${toctoc.reference-cache.enabled:false}") boolean enabled,
+                              @Value("${toctoc.reference-cache.ttl:5m}") Duration ttl,
+                              @Value("${toctoc.reference-cache.maximum-size:10000}") long maximumSize) {
+        this.enabled = enabled;
+        this.zoneRepository = zoneRepository;
+        this.livreurRepository = livreurRepository;
+        this.produitRepository = produitRepository;
+        this.zones = new NearCache<>("zone", ttl, maximumSize, zoneRepository::findById, meterRegistry);
+        this.livreurs = new NearCache<>("livreur", ttl, maximumSize, livreurRepository::findById, meterRegistry);
+        this.produits = new NearCache<>("produit", ttl, maximumSize, produitRepository::findById, meterRegistry);
+    }
+
+    public Optional<Zone> findZone(String id) {
+        return enabled ? zones.get(id) : zoneRepository.findById(id);
+    }
+
+    public Optional<Livreur> findLivreur(String id) {
+        return enabled ? livreurs.get(id) : livreurRepository.findById(id);
+    }
+
+    public Optional<Produit> findProduit(String id) {
+        return enabled ? produits.get(id) : produitRepository.findById(id);
+    }
+
+    public void evictZone(String id) {
+        zones.invalidateAfterCommit(id);
+    }
+
+    public void evictLivreur(String id) {
+        livreurs.invalidateAfterCommit(id);
+    }
+
+    public void evictProduit(String id) {
+        produits.invalidateAfterCommit(id);
+    }
+}
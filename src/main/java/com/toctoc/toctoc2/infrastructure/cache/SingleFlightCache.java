@@ -0,0 +1,121 @@
+package com.toctoc.toctoc2.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Valeur unique recalculée au plus une fois par TTL : les appels concurrents sur une valeur expirée
+ * attendent le calcul en cours au lieu de lancer chacun le leur.
+ * <p>
+ * Métriques (tag {@code cache}) : {@code toctoc.cache.requests} (result=hit|miss),
+ * {@code toctoc.cache.loads} et {@code toctoc.cache.age} (âge de la valeur courante, en secondes).
+ */
+public class SingleFlightCache<T> {
+
+    private record Entry<T>(T value, Instant computedAt) {
+    }
+
+    private final Supplier<T> loader;
+    private final Duration ttl;
+    private final Clock clock;
+
+    private final AtomicReference<Entry<T>> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Entry<T>>> inFlight = new AtomicReference<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loads;
+
+    public SingleFlightCache(String name, Duration ttl, Supplier<T> loader, MeterRegistry registry) {
+        this(name, ttl, loader, registry, Clock.systemUTC());
+    }
+
+    public SingleFlightCache(String name, Duration ttl, Supplier<T> loader, MeterRegistry registry, Clock clock) {
+        this.loader = loader;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.hits = Counter.builder("toctoc.cache.requests").tag("cache", name).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("toctoc.cache.requests").tag("cache", name).tag("result", "miss").register(registry);
+        this.loads = Counter.builder("toctoc.cache.loads").tag("cache", name).register(registry);
+        Gauge.builder("toctoc.cache.age", this, SingleFlightCache::ageSeconds)
+                .tag("cache", name)
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public T get() {
+        Entry<T> entry = current.get();
+        if (isFresh(entry)) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        return load().value();
+    }
+
+    /**
+     * Date du calcul de la valeur courante, null tant qu'aucun calcul n'a eu lieu.
+     */
+    public Instant computedAt() {
+        Entry<T> entry = current.get();
+        return entry != null ? entry.computedAt() : null;
+    }
+
+    public void invalidate() {
+        current.set(null);
+    }
+
+    private Entry<T> load() {
+        CompletableFuture<Entry<T>> mine = new CompletableFuture<>();
+        CompletableFuture<Entry<T>> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            return join(running);
+        }
+
+        try {
+            // Un calcul a pu se terminer entre la lecture de la valeur et la prise du verrou
+            Entry<T> entry = current.get();
+            if (!isFresh(entry)) {
+                entry = new Entry<>(loader.get(), clock.instant());
+                current.set(entry);
+                loads.increment();
+            }
+            mine.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private boolean isFresh(Entry<T> entry) {
+        return entry != null && entry.computedAt().plus(ttl).isAfter(clock.instant());
+    }
+
+    private double ageSeconds() {
+        Entry<T> entry = current.get();
+        return entry != null ? Duration.between(entry.computedAt(), clock.instant()).toMillis() / 1000.0 : 0.0;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.toctoc.toctoc2.infrastructure.csv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture incrémentale d'un fichier CSV (RFC 4180) : un enregistrement à la fois, champs entre guillemets
+ * avec séparateurs, guillemets doublés et retours à la ligne. Le fichier n'est jamais chargé en entier.
+ */
+public class CsvReader implements Closeable {
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final char separator;
+    private int pending = -2;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Renvoie l'enregistrement suivant, ou null en fin de fichier. Les lignes vides sont ignorées.
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            int c = read();
+            if (!started) {
+                started = true;
+                if (c == BOM) {
+                    c = read();
+                }
+            }
+            if (c == -1) {
+                return null;
+            }
+            if (c == '\r' || c == '\n') {
+                consumeLineBreak(c);
+                continue;
+            }
+            recordLine = line;
+            return readRecord(c);
+        }
+    }
+
+    /**
+     * Numéro de la ligne du fichier où commence le dernier enregistrement lu (à partir de 1).
+     */
+    public long getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readRecord(int first) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        int c = first;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Guillemet non fermé dans l'enregistrement commençant ligne " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == -1 || c == '\r' || c == '\n') {
+                if (c != -1) {
+                    consumeLineBreak(c);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    private void consumeLineBreak(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (pending == -2) {
+            pending = reader.read();
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,7 @@
+package com.toctoc.toctoc2.infrastructure.exception;
+
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.toctoc.toctoc2.infrastructure.exception;
+
+public class InvalidTransitionException extends RuntimeException {
+    public InvalidTransitionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.toctoc.toctoc2.infrastructure.http;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Version d'une ressource ou d'une liste, lue par une requête d'agrégat (COUNT, MAX(date_modification))
+ * sans charger les entités : un GET conditionnel répond 304 avant que le DTO ne soit construit.
+ * <p>
+ * {@code references} compte les entités liées dont le nom figure dans le DTO (livreur, zone...) et
+ * {@code lastModified} inclut leur date de modification : renommer une zone change l'ETag des livreurs
+ * qui l'affichent, la supprimer aussi.
+ */
+public record ResourceVersion(long count, long references, LocalDateTime lastModified) {
+
+    public ResourceVersion(long count, LocalDateTime lastModified) {
+        this(count, 0, lastModified);
+    }
+
+    public boolean exists() {
+        return count > 0;
+    }
+
+    public String etag() {
+        long micros = lastModified == null ? 0
+                : lastModified.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastModified.getNano() / 1_000;
+        return "\"" + count + "-" + references + "-" + Long.toHexString(micros) + "\"";
+    }
+
+    /**
+     * Ressource unique : ETag et Last-Modified. Une ressource absente n'est jamais « non modifiée »,
+     * pour laisser le service répondre 404.
+     */
+    public boolean isNotModified(WebRequest request) {
+        if (!exists()) {
+            return false;
+        }
+        long lastModifiedMillis = lastModified == null ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag(), lastModifiedMillis);
+    }
+
+    /**
+     * Liste : ETag seul, la suppression d'un élément ne fait pas avancer la date la plus récente.
+     */
+    public boolean isListNotModified(WebRequest request) {
+        return request.checkNotModified(etag());
+    }
+}
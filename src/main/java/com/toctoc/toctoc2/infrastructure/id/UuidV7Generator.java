@@ -0,0 +1,54 @@
+package com.toctoc.toctoc2.infrastructure.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Génère des UUID version 7 (RFC 9562) : les 48 premiers bits sont le timestamp Unix en millisecondes,
+ * suivis d'un compteur de 12 bits qui garantit l'ordre croissant au sein d'une même milliseconde.
+ * <p>
+ * Sous forme de chaîne, l'ordre lexicographique suit l'ordre de génération : les insertions se font
+ * en fin d'index B-tree au lieu d'être dispersées comme avec des UUID v4.
+ * <p>
+ * Utilisé par les entités via {@code @UuidGenerator(algorithm = UuidV7Generator.class)} et par les
+ * écritures JDBC via {@link #next()}.
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_MAX = 0xFFF;
+
+    private static long lastMillis;
+    private static int counter;
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    public static UUID next() {
+        long millis;
+        int sequence;
+        synchronized (UuidV7Generator.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                // Départ aléatoire dans la moitié basse pour laisser de la place au compteur
+                counter = RANDOM.nextInt(COUNTER_MAX / 2);
+            } else if (++counter > COUNTER_MAX) {
+                // Compteur épuisé (ou horloge reculée) : on avance d'une milliseconde
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+
+        long mostSigBits = (millis << 16) | (0x7L << 12) | sequence;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,231 @@
+package com.toctoc.toctoc2.infrastructure.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.infrastructure.exception.ErrorResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * En-tête {@code Idempotency-Key} sur la création de colis et le changement de statut, que l'application
+ * des livreurs renvoie à l'identique quand le réseau coupe avant la réponse. La première requête réserve
+ * la clé puis enregistre sa réponse 2xx ; les suivantes reçoivent cette réponse (en-tête
+ * {@code Idempotent-Replayed: true}) sans rien exécuter.
+ * <p>
+ * Réponses d'erreur : 400 pour une clé invalide, 409 tant que la requête d'origine est en cours,
+ * 422 si la clé a déjà servi pour une autre requête (méthode, chemin ou corps différents).
+ * Une réponse d'erreur de la requête d'origine n'est pas conservée : un nouvel essai s'exécute.
+ * Les clés sont partagées par tous les appelants (voir {@link IdempotencyStore}) : une clé doit être unique,
+ * un UUID généré par le client.
+ */
+@Component
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private static final List<Route> ROUTES = List.of(
+            new Route("POST", "/colis"),
+            new Route("PATCH", "/colis/*/statut"));
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${toctoc.idempotency.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = path(request);
+        return ROUTES.stream().noneMatch(route ->
+                route.method().equals(request.getMethod()) && pathMatcher.match(route.pattern(), path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cle = request.getHeader(HEADER).trim();
+        if (cle.isEmpty() || cle.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST,
+                    "En-tête " + HEADER + " invalide: 1 à " + MAX_KEY_LENGTH + " caractères");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String empreinte = fingerprint(request.getMethod(), path(request), cachedRequest.body);
+
+        Optional<IdempotencyKey> existing = store.findCompleted(cle);
+        if (existing.isEmpty()) {
+            existing = store.claim(cle, empreinte);
+        }
+        if (existing.isEmpty()) {
+            execute(cle, empreinte, cachedRequest, response, chain);
+            return;
+        }
+
+        IdempotencyKey key = existing.get();
+        if (!key.getEmpreinte().equals(empreinte)) {
+            count("mismatch");
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La clé " + cle + " a déjà été utilisée pour une autre requête");
+        } else if (!key.isCompleted()) {
+            count("in-progress");
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            writeError(request, response, HttpStatus.CONFLICT,
+                    "Une requête avec la clé " + cle + " est en cours, veuillez réessayer");
+        } else {
+            count("replayed");
+            log.info("Réponse rejouée pour la clé d'idempotence {}", cle);
+            replay(key, response);
+        }
+    }
+
+    private void execute(String cle, String empreinte, CachedBodyRequest request, HttpServletResponse response,
+                         FilterChain chain) throws ServletException, IOException {
+        count("executed");
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (HttpStatus.valueOf(wrapper.getStatus()).is2xxSuccessful()) {
+                store.complete(cle, empreinte, wrapper.getStatus(), wrapper.getContentType(),
+                        new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(cle);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyKey key, HttpServletResponse response) throws IOException {
+        response.setStatus(key.getStatutHttp());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (key.getContentType() != null) {
+            response.setContentType(key.getContentType());
+        }
+        if (key.getCorps() != null && !key.getCorps().isEmpty()) {
+            response.getOutputStream().write(key.getCorps().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message) throws IOException {
+        ErrorResponse error = new ErrorResponse(LocalDateTime.now(), status.value(), status.getReasonPhrase(),
+                message, request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("toctoc.idempotency.requests", "result", result).increment();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String fingerprint(String method, String path, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + " " + path + "\n").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private record Route(String method, String pattern) {
+    }
+
+    // Le corps est lu une fois pour l'empreinte, puis relu par le contrôleur
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
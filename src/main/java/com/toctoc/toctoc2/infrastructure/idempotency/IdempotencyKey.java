@@ -0,0 +1,47 @@
+package com.toctoc.toctoc2.infrastructure.idempotency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clé d'idempotence réservée par une requête, puis complétée par la réponse à rejouer.
+ * Tant que {@code statutHttp} est null, la requête d'origine est encore en cours.
+ */
+@Entity
+@Table(name = "idempotency_key")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "cle", length = 100)
+    private String cle;
+
+    // SHA-256 de la méthode, du chemin et du corps : une clé réutilisée pour une autre requête est refusée
+    @Column(name = "empreinte", nullable = false, length = 64)
+    private String empreinte;
+
+    @Column(name = "statut_http")
+    private Integer statutHttp;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "corps", columnDefinition = "text")
+    private String corps;
+
+    @Column(name = "date_creation", nullable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+
+    public boolean isCompleted() {
+        return statutHttp != null;
+    }
+}
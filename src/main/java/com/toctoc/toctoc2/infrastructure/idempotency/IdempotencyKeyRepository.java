@@ -0,0 +1,26 @@
+package com.toctoc.toctoc2.infrastructure.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.dateExpiration < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Réservation abandonnée (requête d'origine interrompue sans réponse) : la clé peut être reprise
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.cle = :cle AND k.statutHttp IS NULL AND k.dateCreation < :limit")
+    int deleteAbandoned(@Param("cle") String cle, @Param("limit") LocalDateTime limit);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.cle = :cle AND k.statutHttp IS NULL")
+    int deletePending(@Param("cle") String cle);
+}
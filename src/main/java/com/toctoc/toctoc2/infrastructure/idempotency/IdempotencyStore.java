@@ -0,0 +1,129 @@
+package com.toctoc.toctoc2.infrastructure.idempotency;
+
+import com.toctoc.toctoc2.infrastructure.cache.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Clés d'idempotence en base (table idempotency_key, purgée après le TTL), avec les réponses complétées
+ * gardées dans un {@link NearCache} borné : une requête rejouée est servie sans lecture en base.
+ * <p>
+ * Chaque écriture a sa propre transaction : la réservation est visible des autres requêtes avant que
+ * la requête d'origine ne s'exécute, et survit à l'échec de celle-ci jusqu'à {@link #release}.
+ * <p>
+ * Les clés sont globales, l'API n'identifiant pas ses appelants : l'empreinte (méthode, chemin, corps)
+ * empêche une autre requête de rejouer la réponse, mais deux clients envoyant la même clé avec une requête
+ * identique reçoivent la même réponse. Les clients doivent donc générer des clés uniques (UUID).
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    // Chaque nouvel essai suppose qu'une autre requête a réservé puis libéré la clé entre-temps
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    private final IdempotencyKeyRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final NearCache<String, IdempotencyKey> completed;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+
+    public IdempotencyStore(IdempotencyKeyRepository repository,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${toctoc.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${toctoc.idempotency.lock-timeout:30s}") Duration lockTimeout,
+                            @Value("${toctoc.idempotency.cache-ttl:10m}") Duration cacheTtl,
+                            @Value("${toctoc.idempotency.cache-maximum-size:10000}") long cacheMaximumSize) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.completed = new NearCache<>("idempotency", cacheTtl, cacheMaximumSize,
+                cle -> repository.findById(cle).filter(IdempotencyKey::isCompleted), meterRegistry);
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+    }
+
+    public Optional<IdempotencyKey> findCompleted(String cle) {
+        return completed.get(cle).filter(key -> key.getDateExpiration().isAfter(now()));
+    }
+
+    /**
+     * Réserve la clé pour la requête courante. Vide si la réservation a réussi ; sinon la clé déjà
+     * enregistrée par une autre requête, en cours ou complétée.
+     * <p>
+     * Si la clé a été libérée ({@link #release}) entre l'insertion refusée et sa relecture, la réservation
+     * est retentée : la requête ne s'exécute jamais sans clé réservée.
+     */
+    public Optional<IdempotencyKey> claim(String cle, String empreinte) {
+        for (int attempt = 1; ; attempt++) {
+            if (insert(cle, empreinte)) {
+                return Optional.empty();
+            }
+            Optional<IdempotencyKey> existing = repository.findById(cle);
+            if (existing.isPresent()) {
+                return existing;
+            }
+            if (attempt >= MAX_CLAIM_ATTEMPTS) {
+                throw new IllegalStateException("Clé d'idempotence " + cle + " impossible à réserver");
+            }
+            log.debug("Clé d'idempotence {} libérée pendant la réservation, nouvel essai", cle);
+        }
+    }
+
+    private boolean insert(String cle, String empreinte) {
+        LocalDateTime now = now();
+        IdempotencyKey key = new IdempotencyKey(cle, empreinte, null, null, null, now, now.plus(ttl));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.deleteAbandoned(cle, now.minus(lockTimeout));
+                entityManager.persist(key);
+                entityManager.flush();
+            });
+            return true;
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            log.debug("Clé d'idempotence {} déjà réservée", cle);
+            return false;
+        }
+    }
+
+    public void complete(String cle, String empreinte, int statutHttp, String contentType, String corps) {
+        LocalDateTime now = now();
+        IdempotencyKey key = new IdempotencyKey(cle, empreinte, statutHttp, contentType, corps, now, now.plus(ttl));
+        transactionTemplate.executeWithoutResult(status -> repository.save(key));
+        completed.put(cle, key);
+    }
+
+    // Requête d'origine en échec : un nouvel essai avec la même clé doit pouvoir s'exécuter
+    public void release(String cle) {
+        transactionTemplate.executeWithoutResult(status -> repository.deletePending(cle));
+    }
+
+    @Scheduled(cron = "${toctoc.idempotency.purge-cron:0 10 * * * *}")
+    public int purge() {
+        int deleted = transactionTemplate.execute(status -> repository.deleteExpired(now()));
+        log.info("Purge des clés d'idempotence: {} clés expirées supprimées", deleted);
+        return deleted;
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
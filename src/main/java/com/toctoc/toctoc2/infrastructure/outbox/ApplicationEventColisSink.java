@@ -0,0 +1,32 @@
+package com.toctoc.toctoc2.infrastructure.outbox;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.service.ColisEventSink;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Diffusion dans l'application : chaque événement est publié aux {@code @EventListener} de
+ * {@link ColisStatusEventDTO}. Un listener en erreur fait échouer le lot.
+ */
+@Component
+@ConditionalOnProperty(name = "toctoc.outbox.application.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ApplicationEventColisSink implements ColisEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public String name() {
+        return "application";
+    }
+
+    @Override
+    public void publish(List<ColisStatusEventDTO> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,51 @@
+package com.toctoc.toctoc2.infrastructure.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.service.ColisEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Ajout des événements en NDJSON (un objet par ligne) à la fin d'un fichier local,
+ * lu par exemple par un agent de collecte de logs.
+ */
+@Component
+@ConditionalOnProperty(name = "toctoc.outbox.file.path")
+public class FileColisSink implements ColisEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileColisSink(ObjectMapper objectMapper, @Value("${toctoc.outbox.file.path}") Path path) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    // Un lot écrit en une fois ; synchronisé si plusieurs relais tournent dans la même instance
+    @Override
+    public synchronized void publish(List<ColisStatusEventDTO> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (ColisStatusEventDTO event : events) {
+            lines.append(objectMapper.writeValueAsString(event)).append('\n');
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            writer.write(lines.toString());
+        }
+    }
+}
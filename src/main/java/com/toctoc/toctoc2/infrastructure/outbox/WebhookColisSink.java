@@ -0,0 +1,54 @@
+package com.toctoc.toctoc2.infrastructure.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.service.ColisEventSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Envoi de chaque lot en un POST JSON (tableau d'événements) vers l'URL configurée.
+ * Toute réponse hors 2xx fait échouer le lot, qui sera renvoyé.
+ */
+@Component
+@ConditionalOnProperty(name = "toctoc.outbox.webhook.url")
+public class WebhookColisSink implements ColisEventSink {
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+
+    public WebhookColisSink(ObjectMapper objectMapper,
+                            @Value("${toctoc.outbox.webhook.url}") String url,
+                            @Value("${toctoc.outbox.webhook.timeout:5s}") Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = RestClient.builder()
+                .baseUrl(url)
+                .requestFactory(requestFactory)
+                .build();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    @Override
+    public void publish(List<ColisStatusEventDTO> events) throws JsonProcessingException {
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(objectMapper.writeValueAsString(events))
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,250 @@
+package com.toctoc.toctoc2.infrastructure.search;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Index inversé en mémoire (trigrammes) pour les recherches par mot-clé sur les données de référence.
+ * Même sémantique que les requêtes {@code LOWER(champ) LIKE '%mot-clé%'} des repositories :
+ * les trigrammes sélectionnent les candidats, puis chaque candidat est vérifié par {@code contains}.
+ * <p>
+ * Les mises à jour passées dans une transaction ne sont appliquées qu'après son commit.
+ * Le tri est fixe ({@code order}) : un tri demandé par l'appelant doit être servi par la base.
+ */
+public class NGramIndex<D> {
+
+    private static final int N = 3;
+
+    private final Function<D, String> idExtractor;
+    private final Function<D, List<String>> fieldsExtractor;
+    private final Comparator<D> order;
+
+    private final Map<String, Document<D>> documents = new HashMap<>();
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    // Écritures reçues pendant le chargement d'une reconstruction, rejouées sur le nouvel instantané
+    private List<Runnable> pendingWrites;
+
+    public NGramIndex(Function<D, String> idExtractor,
+                      Function<D, List<String>> fieldsExtractor,
+                      Comparator<D> order) {
+        this.idExtractor = idExtractor;
+        this.fieldsExtractor = fieldsExtractor;
+        this.order = order;
+    }
+
+    /**
+     * Tant que l'index n'a pas été construit, les appelants doivent interroger la base.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void rebuild(Collection<D> values) {
+        rebuild(() -> values);
+    }
+
+    /**
+     * Le chargement se fait hors verrou : les put/remove arrivés entre-temps sont journalisés puis
+     * rejoués sur l'instantané, sans quoi il écraserait des écritures plus récentes que sa lecture.
+     */
+    public synchronized void rebuild(Supplier<? extends Collection<D>> loader) {
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Collection<D> values;
+        try {
+            values = loader.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            values.forEach(this::doPut);
+            pendingWrites.forEach(Runnable::run);
+            pendingWrites = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(D value) {
+        lock.writeLock().lock();
+        try {
+            doPut(value);
+            if (pendingWrites != null) {
+                pendingWrites.add(() -> doPut(value));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            doRemove(id);
+            if (pendingWrites != null) {
+                pendingWrites.add(() -> doRemove(id));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAfterCommit(D value) {
+        afterCommit(() -> put(value));
+    }
+
+    public void removeAfterCommit(String id) {
+        afterCommit(() -> remove(id));
+    }
+
+    public Page<D> search(String keyword, Pageable pageable) {
+        String needle = keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+        List<D> matches;
+
+        lock.readLock().lock();
+        try {
+            Collection<Document<D>> candidates = needle.length() < N
+                    ? documents.values()
+                    : candidates(needle);
+            matches = candidates.stream()
+                    .filter(document -> document.matches(needle))
+                    .map(Document::value)
+                    .sorted(order)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches, pageable, matches.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    // Intersection des listes de postings, en partant de la plus courte
+    private Collection<Document<D>> candidates(String needle) {
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : grams(needle)) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        List<Document<D>> result = new ArrayList<>();
+        for (String id : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                result.add(documents.get(id));
+            }
+        }
+        return result;
+    }
+
+    private void doPut(D value) {
+        String id = idExtractor.apply(value);
+        doRemove(id);
+
+        List<String> fields = fieldsExtractor.apply(value).stream()
+                .filter(Objects::nonNull)
+                .map(field -> field.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        Document<D> document = new Document<>(value, fields);
+        documents.put(id, document);
+        document.grams().forEach(gram -> postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id));
+    }
+
+    private void doRemove(String id) {
+        Document<D> previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            Set<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + N <= text.length(); i++) {
+            grams.add(text.substring(i, i + N));
+        }
+        return grams;
+    }
+
+    private record Document<D>(D value, List<String> fields) {
+
+        boolean matches(String needle) {
+            return fields.stream().anyMatch(field -> field.contains(needle));
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            fields.forEach(field -> grams.addAll(NGramIndex.grams(field)));
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.toctoc.toctoc2.infrastructure.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Branchement des {@link NGramIndex} des services de données de référence : la base n'est interrogée
+ * que tant que l'index n'est pas construit, ou quand l'appelant demande un tri que l'index ne sait pas servir.
+ */
+@Component
+@Slf4j
+public class ReferenceSearchIndexes {
+
+    private final boolean enabled;
+
+    public ReferenceSearchIndexes(@Value("${toctoc.search.index-enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public <D> Page<D> search(NGramIndex<D> index, String keyword, Pageable pageable, Supplier<Page<D>> fallback) {
+        if (enabled && index.isReady() && pageable.getSort().isUnsorted()) {
+            return index.search(keyword, pageable);
+        }
+        return fallback.get();
+    }
+
+    public <D> void rebuild(NGramIndex<D> index, String name, Supplier<? extends Collection<D>> loader) {
+        if (!enabled) {
+            return;
+        }
+        index.rebuild(loader);
+        log.info("Index de recherche des {} construit: {} entrées", name, index.size());
+    }
+
+    public <D> D putAfterCommit(NGramIndex<D> index, D value) {
+        if (enabled) {
+            index.putAfterCommit(value);
+        }
+        return value;
+    }
+
+    public void removeAfterCommit(NGramIndex<?> index, String id) {
+        if (enabled) {
+            index.removeAfterCommit(id);
+        }
+    }
+}
@@ -3,19 +3,34 @@ package com.toctoc.toctoc2.application.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toctoc.toctoc2.domain.colis.dto.*;
 import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisOutboxRepository;
 import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.colis.service.ColisArchiveJob;
+import com.toctoc.toctoc2.domain.colis.service.ColisOutboxRelay;
+import com.toctoc.toctoc2.domain.colis.service.ColisOverdueDetectionJob;
 import com.toctoc.toctoc2.domain.client.model.*;
 import com.toctoc.toctoc2.domain.client.repository.*;
+import com.toctoc.toctoc2.domain.produit.model.Produit;
+import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -33,6 +48,13 @@ class ColisControllerIntegrationTest {
     @Autowired private ColisRepository colisRepository;
     @Autowired private ClientExpediteurRepository clientRepository;
     @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private ColisOverdueDetectionJob overdueDetectionJob;
+    @Autowired private ColisArchiveJob archiveJob;
+    @Autowired private EntityManager entityManager;
+    @Autowired private ColisOutboxRepository outboxRepository;
+    @Autowired private ColisOutboxRelay outboxRelay;
+    @Autowired private ColisJdbcRepository colisJdbcRepository;
+    @Autowired private ProduitRepository produitRepository;
 
     private ClientExpediteur client;
     private Destinataire destinataire;
@@ -74,6 +96,71 @@ class ColisControllerIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests GET /colis?cursor=")
+    class GetColisByCursorTests {
+        @Test
+        @DisplayName("Devrait parcourir les colis par curseur sans total")
+        void shouldWalkPagesByCursor() throws Exception {
+            for (int i = 0; i < 3; i++) {
+                createColisAndGetId();
+            }
+
+            String response = mockMvc.perform(get("/colis")
+                            .param("cursor", "")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andExpect(jsonPath("$.hasNext").value(true))
+                    .andExpect(jsonPath("$.totalElements").doesNotExist())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            String nextCursor = objectMapper.readTree(response).get("nextCursor").asText();
+
+            mockMvc.perform(get("/colis/client/{clientId}", client.getId())
+                            .param("cursor", nextCursor)
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(1))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        }
+
+        @Test
+        @DisplayName("Devrait filtrer par curseur sans critère de ville")
+        void shouldFilterByCursorWithoutVille() throws Exception {
+            for (int i = 0; i < 3; i++) {
+                createColisAndGetId();
+            }
+
+            String response = mockMvc.perform(get("/colis/filter")
+                            .param("statut", "CREE")
+                            .param("cursor", "")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            mockMvc.perform(get("/colis/filter")
+                            .param("statut", "CREE")
+                            .param("cursor", objectMapper.readTree(response).get("nextCursor").asText())
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content").isArray());
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 400 si curseur invalide")
+        void shouldReturn400WhenCursorInvalid() throws Exception {
+            mockMvc.perform(get("/colis/filter")
+                            .param("cursor", "invalide"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Nested
     @DisplayName("Tests POST /colis")
     class CreateColisTests {
@@ -133,6 +220,111 @@ class ColisControllerIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests POST /colis/bulk")
+    class BulkCreateColisTests {
+        @Test
+        @DisplayName("Devrait créer les colis en masse avec un résultat par élément")
+        void shouldCreateColisInBulk() throws Exception {
+            CreateColisRequest valid = new CreateColisRequest();
+            valid.setDescription("Laptop Dell");
+            valid.setPoids(BigDecimal.valueOf(2.5));
+            valid.setPriorite(PrioriteColis.NORMALE);
+            valid.setVilleDestination("Rabat");
+            valid.setClientExpediteurId(client.getId());
+            valid.setDestinataireId(destinataire.getId());
+
+            CreateColisRequest unknownClient = new CreateColisRequest();
+            unknownClient.setDescription("Phone");
+            unknownClient.setPoids(BigDecimal.ONE);
+            unknownClient.setPriorite(PrioriteColis.URGENT);
+            unknownClient.setVilleDestination("Fès");
+            unknownClient.setClientExpediteurId("invalid-id");
+            unknownClient.setDestinataireId(destinataire.getId());
+
+            BulkCreateColisRequest request = new BulkCreateColisRequest(List.of(valid, valid, unknownClient));
+
+            String response = mockMvc.perform(post("/colis/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.failed").value(1))
+                    .andExpect(jsonPath("$.results[2].success").value(false))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            String createdId = objectMapper.readTree(response).get("results").get(0).get("id").asText();
+            mockMvc.perform(get("/colis/{id}", createdId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statut").value("CREE"))
+                    .andExpect(jsonPath("$.clientExpediteurId").value(client.getId()));
+            mockMvc.perform(get("/colis/{id}/historique", createdId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 400 si la liste est vide")
+        void shouldReturn400WhenEmpty() throws Exception {
+            mockMvc.perform(post("/colis/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"colis\": []}"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests POST /colis/import")
+    class ImportColisTests {
+        @Test
+        @DisplayName("Devrait importer un CSV et rapporter les erreurs avec leur numéro de ligne")
+        void shouldImportCsvAndReportErrorsByLine() throws Exception {
+            String csv = "description;poids;priorite;villeDestination;clientExpediteurId;destinataireId\n"
+                    + "Laptop Dell;2,5;NORMALE;Rabat;" + client.getId() + ";" + destinataire.getId() + "\n"
+                    + "Phone;abc;URGENT;Fès;" + client.getId() + ";" + destinataire.getId() + "\n"
+                    + "Tablet;1;URGENT;Fès;invalid-id;" + destinataire.getId() + "\n";
+            MockMultipartFile file = new MockMultipartFile("file", "colis.csv", "text/csv",
+                    csv.getBytes(StandardCharsets.UTF_8));
+
+            String response = mockMvc.perform(multipart("/colis/import").file(file))
+                    .andExpect(status().isAccepted())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+
+            String importId = objectMapper.readTree(response).get("id").asText();
+            mockMvc.perform(get("/colis/import/{importId}", importId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("COMPLETED"))
+                    .andExpect(jsonPath("$.processed").value(3))
+                    .andExpect(jsonPath("$.succeeded").value(1))
+                    .andExpect(jsonPath("$.errors[0].line").value(3))
+                    .andExpect(jsonPath("$.errors[1].line").value(4))
+                    .andExpect(jsonPath("$.errors[1].message").value("Client expéditeur non trouvé"));
+            mockMvc.perform(get("/colis/client/{clientId}", client.getId()))
+                    .andExpect(jsonPath("$.content[0].description").value("Laptop Dell"));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 400 si une colonne obligatoire manque")
+        void shouldReturn400WhenColumnMissing() throws Exception {
+            MockMultipartFile file = new MockMultipartFile("file", "colis.csv", "text/csv",
+                    "description,poids\nLaptop,2\n".getBytes(StandardCharsets.UTF_8));
+
+            mockMvc.perform(multipart("/colis/import").file(file))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 404 pour un import inconnu")
+        void shouldReturn404WhenImportUnknown() throws Exception {
+            mockMvc.perform(get("/colis/import/{importId}", "inconnu"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     @Nested
     @DisplayName("Tests GET /colis/{id}")
     class GetColisByIdTests {
@@ -146,6 +338,45 @@ class ColisControllerIntegrationTest {
                     .andExpect(jsonPath("$.id").value(colisId));
         }
 
+        @Test
+        @DisplayName("Devrait retourner 304 tant que le statut du colis n'a pas changé")
+        void shouldReturnNotModifiedUntilStatutChanges() throws Exception {
+            String colisId = createColisAndGetId();
+
+            String etag = mockMvc.perform(get("/colis/{id}", colisId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("Last-Modified"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/colis/{id}", colisId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.COLLECTE, null, null))))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/colis/{id}", colisId).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statut").value("COLLECTE"));
+        }
+
+        @Test
+        @DisplayName("Devrait changer l'ETag quand le colis est marqué en retard")
+        void shouldChangeEtagWhenMarkedOverdue() throws Exception {
+            String colisId = createColisAndGetId(LocalDateTime.now().minusHours(2));
+            String etag = mockMvc.perform(get("/colis/{id}", colisId))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            Assertions.assertEquals(1, overdueDetectionJob.detect());
+            entityManager.clear();
+
+            mockMvc.perform(get("/colis/{id}", colisId).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.enRetard").value(true));
+        }
+
         @Test
         @DisplayName("Devrait retourner 404 si non trouvé")
         void shouldReturn404WhenNotFound() throws Exception {
@@ -176,6 +407,228 @@ class ColisControllerIntegrationTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.statut").value("COLLECTE"));
         }
+
+        @Test
+        @DisplayName("Ne devrait enregistrer qu'une fois le même scan répété")
+        void shouldRecordRepeatedScanOnce() throws Exception {
+            String colisId = createColisAndGetId();
+            String scan = objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.EN_STOCK, "Scan dépôt", null));
+
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(scan))
+                        .andExpect(status().isNoContent());
+            }
+
+            mockMvc.perform(get("/colis/{id}/historique", colisId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+        }
+
+        @Test
+        @DisplayName("Devrait refuser une transition hors du cycle de vie avec 409")
+        void shouldRejectInvalidTransition() throws Exception {
+            String colisId = createColisAndGetId();
+
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.LIVRE, null, null))))
+                    .andExpect(status().isConflict());
+
+            patchStatuts(colisId, StatutColis.ANNULE);
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.COLLECTE, null, null))))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(get("/colis/{id}/historique", colisId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+        }
+
+        @Test
+        @DisplayName("Devrait refuser l'écriture JPA d'un colis dont le statut a changé entre-temps")
+        void shouldRejectStaleJpaWriteAfterStatutChange() throws Exception {
+            String colisId = createColisAndGetId();
+            entityManager.flush();
+            Colis colis = colisRepository.findById(colisId).orElseThrow();
+
+            Assertions.assertTrue(colisJdbcRepository.compareAndSetStatut(colisId, StatutColis.CREE,
+                    StatutColis.COLLECTE, LocalDateTime.now()));
+            Assertions.assertFalse(colisJdbcRepository.compareAndSetStatut(colisId, StatutColis.CREE,
+                    StatutColis.EN_STOCK, LocalDateTime.now()));
+
+            colis.setDescription("Modifiée sur une version périmée");
+            Assertions.assertThrows(OptimisticLockingFailureException.class, () -> colisRepository.saveAndFlush(colis));
+        }
+
+        @Test
+        @DisplayName("Devrait écrire le changement dans l'outbox puis le relayer")
+        void shouldWriteOutboxEventAndRelayIt() throws Exception {
+            String colisId = createColisAndGetId();
+            long pendingBefore = outboxRepository.countByDateEnvoiIsNull();
+
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new UpdateStatutRequest(StatutColis.COLLECTE, "Ramassé", "livreur-1"))))
+                    .andExpect(status().isNoContent());
+
+            Assertions.assertEquals(pendingBefore + 1, outboxRepository.countByDateEnvoiIsNull());
+            ColisOutboxEvent event = outboxRepository.findAll().stream()
+                    .filter(e -> e.getColisId().equals(colisId))
+                    .findFirst()
+                    .orElseThrow();
+            Assertions.assertEquals(StatutColis.CREE, event.getStatutPrecedent());
+            Assertions.assertEquals("livreur-1", event.getModifiePar());
+
+            Assertions.assertTrue(outboxRelay.relay() >= 1);
+            Assertions.assertEquals(0, outboxRepository.countByDateEnvoiIsNull());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de l'en-tête Idempotency-Key")
+    class IdempotencyTests {
+        @Test
+        @DisplayName("Devrait rejouer la création sans créer de second colis")
+        void shouldReplayCreation() throws Exception {
+            String cle = UUID.randomUUID().toString();
+            String body = objectMapper.writeValueAsString(createRequest());
+
+            String first = mockMvc.perform(post("/colis")
+                            .header("Idempotency-Key", cle)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                    .andReturn().getResponse().getContentAsString();
+            long count = colisRepository.count();
+
+            mockMvc.perform(post("/colis")
+                            .header("Idempotency-Key", cle)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "true"))
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.id").value(objectMapper.readTree(first).get("id").asText()));
+            Assertions.assertEquals(count, colisRepository.count());
+        }
+
+        @Test
+        @DisplayName("Devrait refuser une clé réutilisée pour une autre requête")
+        void shouldRejectKeyReusedForAnotherRequest() throws Exception {
+            String cle = UUID.randomUUID().toString();
+            CreateColisRequest request = createRequest();
+            mockMvc.perform(post("/colis")
+                            .header("Idempotency-Key", cle)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+
+            request.setDescription("Autre colis");
+            mockMvc.perform(post("/colis")
+                            .header("Idempotency-Key", cle)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isUnprocessableEntity());
+
+            mockMvc.perform(post("/colis")
+                            .header("Idempotency-Key", "x".repeat(101))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Devrait rejouer le changement de statut mais pas une réponse d'erreur")
+        void shouldReplayStatutChangeButNotErrors() throws Exception {
+            String colisId = createColisAndGetId();
+            String cle = UUID.randomUUID().toString();
+
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .header("Idempotency-Key", cle)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.LIVRE, null, null))))
+                    .andExpect(status().isConflict());
+
+            String collecte = objectMapper.writeValueAsString(new UpdateStatutRequest(StatutColis.COLLECTE, "Ramassé", null));
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                                .header("Idempotency-Key", cle)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(collecte))
+                        .andExpect(status().isNoContent());
+            }
+
+            mockMvc.perform(get("/colis/{id}/historique", colisId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests PATCH /colis/statut/bulk")
+    class BulkUpdateStatutTests {
+        @Test
+        @DisplayName("Devrait mettre à jour le statut de plusieurs colis")
+        void shouldUpdateStatutInBulk() throws Exception {
+            String first = createColisAndGetId();
+            String second = createColisAndGetId();
+
+            UpdateStatutRequest changement = new UpdateStatutRequest();
+            changement.setStatut(StatutColis.COLLECTE);
+            changement.setModifiePar("scanner-1");
+            BulkUpdateStatutRequest request = new BulkUpdateStatutRequest(
+                    List.of(first, second, "invalid-id"), changement);
+
+            mockMvc.perform(patch("/colis/statut/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.requested").value(3))
+                    .andExpect(jsonPath("$.updated.length()").value(2))
+                    .andExpect(jsonPath("$.notFound[0]").value("invalid-id"));
+
+            mockMvc.perform(get("/colis/{id}", first))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statut").value("COLLECTE"))
+                    .andExpect(jsonPath("$.dateCollecte").exists());
+            mockMvc.perform(get("/colis/{id}/historique", second))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2));
+
+            // Rejouer le même scan ne crée pas de nouvel historique
+            mockMvc.perform(patch("/colis/statut/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.updated").isEmpty())
+                    .andExpect(jsonPath("$.unchanged.length()").value(2));
+        }
+
+        @Test
+        @DisplayName("Devrait écarter les colis dont le statut n'autorise pas la transition")
+        void shouldRejectInvalidTransitionsInBulk() throws Exception {
+            String collecte = createColisAndGetId();
+            String cree = createColisAndGetId();
+            patchStatuts(collecte, StatutColis.COLLECTE);
+
+            mockMvc.perform(patch("/colis/statut/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new BulkUpdateStatutRequest(List.of(collecte, cree),
+                                    new UpdateStatutRequest(StatutColis.EN_TRANSIT, null, "scanner-1")))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.updated[0]").value(collecte))
+                    .andExpect(jsonPath("$.rejected[0]").value(cree));
+
+            mockMvc.perform(patch("/colis/statut/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new BulkUpdateStatutRequest(List.of(cree),
+                                    new UpdateStatutRequest(StatutColis.CREE, null, "scanner-1")))))
+                    .andExpect(status().isBadRequest());
+        }
     }
 
     @Nested
@@ -185,6 +638,9 @@ class ColisControllerIntegrationTest {
         @DisplayName("Devrait supprimer un colis")
         void shouldDeleteColis() throws Exception {
             String colisId = createColisAndGetId();
+            // Requêtes distinctes : l'historique créé avec le colis ne reste pas dans le contexte de persistance
+            entityManager.flush();
+            entityManager.clear();
 
             mockMvc.perform(delete("/colis/{id}", colisId))
                     .andExpect(status().isNoContent());
@@ -210,15 +666,253 @@ class ColisControllerIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests GET /colis/{id}/historique")
+    class HistoriqueTests {
+        @Test
+        @DisplayName("Devrait paginer l'historique puis ne renvoyer que les entrées postérieures à since")
+        void shouldPageAndFilterHistoriqueSince() throws Exception {
+            String colisId = createColisAndGetId();
+            for (StatutColis statut : List.of(StatutColis.COLLECTE, StatutColis.EN_TRANSIT)) {
+                mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new UpdateStatutRequest(statut, null, null))))
+                        .andExpect(status().isNoContent());
+            }
+
+            mockMvc.perform(get("/colis/{id}/historique", colisId)
+                            .param("page", "0")
+                            .param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(3))
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andExpect(jsonPath("$.content[0].statut").value("EN_TRANSIT"));
+
+            String historique = mockMvc.perform(get("/colis/{id}/historique", colisId))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            String creation = objectMapper.readTree(historique).get(2).get("dateChangement").asText();
+
+            mockMvc.perform(get("/colis/{id}/historique", colisId)
+                            .param("since", creation))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].statut").value("COLLECTE"))
+                    .andExpect(jsonPath("$[1].statut").value("EN_TRANSIT"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests GET /colis/{id}/events")
+    class TrackingTests {
+        @Test
+        @DisplayName("Devrait ouvrir un flux SSE et envoyer l'état courant du colis")
+        void shouldStreamCurrentStatut() throws Exception {
+            String colisId = createColisAndGetId();
+
+            MvcResult result = mockMvc.perform(get("/colis/{id}/events", colisId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            Assertions.assertTrue(result.getResponse().getContentType().startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+            String body = result.getResponse().getContentAsString();
+            Assertions.assertTrue(body.startsWith("event:statut"));
+            Assertions.assertTrue(body.contains("\"colisId\":\"" + colisId + "\""));
+            Assertions.assertTrue(body.contains("\"statut\":\"CREE\""));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 404 pour un colis ou un livreur inexistant")
+        void shouldReturn404WhenUnknown() throws Exception {
+            mockMvc.perform(get("/colis/{id}/events", "invalid-id"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get("/colis/livreur/{livreurId}/events", "invalid-id"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests GET /colis/export")
+    class ExportTests {
+        @Test
+        @DisplayName("Devrait exporter en CSV en flux avec l'en-tête et le nom de fichier")
+        void shouldStreamCsv() throws Exception {
+            MvcResult result = mockMvc.perform(get("/colis/export")
+                            .param("format", "CSV")
+                            .param("clientId", client.getId()))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"colis.csv\""))
+                    .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                    .andExpect(content().string(org.hamcrest.Matchers.startsWith("id,description,poids")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests GET /colis/overdue")
+    class OverdueTests {
+        @Test
+        @DisplayName("Devrait lister les colis marqués en retard jusqu'à leur livraison")
+        void shouldListMarkedColisUntilDelivered() throws Exception {
+            String late = createColisAndGetId(LocalDateTime.now().minusHours(2));
+            createColisAndGetId(LocalDateTime.now().plusDays(1));
+            entityManager.flush();
+
+            Assertions.assertEquals(1, overdueDetectionJob.detect());
+            Assertions.assertEquals(0, overdueDetectionJob.detect());
+            entityManager.clear();
+
+            mockMvc.perform(get("/colis/overdue"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(1))
+                    .andExpect(jsonPath("$.content[0].id").value(late))
+                    .andExpect(jsonPath("$.content[0].enRetard").value(true))
+                    .andExpect(jsonPath("$.content[0].dateRetard").exists());
+
+            patchStatuts(late, StatutColis.COLLECTE, StatutColis.EN_TRANSIT, StatutColis.LIVRE);
+
+            mockMvc.perform(get("/colis/overdue"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de l'archivage des colis clos")
+    class ArchiveTests {
+        @Test
+        @DisplayName("Devrait archiver les colis livrés et les garder consultables et comptés")
+        void shouldArchiveClosedColisAndKeepThemReadable() throws Exception {
+            String livre = createColisAndGetId();
+            String enCours = createColisAndGetId();
+            Produit produit = new Produit();
+            produit.setNom("Livre");
+            produit.setPoids(new BigDecimal("0.50"));
+            produit.setPrix(new BigDecimal("12.00"));
+            produit = produitRepository.save(produit);
+            mockMvc.perform(post("/colis/{id}/produits", livre)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new AddProduitToColisRequest(produit.getId(), 2, new BigDecimal("12.00")))))
+                    .andExpect(status().isCreated());
+            patchStatuts(livre, StatutColis.COLLECTE, StatutColis.EN_TRANSIT, StatutColis.LIVRE);
+            entityManager.flush();
+
+            Assertions.assertEquals(1, archiveJob.archive(LocalDateTime.now().plusMinutes(1)));
+            Assertions.assertEquals(0, archiveJob.archive(LocalDateTime.now().plusMinutes(1)));
+            entityManager.clear();
+
+            Assertions.assertTrue(colisRepository.findById(livre).isEmpty());
+            Assertions.assertTrue(colisRepository.findById(enCours).isPresent());
+            mockMvc.perform(get("/colis/{id}", livre))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.statut").value("LIVRE"))
+                    .andExpect(jsonPath("$.clientExpediteurNom").value("Dupont Jean"))
+                    .andExpect(jsonPath("$.dateLivraison").exists());
+            mockMvc.perform(get("/colis/{id}/historique", livre))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(4))
+                    .andExpect(jsonPath("$[0].statut").value("LIVRE"));
+            mockMvc.perform(get("/colis/{id}/historique", livre).param("page", "0").param("size", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(2))
+                    .andExpect(jsonPath("$.totalElements").value(4));
+            mockMvc.perform(get("/colis/{id}/produits", livre))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].produitNom").value("Livre"))
+                    .andExpect(jsonPath("$[0].quantite").value(2));
+
+            mockMvc.perform(get("/colis/statistics/overview"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.byStatut.LIVRE").value(1));
+            mockMvc.perform(post("/colis/statistics/reconcile"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.drifted").value(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests GET /colis/statistics/overview")
+    class OverviewTests {
+        @Test
+        @DisplayName("Devrait compter les colis par statut et par priorité")
+        void shouldReturnOverview() throws Exception {
+            createColisAndGetId();
+            createColisAndGetId();
+
+            mockMvc.perform(get("/colis/statistics/overview"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(2))
+                    .andExpect(jsonPath("$.byStatut.CREE").value(2))
+                    .andExpect(jsonPath("$.byStatut.LIVRE").value(0))
+                    .andExpect(jsonPath("$.byPriorite.NORMALE").value(2))
+                    .andExpect(jsonPath("$.computedAt").exists());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests POST /colis/statistics/reconcile")
+    class ReconcileStatisticsTests {
+        @Test
+        @DisplayName("Ne devrait trouver aucun écart après des écritures via l'API")
+        void shouldFindNoDriftAfterApiWrites() throws Exception {
+            String first = createColisAndGetId();
+            String second = createColisAndGetId();
+
+            UpdateStatutRequest changement = new UpdateStatutRequest();
+            changement.setStatut(StatutColis.COLLECTE);
+            mockMvc.perform(patch("/colis/{id}/statut", first)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(changement)))
+                    .andExpect(status().isNoContent());
+
+            changement.setStatut(StatutColis.EN_TRANSIT);
+            mockMvc.perform(patch("/colis/statut/bulk")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(
+                                    new BulkUpdateStatutRequest(List.of(first, second), changement))))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(post("/colis/statistics/reconcile"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.drifted").value(0));
+        }
+
+        @Test
+        @DisplayName("Devrait corriger les compteurs après une écriture hors service")
+        void shouldReportDriftForDirectWrites() throws Exception {
+            String colisId = createColisAndGetId();
+            Colis colis = colisRepository.findById(colisId).orElseThrow();
+            colis.setStatut(StatutColis.LIVRE);
+            colisRepository.saveAndFlush(colis);
+
+            mockMvc.perform(post("/colis/statistics/reconcile"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.drifted").value(2))
+                    .andExpect(jsonPath("$.drifts[0].key").value("CREE"))
+                    .andExpect(jsonPath("$.drifts[0].storedCount").value(1))
+                    .andExpect(jsonPath("$.drifts[0].actualCount").value(0));
+
+            mockMvc.perform(post("/colis/statistics/reconcile"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.drifted").value(0));
+        }
+    }
+
     // Méthode helper
     private String createColisAndGetId() throws Exception {
-        CreateColisRequest request = new CreateColisRequest();
-        request.setDescription("Laptop Dell");
-        request.setPoids(BigDecimal.valueOf(2.5));
-        request.setPriorite(PrioriteColis.NORMALE);
-        request.setVilleDestination("Rabat");
-        request.setClientExpediteurId(client.getId());
-        request.setDestinataireId(destinataire.getId());
+        return createColisAndGetId(null);
+    }
+
+    private String createColisAndGetId(LocalDateTime dateLimiteLivraison) throws Exception {
+        CreateColisRequest request = createRequest();
+        request.setDateLimiteLivraison(dateLimiteLivraison);
 
         String response = mockMvc.perform(post("/colis")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -230,4 +924,24 @@ class ColisControllerIntegrationTest {
 
         return objectMapper.readTree(response).get("id").asText();
     }
+
+    private CreateColisRequest createRequest() {
+        CreateColisRequest request = new CreateColisRequest();
+        request.setDescription("Laptop Dell");
+        request.setPoids(BigDecimal.valueOf(2.5));
+        request.setPriorite(PrioriteColis.NORMALE);
+        request.setVilleDestination("Rabat");
+        request.setClientExpediteurId(client.getId());
+        request.setDestinataireId(destinataire.getId());
+        return request;
+    }
+
+    private void patchStatuts(String colisId, StatutColis... statuts) throws Exception {
+        for (StatutColis statut : statuts) {
+            mockMvc.perform(patch("/colis/{id}/statut", colisId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new UpdateStatutRequest(statut, null, null))))
+                    .andExpect(status().isNoContent());
+        }
+    }
 }
\ No newline at end of file
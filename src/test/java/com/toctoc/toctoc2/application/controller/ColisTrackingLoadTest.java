@@ -0,0 +1,184 @@
+package com.toctoc.toctoc2.application.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
+import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
+import com.toctoc.toctoc2.domain.colis.dto.CreateColisRequest;
+import com.toctoc.toctoc2.domain.colis.dto.UpdateStatutRequest;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.colis.repository.HistoriqueLivraisonRepository;
+import com.toctoc.toctoc2.domain.colis.service.ColisTrackingHub;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test de charge du suivi SSE : ouvre des milliers de connexions inactives sur un vrai serveur,
+ * puis vérifie que l'ouverture et la diffusion d'un changement de statut à toutes tiennent dans
+ * leur budget ({@code toctoc.loadtest.max-connect-ms}, {@code toctoc.loadtest.max-broadcast-ms}).
+ * <p>
+ * Désactivé par défaut ; lancement :
+ * {@code mvn test -Dtest=ColisTrackingLoadTest -Dtoctoc.loadtest=true -Dtoctoc.loadtest.connections=10000}
+ * (deux descripteurs de fichier par connexion : client et serveur sont dans le même processus).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "toctoc.loadtest", matches = "true")
+@DisplayName("Test de charge du suivi SSE")
+class ColisTrackingLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("toctoc.loadtest.connections", 2000);
+    // Budgets, en millisecondes, pour ouvrir toutes les connexions et leur diffuser un changement
+    private static final long MAX_CONNECT_MILLIS = Long.getLong("toctoc.loadtest.max-connect-ms", 60_000);
+    private static final long MAX_BROADCAST_MILLIS = Long.getLong("toctoc.loadtest.max-broadcast-ms", 5_000);
+
+    @LocalServerPort private int port;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private HistoriqueLivraisonRepository historiqueRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private ColisTrackingHub trackingHub;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final List<CompletableFuture<?>> streams = new ArrayList<>();
+
+    private ClientExpediteur client;
+    private Destinataire destinataire;
+    private String colisId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = new ClientExpediteur();
+        client.setNom("Charge");
+        client.setPrenom("Test");
+        client.setEmail("charge-" + System.nanoTime() + "@test.com");
+        client.setTelephone("0600000000");
+        client.setAdresse("1 Rue Charge");
+        client = clientRepository.save(client);
+
+        destinataire = new Destinataire();
+        destinataire.setNom("Charge");
+        destinataire.setPrenom("Dest");
+        destinataire.setTelephone("0600000001");
+        destinataire.setAdresse("2 Rue Charge");
+        destinataire = destinataireRepository.save(destinataire);
+
+        CreateColisRequest request = new CreateColisRequest(
+                "Colis de charge", BigDecimal.ONE, PrioriteColis.NORMALE, "Rabat",
+                null, client.getId(), destinataire.getId(), null);
+        HttpResponse<String> created = http.send(json("/colis", "POST", request), HttpResponse.BodyHandlers.ofString());
+        colisId = objectMapper.readTree(created.body()).get("id").asText();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streams.forEach(stream -> stream.cancel(true));
+        historiqueRepository.deleteAllInBatch();
+        colisRepository.deleteById(colisId);
+        destinataireRepository.delete(destinataire);
+        clientRepository.delete(client);
+    }
+
+    @Test
+    @DisplayName("Devrait diffuser un changement de statut à toutes les connexions ouvertes")
+    void shouldBroadcastToAllConnections() throws Exception {
+        CountDownLatch connected = new CountDownLatch(CONNECTIONS);
+        CountDownLatch delivered = new CountDownLatch(CONNECTIONS);
+
+        long start = System.nanoTime();
+        HttpRequest subscribe = HttpRequest.newBuilder(uri("/colis/" + colisId + "/events")).GET().build();
+        for (int i = 0; i < CONNECTIONS; i++) {
+            streams.add(http.sendAsync(subscribe, HttpResponse.BodyHandlers.fromLineSubscriber(
+                    new StatutSubscriber(connected, delivered))));
+        }
+        Assertions.assertTrue(connected.await(2, TimeUnit.MINUTES),
+                "Connexions établies: " + (CONNECTIONS - connected.getCount()) + "/" + CONNECTIONS);
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(trackingHub.getConnections()).isEqualTo(CONNECTIONS);
+        assertThat(connectMillis).as("ouverture de %d connexions (ms)", CONNECTIONS).isLessThan(MAX_CONNECT_MILLIS);
+
+        start = System.nanoTime();
+        HttpResponse<String> patched = http.send(json("/colis/" + colisId + "/statut", "PATCH",
+                new UpdateStatutRequest(StatutColis.COLLECTE, "Collecte", "charge")),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(204, patched.statusCode());
+        Assertions.assertTrue(delivered.await(1, TimeUnit.MINUTES),
+                "Événements reçus: " + (CONNECTIONS - delivered.getCount()) + "/" + CONNECTIONS);
+        long broadcastMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(broadcastMillis).as("diffusion à %d connexions (ms)", CONNECTIONS).isLessThan(MAX_BROADCAST_MILLIS);
+        // Aucun abonné déconnecté pour lenteur
+        assertThat(trackingHub.getConnections()).isEqualTo(CONNECTIONS);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1" + path);
+    }
+
+    private HttpRequest json(String path, String method, Object body) throws Exception {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    // Compte l'état initial (connexion établie) puis le changement diffusé
+    private static class StatutSubscriber implements Flow.Subscriber<String> {
+
+        private final CountDownLatch connected;
+        private final CountDownLatch delivered;
+
+        StatutSubscriber(CountDownLatch connected, CountDownLatch delivered) {
+            this.connected = connected;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.contains("\"statut\":\"CREE\"")) {
+                connected.countDown();
+            } else if (line.contains("\"statut\":\"COLLECTE\"")) {
+                delivered.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
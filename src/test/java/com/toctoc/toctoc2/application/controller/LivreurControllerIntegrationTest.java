@@ -237,6 +237,29 @@ class LivreurControllerIntegrationTest {
                     .andExpect(jsonPath("$.nom").value("Alami"));
         }
 
+        @Test
+        @DisplayName("Devrait changer l'ETag du livreur quand sa zone est renommée")
+        void shouldChangeEtagWhenAssignedZoneIsRenamed() throws Exception {
+            Livreur livreur = createAndSaveLivreur("Alami", "Ahmed", "0612345678");
+            livreur.setZoneAssignee(zone);
+            livreurRepository.saveAndFlush(livreur);
+
+            String etag = mockMvc.perform(get("/livreurs/{id}", livreur.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/livreurs/{id}", livreur.getId()).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+            zone.setNom("Zone Centre Nord");
+            zoneRepository.saveAndFlush(zone);
+
+            mockMvc.perform(get("/livreurs/{id}", livreur.getId()).header("If-None-Match", etag))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.zoneAssigneeNom").value("Zone Centre Nord"));
+        }
+
         @Test
         @DisplayName("Devrait retourner 404 si livreur non trouvé")
         void shouldReturn404WhenNotFound() throws Exception {
@@ -1,18 +1,38 @@
 package com.toctoc.toctoc2.application.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
+import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
+import com.toctoc.toctoc2.domain.colis.model.Colis;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
 import com.toctoc.toctoc2.domain.livraison.dto.ZoneDTO;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
 import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.id.UuidV7Generator;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -28,6 +48,15 @@ class ZoneControllerIntegrationTest {
     @Autowired private MockMvc mockMvc;
     @Autowired private ObjectMapper objectMapper;
     @Autowired private ZoneRepository zoneRepository;
+    @Autowired private LivreurRepository livreurRepository;
+    @Autowired private ClientExpediteurRepository clientRepository;
+    @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private ColisJdbcRepository colisJdbcRepository;
+    @Autowired private EntityManager entityManager;
+
+    private ClientExpediteur client;
+    private Destinataire destinataire;
 
     @BeforeEach
     void setUp() {
@@ -82,6 +111,28 @@ class ZoneControllerIntegrationTest {
                     .andExpect(jsonPath("$.totalElements").value(5))
                     .andExpect(jsonPath("$.totalPages").value(3));
         }
+
+        @Test
+        @DisplayName("Devrait changer l'ETag de la liste après une suppression")
+        void shouldChangeListEtagAfterDeletion() throws Exception {
+            createAndSaveZone("Centre", "20000", "Casablanca");
+            Zone agdal = createAndSaveZone("Agdal", "10000", "Rabat");
+
+            String etag = mockMvc.perform(get("/zones"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Last-Modified"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/zones").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+            mockMvc.perform(delete("/zones/{id}", agdal.getId()))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/zones").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(1));
+        }
     }
 
     @Nested
@@ -155,6 +206,32 @@ class ZoneControllerIntegrationTest {
                     .andExpect(jsonPath("$.nom").value("Centre"));
         }
 
+        @Test
+        @DisplayName("Devrait retourner 304 tant que la zone n'a pas été modifiée")
+        void shouldReturnNotModifiedUntilZoneChanges() throws Exception {
+            String zoneId = createZoneAndGetId();
+
+            String etag = mockMvc.perform(get("/zones/{id}", zoneId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("Last-Modified"))
+                    .andReturn().getResponse().getHeader("ETag");
+
+            mockMvc.perform(get("/zones/{id}", zoneId).header("If-None-Match", etag))
+                    .andDo(print())
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string(""));
+
+            mockMvc.perform(put("/zones/{id}", zoneId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(createZoneDTO("Centre-Updated", "20000", "Casablanca"))))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/zones/{id}", zoneId).header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", not(etag)))
+                    .andExpect(jsonPath("$.nom").value("Centre-Updated"));
+        }
+
         @Test
         @DisplayName("Devrait retourner 404 si zone non trouvée")
         void shouldReturn404WhenNotFound() throws Exception {
@@ -283,6 +360,41 @@ class ZoneControllerIntegrationTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("Devrait retirer la zone supprimée d'un livreur déjà en cache de second niveau")
+        void shouldDetachCachedLivreurOnDelete() throws Exception {
+            // Hibernate ne met pas en cache une entité insérée dans la transaction en cours
+            Zone zone = createAndSaveZone("Centre", "20000", "Casablanca");
+            Livreur livreur = createAndSaveLivreur(zone, "0611111111", true);
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+
+            try {
+                TestTransaction.start();
+                mockMvc.perform(get("/livreurs/{id}", livreur.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.zoneAssigneeId").value(zone.getId()));
+                Assertions.assertTrue(entityManager.getEntityManagerFactory().getCache()
+                        .contains(Livreur.class, livreur.getId()));
+
+                mockMvc.perform(delete("/zones/{id}", zone.getId()))
+                        .andExpect(status().isNoContent());
+                TestTransaction.flagForCommit();
+                TestTransaction.end();
+
+                TestTransaction.start();
+                mockMvc.perform(get("/livreurs/{id}", livreur.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.zoneAssigneeId").doesNotExist());
+            } finally {
+                livreurRepository.deleteById(livreur.getId());
+                zoneRepository.findById(zone.getId()).ifPresent(zoneRepository::delete);
+                TestTransaction.flagForCommit();
+                TestTransaction.end();
+                TestTransaction.start();
+            }
+        }
+
         @Test
         @DisplayName("Devrait retourner 404 si zone non trouvée")
         void shouldReturn404WhenNotFound() throws Exception {
@@ -292,7 +404,173 @@ class ZoneControllerIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests POST /zones/{id}/assignation")
+    class AssignationTests {
+        @Test
+        @DisplayName("Devrait assigner les colis sans livreur aux livreurs actifs les moins chargés")
+        void shouldAssignToLeastLoadedActiveLivreurs() throws Exception {
+            Zone zone = createAndSaveZone("Centre", "20000", "Casablanca");
+            Zone autre = createAndSaveZone("Agdal", "10000", "Rabat");
+            Livreur charge = createAndSaveLivreur(zone, "0611111111", true);
+            Livreur libre = createAndSaveLivreur(zone, "0622222222", true);
+            Livreur inactif = createAndSaveLivreur(zone, "0633333333", false);
+
+            List<Colis> colis = new ArrayList<>();
+            colis.add(colis(zone, charge, StatutColis.EN_TRANSIT));
+            colis.add(colis(zone, charge, StatutColis.COLLECTE));
+            colis.add(colis(zone, charge, StatutColis.LIVRE));
+            for (int i = 0; i < 6; i++) {
+                colis.add(colis(zone, null, StatutColis.CREE));
+            }
+            Colis annule = colis(zone, null, StatutColis.ANNULE);
+            Colis ailleurs = colis(autre, null, StatutColis.CREE);
+            colis.add(annule);
+            colis.add(ailleurs);
+            // Zones et livreurs doivent exister en base avant l'insertion JDBC
+            zoneRepository.flush();
+            colisJdbcRepository.insertColis(colis);
+
+            mockMvc.perform(post("/zones/{id}/assignation", zone.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.assigned").value(6))
+                    .andExpect(jsonPath("$.conflicts").value(0))
+                    .andExpect(jsonPath("$.livreurs", hasSize(2)))
+                    .andExpect(jsonPath("$.livreurs[*].count", everyItem(is(4))))
+                    .andExpect(jsonPath("$.livreurs[*].entityId", not(hasItem(inactif.getId()))));
+
+            Assertions.assertEquals(4, colisRepository.findByLivreurId(libre.getId(), PageRequest.of(0, 10)).getTotalElements());
+            Assertions.assertNull(colisRepository.findById(annule.getId()).orElseThrow().getLivreur());
+            Assertions.assertNull(colisRepository.findById(ailleurs.getId()).orElseThrow().getLivreur());
+
+            mockMvc.perform(post("/zones/{id}/assignation", zone.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.assigned").value(0));
+        }
+
+        @Test
+        @DisplayName("Devrait répartir des milliers de colis par lots")
+        void shouldBalanceThousandsOfColis() throws Exception {
+            Zone zone = createAndSaveZone("Centre", "20000", "Casablanca");
+            for (int i = 0; i < 3; i++) {
+                createAndSaveLivreur(zone, "061000000" + i, true);
+            }
+            List<Colis> colis = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                colis.add(colis(zone, null, StatutColis.EN_STOCK));
+            }
+            // Zones et livreurs doivent exister en base avant l'insertion JDBC
+            zoneRepository.flush();
+            colisJdbcRepository.insertColis(colis);
+
+            mockMvc.perform(post("/zones/{id}/assignation", zone.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.assigned").value(3000))
+                    .andExpect(jsonPath("$.livreurs[*].count", everyItem(is(1000))));
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 404 si zone non trouvée")
+        void shouldReturn404WhenZoneNotFound() throws Exception {
+            mockMvc.perform(post("/zones/{id}/assignation", "invalid-id"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests POST /zones/{id}/tours")
+    class ToursTests {
+        @Test
+        @DisplayName("Devrait charger les colis en stock dans les véhicules sans dépasser leur capacité")
+        void shouldBuildToursWithinVehicleCapacity() throws Exception {
+            Zone zone = createAndSaveZone("Centre", "20000", "Casablanca");
+            Livreur scooter = createAndSaveLivreur(zone, "0611111111", true);
+            scooter.setVehicule("Scooter Peugeot");
+            Livreur utilitaire = createAndSaveLivreur(zone, "0622222222", true);
+            utilitaire.setVehicule("Fourgon Renault Master");
+
+            Colis frigo = colis(zone, scooter, StatutColis.EN_STOCK);
+            frigo.setPoids(new BigDecimal("900"));
+            Colis urgent = colis(zone, null, StatutColis.EN_STOCK);
+            urgent.setPoids(new BigDecimal("20"));
+            urgent.setPriorite(PrioriteColis.URGENT);
+            Colis armoire = colis(zone, null, StatutColis.EN_STOCK);
+            armoire.setPoids(new BigDecimal("150"));
+            Colis enTransit = colis(zone, scooter, StatutColis.EN_TRANSIT);
+            // Zones et livreurs doivent exister en base avant l'insertion JDBC
+            zoneRepository.flush();
+            colisJdbcRepository.insertColis(List.of(frigo, urgent, armoire, enTransit));
+
+            // Utilitaire (1000 kg) : urgent puis frigo, 80 kg restants ; armoire trop lourde pour les deux
+            mockMvc.perform(post("/zones/{id}/tours", zone.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.tours", hasSize(2)))
+                    .andExpect(jsonPath("$.tours[0].livreurId").value(utilitaire.getId()))
+                    .andExpect(jsonPath("$.tours[0].typeVehicule").value("UTILITAIRE"))
+                    .andExpect(jsonPath("$.tours[0].colisIds", contains(urgent.getId(), frigo.getId())))
+                    .andExpect(jsonPath("$.tours[0].poids").value(920.0))
+                    .andExpect(jsonPath("$.tours[1].typeVehicule").value("SCOOTER"))
+                    .andExpect(jsonPath("$.tours[1].colisIds", empty()))
+                    .andExpect(jsonPath("$.nonPlaces", contains(armoire.getId())))
+                    .andExpect(jsonPath("$.conflicts").value(0));
+
+            Assertions.assertEquals(utilitaire.getId(), colisRepository.findById(frigo.getId()).orElseThrow().getLivreur().getId());
+            Assertions.assertNull(colisRepository.findById(armoire.getId()).orElseThrow().getLivreur());
+            Assertions.assertEquals(scooter.getId(), colisRepository.findById(enTransit.getId()).orElseThrow().getLivreur().getId());
+        }
+
+        @Test
+        @DisplayName("Devrait retourner 404 si zone non trouvée")
+        void shouldReturn404WhenZoneNotFound() throws Exception {
+            mockMvc.perform(post("/zones/{id}/tours", "invalid-id"))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
     // Méthodes helper
+    private Livreur createAndSaveLivreur(Zone zone, String telephone, boolean actif) {
+        Livreur livreur = new Livreur();
+        livreur.setNom("Alami");
+        livreur.setPrenom("Ahmed");
+        livreur.setTelephone(telephone);
+        livreur.setZoneAssignee(zone);
+        livreur.setActif(actif);
+        return livreurRepository.save(livreur);
+    }
+
+    private Colis colis(Zone zone, Livreur livreur, StatutColis statut) {
+        if (client == null) {
+            client = new ClientExpediteur();
+            client.setNom("Dupont");
+            client.setPrenom("Jean");
+            client.setEmail("jean@test.com");
+            client.setTelephone("0612345678");
+            client.setAdresse("123 Rue Test");
+            client = clientRepository.save(client);
+
+            destinataire = new Destinataire();
+            destinataire.setNom("Martin");
+            destinataire.setPrenom("Marie");
+            destinataire.setTelephone("0698765432");
+            destinataire.setAdresse("456 Ave Test");
+            destinataire = destinataireRepository.save(destinataire);
+        }
+        Colis colis = new Colis();
+        colis.setId(UuidV7Generator.next().toString());
+        colis.setDescription("Colis");
+        colis.setPoids(BigDecimal.ONE);
+        colis.setStatut(statut);
+        colis.setPriorite(PrioriteColis.NORMALE);
+        colis.setVilleDestination(zone.getVille());
+        colis.setLivreur(livreur);
+        colis.setZone(zone);
+        colis.setClientExpediteur(client);
+        colis.setDestinataire(destinataire);
+        colis.setDateCreation(LocalDateTime.now());
+        colis.setDateModification(LocalDateTime.now());
+        return colis;
+    }
+
     private Zone createAndSaveZone(String nom, String codePostal, String ville) {
         Zone zone = new Zone();
         zone.setNom(nom);
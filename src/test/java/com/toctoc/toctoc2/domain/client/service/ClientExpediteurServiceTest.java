@@ -5,6 +5,7 @@ import com.toctoc.toctoc2.domain.client.dto.ClientExpediteurDTO;
 import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
 import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
 import com.toctoc.toctoc2.infrastructure.exception.*;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -22,6 +23,7 @@ class ClientExpediteurServiceTest {
 
     @Mock private ClientExpediteurRepository repository;
     @Mock private ClientExpediteurMapper mapper;
+    @Spy private ReferenceSearchIndexes searchIndexes = new ReferenceSearchIndexes(false);
     @InjectMocks private ClientExpediteurService service;
 
     private ClientExpediteur client;
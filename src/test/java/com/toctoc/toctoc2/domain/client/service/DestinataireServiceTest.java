@@ -5,6 +5,7 @@ import com.toctoc.toctoc2.domain.client.dto.DestinataireDTO;
 import com.toctoc.toctoc2.domain.client.model.Destinataire;
 import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -23,6 +24,7 @@ class DestinataireServiceTest {
 
     @Mock private DestinataireRepository repository;
     @Mock private DestinataireMapper mapper;
+    @Spy private ReferenceSearchIndexes searchIndexes = new ReferenceSearchIndexes(false);
     @InjectMocks private DestinataireService service;
 
     private Destinataire destinataire;
@@ -0,0 +1,82 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.model.ColisStatistique;
+import com.toctoc.toctoc2.domain.colis.model.ColisStatistiqueId;
+import com.toctoc.toctoc2.domain.colis.model.DimensionStatistique;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.StatistiqueIncrement;
+import com.toctoc.toctoc2.domain.colis.service.ColisOutboxService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ColisJdbcRepository.class)
+@DisplayName("Tests du ColisJdbcRepository")
+class ColisJdbcRepositoryTest {
+
+    @Autowired private ColisJdbcRepository colisJdbcRepository;
+    @Autowired private ColisStatistiqueRepository statistiqueRepository;
+    @Autowired private ColisOutboxRepository outboxRepository;
+
+    @Test
+    @DisplayName("Devrait créer puis incrémenter un compteur en une seule instruction")
+    void shouldUpsertStatistics() {
+        LocalDateTime now = LocalDateTime.now();
+        colisJdbcRepository.incrementStatistiques(List.of(
+                new StatistiqueIncrement(DimensionStatistique.LIVREUR, "livreur-1", 2, new BigDecimal("3.50")),
+                new StatistiqueIncrement(DimensionStatistique.ZONE, "zone-1", 1, BigDecimal.ONE)), now);
+        colisJdbcRepository.incrementStatistiques(List.of(
+                new StatistiqueIncrement(DimensionStatistique.LIVREUR, "livreur-1", -1, new BigDecimal("-1.25"))), now);
+
+        ColisStatistique livreur = statistiqueRepository
+                .findById(new ColisStatistiqueId(DimensionStatistique.LIVREUR, "livreur-1")).orElseThrow();
+        assertThat(livreur.getNombre()).isEqualTo(1);
+        assertThat(livreur.getPoidsTotal()).isEqualByComparingTo("2.25");
+        assertThat(statistiqueRepository.findById(new ColisStatistiqueId(DimensionStatistique.ZONE, "zone-1")))
+                .get().extracting(ColisStatistique::getNombre).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Devrait distinguer NULL de la chaîne vide et échapper les guillemets pour COPY")
+    void shouldFormatCopyRows() {
+        StringBuilder csv = new StringBuilder();
+        ColisJdbcRepository.appendCsv(csv, new Object[]{"id-1", null, "", "Laptop, \"Dell\"\nneuf",
+                new BigDecimal("2.50"), StatutColis.CREE, LocalDateTime.of(2026, 11, 1, 10, 0), false});
+
+        assertThat(csv.toString()).isEqualTo(
+                "\"id-1\",,\"\",\"Laptop, \"\"Dell\"\"\nneuf\",\"2.50\",\"CREE\",\"2026-11-01T10:00\",\"false\"\n");
+    }
+
+    @Test
+    @DisplayName("Devrait suivre la remise des événements de l'outbox par destinataire")
+    void shouldTrackOutboxDeliveryPerSink() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = outboxRepository.saveAllAndFlush(List.of(
+                        ColisOutboxService.event("colis-1", StatutColis.EN_STOCK, StatutColis.CREE, now, null, "test"),
+                        ColisOutboxService.event("colis-1", StatutColis.EN_TRANSIT, StatutColis.EN_STOCK, now, null, "test")))
+                .stream().map(ColisOutboxEvent::getId).toList();
+
+        colisJdbcRepository.insertOutboxEnvois(ids, "webhook", now);
+
+        assertThat(outboxRepository.findPendingForSinkForUpdate("webhook", PageRequest.of(0, 10))).isEmpty();
+        assertThat(outboxRepository.findPendingForSinkForUpdate("file", PageRequest.of(0, 10)))
+                .extracting(ColisOutboxEvent::getId).containsExactlyElementsOf(ids);
+        assertThat(outboxRepository.findDeliveredToAll(ids, List.of("webhook", "file"), 2)).isEmpty();
+
+        colisJdbcRepository.insertOutboxEnvois(ids.subList(0, 1), "file", now);
+
+        assertThat(outboxRepository.findDeliveredToAll(ids, List.of("webhook", "file"), 2)).containsExactly(ids.get(0));
+    }
+}
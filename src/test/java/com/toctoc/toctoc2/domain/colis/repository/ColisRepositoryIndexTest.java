@@ -0,0 +1,295 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.produit.model.Produit;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Vérifie par EXPLAIN que chaque requête de recherche du ColisRepository passe par un index.
+ * <p>
+ * Le schéma est créé par Liquibase (et non par Hibernate) pour tester les index réellement livrés ;
+ * les changesets réservés à PostgreSQL (trigrammes, index partiels) ne s'appliquent pas sur H2,
+ * les requêtes qui en dépendent figurent donc parmi les parcours complets admis.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explaindb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.liquibase.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.defer-datasource-initialization=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.toctoc.toctoc2.domain.colis.repository.ColisRepositoryIndexTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DisplayName("Tests des index du ColisRepository")
+class ColisRepositoryIndexTest {
+
+    private static final int COLIS_COUNT = 300;
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by("dateCreation"));
+    private static final Pageable LIMIT = PageRequest.of(0, 20);
+
+    // Parcours complets admis : listes sans filtre sélectif, recherches LIKE '%...%' et agrégats.
+    // Sur PostgreSQL, les recherches et les retards utilisent les index trigrammes et partiels.
+    private static final Set<String> FULL_SCAN_ALLOWED = Set.of(
+            "findAll",
+            "findByVilleDestinationContainingIgnoreCase",
+            "findByMultipleCriteria",
+            "streamByMultipleCriteria",
+            "findFirstPage",
+            "findAllAfterCursor",
+            "findByMultipleCriteriaFirstPage",
+            "findByMultipleCriteriaAfterCursor",
+            "searchByKeyword",
+            "searchIdsByTrigram",
+            "findOverdueColis",
+            "findByEnRetardTrueAndStatutNotIn",
+            "countAndSumWeightByLivreur",
+            "countAndSumWeightByZone",
+            "countAndSumWeightByStatut",
+            "countAndSumWeightByPriorite",
+            "countByStatut",
+            "countByPriorite"
+    );
+
+    @Autowired private ColisRepository colisRepository;
+    @Autowired private ColisProduitRepository colisProduitRepository;
+    @Autowired private EntityManager entityManager;
+
+    private final Map<String, Consumer<ColisRepository>> indexedQueries = new LinkedHashMap<>();
+
+    private Colis sample;
+
+    @BeforeEach
+    void setUp() {
+        seed();
+        String id = sample.getId();
+        String livreurId = sample.getLivreur().getId();
+        String clientId = sample.getClientExpediteur().getId();
+        String destinataireId = sample.getDestinataire().getId();
+        String zoneId = sample.getZone().getId();
+        LocalDateTime cursorDate = sample.getDateCreation();
+
+        indexedQueries.put("findById", repo -> repo.findById(id));
+        indexedQueries.put("findByIdIn", repo -> repo.findByIdIn(List.of(id)));
+        indexedQueries.put("findDateCreationById", repo -> repo.findDateCreationById(id));
+        indexedQueries.put("findByStatut", repo -> repo.findByStatut(StatutColis.LIVRE, PAGE));
+        indexedQueries.put("findByPriorite", repo -> repo.findByPriorite(PrioriteColis.URGENT, PAGE));
+        indexedQueries.put("findByZoneId", repo -> repo.findByZoneId(zoneId, PAGE));
+        indexedQueries.put("findByLivreurId", repo -> repo.findByLivreurId(livreurId, PAGE));
+        indexedQueries.put("findByClientExpediteurId", repo -> repo.findByClientExpediteurId(clientId, PAGE));
+        indexedQueries.put("findByDestinataireId", repo -> repo.findByDestinataireId(destinataireId, PAGE));
+        indexedQueries.put("findByClientExpediteurIdFirstPage",
+                repo -> repo.findByClientExpediteurIdFirstPage(clientId, LIMIT));
+        indexedQueries.put("findByDestinataireIdFirstPage",
+                repo -> repo.findByDestinataireIdFirstPage(destinataireId, LIMIT));
+        indexedQueries.put("findByLivreurIdFirstPage",
+                repo -> repo.findByLivreurIdFirstPage(livreurId, LIMIT));
+        indexedQueries.put("findByClientExpediteurIdAfterCursor",
+                repo -> repo.findByClientExpediteurIdAfterCursor(clientId, cursorDate, id, LIMIT));
+        indexedQueries.put("findByDestinataireIdAfterCursor",
+                repo -> repo.findByDestinataireIdAfterCursor(destinataireId, cursorDate, id, LIMIT));
+        indexedQueries.put("findByLivreurIdAfterCursor",
+                repo -> repo.findByLivreurIdAfterCursor(livreurId, cursorDate, id, LIMIT));
+        indexedQueries.put("findByLivreurIdAndStatutNot",
+                repo -> repo.findByLivreurIdAndStatutNot(livreurId, StatutColis.LIVRE));
+        indexedQueries.put("findVersionById", repo -> repo.findVersionById(id));
+        indexedQueries.put("findVersionByLivreurId", repo -> repo.findVersionByLivreurId(livreurId));
+    }
+
+    @Test
+    @DisplayName("Devrait classer chaque requête du repository : indexée ou parcours complet admis")
+    void shouldClassifyEveryRepositoryQuery() {
+        Set<String> declared = Arrays.stream(ColisRepository.class.getDeclaredMethods())
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+
+        Set<String> classified = new HashSet<>(FULL_SCAN_ALLOWED);
+        classified.addAll(indexedQueries.keySet());
+
+        assertThat(classified).containsAll(declared);
+    }
+
+    @Test
+    @DisplayName("Ne devrait parcourir aucune table en entier pour les recherches par clé")
+    void shouldUseIndexForLookupQueries() {
+        Map<String, List<String>> scans = new LinkedHashMap<>();
+        indexedQueries.forEach((name, query) -> {
+            List<String> plans = explain(() -> query.accept(colisRepository));
+            List<String> tableScans = plans.stream().filter(plan -> plan.contains("tableScan")).toList();
+            if (!tableScans.isEmpty()) {
+                scans.put(name, tableScans);
+            }
+        });
+
+        assertThat(scans).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait lire les produits d'un colis par index")
+    void shouldUseIndexForColisProduits() {
+        List<String> plans = explain(() -> colisProduitRepository.findByColisId(sample.getId()));
+
+        assertThat(plans).isNotEmpty().noneMatch(plan -> plan.contains("tableScan"));
+    }
+
+    // Exécute la requête, puis EXPLAIN sur chaque SELECT émis (paramètres à NULL : le plan n'en dépend pas sur H2)
+    private List<String> explain(Runnable query) {
+        entityManager.clear();
+        SqlCapture.start();
+        List<String> statements;
+        try {
+            query.run();
+        } finally {
+            statements = SqlCapture.stop();
+        }
+        List<String> plans = new ArrayList<>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            for (String sql : statements) {
+                try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                    int parameters = statement.getParameterMetaData().getParameterCount();
+                    for (int i = 1; i <= parameters; i++) {
+                        statement.setNull(i, Types.VARCHAR);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            plans.add(resultSet.getString(1));
+                        }
+                    }
+                }
+            }
+        });
+        return plans;
+    }
+
+    private void seed() {
+        List<Zone> zones = new ArrayList<>();
+        List<Livreur> livreurs = new ArrayList<>();
+        List<ClientExpediteur> clients = new ArrayList<>();
+        List<Destinataire> destinataires = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Zone zone = new Zone();
+            zone.setNom("Zone " + i);
+            zone.setCodePostal("1000" + i);
+            zone.setVille("Ville " + i);
+            entityManager.persist(zone);
+            zones.add(zone);
+
+            Livreur livreur = new Livreur();
+            livreur.setNom("Livreur " + i);
+            livreur.setPrenom("Test");
+            livreur.setTelephone("06000000" + (10 + i));
+            livreur.setVehicule("Moto");
+            livreur.setZoneAssignee(zone);
+            entityManager.persist(livreur);
+            livreurs.add(livreur);
+
+            ClientExpediteur client = new ClientExpediteur();
+            client.setNom("Client " + i);
+            client.setPrenom("Test");
+            client.setEmail("client" + i + "@test.com");
+            client.setTelephone("06100000" + (10 + i));
+            client.setAdresse("Adresse " + i);
+            entityManager.persist(client);
+            clients.add(client);
+
+            Destinataire destinataire = new Destinataire();
+            destinataire.setNom("Dest " + i);
+            destinataire.setPrenom("Test");
+            destinataire.setTelephone("06200000" + (10 + i));
+            destinataire.setAdresse("Adresse " + i);
+            entityManager.persist(destinataire);
+            destinataires.add(destinataire);
+        }
+
+        Produit produit = new Produit();
+        produit.setNom("Produit");
+        produit.setCategorie("Test");
+        produit.setPoids(BigDecimal.ONE);
+        produit.setPrix(BigDecimal.TEN);
+        entityManager.persist(produit);
+
+        StatutColis[] statuts = StatutColis.values();
+        PrioriteColis[] priorites = PrioriteColis.values();
+        for (int i = 0; i < COLIS_COUNT; i++) {
+            Colis colis = new Colis();
+            colis.setDescription("Colis " + i);
+            colis.setPoids(BigDecimal.valueOf(1 + i % 5));
+            colis.setStatut(statuts[i % statuts.length]);
+            colis.setPriorite(priorites[i % priorites.length]);
+            colis.setVilleDestination("Ville " + i % 10);
+            colis.setZone(zones.get(i % 10));
+            colis.setLivreur(livreurs.get(i % 10));
+            colis.setClientExpediteur(clients.get(i % 10));
+            colis.setDestinataire(destinataires.get(i % 10));
+            entityManager.persist(colis);
+
+            ColisProduit colisProduit = new ColisProduit();
+            colisProduit.setColis(colis);
+            colisProduit.setProduit(produit);
+            colisProduit.setQuantite(1);
+            colisProduit.setPrix(BigDecimal.TEN);
+            entityManager.persist(colisProduit);
+
+            if (i == COLIS_COUNT / 2) {
+                sample = colis;
+            }
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Collecte les SELECT émis par Hibernate pendant {@link #explain}, sur le thread du test.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        static void start() {
+            CAPTURED.set(new ArrayList<>());
+        }
+
+        static List<String> stop() {
+            List<String> captured = CAPTURED.get();
+            CAPTURED.remove();
+            return captured;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            List<String> captured = CAPTURED.get();
+            // use_sql_comments : la requête est précédée d'un commentaire
+            String statement = sql.replaceFirst("^\\s*/\\*.*?\\*/", "").trim();
+            if (captured != null && statement.toLowerCase(Locale.ROOT).startsWith("select")) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+}
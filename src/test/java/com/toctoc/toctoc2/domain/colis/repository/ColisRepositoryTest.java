@@ -3,6 +3,13 @@ package com.toctoc.toctoc2.domain.colis.repository;
 import com.toctoc.toctoc2.domain.colis.model.*;
 import com.toctoc.toctoc2.domain.client.model.*;
 import com.toctoc.toctoc2.domain.client.repository.*;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -23,6 +30,9 @@ class ColisRepositoryTest {
     @Autowired private ColisRepository colisRepository;
     @Autowired private ClientExpediteurRepository clientRepository;
     @Autowired private DestinataireRepository destinataireRepository;
+    @Autowired private LivreurRepository livreurRepository;
+    @Autowired private ZoneRepository zoneRepository;
+    @Autowired private EntityManager entityManager;
 
     private ClientExpediteur client;
     private Destinataire destinataire;
@@ -153,6 +163,31 @@ class ColisRepositoryTest {
         assertThat(result).hasSize(1);
     }
 
+    @Test
+    @DisplayName("Devrait lire en flux les colis filtrés par client")
+    void shouldStreamColisByClient() {
+        ClientExpediteur other = new ClientExpediteur();
+        other.setNom("Autre");
+        other.setPrenom("Client");
+        other.setEmail("autre@test.com");
+        other.setTelephone("0611111111");
+        other.setAdresse("1 Rue Test");
+        other = clientRepository.save(other);
+
+        createAndSaveColis("Client 1", StatutColis.CREE);
+        createAndSaveColis("Client 2", StatutColis.LIVRE);
+        Colis foreign = createColis("Autre client", StatutColis.CREE);
+        foreign.setClientExpediteur(other);
+        colisRepository.save(foreign);
+
+        try (var rows = colisRepository.streamByMultipleCriteria(null, null, null, null, null, client.getId())) {
+            assertThat(rows.map(Colis::getDescription)).containsExactlyInAnyOrder("Client 1", "Client 2");
+        }
+        try (var rows = colisRepository.streamByMultipleCriteria(StatutColis.CREE, null, null, null, null, null)) {
+            assertThat(rows.count()).isEqualTo(2);
+        }
+    }
+
     @Test
     @DisplayName("Devrait compter par statut")
     void shouldCountByStatut() {
@@ -166,6 +201,82 @@ class ColisRepositoryTest {
         assertThat(stats.size()).isGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    @DisplayName("Devrait paginer par curseur sans doublon ni trou")
+    void shouldPageByCursor() {
+        for (int i = 1; i <= 5; i++) {
+            createAndSaveColis("Colis " + i, StatutColis.CREE);
+        }
+
+        List<Colis> firstPage = colisRepository.findFirstPage(PageRequest.of(0, 3));
+        assertThat(firstPage).hasSize(3);
+
+        Colis last = firstPage.get(2);
+        List<Colis> secondPage = colisRepository.findAllAfterCursor(
+                last.getDateCreation(), last.getId(), PageRequest.of(0, 3));
+
+        assertThat(secondPage).hasSize(2);
+        assertThat(secondPage).doesNotContainAnyElementsOf(firstPage);
+    }
+
+    @Test
+    @DisplayName("Devrait paginer par curseur un client expéditeur")
+    void shouldPageByCursorForClient() {
+        createAndSaveColis("C1", StatutColis.CREE);
+        createAndSaveColis("C2", StatutColis.CREE);
+
+        List<Colis> result = colisRepository.findByClientExpediteurIdFirstPage(
+                client.getId(), PageRequest.of(0, 10));
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getDateCreation()).isAfterOrEqualTo(result.get(1).getDateCreation());
+    }
+
+    @Test
+    @DisplayName("Devrait charger une page et ses relations en un nombre constant de requêtes")
+    void shouldLoadPageWithRelationsInConstantStatements() {
+        for (int i = 1; i <= 5; i++) {
+            Zone zone = new Zone();
+            zone.setNom("Zone " + i);
+            zone.setCodePostal("2000" + i);
+            zone.setVille("Casablanca");
+            zone = zoneRepository.save(zone);
+
+            Livreur livreur = new Livreur();
+            livreur.setNom("Livreur " + i);
+            livreur.setPrenom("Test");
+            livreur.setTelephone("061234567" + i);
+            livreur.setZoneAssignee(zone);
+            livreur = livreurRepository.save(livreur);
+
+            Colis colis = createColis("Colis " + i, StatutColis.EN_TRANSIT);
+            colis.setZone(zone);
+            colis.setLivreur(livreur);
+            colisRepository.save(colis);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Page<Colis> page = colisRepository.findAll(PageRequest.of(0, 10));
+        page.forEach(c -> {
+            // Les mêmes accès que ColisMapper.toDTO
+            c.getLivreur().getNom();
+            c.getZone().getNom();
+            c.getClientExpediteur().getNom();
+            c.getDestinataire().getNom();
+        });
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        statistics.setStatisticsEnabled(false);
+    }
+
     private Colis createColis(String description, StatutColis statut) {
         Colis colis = new Colis();
         colis.setDescription(description);
@@ -0,0 +1,147 @@
+package com.toctoc.toctoc2.domain.colis.repository;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Migrations Liquibase et maintenance des partitions de historique_livraison sur un vrai PostgreSQL :
+ * un conteneur Testcontainers, ou la base jetable désignée par {@code toctoc.it.jdbc-url} (son schéma
+ * public est recréé). Ignoré sans Docker ni base désignée.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Partitions de l'historique sur PostgreSQL")
+class HistoriquePartitionPostgresTest {
+
+    // Changesets 001 à 025, antérieurs au partitionnement (026)
+    private static final int CHANGESETS_BEFORE_PARTITIONING = 25;
+    private static final String CHANGELOG = "db/changelog/db.changelog-master.yaml";
+
+    private static PostgreSQLContainer<?> container;
+    private static DriverManagerDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startDatabase() {
+        String url = System.getProperty("toctoc.it.jdbc-url");
+        if (url != null) {
+            dataSource = new DriverManagerDataSource(url,
+                    System.getProperty("toctoc.it.jdbc-user", "postgres"),
+                    System.getProperty("toctoc.it.jdbc-password", ""));
+        } else {
+            assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker indisponible");
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+            dataSource = new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+        }
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Devrait partitionner une table d'historique existante sans perdre de lignes")
+    void shouldMigrateExistingHistoryIntoPartitions() throws Exception {
+        YearMonth current = YearMonth.now();
+        YearMonth old = current.minusMonths(14);
+        try (Connection connection = dataSource.getConnection()) {
+            Liquibase liquibase = liquibase(connection);
+            liquibase.update(CHANGESETS_BEFORE_PARTITIONING, new Contexts(), new LabelExpression());
+
+            insertColis("colis-1");
+            insertHistorique("h-1", "colis-1", old.atDay(10) + " 08:00:00");
+            insertHistorique("h-2", "colis-1", current.atDay(1) + " 09:30:00");
+
+            liquibase.update(new Contexts(), new LabelExpression());
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table t " +
+                "JOIN pg_class c ON c.oid = t.partrelid WHERE c.relname = 'historique_livraison'", Integer.class))
+                .isEqualTo(1);
+        HistoriquePartitionRepository repository = new HistoriquePartitionRepository(jdbcTemplate);
+        assertThat(repository.findPartitions()).startsWith(old).contains(current, current.plusMonths(3));
+        assertThat(partitionOf("h-1")).isEqualTo(HistoriquePartitionRepository.partitionName(old));
+        assertThat(partitionOf("h-2")).isEqualTo(HistoriquePartitionRepository.partitionName(current));
+
+        // La clé étrangère vers colis a survécu au renommage
+        jdbcTemplate.update("DELETE FROM colis WHERE id = 'colis-1'");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM historique_livraison", Integer.class)).isZero();
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Devrait créer une partition dont le mois a déjà des lignes dans la partition par défaut")
+    void shouldMoveDefaultRowsIntoNewPartition() {
+        YearMonth later = YearMonth.now().plusMonths(12);
+        insertColis("colis-2");
+        insertHistorique("h-3", "colis-2", later.atDay(5) + " 12:00:00");
+        insertHistorique("h-4", "colis-2", later.plusMonths(1).atDay(5) + " 12:00:00");
+        assertThat(partitionOf("h-3")).isEqualTo(HistoriquePartitionRepository.DEFAULT_PARTITION);
+
+        HistoriquePartitionRepository repository = new HistoriquePartitionRepository(jdbcTemplate);
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+                .executeWithoutResult(status -> repository.createPartition(later));
+
+        assertThat(repository.findPartitions()).contains(later);
+        assertThat(partitionOf("h-3")).isEqualTo(HistoriquePartitionRepository.partitionName(later));
+        // Les autres mois restent dans la partition par défaut, de nouveau rattachée
+        assertThat(partitionOf("h-4")).isEqualTo(HistoriquePartitionRepository.DEFAULT_PARTITION);
+        insertHistorique("h-5", "colis-2", later.plusMonths(2).atDay(1) + " 00:00:00");
+        assertThat(partitionOf("h-5")).isEqualTo(HistoriquePartitionRepository.DEFAULT_PARTITION);
+    }
+
+    private static Liquibase liquibase(Connection connection) throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        return new Liquibase(CHANGELOG, new ClassLoaderResourceAccessor(), database);
+    }
+
+    private void insertColis(String id) {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM client_expediteur WHERE id = 'client-1'", Integer.class) == 0) {
+            jdbcTemplate.update("INSERT INTO client_expediteur (id, nom, prenom, email, telephone, adresse) " +
+                    "VALUES ('client-1', 'Test', 'Client', 'client@test.com', '0600000000', '1 Rue Test')");
+            jdbcTemplate.update("INSERT INTO destinataire (id, nom, prenom, telephone, adresse) " +
+                    "VALUES ('dest-1', 'Test', 'Dest', '0600000001', '2 Rue Test')");
+        }
+        jdbcTemplate.update("INSERT INTO colis (id, description, poids, statut, priorite, ville_destination, " +
+                "client_expediteur_id, destinataire_id, date_creation, date_modification) " +
+                "VALUES (?, 'Colis', 1.00, 'CREE', 'NORMALE', 'Rabat', 'client-1', 'dest-1', now(), now())", id);
+    }
+
+    private void insertHistorique(String id, String colisId, String dateChangement) {
+        jdbcTemplate.update("INSERT INTO historique_livraison (id, colis_id, statut, date_changement) " +
+                "VALUES (?, ?, 'CREE', CAST(? AS timestamp))", id, colisId, dateChangement);
+    }
+
+    private String partitionOf(String id) {
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM historique_livraison WHERE id = ?", String.class, id);
+        assertThat(tables).hasSize(1);
+        return tables.get(0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisAssignmentResultDTO;
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatisticsDTO;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.Assignment;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.UnassignedColis;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisAssignmentService")
+class ColisAssignmentServiceTest {
+
+    @Mock private ZoneRepository zoneRepository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private ColisStatisticsService statisticsService;
+    @Mock private EntityManager entityManager;
+
+    @InjectMocks
+    private ColisAssignmentService assignmentService;
+
+    @Captor private ArgumentCaptor<List<Assignment>> planCaptor;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(assignmentService, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Devrait donner chaque colis au livreur actif le moins chargé, lot par lot")
+    void shouldAssignToLeastLoadedLivreurInBatches() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1"))
+                .thenReturn(List.of(livreur("l1", true), livreur("l2", true), livreur("l3", false)));
+        when(colisJdbcRepository.findOpenLoad(anyCollection()))
+                .thenReturn(Map.of("l1", new ColisJdbcRepository.OpenLoad(2, BigDecimal.valueOf(4))));
+        when(colisJdbcRepository.findUnassigned("zone-1", "", 2))
+                .thenReturn(List.of(colis("c1", 1), colis("c2", 3)));
+        when(colisJdbcRepository.findUnassigned("zone-1", "c2", 2))
+                .thenReturn(List.of(colis("c3", 2)));
+        when(colisJdbcRepository.assignLivreurs(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ColisAssignmentResultDTO result = assignmentService.assignZone("zone-1");
+
+        verify(colisJdbcRepository, times(2)).assignLivreurs(planCaptor.capture(), any());
+        Map<String, String> livreurParColis = planCaptor.getAllValues().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Assignment::colisId, Assignment::livreurId));
+        // l2 part de zéro : il prend c2 (le plus lourd) puis c1 ; à égalité de charge, c3 va au premier id
+        assertThat(livreurParColis).containsEntry("c2", "l2").containsEntry("c1", "l2").containsEntry("c3", "l1");
+        assertThat(result.getAssigned()).isEqualTo(3);
+        assertThat(result.getLivreurs()).extracting(ColisStatisticsDTO::getEntityId).containsExactly("l2", "l1");
+        assertThat(result.getLivreurs()).extracting(ColisStatisticsDTO::getCount).containsExactly(2L, 3L);
+        verify(statisticsService).apply(any(ColisStatisticsService.Delta.class));
+    }
+
+    @Test
+    @DisplayName("Devrait laisser un colis assigné entre-temps et rendre la charge réservée")
+    void shouldReleaseLoadOnConflict() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(livreur("l1", true)));
+        when(colisJdbcRepository.findOpenLoad(anyCollection())).thenReturn(Map.of());
+        when(colisJdbcRepository.findUnassigned("zone-1", "", 2)).thenReturn(List.of(colis("c1", 1)));
+        when(colisJdbcRepository.assignLivreurs(anyList(), any())).thenReturn(List.of());
+
+        ColisAssignmentResultDTO result = assignmentService.assignZone("zone-1");
+
+        assertThat(result.getAssigned()).isZero();
+        assertThat(result.getConflicts()).isEqualTo(1);
+        assertThat(result.getLivreurs()).singleElement()
+                .satisfies(charge -> assertThat(charge.getCount()).isZero());
+        verifyNoInteractions(statisticsService);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien lire sans livreur actif dans la zone")
+    void shouldSkipZoneWithoutActiveLivreur() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(livreur("l1", false)));
+
+        ColisAssignmentResultDTO result = assignmentService.assignZone("zone-1");
+
+        assertThat(result.getAssigned()).isZero();
+        verifyNoInteractions(colisJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait lever une exception si la zone n'existe pas")
+    void shouldThrowWhenZoneNotFound() {
+        when(zoneRepository.existsById("invalid")).thenReturn(false);
+
+        assertThatThrownBy(() -> assignmentService.assignZone("invalid"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private Livreur livreur(String id, boolean actif) {
+        Livreur livreur = new Livreur();
+        livreur.setId(id);
+        livreur.setNom("Alami");
+        livreur.setPrenom("Ahmed");
+        livreur.setActif(actif);
+        return livreur;
+    }
+
+    private UnassignedColis colis(String id, int poids) {
+        return new UnassignedColis(id, BigDecimal.valueOf(poids));
+    }
+}
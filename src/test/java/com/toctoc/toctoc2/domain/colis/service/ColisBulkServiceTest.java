@@ -0,0 +1,175 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.application.mapper.ColisMapper;
+import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
+import com.toctoc.toctoc2.domain.client.model.Destinataire;
+import com.toctoc.toctoc2.domain.client.repository.ClientExpediteurRepository;
+import com.toctoc.toctoc2.domain.client.repository.DestinataireRepository;
+import com.toctoc.toctoc2.domain.colis.dto.*;
+import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisBulkService")
+class ColisBulkServiceTest {
+
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private ClientExpediteurRepository clientRepository;
+    @Mock private DestinataireRepository destinataireRepository;
+    @Mock private ZoneRepository zoneRepository;
+    @Mock private ColisMapper colisMapper;
+    @Mock private EntityManager entityManager;
+    @Mock private ColisStatisticsService statisticsService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Spy private ColisStateMachine stateMachine = new ColisStateMachine(new SimpleMeterRegistry());
+    @Spy private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @InjectMocks
+    private ColisBulkService bulkService;
+
+    @Captor private ArgumentCaptor<List<Colis>> colisCaptor;
+    @Captor private ArgumentCaptor<List<HistoriqueLivraison>> historiqueCaptor;
+
+    private ClientExpediteur client;
+    private Destinataire destinataire;
+
+    @BeforeEach
+    void setUp() {
+        client = new ClientExpediteur();
+        client.setId("client-1");
+
+        destinataire = new Destinataire();
+        destinataire.setId("dest-1");
+    }
+
+    @Test
+    @DisplayName("Devrait créer les colis valides et rapporter les erreurs par élément")
+    void shouldCreateValidItemsAndReportErrors() {
+        CreateColisRequest valid = request("client-1");
+        CreateColisRequest unknownClient = request("client-x");
+        CreateColisRequest invalid = request("client-1");
+        invalid.setDescription("");
+
+        when(clientRepository.findAllById(anySet())).thenReturn(List.of(client));
+        when(destinataireRepository.findAllById(anySet())).thenReturn(List.of(destinataire));
+        when(colisMapper.toEntity(valid)).thenReturn(entity(valid));
+
+        BulkColisResultDTO result = bulkService.createColis(Arrays.asList(valid, unknownClient, invalid));
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getResults().get(0).isSuccess()).isTrue();
+        assertThat(result.getResults().get(1).getMessage()).isEqualTo("Client expéditeur non trouvé");
+        assertThat(result.getResults().get(2).getMessage()).startsWith("description");
+
+        verify(clientRepository, times(1)).findAllById(anySet());
+        verify(colisJdbcRepository).insertColis(colisCaptor.capture());
+        verify(colisJdbcRepository).insertHistoriques(historiqueCaptor.capture());
+        assertThat(colisCaptor.getValue()).hasSize(1);
+        assertThat(colisCaptor.getValue().get(0).getId()).isEqualTo(result.getResults().get(0).getId());
+        assertThat(historiqueCaptor.getValue()).singleElement()
+                .extracting(HistoriqueLivraison::getStatut).isEqualTo(StatutColis.CREE);
+        verify(statisticsService).onCreated(colisCaptor.getValue());
+    }
+
+    @Test
+    @DisplayName("Devrait ne relire ni les références connues ni les références absentes d'un appel à l'autre")
+    void shouldReuseReferencesAcrossCalls() {
+        CreateColisRequest valid = request("client-1");
+        CreateColisRequest unknownClient = request("client-x");
+
+        when(clientRepository.findAllById(anySet())).thenReturn(List.of(client));
+        when(destinataireRepository.findAllById(anySet())).thenReturn(List.of(destinataire));
+        when(colisMapper.toEntity(valid)).thenAnswer(invocation -> entity(valid));
+
+        ColisBulkService.References references = new ColisBulkService.References();
+        bulkService.createColis(List.of(valid, unknownClient), references);
+        BulkColisResultDTO second = bulkService.createColis(List.of(valid, unknownClient), references);
+
+        assertThat(second.getSucceeded()).isEqualTo(1);
+        assertThat(second.getResults().get(1).getMessage()).isEqualTo("Client expéditeur non trouvé");
+        verify(clientRepository, times(1)).findAllById(Set.of("client-1", "client-x"));
+        verify(destinataireRepository, times(1)).findAllById(anySet());
+        verifyNoInteractions(zoneRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait ne modifier et historiser que les colis dont le statut change")
+    void shouldOnlyUpdateChangedColis() {
+        UpdateStatutRequest changement = new UpdateStatutRequest(StatutColis.EN_TRANSIT, "Départ dépôt", "scanner-1");
+        when(colisJdbcRepository.lockStatuts(anyCollection())).thenReturn(Map.of(
+                "c1", new ColisJdbcRepository.LockedColis(StatutColis.EN_STOCK, BigDecimal.ONE, "livreur-1"),
+                "c2", new ColisJdbcRepository.LockedColis(StatutColis.EN_TRANSIT, BigDecimal.TEN, null),
+                "c4", new ColisJdbcRepository.LockedColis(StatutColis.LIVRE, BigDecimal.ONE, null)));
+
+        BulkStatutResultDTO result = bulkService.updateStatut(Arrays.asList("c1", "c2", "c3", "c4", "c1"), changement);
+
+        assertThat(result.getRequested()).isEqualTo(4);
+        assertThat(result.getUpdated()).containsExactly("c1");
+        assertThat(result.getUnchanged()).containsExactly("c2");
+        assertThat(result.getNotFound()).containsExactly("c3");
+        assertThat(result.getRejected()).containsExactly("c4");
+        verify(colisJdbcRepository).updateStatut(eq(List.of("c1")), eq(StatutColis.EN_TRANSIT), any());
+        verify(colisJdbcRepository).insertHistoriques(historiqueCaptor.capture());
+        assertThat(historiqueCaptor.getValue()).singleElement()
+                .satisfies(h -> {
+                    assertThat(h.getColis().getId()).isEqualTo("c1");
+                    assertThat(h.getModifiePar()).isEqualTo("scanner-1");
+                });
+        verify(statisticsService).apply(any(ColisStatisticsService.Delta.class));
+        verify(colisJdbcRepository).insertOutboxEvents(argThat(events -> events.size() == 1
+                && events.get(0).getColisId().equals("c1")
+                && events.get(0).getStatutPrecedent() == StatutColis.EN_STOCK
+                && events.get(0).getId() != null));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ColisTrackingEventDTO t
+                && t.getColisId().equals("c1") && "livreur-1".equals(t.getLivreurId())));
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un statut cible inatteignable avant toute lecture en base")
+    void shouldRejectUnreachableStatutBeforeReadingDatabase() {
+        UpdateStatutRequest retourCree = new UpdateStatutRequest(StatutColis.CREE, null, "scanner-1");
+
+        assertThatThrownBy(() -> bulkService.updateStatut(List.of("c1", "c2"), retourCree))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(colisJdbcRepository, entityManager);
+    }
+
+    private CreateColisRequest request(String clientId) {
+        CreateColisRequest request = new CreateColisRequest();
+        request.setDescription("Laptop Dell");
+        request.setPoids(BigDecimal.valueOf(2.5));
+        request.setPriorite(PrioriteColis.NORMALE);
+        request.setVilleDestination("Rabat");
+        request.setClientExpediteurId(clientId);
+        request.setDestinataireId("dest-1");
+        return request;
+    }
+
+    private Colis entity(CreateColisRequest request) {
+        Colis colis = new Colis();
+        colis.setDescription(request.getDescription());
+        colis.setPoids(request.getPoids());
+        colis.setPriorite(request.getPriorite());
+        colis.setVilleDestination(request.getVilleDestination());
+        return colis;
+    }
+}
@@ -0,0 +1,118 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toctoc.toctoc2.application.mapper.ColisMapper;
+import com.toctoc.toctoc2.domain.colis.dto.ColisDTO;
+import com.toctoc.toctoc2.domain.colis.dto.ExportFormat;
+import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisExportService")
+class ColisExportServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private ColisMapper colisMapper;
+    @Mock private EntityManager entityManager;
+    @Spy private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private ColisExportService exportService;
+
+    private Colis first;
+    private Colis second;
+    private AtomicBoolean streamClosed;
+
+    @BeforeEach
+    void setUp() {
+        first = new Colis();
+        first.setId("colis-1");
+        second = new Colis();
+        second.setId("colis-2");
+        streamClosed = new AtomicBoolean();
+    }
+
+    @Test
+    @DisplayName("Devrait écrire une ligne JSON par colis et fermer le curseur")
+    void shouldWriteNdjson() throws Exception {
+        stubExport(Stream.of(first, second).onClose(() -> streamClosed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(ExportFormat.NDJSON, null, null, null, null, null, "client-1", out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[1]).get("id").asText()).isEqualTo("colis-2");
+        assertThat(streamClosed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Devrait vider le contexte de persistance par paquets de lignes")
+    void shouldClearPersistenceContextPeriodically() throws Exception {
+        stubExport(IntStream.range(0, 1200).mapToObj(i -> i % 2 == 0 ? first : second));
+
+        long count = exportService.export(ExportFormat.NDJSON, null, null, null, null, null, "client-1",
+                new ByteArrayOutputStream());
+
+        assertThat(count).isEqualTo(1200);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("Devrait échapper les valeurs CSV et neutraliser les formules")
+    void shouldWriteEscapedCsv() throws Exception {
+        stubExport(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(ExportFormat.CSV, null, null, null, null, null, "client-1", out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("id,description,poids,statut");
+        assertThat(lines[1]).startsWith("colis-1,\"Laptop, \"\"Dell\"\"\",2.5,CREE,NORMALE");
+        assertThat(lines[2]).startsWith("colis-2,'=cmd(),2.5");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas préfixer les nombres négatifs")
+    void shouldKeepNegativeNumbers() {
+        assertThat(ColisExportService.csv("-2.5")).isEqualTo("-2.5");
+        assertThat(ColisExportService.csv("+212600000000")).isEqualTo("+212600000000");
+        assertThat(ColisExportService.csv("-2+3")).isEqualTo("'-2+3");
+        assertThat(ColisExportService.csv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+    }
+
+    private void stubExport(Stream<Colis> rows) {
+        when(colisRepository.streamByMultipleCriteria(any(), any(), any(), any(), any(), eq("client-1")))
+                .thenReturn(rows);
+        when(colisMapper.toDTO(first)).thenReturn(dto("colis-1", "Laptop, \"Dell\""));
+        when(colisMapper.toDTO(second)).thenReturn(dto("colis-2", "=cmd()"));
+    }
+
+    private ColisDTO dto(String id, String description) {
+        ColisDTO dto = new ColisDTO();
+        dto.setId(id);
+        dto.setDescription(description);
+        dto.setPoids(BigDecimal.valueOf(2.5));
+        dto.setStatut(StatutColis.CREE);
+        dto.setPriorite(PrioriteColis.NORMALE);
+        return dto;
+    }
+}
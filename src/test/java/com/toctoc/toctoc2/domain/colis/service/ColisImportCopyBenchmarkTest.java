@@ -0,0 +1,140 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesure, sur PostgreSQL, de l'écriture d'un import par lots JDBC (avec reWriteBatchedInserts, chemin
+ * conservé pour H2) et par COPY FROM STDIN (chemin de ColisJdbcRepository sur PostgreSQL), sur une table
+ * de la forme de colis, par transactions de la taille d'un lot d'import.
+ * <p>
+ * Désactivé par défaut ; lancement sur une base jetable (la table bench_import_colis est recréée) :
+ * {@code mvn test -Dtest=ColisImportCopyBenchmarkTest -Dtoctoc.loadtest.jdbc-url=jdbc:postgresql://localhost:5432/bench
+ * -Dtoctoc.loadtest.jdbc-user=postgres -Dtoctoc.loadtest.rows=100000}
+ */
+@EnabledIfSystemProperty(named = "toctoc.loadtest.jdbc-url", matches = ".+")
+@DisplayName("Mesure de l'écriture des imports")
+class ColisImportCopyBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("toctoc.loadtest.rows", 100_000);
+    private static final int CHUNK = 500;
+    private static final String TABLE = "bench_import_colis";
+    private static final String COLUMNS = "id, description, poids, statut, priorite, ville_destination, "
+            + "date_limite_livraison, livreur_id, client_expediteur_id, destinataire_id, zone_id, "
+            + "date_creation, date_modification, en_retard";
+
+    @Test
+    @DisplayName("Devrait écrire plus vite par COPY que par lots JDBC")
+    void shouldCompareBatchAndCopy() throws Exception {
+        String url = System.getProperty("toctoc.loadtest.jdbc-url");
+        try (Connection connection = DriverManager.getConnection(
+                url.contains("reWriteBatchedInserts") ? url : url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+                System.getProperty("toctoc.loadtest.jdbc-user", "postgres"),
+                System.getProperty("toctoc.loadtest.jdbc-password", ""))) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+                statement.execute("CREATE TABLE " + TABLE + " (id varchar(36) PRIMARY KEY, description varchar(500), "
+                        + "poids numeric(10,2), statut varchar(20), priorite varchar(20), ville_destination varchar(100), "
+                        + "date_limite_livraison timestamp, livreur_id varchar(36), client_expediteur_id varchar(36), "
+                        + "destinataire_id varchar(36), zone_id varchar(36), date_creation timestamp, "
+                        + "date_modification timestamp, en_retard boolean)");
+            }
+
+            // Premier passage de chaque variante pour chauffer la JVM et le cache de la base
+            batch(connection);
+            copy(connection);
+            double batch = batch(connection);
+            double copy = copy(connection);
+
+            System.out.printf("lots JDBC %,9.0f lignes/s  COPY %,9.0f lignes/s%n", batch, copy);
+            assertThat(count(connection)).isEqualTo(ROWS);
+            assertThat(batch).isPositive();
+            // Sinon le chemin COPY de ColisJdbcRepository ne se justifie plus
+            assertThat(copy / batch)
+                    .as("COPY %,.0f lignes/s, lots JDBC %,.0f lignes/s", copy, batch)
+                    .isGreaterThan(1.5);
+        }
+    }
+
+    private double batch(Connection connection) throws SQLException {
+        truncate(connection);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE + " (" + COLUMNS + ") "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setString(1, UUID.randomUUID().toString());
+                insert.setString(2, "Colis " + i);
+                insert.setBigDecimal(3, BigDecimal.valueOf(250, 2));
+                insert.setString(4, "CREE");
+                insert.setString(5, "NORMALE");
+                insert.setString(6, "Casablanca");
+                insert.setTimestamp(7, null);
+                insert.setString(8, null);
+                insert.setString(9, "client");
+                insert.setString(10, "destinataire");
+                insert.setString(11, null);
+                insert.setTimestamp(12, now);
+                insert.setTimestamp(13, now);
+                insert.addBatch();
+                if (i % CHUNK == 0 || i == ROWS) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return ROWS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private double copy(Connection connection) throws SQLException, IOException {
+        truncate(connection);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try {
+            for (int from = 1; from <= ROWS; from += CHUNK) {
+                StringBuilder csv = new StringBuilder();
+                for (int i = from; i < from + CHUNK && i <= ROWS; i++) {
+                    csv.append(UUID.randomUUID()).append(",Colis ").append(i)
+                            .append(",2.50,CREE,NORMALE,Casablanca,,,client,destinataire,,")
+                            .append(now).append(',').append(now).append(",false\n");
+                }
+                copyManager.copyIn("COPY " + TABLE + " (" + COLUMNS + ") FROM STDIN (FORMAT csv)",
+                        new StringReader(csv.toString()));
+                connection.commit();
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return ROWS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void truncate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE " + TABLE);
+        }
+    }
+
+    private static long count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT count(*) FROM " + TABLE)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.*;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisImportService")
+class ColisImportServiceTest {
+
+    private static final String HEADER = "description,poids,priorite,villeDestination,dateLimiteLivraison,clientExpediteurId,destinataireId\n";
+
+    @Mock
+    private ColisBulkService bulkService;
+
+    private ColisImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ColisImportService(bulkService, new SyncTaskExecutor(), 2);
+    }
+
+    @Nested
+    @DisplayName("Tests de startImport")
+    class StartImportTests {
+
+        @Test
+        @DisplayName("Devrait écrire par lots en partageant les références et numéroter les erreurs par ligne")
+        void shouldWriteChunksAndReportErrorsByLine() {
+            List<List<CreateColisRequest>> chunks = new ArrayList<>();
+            List<ColisBulkService.References> references = new ArrayList<>();
+            when(bulkService.createColis(anyList(), any())).thenAnswer(invocation -> {
+                List<CreateColisRequest> chunk = new ArrayList<>(invocation.getArgument(0));
+                chunks.add(chunk);
+                references.add(invocation.getArgument(1));
+                List<BulkColisItemResultDTO> results = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    boolean ok = !"inconnu".equals(chunk.get(i).getClientExpediteurId());
+                    results.add(new BulkColisItemResultDTO(i, ok ? "id-" + i : null, ok, ok ? null : "Client expéditeur non trouvé"));
+                }
+                return new BulkColisResultDTO(chunk.size(), 0, 0, results);
+            });
+
+            String csv = HEADER
+                    + "Laptop,2.5,NORMALE,Rabat,2026-11-01,c1,d1\n"
+                    + "Phone,\"1,5\",urgent,Fès,2026-11-01T10:00:00,c1,d1\n"
+                    + "Tablet,abc,NORMALE,Fès,,c1,d1\n"
+                    + "Livre,1,NORMALE,Fès,,inconnu,d1\n";
+
+            ColisImportStatusDTO started = importService.startImport(file(csv));
+            ColisImportStatusDTO status = importService.getImport(started.getId());
+
+            assertThat(status.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+            assertThat(status.getProcessed()).isEqualTo(4);
+            assertThat(status.getSucceeded()).isEqualTo(2);
+            assertThat(status.getFailed()).isEqualTo(2);
+            assertThat(status.getErrors()).extracting(ImportRowErrorDTO::getLine).containsExactly(4L, 5L);
+            assertThat(status.getErrors().get(0).getMessage()).startsWith("poids");
+
+            assertThat(chunks).extracting(List::size).containsExactly(2, 1);
+            assertThat(references.get(0)).isSameAs(references.get(1));
+            CreateColisRequest phone = chunks.get(0).get(1);
+            assertThat(phone.getPoids()).isEqualByComparingTo(BigDecimal.valueOf(1.5));
+            assertThat(phone.getPriorite()).isEqualTo(PrioriteColis.URGENT);
+            assertThat(chunks.get(0).get(0).getDateLimiteLivraison()).isEqualTo(LocalDateTime.of(2026, 11, 1, 23, 59, 59));
+        }
+
+        @Test
+        @DisplayName("Devrait continuer après un lot rejeté par la base")
+        void shouldContinueAfterRejectedChunk() {
+            ArgumentCaptor<List<CreateColisRequest>> captor = ArgumentCaptor.forClass(List.class);
+            when(bulkService.createColis(captor.capture(), any()))
+                    .thenThrow(new IllegalStateException("connexion perdue"))
+                    .thenReturn(new BulkColisResultDTO(1, 1, 0, List.of(new BulkColisItemResultDTO(0, "id", true, null))));
+
+            String csv = HEADER
+                    + "A,1,NORMALE,Rabat,,c1,d1\n"
+                    + "B,1,NORMALE,Rabat,,c1,d1\n"
+                    + "C,1,NORMALE,Rabat,,c1,d1\n";
+
+            ColisImportStatusDTO status = importService.getImport(importService.startImport(file(csv)).getId());
+
+            assertThat(status.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+            assertThat(status.getSucceeded()).isEqualTo(1);
+            assertThat(status.getFailed()).isEqualTo(2);
+            assertThat(status.getErrors()).allSatisfy(e -> assertThat(e.getMessage()).contains("connexion perdue"));
+        }
+
+        @Test
+        @DisplayName("Devrait supprimer le fichier et oublier l'import refusé par l'exécuteur")
+        void shouldCleanUpWhenExecutorRejects() throws Exception {
+            importService = new ColisImportService(bulkService, task -> {
+                throw new TaskRejectedException("file pleine");
+            }, 2);
+            Set<Path> before = tempFiles();
+
+            assertThatThrownBy(() -> importService.startImport(file(HEADER + "A,1,NORMALE,Rabat,,c1,d1\n")))
+                    .isInstanceOf(TaskRejectedException.class);
+
+            assertThat(tempFiles()).isSubsetOf(before);
+            assertThat(importService).extracting("jobs").asInstanceOf(InstanceOfAssertFactories.MAP).isEmpty();
+            verifyNoInteractions(bulkService);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser un fichier sans les colonnes obligatoires")
+        void shouldRejectMissingColumns() {
+            assertThatThrownBy(() -> importService.startImport(file("description;poids\nA;1\n")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("priorite")
+                    .hasMessageContaining("clientExpediteurId");
+            verifyNoInteractions(bulkService);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser un fichier vide")
+        void shouldRejectEmptyFile() {
+            assertThatThrownBy(() -> importService.startImport(file("")))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait lever une exception pour un import inconnu")
+    void shouldThrowWhenImportUnknown() {
+        assertThatThrownBy(() -> importService.getImport("inconnu"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static Set<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("colis-import-"))
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    private MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "colis.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.model.ColisOutboxEvent;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisOutboxRelay")
+class ColisOutboxRelayTest {
+
+    @Mock private ColisOutboxRepository outboxRepository;
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private ColisEventSink first;
+    @Mock private ColisEventSink second;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ColisOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(first.name()).thenReturn("first");
+        when(second.name()).thenReturn("second");
+        relay = new ColisOutboxRelay(outboxRepository, colisJdbcRepository, List.of(first, second), transactionManager,
+                meterRegistry, 2, Duration.ofDays(7));
+    }
+
+    @Test
+    @DisplayName("Devrait relayer lot par lot et marquer les événements remis à tous les destinataires")
+    void shouldRelayBatchesToAllSinks() throws Exception {
+        List<ColisOutboxEvent> batch1 = List.of(event("e1"), event("e2"));
+        List<ColisOutboxEvent> batch2 = List.of(event("e3"));
+        when(outboxRepository.findPendingForSinkForUpdate(eq("first"), any())).thenReturn(batch1, batch2);
+        when(outboxRepository.findPendingForSinkForUpdate(eq("second"), any())).thenReturn(batch1, batch2);
+        // Complets seulement une fois remis au second destinataire
+        when(outboxRepository.findDeliveredToAll(anyList(), eq(List.of("first", "second")), eq(2L)))
+                .thenReturn(List.of(), List.of(), List.of("e1", "e2"), List.of("e3"));
+        List<List<ColisStatusEventDTO>> received = new ArrayList<>();
+        doAnswer(invocation -> received.add(invocation.getArgument(0))).when(first).publish(anyList());
+
+        int sent = relay.relay();
+
+        assertThat(sent).isEqualTo(3);
+        assertThat(received).hasSize(2);
+        assertThat(received.get(0)).extracting(ColisStatusEventDTO::getEventId).containsExactly("e1", "e2");
+        verify(second, times(2)).publish(anyList());
+        verify(colisJdbcRepository).insertOutboxEnvois(eq(List.of("e1", "e2")), eq("first"), any());
+        verify(colisJdbcRepository).insertOutboxEnvois(eq(List.of("e3")), eq("second"), any());
+        assertThat(batch1).allSatisfy(e -> assertThat(e.getDateEnvoi()).isNotNull());
+        assertThat(batch2.get(0).getDateEnvoi()).isNotNull();
+        assertThat(meterRegistry.counter("toctoc.outbox.published", "sink", "second").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait laisser le lot en attente pour le seul destinataire en échec et différer son prochain essai")
+    void shouldKeepBatchPendingForFailingSinkOnly() throws Exception {
+        List<ColisOutboxEvent> batch = List.of(event("e1"));
+        when(outboxRepository.findPendingForSinkForUpdate(eq("first"), any())).thenReturn(batch, List.of());
+        when(outboxRepository.findPendingForSinkForUpdate(eq("webhook"), any())).thenReturn(batch);
+        when(outboxRepository.findDeliveredToAll(anyList(), anyList(), eq(2L))).thenReturn(List.of());
+        when(second.name()).thenReturn("webhook");
+        relay = new ColisOutboxRelay(outboxRepository, colisJdbcRepository, List.of(first, second), transactionManager,
+                meterRegistry, 2, Duration.ofDays(7));
+        doThrow(new IllegalStateException("503 Service Unavailable")).when(second).publish(anyList());
+
+        assertThat(relay.relay()).isZero();
+
+        ColisOutboxEvent event = batch.get(0);
+        assertThat(event.getDateEnvoi()).isNull();
+        assertThat(event.getTentatives()).isEqualTo(1);
+        assertThat(event.getDerniereErreur()).isEqualTo("webhook: 503 Service Unavailable");
+        assertThat(meterRegistry.counter("toctoc.outbox.failures", "sink", "webhook").count()).isEqualTo(1);
+        verify(colisJdbcRepository).insertOutboxEnvois(eq(List.of("e1")), eq("first"), any());
+        verify(colisJdbcRepository, never()).insertOutboxEnvois(anyList(), eq("webhook"), any());
+
+        // Attente exponentielle pour le webhook seulement ; le premier destinataire ne reçoit pas le lot une seconde fois
+        assertThat(relay.relay()).isZero();
+        verify(outboxRepository, times(1)).findPendingForSinkForUpdate(eq("webhook"), any());
+        verify(outboxRepository, times(2)).findPendingForSinkForUpdate(eq("first"), any());
+        verify(first, times(1)).publish(anyList());
+    }
+
+    @Test
+    @DisplayName("Devrait marquer les événements envoyés sans destinataire configuré")
+    void shouldMarkSentWithoutSinks() {
+        List<ColisOutboxEvent> batch = List.of(event("e1"));
+        when(outboxRepository.findPendingForUpdate(any())).thenReturn(batch);
+        relay = new ColisOutboxRelay(outboxRepository, colisJdbcRepository, List.of(), transactionManager,
+                meterRegistry, 2, Duration.ofDays(7));
+
+        assertThat(relay.relay()).isEqualTo(1);
+        assertThat(batch.get(0).getDateEnvoi()).isNotNull();
+        verifyNoInteractions(colisJdbcRepository);
+    }
+
+    private ColisOutboxEvent event(String id) {
+        ColisOutboxEvent event = ColisOutboxService.event("colis-" + id, StatutColis.EN_TRANSIT, StatutColis.EN_STOCK,
+                LocalDateTime.now(), null, "scanner-1");
+        event.setId(id);
+        return event;
+    }
+}
@@ -0,0 +1,63 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisOverviewDTO;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisArchiveRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisOverviewService")
+class ColisOverviewServiceTest {
+
+    @Mock private ColisRepository colisRepository;
+    @Mock private ColisArchiveRepository archiveRepository;
+
+    private ColisOverviewService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ColisOverviewService(colisRepository, archiveRepository, new SimpleMeterRegistry(),
+                Duration.ZERO, Duration.ofHours(6));
+    }
+
+    @Test
+    @DisplayName("Devrait garder les comptes archivés tant qu'aucun archivage n'a eu lieu")
+    void shouldReuseArchiveCountsWithoutNewArchival() {
+        when(archiveRepository.findLastDateArchivage()).thenReturn(Optional.of(LocalDateTime.of(2025, 3, 1, 2, 45)));
+        when(archiveRepository.countByStatut()).thenReturn(List.<Object[]>of(new Object[]{StatutColis.LIVRE, 5L}));
+
+        service.getOverview();
+        ColisOverviewDTO overview = service.getOverview();
+
+        assertThat(overview.getByStatut()).containsEntry(StatutColis.LIVRE, 5L);
+        verify(archiveRepository, times(1)).countByStatut();
+    }
+
+    @Test
+    @DisplayName("Devrait recalculer les comptes archivés après un archivage fait par une autre instance")
+    void shouldRecomputeArchiveCountsAfterArchivalElsewhere() {
+        when(archiveRepository.findLastDateArchivage())
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(LocalDateTime.of(2025, 3, 1, 2, 45)));
+        when(archiveRepository.countByStatut()).thenReturn(
+                List.of(), List.<Object[]>of(new Object[]{StatutColis.LIVRE, 5L}));
+
+        assertThat(service.getOverview().getTotal()).isZero();
+        ColisOverviewDTO overview = service.getOverview();
+
+        assertThat(overview.getTotal()).isEqualTo(5);
+        assertThat(overview.getByStatut()).containsEntry(StatutColis.LIVRE, 5L);
+    }
+}
@@ -7,16 +7,24 @@ import com.toctoc.toctoc2.domain.colis.repository.*;
 import com.toctoc.toctoc2.domain.client.model.ClientExpediteur;
 import com.toctoc.toctoc2.domain.client.model.Destinataire;
 import com.toctoc.toctoc2.domain.client.repository.*;
-import com.toctoc.toctoc2.domain.livraison.repository.*;
-import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
+import com.toctoc.toctoc2.infrastructure.exception.ConcurrentUpdateException;
+import com.toctoc.toctoc2.infrastructure.exception.InvalidTransitionException;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
@@ -28,14 +36,22 @@ import static org.mockito.Mockito.*;
 class ColisServiceTest {
 
     @Mock private ColisRepository colisRepository;
+    @Mock private ColisArchiveRepository archiveRepository;
     @Mock private HistoriqueLivraisonRepository historiqueRepository;
     @Mock private ColisProduitRepository colisProduitRepository;
+    @Mock private HistoriqueLivraisonArchiveRepository historiqueArchiveRepository;
+    @Mock private ColisProduitArchiveRepository colisProduitArchiveRepository;
     @Mock private ClientExpediteurRepository clientRepository;
     @Mock private DestinataireRepository destinataireRepository;
-    @Mock private LivreurRepository livreurRepository;
-    @Mock private ZoneRepository zoneRepository;
-    @Mock private ProduitRepository produitRepository;
+    @Mock private ReferenceDataCache referenceDataCache;
     @Mock private ColisMapper colisMapper;
+    @Mock private ColisStatisticsService statisticsService;
+    @Mock private ColisOutboxService outboxService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private EntityManager entityManager;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Spy private ColisStateMachine stateMachine = new ColisStateMachine(new SimpleMeterRegistry());
 
     @InjectMocks
     private ColisService colisService;
@@ -133,7 +149,7 @@ class ColisServiceTest {
             Pageable pageable = PageRequest.of(0, 10);
             Page<Colis> page = new PageImpl<>(Arrays.asList(colis));
             when(colisRepository.findAll(pageable)).thenReturn(page);
-            when(colisMapper.toDTO(any())).thenReturn(colisDTO);
+            when(colisMapper.toDTO(any(Colis.class))).thenReturn(colisDTO);
 
             Page<ColisDTO> result = colisService.getAllColis(pageable);
 
@@ -153,10 +169,52 @@ class ColisServiceTest {
             assertThat(result.getId()).isEqualTo("colis-1");
         }
 
+        @Test
+        @DisplayName("Devrait retourner une page par curseur avec le curseur suivant")
+        void shouldGetColisPageByCursor() {
+            Colis second = new Colis();
+            second.setId("colis-2");
+            colis.setDateCreation(LocalDateTime.of(2025, 1, 2, 10, 0));
+            second.setDateCreation(LocalDateTime.of(2025, 1, 1, 10, 0));
+            when(colisRepository.findFirstPage(any(Pageable.class)))
+                    .thenReturn(Arrays.asList(colis, second));
+            when(colisMapper.toDTOList(anyList())).thenReturn(List.of(colisDTO));
+
+            ColisCursorPageDTO result = colisService.getAllColis("", 1);
+
+            assertThat(result.isHasNext()).isTrue();
+            assertThat(result.getSize()).isEqualTo(1);
+            ColisCursor next = ColisCursor.decode(result.getNextCursor());
+            assertThat(next.getId()).isEqualTo("colis-1");
+            assertThat(next.getDateCreation()).isEqualTo(colis.getDateCreation());
+        }
+
+        @Test
+        @DisplayName("Devrait rejeter un curseur invalide")
+        void shouldRejectInvalidCursor() {
+            assertThatThrownBy(() -> colisService.getAllColis("pas-un-curseur", 20))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("Devrait récupérer un colis archivé absent de la table colis")
+        void shouldGetArchivedColisById() {
+            ColisArchive archive = new ColisArchive();
+            archive.setId("colis-1");
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.empty());
+            when(archiveRepository.findById("colis-1")).thenReturn(Optional.of(archive));
+            when(colisMapper.toDTO(archive)).thenReturn(colisDTO);
+
+            ColisDTO result = colisService.getColisById("colis-1");
+
+            assertThat(result.getId()).isEqualTo("colis-1");
+        }
+
         @Test
         @DisplayName("Devrait lever une exception si colis non trouvé")
         void shouldThrowWhenColisNotFound() {
             when(colisRepository.findById("invalid")).thenReturn(Optional.empty());
+            when(archiveRepository.findById("invalid")).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> colisService.getColisById("invalid"))
                     .isInstanceOf(ResourceNotFoundException.class)
@@ -175,12 +233,27 @@ class ColisServiceTest {
 
             when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
             when(colisRepository.save(any())).thenReturn(colis);
-            when(colisMapper.toDTO(any())).thenReturn(colisDTO);
+            when(colisMapper.toDTO(any(Colis.class))).thenReturn(colisDTO);
 
             ColisDTO result = colisService.updateColis("colis-1", updateRequest);
 
             assertThat(result).isNotNull();
             verify(colisRepository).save(any());
+            verifyNoInteractions(outboxService);
+        }
+
+        @Test
+        @DisplayName("Devrait refuser une mise à jour qui saute des étapes du cycle de vie")
+        void shouldRejectUpdateWithInvalidTransition() {
+            UpdateColisRequest updateRequest = new UpdateColisRequest();
+            updateRequest.setStatut(StatutColis.LIVRE);
+
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+
+            assertThatThrownBy(() -> colisService.updateColis("colis-1", updateRequest))
+                    .isInstanceOf(InvalidTransitionException.class);
+            verify(colisMapper, never()).updateEntity(any(), any());
+            verify(colisRepository, never()).save(any());
         }
 
         @Test
@@ -190,12 +263,252 @@ class ColisServiceTest {
             statutRequest.setStatut(StatutColis.COLLECTE);
             statutRequest.setCommentaire("Test");
 
-            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            when(colisJdbcRepository.findStatut("colis-1")).thenReturn(Optional.of(etat(StatutColis.CREE)));
+            when(colisJdbcRepository.compareAndSetStatut(eq("colis-1"), eq(StatutColis.CREE), eq(StatutColis.COLLECTE), any()))
+                    .thenReturn(true);
+            when(colisRepository.getReferenceById("colis-1")).thenReturn(colis);
 
             colisService.updateStatut("colis-1", statutRequest);
 
-            verify(colisRepository).save(any());
+            verify(colisRepository, never()).findById(any());
+            verify(colisRepository, never()).save(any());
             verify(historiqueRepository).save(any());
+            verify(statisticsService).apply(any(ColisStatisticsService.Delta.class));
+            verify(outboxService).record(eq("colis-1"), eq(StatutColis.COLLECTE), eq(StatutColis.CREE),
+                    any(LocalDateTime.class), eq("Test"), isNull());
+            verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ColisTrackingEventDTO t
+                    && t.getStatut() == StatutColis.COLLECTE && t.getStatutPrecedent() == StatutColis.CREE
+                    && "livreur-1".equals(t.getLivreurId())));
+        }
+
+        @Test
+        @DisplayName("Devrait relire le statut et réessayer si un autre écrivain est passé avant")
+        void shouldRetryFromConcurrentStatut() {
+            ReflectionTestUtils.setField(colisService, "statutRetryMaxAttempts", 3);
+            ReflectionTestUtils.setField(colisService, "statutRetryBackoff", Duration.ZERO);
+            when(colisJdbcRepository.findStatut("colis-1"))
+                    .thenReturn(Optional.of(etat(StatutColis.COLLECTE)), Optional.of(etat(StatutColis.EN_STOCK)));
+            when(colisJdbcRepository.compareAndSetStatut(eq("colis-1"), eq(StatutColis.COLLECTE), eq(StatutColis.EN_TRANSIT), any()))
+                    .thenReturn(false);
+            when(colisJdbcRepository.compareAndSetStatut(eq("colis-1"), eq(StatutColis.EN_STOCK), eq(StatutColis.EN_TRANSIT), any()))
+                    .thenReturn(true);
+            when(colisRepository.getReferenceById("colis-1")).thenReturn(colis);
+
+            colisService.updateStatut("colis-1", new UpdateStatutRequest(StatutColis.EN_TRANSIT, null, null));
+
+            // Une transaction par tentative : l'attente se fait hors transaction
+            verify(transactionManager, times(2)).getTransaction(any());
+            verify(transactionManager, times(2)).commit(any());
+            verify(historiqueRepository, times(1)).save(any());
+            verify(outboxService).record(eq("colis-1"), eq(StatutColis.EN_TRANSIT), eq(StatutColis.EN_STOCK),
+                    any(LocalDateTime.class), isNull(), isNull());
+        }
+
+        @Test
+        @DisplayName("Devrait refuser une transition absente du cycle de vie sans écrire")
+        void shouldRejectInvalidTransition() {
+            when(colisJdbcRepository.findStatut("colis-1")).thenReturn(Optional.of(etat(StatutColis.LIVRE)));
+
+            assertThatThrownBy(() -> colisService.updateStatut("colis-1",
+                    new UpdateStatutRequest(StatutColis.CREE, null, null)))
+                    .isInstanceOf(InvalidTransitionException.class);
+            verify(colisJdbcRepository, never()).compareAndSetStatut(any(), any(), any(), any());
+            verifyNoInteractions(historiqueRepository, outboxService, statisticsService);
+        }
+
+        @Test
+        @DisplayName("Devrait revalider la transition sur le statut relu après un conflit")
+        void shouldRevalidateTransitionOnReread() {
+            ReflectionTestUtils.setField(colisService, "statutRetryMaxAttempts", 3);
+            ReflectionTestUtils.setField(colisService, "statutRetryBackoff", Duration.ZERO);
+            when(colisJdbcRepository.findStatut("colis-1"))
+                    .thenReturn(Optional.of(etat(StatutColis.EN_TRANSIT)), Optional.of(etat(StatutColis.LIVRE)));
+            when(colisJdbcRepository.compareAndSetStatut(any(), any(), any(), any())).thenReturn(false);
+
+            assertThatThrownBy(() -> colisService.updateStatut("colis-1",
+                    new UpdateStatutRequest(StatutColis.RETOURNE, null, null)))
+                    .isInstanceOf(InvalidTransitionException.class);
+            verify(colisJdbcRepository, times(1)).compareAndSetStatut(any(), any(), any(), any());
+            verifyNoInteractions(historiqueRepository);
+        }
+
+        @Test
+        @DisplayName("Ne devrait rien enregistrer si l'autre écrivain a déjà appliqué le même statut")
+        void shouldNotRecordTwiceWhenConcurrentWriterAppliedSameStatut() {
+            ReflectionTestUtils.setField(colisService, "statutRetryMaxAttempts", 3);
+            ReflectionTestUtils.setField(colisService, "statutRetryBackoff", Duration.ZERO);
+            when(colisJdbcRepository.findStatut("colis-1"))
+                    .thenReturn(Optional.of(etat(StatutColis.EN_TRANSIT)), Optional.of(etat(StatutColis.LIVRE)));
+            when(colisJdbcRepository.compareAndSetStatut(any(), any(), any(), any())).thenReturn(false);
+
+            colisService.updateStatut("colis-1", new UpdateStatutRequest(StatutColis.LIVRE, null, null));
+
+            verify(colisJdbcRepository, times(1)).compareAndSetStatut(any(), any(), any(), any());
+            verifyNoInteractions(historiqueRepository, outboxService, statisticsService);
+        }
+
+        @Test
+        @DisplayName("Devrait lever un conflit après le nombre maximal de tentatives")
+        void shouldThrowConflictAfterMaxAttempts() {
+            ReflectionTestUtils.setField(colisService, "statutRetryMaxAttempts", 3);
+            ReflectionTestUtils.setField(colisService, "statutRetryBackoff", Duration.ZERO);
+            when(colisJdbcRepository.findStatut("colis-1")).thenReturn(Optional.of(etat(StatutColis.EN_STOCK)));
+            when(colisJdbcRepository.compareAndSetStatut(any(), any(), any(), any())).thenReturn(false);
+
+            assertThatThrownBy(() -> colisService.updateStatut("colis-1",
+                    new UpdateStatutRequest(StatutColis.EN_TRANSIT, null, null)))
+                    .isInstanceOf(ConcurrentUpdateException.class);
+            verify(colisJdbcRepository, times(3)).compareAndSetStatut(any(), any(), any(), any());
+            verifyNoInteractions(historiqueRepository);
+        }
+
+        @Test
+        @DisplayName("Devrait lever une exception si le colis à changer de statut n'existe pas")
+        void shouldThrowWhenUpdatingStatutOfMissingColis() {
+            when(colisJdbcRepository.findStatut("invalid")).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> colisService.updateStatut("invalid",
+                    new UpdateStatutRequest(StatutColis.EN_TRANSIT, null, null)))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests des retards")
+    class OverdueTests {
+        @Test
+        @DisplayName("Devrait retirer le marqueur de retard à la livraison")
+        void shouldClearOverdueMarkerWhenDelivered() {
+            colis.setDateLimiteLivraison(LocalDateTime.now().minusDays(1));
+            colis.setEnRetard(true);
+            colis.setStatut(StatutColis.EN_TRANSIT);
+            UpdateColisRequest livre = new UpdateColisRequest();
+            livre.setStatut(StatutColis.LIVRE);
+            when(colisRepository.findById("colis-1")).thenReturn(Optional.of(colis));
+            doAnswer(invocation -> {
+                colis.setStatut(StatutColis.LIVRE);
+                return null;
+            }).when(colisMapper).updateEntity(livre, colis);
+            when(colisRepository.save(any())).thenReturn(colis);
+
+            colisService.updateColis("colis-1", livre);
+
+            assertThat(colis.getEnRetard()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Devrait paginer les colis marqués en retard")
+        void shouldPageOverdueColis() {
+            Pageable pageable = PageRequest.of(0, 10);
+            when(colisRepository.findByEnRetardTrueAndStatutNotIn(anyCollection(), eq(pageable)))
+                    .thenReturn(new PageImpl<>(List.of(colis), pageable, 1));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+
+            Page<ColisDTO> result = colisService.getOverdueColis(pageable);
+
+            assertThat(result.getContent()).containsExactly(colisDTO);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests de l'historique")
+    class HistoriqueTests {
+        @Test
+        @DisplayName("Devrait borner la taille demandée pour l'historique depuis une date")
+        void shouldClampSizeForHistoriqueSince() {
+            LocalDateTime since = LocalDateTime.now().minusHours(1);
+            when(historiqueRepository.findByColisIdAfter("colis-1", since, PageRequest.of(0, 100)))
+                    .thenReturn(List.of());
+
+            colisService.getHistoriqueByColisSince("colis-1", since, 5000);
+
+            verify(historiqueRepository).findByColisIdAfter("colis-1", since, PageRequest.of(0, 100));
+        }
+
+        @Test
+        @DisplayName("Devrait ignorer le tri demandé pour rester dans l'ordre de l'index")
+        void shouldIgnoreRequestedSortForHistoriquePage() {
+            Pageable unsorted = PageRequest.of(1, 5);
+            LocalDateTime debutDuMois = LocalDateTime.of(2025, 3, 1, 0, 0);
+            when(colisRepository.findDateCreationById("colis-1"))
+                    .thenReturn(Optional.of(LocalDateTime.of(2025, 3, 14, 9, 30)));
+            when(historiqueRepository.findByColisIdDepuis("colis-1", debutDuMois, unsorted))
+                    .thenReturn(Page.empty(unsorted));
+
+            colisService.getHistoriqueByColis("colis-1", PageRequest.of(1, 5, Sort.by("statut")));
+
+            verify(historiqueRepository).findByColisIdDepuis("colis-1", debutDuMois, unsorted);
+        }
+
+        @Test
+        @DisplayName("Devrait borner l'historique au mois de création du colis")
+        void shouldBoundHistoriqueToCreationMonth() {
+            when(colisRepository.findDateCreationById("colis-1"))
+                    .thenReturn(Optional.of(LocalDateTime.of(2025, 3, 14, 9, 30)));
+
+            colisService.getHistoriqueByColis("colis-1");
+
+            verify(historiqueRepository).findByColisIdDepuis("colis-1", LocalDateTime.of(2025, 3, 1, 0, 0));
+        }
+
+        @Test
+        @DisplayName("Devrait lire l'historique d'un colis archivé dans l'archive")
+        void shouldReadHistoriqueOfArchivedColisFromArchive() {
+            HistoriqueLivraisonArchive archive = new HistoriqueLivraisonArchive(
+                    "h-1", "colis-1", StatutColis.LIVRE, LocalDateTime.of(2024, 1, 20, 8, 0), null, "system");
+            HistoriqueLivraisonDTO dto = new HistoriqueLivraisonDTO();
+            when(colisRepository.findDateCreationById("colis-1")).thenReturn(Optional.empty());
+            when(historiqueArchiveRepository.findByColisId("colis-1")).thenReturn(List.of(archive));
+            when(colisMapper.toHistoriqueArchiveDTOList(List.of(archive))).thenReturn(List.of(dto));
+
+            assertThat(colisService.getHistoriqueByColis("colis-1")).containsExactly(dto);
+            verifyNoInteractions(historiqueRepository);
+        }
+
+        @Test
+        @DisplayName("Devrait lire la suite de l'historique d'un colis archivé dans l'archive")
+        void shouldReadHistoriqueSinceFromArchive() {
+            LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+            PageRequest page = PageRequest.of(0, 20);
+            HistoriqueLivraisonArchive archive = new HistoriqueLivraisonArchive(
+                    "h-1", "colis-1", StatutColis.LIVRE, LocalDateTime.of(2024, 1, 20, 8, 0), null, "system");
+            when(historiqueRepository.findByColisIdAfter("colis-1", since, page)).thenReturn(List.of());
+            when(colisRepository.existsById("colis-1")).thenReturn(false);
+            when(historiqueArchiveRepository.findByColisIdAfter("colis-1", since, page)).thenReturn(List.of(archive));
+            when(colisMapper.toHistoriqueArchiveDTOList(List.of(archive))).thenReturn(List.of(new HistoriqueLivraisonDTO()));
+
+            assertThat(colisService.getHistoriqueByColisSince("colis-1", since, 20)).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Ne devrait pas lire l'archive quand un colis suivi n'a pas de nouvelle entrée")
+        void shouldNotReadArchiveWhenLiveColisHasNoNewEntry() {
+            LocalDateTime since = LocalDateTime.of(2025, 3, 14, 9, 30);
+            PageRequest page = PageRequest.of(0, 20);
+            when(historiqueRepository.findByColisIdAfter("colis-1", since, page)).thenReturn(List.of());
+            when(colisRepository.existsById("colis-1")).thenReturn(true);
+
+            assertThat(colisService.getHistoriqueByColisSince("colis-1", since, 20)).isEmpty();
+            verifyNoInteractions(historiqueArchiveRepository);
+        }
+
+        @Test
+        @DisplayName("Devrait lire les produits d'un colis archivé dans l'archive")
+        void shouldReadProduitsOfArchivedColisFromArchive() {
+            ColisProduitDTO dto = new ColisProduitDTO("cp-1", "produit-1", "Livre", 2, BigDecimal.TEN, null);
+            when(colisProduitRepository.findByColisId("colis-1")).thenReturn(List.of());
+            when(colisProduitArchiveRepository.findDTOsByColisId("colis-1")).thenReturn(List.of(dto));
+
+            assertThat(colisService.getProduitsByColis("colis-1")).containsExactly(dto);
+        }
+
+        @Test
+        @DisplayName("Devrait renvoyer un historique vide pour un colis inconnu")
+        void shouldReturnEmptyHistoriqueForUnknownColis() {
+            when(colisRepository.findDateCreationById("inconnu")).thenReturn(Optional.empty());
+
+            assertThat(colisService.getHistoriqueByColis("inconnu")).isEmpty();
+            verifyNoInteractions(historiqueRepository);
         }
     }
 
@@ -210,6 +523,7 @@ class ColisServiceTest {
             colisService.deleteColis("colis-1");
 
             verify(colisRepository).delete(colis);
+            verify(statisticsService).onDeleted(colis);
         }
     }
 
@@ -222,11 +536,39 @@ class ColisServiceTest {
             Pageable pageable = PageRequest.of(0, 10);
             Page<Colis> page = new PageImpl<>(Arrays.asList(colis));
             when(colisRepository.searchByKeyword("Dell", pageable)).thenReturn(page);
-            when(colisMapper.toDTO(any())).thenReturn(colisDTO);
+            when(colisMapper.toDTO(any(Colis.class))).thenReturn(colisDTO);
 
             Page<ColisDTO> result = colisService.searchColis("Dell", pageable);
 
             assertThat(result).isNotEmpty();
         }
+
+        @Test
+        @DisplayName("Devrait conserver l'ordre de pertinence en mode trigramme")
+        void shouldKeepRankingWithTrigramSearch() {
+            ReflectionTestUtils.setField(colisService, "trigramSearchEnabled", true);
+            Colis other = new Colis();
+            other.setId("colis-2");
+            ColisDTO otherDTO = new ColisDTO();
+            otherDTO.setId("colis-2");
+
+            Pageable pageable = PageRequest.of(0, 10);
+            when(colisRepository.searchIdsByTrigram("Dell", pageable))
+                    .thenReturn(new PageImpl<>(Arrays.asList("colis-2", "colis-1"), pageable, 2));
+            when(colisRepository.findByIdIn(Arrays.asList("colis-2", "colis-1")))
+                    .thenReturn(Arrays.asList(colis, other));
+            when(colisMapper.toDTO(colis)).thenReturn(colisDTO);
+            when(colisMapper.toDTO(other)).thenReturn(otherDTO);
+
+            Page<ColisDTO> result = colisService.searchColis("Dell", pageable);
+
+            assertThat(result.getContent()).extracting(ColisDTO::getId).containsExactly("colis-2", "colis-1");
+            assertThat(result.getTotalElements()).isEqualTo(2);
+            verify(colisRepository, never()).searchByKeyword(any(), any());
+        }
+    }
+
+    private ColisJdbcRepository.LockedColis etat(StatutColis statut) {
+        return new ColisJdbcRepository.LockedColis(statut, BigDecimal.valueOf(2.5), "livreur-1");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import com.toctoc.toctoc2.infrastructure.exception.InvalidTransitionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du ColisStateMachine")
+class ColisStateMachineTest {
+
+    private SimpleMeterRegistry registry;
+    private ColisStateMachine stateMachine;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stateMachine = new ColisStateMachine(registry);
+    }
+
+    @Test
+    @DisplayName("Devrait suivre le parcours nominal jusqu'à la livraison")
+    void shouldAllowNominalPath() {
+        assertThat(stateMachine.isAllowed(StatutColis.CREE, StatutColis.COLLECTE)).isTrue();
+        assertThat(stateMachine.isAllowed(StatutColis.COLLECTE, StatutColis.EN_STOCK)).isTrue();
+        assertThat(stateMachine.isAllowed(StatutColis.EN_STOCK, StatutColis.EN_TRANSIT)).isTrue();
+        assertThat(stateMachine.isAllowed(StatutColis.EN_TRANSIT, StatutColis.LIVRE)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Ne devrait autoriser aucune sortie d'un statut terminal")
+    void shouldHaveNoTransitionFromTerminalStatut() {
+        Arrays.stream(StatutColis.values())
+                .filter(StatutColis::isTerminal)
+                .forEach(statut -> assertThat(stateMachine.nextStatuts(statut)).isEmpty());
+        assertThat(Arrays.stream(StatutColis.values()).filter(s -> !s.isTerminal()))
+                .allSatisfy(statut -> assertThat(stateMachine.nextStatuts(statut)).isNotEmpty());
+    }
+
+    @Test
+    @DisplayName("Devrait refuser une transition absente de la table et la compter")
+    void shouldRejectAndCountInvalidTransition() {
+        assertThatThrownBy(() -> stateMachine.check("colis-1", StatutColis.LIVRE, StatutColis.CREE))
+                .isInstanceOf(InvalidTransitionException.class)
+                .hasMessageContaining("colis-1");
+        assertThat(stateMachine.accept("colis-2", StatutColis.CREE, StatutColis.LIVRE)).isFalse();
+
+        assertThat(registry.get("toctoc.colis.transitions.rejected").counters())
+                .extracting(c -> c.count())
+                .containsOnly(1.0);
+    }
+
+    @Test
+    @DisplayName("Devrait refuser un statut cible que rien ne permet d'atteindre")
+    void shouldRejectUnreachableTarget() {
+        assertThat(stateMachine.sourcesOf(StatutColis.LIVRE)).containsExactly(StatutColis.EN_TRANSIT);
+        assertThatThrownBy(() -> stateMachine.checkReachable(StatutColis.CREE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatCode(() -> stateMachine.checkReachable(StatutColis.ANNULE)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Ne devrait autoriser la modification des produits qu'avant l'expédition")
+    void shouldAllowProductChangesOnlyBeforeShipping() {
+        assertThat(stateMachine.canModifyProducts(StatutColis.CREE)).isTrue();
+        assertThat(stateMachine.canModifyProducts(StatutColis.EN_STOCK)).isTrue();
+        assertThat(stateMachine.canModifyProducts(StatutColis.EN_TRANSIT)).isFalse();
+    }
+}
@@ -0,0 +1,119 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.StatisticsReconciliationDTO;
+import com.toctoc.toctoc2.domain.colis.model.*;
+import com.toctoc.toctoc2.domain.colis.repository.ColisArchiveRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.StatistiqueIncrement;
+import com.toctoc.toctoc2.domain.colis.repository.ColisRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisStatistiqueRepository;
+import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisStatisticsService")
+class ColisStatisticsServiceTest {
+
+    @Mock private ColisStatistiqueRepository statistiqueRepository;
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private ColisRepository colisRepository;
+    @Mock private ColisArchiveRepository archiveRepository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private ZoneRepository zoneRepository;
+
+    @InjectMocks
+    private ColisStatisticsService statisticsService;
+
+    private Colis colis;
+
+    @BeforeEach
+    void setUp() {
+        Zone zone = new Zone();
+        zone.setId("zone-1");
+
+        colis = new Colis();
+        colis.setId("colis-1");
+        colis.setPoids(BigDecimal.valueOf(2.5));
+        colis.setStatut(StatutColis.CREE);
+        colis.setPriorite(PrioriteColis.NORMALE);
+        colis.setZone(zone);
+    }
+
+    @Test
+    @DisplayName("Devrait incrémenter les compteurs de chaque dimension à la création")
+    void shouldIncrementAllDimensionsOnCreate() {
+        statisticsService.onCreated(colis);
+
+        assertThat(increments()).containsExactly(
+                new StatistiqueIncrement(DimensionStatistique.ZONE, "zone-1", 1, BigDecimal.valueOf(2.5)),
+                new StatistiqueIncrement(DimensionStatistique.STATUT, "CREE", 1, BigDecimal.valueOf(2.5)),
+                new StatistiqueIncrement(DimensionStatistique.PRIORITE, "NORMALE", 1, BigDecimal.valueOf(2.5)));
+    }
+
+    @Test
+    @DisplayName("Ne devrait écrire que les compteurs modifiés par un changement de statut")
+    void shouldOnlyTouchChangedCounters() {
+        ColisStatisticsService.Snapshot before = ColisStatisticsService.Snapshot.of(colis);
+        colis.setStatut(StatutColis.COLLECTE);
+
+        statisticsService.onChanged(before, colis);
+
+        assertThat(increments()).containsExactly(
+                new StatistiqueIncrement(DimensionStatistique.STATUT, "COLLECTE", 1, BigDecimal.valueOf(2.5)),
+                new StatistiqueIncrement(DimensionStatistique.STATUT, "CREE", -1, BigDecimal.valueOf(-2.5)));
+        verifyNoInteractions(statistiqueRepository);
+    }
+
+    @Test
+    @DisplayName("Ne devrait rien écrire pour un delta vide")
+    void shouldSkipEmptyDelta() {
+        statisticsService.apply(new ColisStatisticsService.Delta()
+                .add(DimensionStatistique.LIVREUR, "livreur-1", 1, BigDecimal.ONE)
+                .add(DimensionStatistique.LIVREUR, "livreur-1", -1, BigDecimal.ONE));
+
+        verifyNoInteractions(colisJdbcRepository);
+    }
+
+    @Test
+    @DisplayName("Devrait rapporter et corriger les écarts lors de la réconciliation")
+    void shouldReportAndFixDrift() {
+        ColisStatistique stale = new ColisStatistique(DimensionStatistique.STATUT, "CREE", 5, BigDecimal.TEN, null);
+        ColisStatistique exact = new ColisStatistique(DimensionStatistique.PRIORITE, "NORMALE", 3, BigDecimal.ONE, null);
+        when(statistiqueRepository.findAllForUpdate()).thenReturn(List.of(stale, exact));
+        when(colisRepository.countAndSumWeightByLivreur()).thenReturn(List.of());
+        when(colisRepository.countAndSumWeightByZone()).thenReturn(List.of());
+        when(colisRepository.countAndSumWeightByStatut()).thenReturn(List.<Object[]>of(
+                new Object[]{StatutColis.CREE, 3L, BigDecimal.ONE}));
+        when(colisRepository.countAndSumWeightByPriorite()).thenReturn(List.<Object[]>of(
+                new Object[]{PrioriteColis.NORMALE, 3L, BigDecimal.ONE}));
+
+        StatisticsReconciliationDTO result = statisticsService.reconcile();
+
+        assertThat(result.getChecked()).isEqualTo(2);
+        assertThat(result.getDrifted()).isEqualTo(1);
+        assertThat(result.getDrifts().get(0).getStoredCount()).isEqualTo(5);
+        assertThat(result.getDrifts().get(0).getActualCount()).isEqualTo(3);
+        assertThat(stale.getNombre()).isEqualTo(3);
+        verify(statistiqueRepository).save(stale);
+        verify(statistiqueRepository, never()).save(exact);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<StatistiqueIncrement> increments() {
+        ArgumentCaptor<List<StatistiqueIncrement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(colisJdbcRepository).incrementStatistiques(captor.capture(), any());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,156 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.TourDTO;
+import com.toctoc.toctoc2.domain.colis.dto.TourPlanDTO;
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.Reassignment;
+import com.toctoc.toctoc2.domain.colis.repository.ColisJdbcRepository.StockedColis;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
+import com.toctoc.toctoc2.domain.livraison.model.TypeVehicule;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
+import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.*;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du ColisTourService")
+class ColisTourServiceTest {
+
+    @Mock private ZoneRepository zoneRepository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private ColisJdbcRepository colisJdbcRepository;
+    @Mock private ColisStatisticsService statisticsService;
+    @Mock private EntityManager entityManager;
+
+    @InjectMocks
+    private ColisTourService tourService;
+
+    @Captor private ArgumentCaptor<List<Reassignment>> changesCaptor;
+
+    @Test
+    @DisplayName("Devrait charger les véhicules selon leur capacité et n'écrire que les colis qui changent de livreur")
+    void shouldPackByVehicleCapacity() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(
+                livreur("l1", "Scooter Yamaha", true),
+                livreur("l2", "Camionnette Renault", true),
+                livreur("l3", "Camion", false)));
+        when(colisJdbcRepository.findStocked("zone-1")).thenReturn(List.of(
+                colis("frigo", "900", PrioriteColis.NORMALE, null),
+                colis("carton", "25", PrioriteColis.URGENT, "l2"),
+                colis("piano", "400", PrioriteColis.NORMALE, "l1")));
+        when(colisJdbcRepository.reassignLivreurs(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TourPlanDTO plan = tourService.buildTours("zone-1");
+
+        // Utilitaire (1000 kg) d'abord : carton (urgent) puis frigo ; piano ne tient plus nulle part
+        assertThat(plan.getTours()).extracting(TourDTO::getLivreurId).containsExactly("l2", "l1");
+        assertThat(plan.getTours().get(0).getTypeVehicule()).isEqualTo(TypeVehicule.UTILITAIRE);
+        assertThat(plan.getTours().get(0).getColisIds()).containsExactly("carton", "frigo");
+        assertThat(plan.getTours().get(0).getPoids()).isEqualByComparingTo("925");
+        assertThat(plan.getTours().get(1).getColisIds()).isEmpty();
+        assertThat(plan.getNonPlaces()).containsExactly("piano");
+
+        verify(colisJdbcRepository).reassignLivreurs(changesCaptor.capture(), any());
+        assertThat(changesCaptor.getValue()).containsExactlyInAnyOrder(
+                new Reassignment("frigo", "l2", 0),
+                new Reassignment("piano", null, 0));
+        verify(statisticsService).apply(any(ColisStatisticsService.Delta.class));
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer les livreurs dont le véhicule n'a pas de profil de capacité sans toucher à leurs colis")
+    void shouldIgnoreUnknownVehicle() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(
+                livreur("l1", "Renault Clio", true),
+                livreur("l2", null, true),
+                livreur("l3", "Camion", false)));
+        when(colisJdbcRepository.findStocked("zone-1")).thenReturn(List.of(
+                colis("c1", "12", PrioriteColis.NORMALE, "l1"),
+                colis("c2", "80", PrioriteColis.URGENT, "l3"),
+                colis("c3", "3", PrioriteColis.NORMALE, null)));
+
+        TourPlanDTO plan = tourService.buildTours("zone-1");
+
+        assertThat(plan.getTours()).isEmpty();
+        assertThat(plan.getLivreursIgnores()).containsExactly("l1", "l2");
+        // Les colis de l1 (ignoré) et de l3 (inactif) gardent leur livreur
+        assertThat(plan.getNonPlaces()).containsExactly("c3");
+        verify(colisJdbcRepository, never()).reassignLivreurs(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait déduire de la capacité les colis que le livreur garde hors de la répartition")
+    void shouldDeductCommittedLoad() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(livreur("l1", "Vélo cargo", true)));
+        when(colisJdbcRepository.findStocked("zone-1")).thenReturn(List.of(
+                colis("c1", "5", PrioriteColis.URGENT, "l1"),
+                colis("c2", "4", PrioriteColis.NORMALE, null)));
+        // 17 kg ouverts dont c1 : 12 kg en transit restent dans le vélo (20 kg)
+        when(colisJdbcRepository.findOpenLoad(Set.of("l1")))
+                .thenReturn(Map.of("l1", new ColisJdbcRepository.OpenLoad(2, new BigDecimal("17"))));
+
+        TourPlanDTO plan = tourService.buildTours("zone-1");
+
+        assertThat(plan.getTours().get(0).getCapacite()).isEqualByComparingTo("8");
+        assertThat(plan.getTours().get(0).getColisIds()).containsExactly("c1");
+        assertThat(plan.getNonPlaces()).containsExactly("c2");
+        verify(colisJdbcRepository, never()).reassignLivreurs(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait compter les colis modifiés entre-temps sans mettre à jour les statistiques")
+    void shouldCountConflicts() {
+        when(zoneRepository.existsById("zone-1")).thenReturn(true);
+        when(livreurRepository.findByZoneAssigneeId("zone-1")).thenReturn(List.of(livreur("l1", "Vélo cargo", true)));
+        when(colisJdbcRepository.findStocked("zone-1"))
+                .thenReturn(List.of(colis("c1", "2.5", PrioriteColis.NORMALE, null)));
+        when(colisJdbcRepository.reassignLivreurs(anyList(), any())).thenReturn(List.of());
+
+        TourPlanDTO plan = tourService.buildTours("zone-1");
+
+        assertThat(plan.getTours().get(0).getTypeVehicule()).isEqualTo(TypeVehicule.VELO);
+        assertThat(plan.getConflicts()).isEqualTo(1);
+        verifyNoInteractions(statisticsService);
+    }
+
+    @Test
+    @DisplayName("Devrait lever une exception si la zone n'existe pas")
+    void shouldThrowWhenZoneNotFound() {
+        when(zoneRepository.existsById("invalid")).thenReturn(false);
+
+        assertThatThrownBy(() -> tourService.buildTours("invalid"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private Livreur livreur(String id, String vehicule, boolean actif) {
+        Livreur livreur = new Livreur();
+        livreur.setId(id);
+        livreur.setNom("Alami");
+        livreur.setPrenom("Ahmed");
+        livreur.setVehicule(vehicule);
+        livreur.setActif(actif);
+        return livreur;
+    }
+
+    private StockedColis colis(String id, String poids, PrioriteColis priorite, String livreurId) {
+        return new StockedColis(id, new BigDecimal(poids), priorite, livreurId, 0);
+    }
+}
@@ -0,0 +1,171 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.dto.ColisTrackingEventDTO;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@DisplayName("Tests du ColisTrackingHub")
+class ColisTrackingHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ColisTrackingHub hub;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        useHub(new ColisTrackingHub(meterRegistry, Duration.ofMinutes(1), 2, Duration.ofSeconds(10), 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    @DisplayName("Devrait envoyer l'état courant à l'abonnement puis les changements du colis et du livreur")
+    void shouldFanOutToColisAndLivreurSubscribers() throws Exception {
+        MvcResult colisClient = subscribe("/colis/colis-1");
+        MvcResult livreurClient = subscribe("/livreur/livreur-1");
+        MvcResult otherClient = subscribe("/colis/colis-2");
+        assertThat(hub.getConnections()).isEqualTo(3);
+
+        hub.onStatusChanged(event("colis-1", "livreur-1", StatutColis.EN_TRANSIT));
+
+        awaitUntil(() -> body(colisClient).contains("EN_TRANSIT") && body(livreurClient).contains("EN_TRANSIT"));
+        assertThat(body(colisClient))
+                .startsWith("event:statut\ndata:")
+                .containsSubsequence("\"statut\":\"CREE\"", "\"statut\":\"EN_TRANSIT\"");
+        assertThat(body(livreurClient)).contains("\"colisId\":\"colis-1\"");
+        assertThat(body(otherClient)).doesNotContain("EN_TRANSIT");
+    }
+
+    @Test
+    @DisplayName("Devrait retirer l'abonné à la fin de sa connexion")
+    void shouldUnregisterCompletedSubscriber() throws Exception {
+        MvcResult client = subscribe("/livreur/livreur-1");
+        assertThat(hub.getConnections()).isEqualTo(1);
+
+        client.getRequest().getAsyncContext().complete();
+
+        awaitUntil(() -> hub.getConnections() == 0);
+        assertThat(hub.getConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("Devrait déconnecter l'abonné dont la file d'envoi déborde sans retarder les autres")
+    void shouldDropSubscriberWhenQueueOverflows() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService senders = blockedExecutor(release);
+        useHub(new ColisTrackingHub(meterRegistry, Duration.ofMinutes(1), senders, Duration.ofSeconds(10), 2));
+        subscribe("/colis/colis-1");
+
+        // État courant puis un changement en attente : le suivant déborde
+        hub.onStatusChanged(event("colis-1", null, StatutColis.EN_TRANSIT));
+        assertThat(hub.getConnections()).isEqualTo(1);
+        hub.onStatusChanged(event("colis-1", null, StatutColis.LIVRE));
+
+        assertThat(hub.getConnections()).isZero();
+        assertThat(meterRegistry.counter("toctoc.tracking.dropped").count()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Devrait écrire le battement depuis les threads d'envoi, pas depuis le planificateur")
+    void shouldSendHeartbeatOnSenderThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        useHub(new ColisTrackingHub(meterRegistry, Duration.ofMinutes(1), blockedExecutor(release),
+                Duration.ofSeconds(10), 100));
+        MvcResult client = subscribe("/livreur/livreur-1");
+
+        hub.heartbeat();
+        assertThat(body(client)).doesNotContain("ping");
+
+        release.countDown();
+        awaitUntil(() -> body(client).contains(":ping"));
+        assertThat(body(client)).contains(":ping");
+    }
+
+    private void useHub(ColisTrackingHub hub) {
+        if (this.hub != null) {
+            this.hub.shutdown();
+        }
+        this.hub = hub;
+        mockMvc = MockMvcBuilders.standaloneSetup(new TrackingController(hub)).build();
+    }
+
+    // Un seul thread d'envoi, occupé jusqu'à release
+    private static ExecutorService blockedExecutor(CountDownLatch release) {
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        senders.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return senders;
+    }
+
+    private MvcResult subscribe(String path) throws Exception {
+        return mockMvc.perform(get(path)).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static String body(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ColisTrackingEventDTO event(String colisId, String livreurId, StatutColis statut) {
+        return new ColisTrackingEventDTO(colisId, livreurId, statut, null, LocalDateTime.of(2026, 10, 17, 10, 0), null);
+    }
+
+    @RestController
+    static class TrackingController {
+
+        private final ColisTrackingHub hub;
+
+        TrackingController(ColisTrackingHub hub) {
+            this.hub = hub;
+        }
+
+        @GetMapping("/colis/{id}")
+        SseEmitter colis(@PathVariable String id) {
+            return hub.subscribeColis(id, event(id, null, StatutColis.CREE));
+        }
+
+        @GetMapping("/livreur/{id}")
+        SseEmitter livreur(@PathVariable String id) {
+            return hub.subscribeLivreur(id);
+        }
+    }
+}
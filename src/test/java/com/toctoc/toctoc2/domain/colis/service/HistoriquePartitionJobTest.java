@@ -0,0 +1,115 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.toctoc.toctoc2.domain.colis.repository.HistoriquePartitionRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests du HistoriquePartitionJob")
+class HistoriquePartitionJobTest {
+
+    private static final YearMonth CURRENT = YearMonth.of(2025, 6);
+
+    @Mock private HistoriquePartitionRepository partitionRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @TempDir Path archiveDir;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private HistoriquePartitionJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new HistoriquePartitionJob(partitionRepository, objectMapper, transactionManager, 2, 12, archiveDir);
+    }
+
+    @Test
+    @DisplayName("Devrait créer uniquement les partitions manquantes des mois à venir")
+    void shouldCreateMissingUpcomingPartitions() {
+        when(partitionRepository.findPartitions()).thenReturn(List.of(CURRENT, CURRENT.plusMonths(1)));
+
+        int created = job.createUpcoming(CURRENT);
+
+        assertThat(created).isEqualTo(1);
+        verify(partitionRepository).createPartition(CURRENT.plusMonths(2));
+        verify(partitionRepository, never()).createPartition(CURRENT);
+    }
+
+    @Test
+    @DisplayName("Devrait archiver en NDJSON compressé puis supprimer les partitions expirées")
+    void shouldArchiveThenDropExpiredPartitions() throws Exception {
+        YearMonth expired = CURRENT.minusMonths(13);
+        when(partitionRepository.findPartitions()).thenReturn(List.of(expired, CURRENT.minusMonths(12), CURRENT));
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("id")).thenReturn("h-1");
+        when(row.getString("colis_id")).thenReturn("colis-1");
+        when(row.getString("statut")).thenReturn("LIVRE");
+        when(row.getTimestamp("date_changement")).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 5, 3, 10, 0)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            handler.processRow(row);
+            return null;
+        }).when(partitionRepository).streamPartition(eq(expired), any());
+
+        int archived = job.archiveExpired(CURRENT);
+
+        assertThat(archived).isEqualTo(1);
+        verify(partitionRepository).dropPartition(expired);
+        verify(partitionRepository, never()).dropPartition(CURRENT.minusMonths(12));
+
+        Path archive = archiveDir.resolve("historique_livraison_2024_05.ndjson.gz");
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines.get(0)).get("colisId").asText()).isEqualTo("colis-1");
+        assertThat(objectMapper.readTree(lines.get(0)).get("dateChangement").asText()).isEqualTo("2024-05-03T10:00:00");
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas supprimer la partition si l'archive n'a pas pu être écrite")
+    void shouldKeepPartitionWhenArchiveFails() throws Exception {
+        YearMonth expired = CURRENT.minusMonths(13);
+        when(partitionRepository.findPartitions()).thenReturn(List.of(expired));
+        // Un fichier à la place du répertoire d'archives
+        Path notADirectory = Files.createFile(archiveDir.resolve("archives"));
+        job = new HistoriquePartitionJob(partitionRepository, objectMapper, transactionManager, 2, 12, notADirectory);
+
+        int archived = job.archiveExpired(CURRENT);
+
+        assertThat(archived).isZero();
+        verify(partitionRepository, never()).dropPartition(any());
+    }
+}
@@ -0,0 +1,67 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesure du chargement des tournées sur un gros volume : colis et véhicules tirés au hasard (graine fixe),
+ * quelques passes de chauffe puis la médiane des passes mesurées.
+ * <p>
+ * Désactivé par défaut ; lancement :
+ * {@code mvn test -Dtest=TourPackerBenchmarkTest -Dtoctoc.loadtest=true -Dtoctoc.loadtest.parcels=50000}
+ */
+@EnabledIfSystemProperty(named = "toctoc.loadtest", matches = "true")
+@DisplayName("Mesure du TourPacker")
+class TourPackerBenchmarkTest {
+
+    private static final int PARCELS = Integer.getInteger("toctoc.loadtest.parcels", 50_000);
+    private static final int VEHICLES = Integer.getInteger("toctoc.loadtest.vehicles", 200);
+    private static final int WARMUP = 5;
+    private static final int RUNS = 15;
+
+    @Test
+    @DisplayName("Devrait charger les colis d'une grosse zone en quelques dizaines de millisecondes")
+    void shouldPackLargeZone() {
+        Random random = new Random(42);
+        long[] capacites = {20_000, 30_000, 50_000, 300_000, 1_000_000, 3_500_000};
+        PrioriteColis[] priorites = PrioriteColis.values();
+        List<TourPacker.Vehicle> vehicles = new ArrayList<>(VEHICLES);
+        for (int i = 0; i < VEHICLES; i++) {
+            vehicles.add(new TourPacker.Vehicle("livreur-" + i, capacites[random.nextInt(capacites.length)]));
+        }
+        List<TourPacker.Parcel> parcels = new ArrayList<>(PARCELS);
+        for (int i = 0; i < PARCELS; i++) {
+            // Surtout des petits colis (100 g à 5 kg), un sur cinquante jusqu'à 200 kg
+            long poids = random.nextInt(50) == 0 ? 5_000 + random.nextInt(195_000) : 100 + random.nextInt(4_900);
+            parcels.add(new TourPacker.Parcel("colis-" + i, poids, priorites[random.nextInt(priorites.length)]));
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            TourPacker.pack(vehicles, parcels);
+        }
+        long[] durees = new long[RUNS];
+        TourPacker.Plan plan = null;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            plan = TourPacker.pack(vehicles, parcels);
+            durees[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durees);
+
+        int placed = plan.tours().stream().mapToInt(tour -> tour.colis().size()).sum();
+        System.out.printf("%d colis, %d véhicules : médiane %.1f ms, min %.1f ms, max %.1f ms ; %d placés, %d non placés%n",
+                PARCELS, VEHICLES, durees[RUNS / 2] / 1e6, durees[0] / 1e6, durees[RUNS - 1] / 1e6,
+                placed, plan.nonPlaces().size());
+        assertThat(placed + plan.nonPlaces().size()).isEqualTo(PARCELS);
+        assertThat(durees[RUNS / 2]).isLessThan(1_000_000_000L);
+    }
+}
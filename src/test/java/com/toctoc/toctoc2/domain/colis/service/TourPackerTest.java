@@ -0,0 +1,89 @@
+package com.toctoc.toctoc2.domain.colis.service;
+
+import com.toctoc.toctoc2.domain.colis.model.PrioriteColis;
+import com.toctoc.toctoc2.domain.colis.service.TourPacker.Parcel;
+import com.toctoc.toctoc2.domain.colis.service.TourPacker.Plan;
+import com.toctoc.toctoc2.domain.colis.service.TourPacker.Tour;
+import com.toctoc.toctoc2.domain.colis.service.TourPacker.Vehicle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Tests du TourPacker")
+class TourPackerTest {
+
+    @Test
+    @DisplayName("Devrait placer chaque colis, du plus lourd au plus léger, dans le premier véhicule où il tient")
+    void shouldPackFirstFitDecreasing() {
+        Plan plan = TourPacker.pack(
+                List.of(new Vehicle("scooter", 30), new Vehicle("voiture", 50)),
+                List.of(parcel("a", 20), parcel("b", 35), parcel("c", 15), parcel("d", 10), parcel("e", 5)));
+
+        // La voiture est remplie d'abord : b (35) puis c (15) ; a (20) et d (10) vont dans le scooter
+        assertThat(plan.tours()).extracting(Tour::livreurId).containsExactly("voiture", "scooter");
+        assertThat(ids(plan.tours().get(0))).containsExactly("b", "c");
+        assertThat(ids(plan.tours().get(1))).containsExactly("a", "d");
+        assertThat(plan.tours()).extracting(Tour::charge).containsExactly(50L, 30L);
+        assertThat(plan.nonPlaces()).extracting(Parcel::colisId).containsExactly("e");
+    }
+
+    @Test
+    @DisplayName("Devrait charger les colis urgents avant les colis plus lourds de priorité normale")
+    void shouldLoadUrgentParcelsFirst() {
+        Plan plan = TourPacker.pack(
+                List.of(new Vehicle("scooter", 30)),
+                List.of(parcel("lourd", 25), new Parcel("urgent", 10, PrioriteColis.URGENT),
+                        new Parcel("tres-urgent", 5, PrioriteColis.TRES_URGENT)));
+
+        assertThat(ids(plan.tours().get(0))).containsExactly("tres-urgent", "urgent");
+        assertThat(plan.nonPlaces()).extracting(Parcel::colisId).containsExactly("lourd");
+    }
+
+    @Test
+    @DisplayName("Ne devrait placer aucun colis sans véhicule ni dans un véhicule trop petit")
+    void shouldLeaveParcelsWithoutVehicle() {
+        assertThat(TourPacker.pack(List.of(), List.of(parcel("a", 1))).nonPlaces()).hasSize(1);
+
+        Plan plan = TourPacker.pack(List.of(new Vehicle("velo", 20)), List.of(parcel("frigo", 900)));
+        assertThat(plan.tours().get(0).colis()).isEmpty();
+        assertThat(plan.nonPlaces()).extracting(Parcel::colisId).containsExactly("frigo");
+    }
+
+    @Test
+    @DisplayName("Ne devrait jamais dépasser la capacité d'un véhicule, et placer ce qui tient encore quelque part")
+    void shouldNeverExceedCapacity() {
+        Random random = new Random(42);
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < 13; i++) {
+            vehicles.add(new Vehicle("v" + i, 1_000 + random.nextInt(50_000)));
+        }
+        List<Parcel> parcels = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            parcels.add(parcel("c" + i, 100 + random.nextInt(5_000)));
+        }
+
+        Plan plan = TourPacker.pack(vehicles, parcels);
+
+        long smallestLeftOut = plan.nonPlaces().stream().mapToLong(Parcel::poids).min().orElse(Long.MAX_VALUE);
+        for (Tour tour : plan.tours()) {
+            assertThat(tour.colis().stream().mapToLong(Parcel::poids).sum()).isEqualTo(tour.charge());
+            assertThat(tour.charge()).isLessThanOrEqualTo(tour.capacite());
+            assertThat(tour.capacite() - tour.charge()).isLessThan(smallestLeftOut);
+        }
+        int placed = plan.tours().stream().mapToInt(tour -> tour.colis().size()).sum();
+        assertThat(placed + plan.nonPlaces().size()).isEqualTo(parcels.size());
+    }
+
+    private static Parcel parcel(String id, long poids) {
+        return new Parcel(id, poids, PrioriteColis.NORMALE);
+    }
+
+    private static List<String> ids(Tour tour) {
+        return tour.colis().stream().map(Parcel::colisId).toList();
+    }
+}
@@ -1,11 +1,13 @@
 package com.toctoc.toctoc2.domain.livraison.repository;
 
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 
 import java.util.Optional;
 
@@ -17,6 +19,7 @@ import static org.assertj.core.api.Assertions.*;
 class ZoneRepositoryTest {
 
     @Autowired private ZoneRepository repository;
+    @Autowired private EntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -33,6 +36,27 @@ class ZoneRepositoryTest {
         assertThat(saved.getNom()).isEqualTo("Centre");
     }
 
+    @Test
+    @DisplayName("Devrait placer la zone lue dans le cache de second niveau")
+    void shouldCacheLoadedZoneInSecondLevelCache() {
+        // Hibernate ne met pas en cache une entité insérée dans la transaction en cours
+        Zone saved = repository.save(createZone("Centre", "20000", "Casablanca"));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        try {
+            TestTransaction.start();
+            repository.findById(saved.getId());
+
+            assertThat(entityManager.getEntityManagerFactory().getCache().contains(Zone.class, saved.getId())).isTrue();
+        } finally {
+            repository.deleteById(saved.getId());
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+            TestTransaction.start();
+        }
+    }
+
     @Test
     @DisplayName("Devrait trouver par code postal")
     void shouldFindByCodePostal() {
@@ -6,12 +6,15 @@ import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
 import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
 import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.*;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -26,6 +29,8 @@ class LivreurServiceTest {
     @Mock private LivreurRepository repository;
     @Mock private ZoneRepository zoneRepository;
     @Mock private LivreurMapper mapper;
+    @Mock private ReferenceDataCache referenceDataCache;
+    @Spy private ReferenceSearchIndexes searchIndexes = new ReferenceSearchIndexes(false);
     @InjectMocks private LivreurService service;
 
     private Livreur livreur;
@@ -230,5 +235,30 @@ class LivreurServiceTest {
 
             assertThat(result).isNotEmpty();
         }
+
+        @Test
+        @DisplayName("Devrait servir le nouveau nom de zone après réindexation des livreurs")
+        void shouldServeRenamedZoneAfterReindex() {
+            ReflectionTestUtils.setField(service, "searchIndexes", new ReferenceSearchIndexes(true));
+            livreurDTO.setPrenom("Ahmed");
+            livreurDTO.setZoneAssigneeNom("Zone Centre");
+            when(repository.findAll()).thenReturn(List.of(livreur));
+            when(mapper.toDTOList(List.of(livreur))).thenReturn(List.of(livreurDTO));
+            service.buildSearchIndex();
+
+            LivreurDTO renomme = new LivreurDTO();
+            renomme.setId("1");
+            renomme.setNom("Alami");
+            renomme.setPrenom("Ahmed");
+            renomme.setTelephone("0612345678");
+            renomme.setZoneAssigneeNom("Maarif");
+            when(mapper.toDTO(livreur)).thenReturn(renomme);
+            service.reindexAfterCommit(List.of(livreur));
+
+            assertThat(service.searchLivreurs("alami", PageRequest.of(0, 10)).getContent())
+                    .extracting(LivreurDTO::getZoneAssigneeNom)
+                    .containsExactly("Maarif");
+            verify(repository, never()).searchByKeyword(any(), any());
+        }
     }
 }
\ No newline at end of file
@@ -2,14 +2,19 @@ package com.toctoc.toctoc2.domain.livraison.service;
 
 import com.toctoc.toctoc2.application.mapper.ZoneMapper;
 import com.toctoc.toctoc2.domain.livraison.dto.ZoneDTO;
+import com.toctoc.toctoc2.domain.livraison.model.Livreur;
 import com.toctoc.toctoc2.domain.livraison.model.Zone;
+import com.toctoc.toctoc2.domain.livraison.repository.LivreurRepository;
 import com.toctoc.toctoc2.domain.livraison.repository.ZoneRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.*;
 
@@ -22,7 +27,11 @@ import static org.mockito.Mockito.*;
 class ZoneServiceTest {
 
     @Mock private ZoneRepository repository;
+    @Mock private LivreurRepository livreurRepository;
+    @Mock private LivreurService livreurService;
     @Mock private ZoneMapper mapper;
+    @Mock private ReferenceDataCache referenceDataCache;
+    @Spy private ReferenceSearchIndexes searchIndexes = new ReferenceSearchIndexes(false);
     @InjectMocks private ZoneService service;
 
     private Zone zone;
@@ -90,6 +99,27 @@ class ZoneServiceTest {
 
         assertThat(result).isNotNull();
         verify(mapper).updateEntity(zoneDTO, zone);
+        verify(referenceDataCache).evictZone("1");
+        verifyNoInteractions(livreurService);
+    }
+
+    @Test
+    @DisplayName("Devrait réindexer les livreurs d'une zone renommée")
+    void shouldReindexLivreursOnRename() {
+        Livreur livreur = new Livreur();
+        livreur.setId("l1");
+        livreur.setZoneAssignee(zone);
+        when(repository.findById("1")).thenReturn(Optional.of(zone));
+        doAnswer(invocation -> {
+            zone.setNom("Maarif");
+            return null;
+        }).when(mapper).updateEntity(zoneDTO, zone);
+        when(repository.save(any())).thenReturn(zone);
+        when(livreurRepository.findByZoneAssigneeId("1")).thenReturn(List.of(livreur));
+
+        service.updateZone("1", zoneDTO);
+
+        verify(livreurService).reindexAfterCommit(List.of(livreur));
     }
 
     @Test
@@ -100,6 +130,24 @@ class ZoneServiceTest {
         service.deleteZone("1");
 
         verify(repository).delete(zone);
+        verify(referenceDataCache).evictZone("1");
+    }
+
+    @Test
+    @DisplayName("Devrait retirer la zone supprimée de ses livreurs et les invalider du cache")
+    void shouldDetachLivreursOnDelete() {
+        Livreur livreur = new Livreur();
+        livreur.setId("l1");
+        livreur.setZoneAssignee(zone);
+        when(repository.findById("1")).thenReturn(Optional.of(zone));
+        when(livreurRepository.findByZoneAssigneeId("1")).thenReturn(List.of(livreur));
+
+        service.deleteZone("1");
+
+        assertThat(livreur.getZoneAssignee()).isNull();
+        verify(referenceDataCache).evictLivreur("l1");
+        verify(livreurService).reindexAfterCommit(List.of(livreur));
+        verify(repository).delete(zone);
     }
 
     @Test
@@ -114,4 +162,38 @@ class ZoneServiceTest {
 
         assertThat(result).isNotEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Devrait rechercher dans l'index en mémoire une fois construit")
+    void shouldSearchInMemoryIndexOnceBuilt() {
+        ReflectionTestUtils.setField(service, "searchIndexes", new ReferenceSearchIndexes(true));
+        zoneDTO.setNom("Centre");
+        zoneDTO.setVille("Casablanca");
+        when(repository.findAll()).thenReturn(List.of(zone));
+        when(mapper.toDTOList(List.of(zone))).thenReturn(List.of(zoneDTO));
+
+        service.buildSearchIndex();
+        Page<ZoneDTO> result = service.searchZones("casa", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(zoneDTO);
+        verify(repository, never()).searchByKeyword(any(), any());
+    }
+
+    @Test
+    @DisplayName("Devrait interroger la base quand un tri est demandé")
+    void shouldFallBackToRepositoryWhenSorted() {
+        ReflectionTestUtils.setField(service, "searchIndexes", new ReferenceSearchIndexes(true));
+        when(repository.findAll()).thenReturn(List.of(zone));
+        when(mapper.toDTOList(List.of(zone))).thenReturn(List.of(zoneDTO));
+        service.buildSearchIndex();
+
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("ville"));
+        when(repository.searchByKeyword("casa", pageable)).thenReturn(new PageImpl<>(List.of(zone)));
+        when(mapper.toDTO(zone)).thenReturn(zoneDTO);
+
+        Page<ZoneDTO> result = service.searchZones("casa", pageable);
+
+        assertThat(result.getContent()).containsExactly(zoneDTO);
+        verify(repository).searchByKeyword("casa", pageable);
+    }
+}
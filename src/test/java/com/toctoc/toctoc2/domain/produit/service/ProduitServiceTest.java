@@ -4,7 +4,9 @@ import com.toctoc.toctoc2.application.mapper.ProduitMapper;
 import com.toctoc.toctoc2.domain.produit.dto.ProduitDTO;
 import com.toctoc.toctoc2.domain.produit.model.Produit;
 import com.toctoc.toctoc2.domain.produit.repository.ProduitRepository;
+import com.toctoc.toctoc2.infrastructure.cache.ReferenceDataCache;
 import com.toctoc.toctoc2.infrastructure.exception.ResourceNotFoundException;
+import com.toctoc.toctoc2.infrastructure.search.ReferenceSearchIndexes;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -24,6 +26,8 @@ class ProduitServiceTest {
 
     @Mock private ProduitRepository repository;
     @Mock private ProduitMapper mapper;
+    @Mock private ReferenceDataCache referenceDataCache;
+    @Spy private ReferenceSearchIndexes searchIndexes = new ReferenceSearchIndexes(false);
     @InjectMocks private ProduitService service;
 
     private Produit produit;
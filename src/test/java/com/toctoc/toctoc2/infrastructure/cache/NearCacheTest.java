@@ -0,0 +1,90 @@
+package com.toctoc.toctoc2.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du NearCache")
+class NearCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private AtomicLong nanos;
+    private AtomicInteger loads;
+    private Map<String, String> source;
+    private NearCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        nanos = new AtomicLong();
+        loads = new AtomicInteger();
+        source = new HashMap<>(Map.of("z1", "Casablanca", "z2", "Rabat", "z3", "Tanger"));
+        cache = new NearCache<>("test", Duration.ofMinutes(5), 2, key -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(source.get(key));
+        }, registry, nanos::get);
+    }
+
+    @Test
+    @DisplayName("Devrait servir la valeur en cache jusqu'à l'expiration du TTL")
+    void shouldServeCachedValueWithinTtl() {
+        assertThat(cache.get("z1")).contains("Casablanca");
+        source.put("z1", "Casa");
+        assertThat(cache.get("z1")).contains("Casablanca");
+
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertThat(cache.get("z1")).contains("Casa");
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(registry.get("toctoc.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("toctoc.cache.requests").tag("result", "miss").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Ne devrait pas mettre en cache une clé absente")
+    void shouldNotCacheMissingKey() {
+        assertThat(cache.get("inconnue")).isEmpty();
+        source.put("inconnue", "Fès");
+
+        assertThat(cache.get("inconnue")).contains("Fès");
+    }
+
+    @Test
+    @DisplayName("Devrait rester borné à la taille maximale")
+    void shouldStayBounded() {
+        cache.get("z1");
+        cache.get("z2");
+        cache.get("z3");
+
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+        assertThat(registry.get("toctoc.cache.size").gauge().value()).isLessThanOrEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Devrait relire la valeur invalidée, y compris après la fin de la transaction")
+    void shouldReloadAfterInvalidation() {
+        cache.get("z1");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAfterCommit("z1");
+            // Lecture concurrente avant le commit : l'ancienne valeur revient en cache
+            assertThat(cache.get("z1")).contains("Casablanca");
+
+            source.put("z1", "Casa");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get("z1")).contains("Casa");
+    }
+}
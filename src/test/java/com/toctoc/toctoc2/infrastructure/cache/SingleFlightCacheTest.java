@@ -0,0 +1,128 @@
+package com.toctoc.toctoc2.infrastructure.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du SingleFlightCache")
+class SingleFlightCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Devrait servir la valeur en cache tant que le TTL n'est pas écoulé")
+    void shouldServeCachedValueWithinTtl() {
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>(
+                "test", Duration.ofSeconds(10), loads::incrementAndGet, registry, clock);
+
+        assertThat(cache.get()).isEqualTo(1);
+        clock.advance(Duration.ofSeconds(5));
+        assertThat(cache.get()).isEqualTo(1);
+        clock.advance(Duration.ofSeconds(6));
+        assertThat(cache.get()).isEqualTo(2);
+
+        assertThat(registry.get("toctoc.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("toctoc.cache.requests").tag("result", "miss").counter().count()).isEqualTo(2);
+        assertThat(registry.get("toctoc.cache.loads").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait exposer l'âge de la valeur courante")
+    void shouldExposeAge() {
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>(
+                "test", Duration.ofSeconds(10), loads::incrementAndGet, registry, clock);
+
+        cache.get();
+        clock.advance(Duration.ofSeconds(3));
+
+        assertThat(registry.get("toctoc.cache.age").gauge().value()).isEqualTo(3.0);
+        assertThat(cache.computedAt()).isEqualTo(Instant.parse("2025-01-01T10:00:00Z"));
+    }
+
+    @Test
+    @DisplayName("Devrait ne lancer qu'un seul calcul pour des appels concurrents")
+    void shouldLoadOnceForConcurrentCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>("test", Duration.ofSeconds(10), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loads.incrementAndGet();
+        }, registry, clock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(cache::get));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Devrait propager l'erreur du calcul et réessayer à l'appel suivant")
+    void shouldPropagateLoaderFailure() {
+        SingleFlightCache<Integer> cache = new SingleFlightCache<>("test", Duration.ofSeconds(10), () -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("base indisponible");
+            }
+            return loads.get();
+        }, registry, clock);
+
+        assertThatThrownBy(cache::get).isInstanceOf(IllegalStateException.class);
+        assertThat(cache.get()).isEqualTo(2);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.toctoc.toctoc2.infrastructure.csv;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du CsvReader")
+class CsvReaderTest {
+
+    @Test
+    @DisplayName("Devrait lire les champs entre guillemets avec séparateurs, guillemets doublés et retours à la ligne")
+    void shouldReadQuotedFields() throws IOException {
+        List<List<String>> records = readAll("a,\"b,c\",\"d \"\"e\"\"\"\r\n\"multi\r\nligne\",,f\n", ',');
+
+        assertThat(records).containsExactly(
+                List.of("a", "b,c", "d \"e\""),
+                List.of("multi\r\nligne", "", "f"));
+    }
+
+    @Test
+    @DisplayName("Devrait donner la ligne de début de chaque enregistrement et ignorer les lignes vides")
+    void shouldTrackLineNumbers() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("h1;h2\n\"x\ny\";1\n\n3;4"), ';')) {
+            assertThat(reader.next()).containsExactly("h1", "h2");
+            assertThat(reader.getLine()).isEqualTo(1);
+            assertThat(reader.next()).containsExactly("x\ny", "1");
+            assertThat(reader.getLine()).isEqualTo(2);
+            assertThat(reader.next()).containsExactly("3", "4");
+            assertThat(reader.getLine()).isEqualTo(5);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Devrait ignorer le BOM UTF-8 ajouté par Excel")
+    void shouldSkipBom() throws IOException {
+        assertThat(readAll("\uFEFFdescription,poids\n", ',')).containsExactly(List.of("description", "poids"));
+    }
+
+    @Test
+    @DisplayName("Devrait échouer sur un guillemet non fermé")
+    void shouldFailOnUnclosedQuote() {
+        assertThatThrownBy(() -> readAll("a,\"b\n", ','))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("ligne 1");
+    }
+
+    private List<List<String>> readAll(String content, char separator) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(content), separator)) {
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
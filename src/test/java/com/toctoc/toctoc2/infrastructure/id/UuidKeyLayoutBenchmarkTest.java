@@ -0,0 +1,126 @@
+package com.toctoc.toctoc2.infrastructure.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesure, sur PostgreSQL, du débit d'insertion et de la taille des index selon la forme des clés :
+ * UUID v4 ou v7, stockés en varchar(36) (forme actuelle des tables) ou en uuid natif.
+ * Chaque variante a une table parent (clé primaire) et une table enfant (clé étrangère indexée),
+ * comme colis et historique_livraison.
+ * <p>
+ * Désactivé par défaut ; lancement sur une base jetable (les tables bench_* sont recréées) :
+ * {@code mvn test -Dtest=UuidKeyLayoutBenchmarkTest -Dtoctoc.loadtest.jdbc-url=jdbc:postgresql://localhost:5432/bench
+ * -Dtoctoc.loadtest.jdbc-user=postgres -Dtoctoc.loadtest.rows=200000}
+ */
+@EnabledIfSystemProperty(named = "toctoc.loadtest.jdbc-url", matches = ".+")
+@DisplayName("Mesure des clés UUID")
+class UuidKeyLayoutBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("toctoc.loadtest.rows", 200_000);
+    private static final int BATCH = 1000;
+
+    private record Layout(String name, String columnType, Supplier<UUID> generator) {
+    }
+
+    private record Result(double rowsPerSecond, long primaryKeyBytes, long foreignKeyBytes) {
+    }
+
+    @Test
+    @DisplayName("Devrait réduire les index avec des clés ordonnées et le type uuid")
+    void shouldCompareKeyLayouts() throws SQLException {
+        List<Layout> layouts = List.of(
+                new Layout("varchar_v4", "varchar(36)", UUID::randomUUID),
+                new Layout("varchar_v7", "varchar(36)", UuidV7Generator::next),
+                new Layout("uuid_v4", "uuid", UUID::randomUUID),
+                new Layout("uuid_v7", "uuid", UuidV7Generator::next));
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("toctoc.loadtest.jdbc-url"),
+                System.getProperty("toctoc.loadtest.jdbc-user", "postgres"),
+                System.getProperty("toctoc.loadtest.jdbc-password", ""))) {
+            for (Layout layout : layouts) {
+                results.put(layout.name(), run(connection, layout));
+            }
+        }
+
+        results.forEach((name, r) -> System.out.printf("%-10s %,9.0f lignes/s  PK %,6d Ko  FK %,6d Ko%n",
+                name, r.rowsPerSecond(), r.primaryKeyBytes() / 1024, r.foreignKeyBytes() / 1024));
+
+        // Les insertions en fin d'index remplissent les pages au lieu de les scinder au hasard
+        assertThat(results.get("varchar_v7").primaryKeyBytes()).isLessThan(results.get("varchar_v4").primaryKeyBytes());
+        assertThat(results.get("uuid_v7").primaryKeyBytes()).isLessThan(results.get("uuid_v4").primaryKeyBytes());
+        // 16 octets au lieu de 37 par entrée
+        assertThat(results.get("uuid_v7").primaryKeyBytes()).isLessThan(results.get("varchar_v7").primaryKeyBytes());
+        assertThat(results.get("uuid_v7").foreignKeyBytes()).isLessThan(results.get("varchar_v7").foreignKeyBytes());
+    }
+
+    private Result run(Connection connection, Layout layout) throws SQLException {
+        String parent = "bench_" + layout.name();
+        String child = parent + "_enfant";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + child + ", " + parent);
+            statement.execute("CREATE TABLE " + parent + " (id " + layout.columnType() + " PRIMARY KEY, "
+                    + "nom varchar(100) NOT NULL)");
+            statement.execute("CREATE TABLE " + child + " (id " + layout.columnType() + " PRIMARY KEY, "
+                    + "parent_id " + layout.columnType() + " NOT NULL REFERENCES " + parent + " (id))");
+            statement.execute("CREATE INDEX " + child + "_parent_idx ON " + child + " (parent_id)");
+        }
+
+        boolean uuidColumn = layout.columnType().equals("uuid");
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insertParent = connection.prepareStatement(
+                "INSERT INTO " + parent + " (id, nom) VALUES (?, ?)");
+             PreparedStatement insertChild = connection.prepareStatement(
+                     "INSERT INTO " + child + " (id, parent_id) VALUES (?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                UUID id = layout.generator().get();
+                bind(insertParent, 1, id, uuidColumn);
+                insertParent.setString(2, "Colis " + i);
+                insertParent.addBatch();
+                bind(insertChild, 1, layout.generator().get(), uuidColumn);
+                bind(insertChild, 2, id, uuidColumn);
+                insertChild.addBatch();
+                if (i % BATCH == 0 || i == ROWS) {
+                    insertParent.executeBatch();
+                    insertChild.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        return new Result(ROWS / seconds,
+                relationSize(connection, parent + "_pkey"),
+                relationSize(connection, child + "_parent_idx"));
+    }
+
+    private static void bind(PreparedStatement statement, int index, UUID id, boolean uuidColumn) throws SQLException {
+        if (uuidColumn) {
+            statement.setObject(index, id);
+        } else {
+            statement.setString(index, id.toString());
+        }
+    }
+
+    private static long relationSize(Connection connection, String relation) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_relation_size(?::regclass)")) {
+            statement.setString(1, relation);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
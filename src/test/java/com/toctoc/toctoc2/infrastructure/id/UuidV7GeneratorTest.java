@@ -0,0 +1,43 @@
+package com.toctoc.toctoc2.infrastructure.id;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du UuidV7Generator")
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("Devrait générer un UUID version 7 de variante RFC")
+    void shouldGenerateVersion7() {
+        UUID uuid = UuidV7Generator.next();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.toString()).hasSize(36);
+    }
+
+    @Test
+    @DisplayName("Devrait encoder le timestamp courant dans les 48 premiers bits")
+    void shouldEncodeTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.next();
+
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        assertThat(millis).isBetween(before, System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    @DisplayName("Devrait produire des ids uniques et croissants dans l'ordre lexicographique")
+    void shouldBeMonotonicAsStrings() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(UuidV7Generator.next().toString());
+        }
+
+        assertThat(new HashSet<>(ids)).hasSize(ids.size());
+        assertThat(ids).isSorted();
+    }
+}
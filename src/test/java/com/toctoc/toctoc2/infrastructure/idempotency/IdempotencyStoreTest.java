@@ -0,0 +1,69 @@
+package com.toctoc.toctoc2.infrastructure.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Tests de l'IdempotencyStore")
+class IdempotencyStoreTest {
+
+    @Mock private IdempotencyKeyRepository repository;
+    @Mock private EntityManager entityManager;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(repository, entityManager, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofHours(24), Duration.ofSeconds(30), Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    @DisplayName("Devrait renvoyer la clé de la requête qui l'a réservée la première")
+    void shouldReturnExistingKeyWhenAlreadyClaimed() {
+        IdempotencyKey existing = new IdempotencyKey("cle-1", "empreinte", null, null, null,
+                LocalDateTime.now(), LocalDateTime.now().plusHours(24));
+        doThrow(new DataIntegrityViolationException("doublon")).when(entityManager).flush();
+        when(repository.findById("cle-1")).thenReturn(Optional.of(existing));
+
+        assertThat(store.claim("cle-1", "empreinte")).contains(existing);
+        verify(entityManager).persist(any(IdempotencyKey.class));
+    }
+
+    @Test
+    @DisplayName("Devrait retenter la réservation quand la clé est libérée entre l'insertion et la relecture")
+    void shouldRetryClaimWhenKeyReleasedMeanwhile() {
+        doThrow(new DataIntegrityViolationException("doublon")).doNothing().when(entityManager).flush();
+        when(repository.findById("cle-1")).thenReturn(Optional.empty());
+
+        assertThat(store.claim("cle-1", "empreinte")).isEmpty();
+        verify(entityManager, times(2)).persist(any(IdempotencyKey.class));
+        verify(repository).findById("cle-1");
+    }
+
+    @Test
+    @DisplayName("Devrait abandonner après plusieurs réservations perdues de suite")
+    void shouldGiveUpAfterRepeatedLostClaims() {
+        doThrow(new DataIntegrityViolationException("doublon")).when(entityManager).flush();
+        when(repository.findById("cle-1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> store.claim("cle-1", "empreinte"))
+                .isInstanceOf(IllegalStateException.class);
+        verify(entityManager, times(3)).persist(any(IdempotencyKey.class));
+    }
+}
@@ -0,0 +1,75 @@
+package com.toctoc.toctoc2.infrastructure.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpServer;
+import com.toctoc.toctoc2.domain.colis.dto.ColisStatusEventDTO;
+import com.toctoc.toctoc2.domain.colis.model.StatutColis;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests des destinataires de l'outbox")
+class ColisEventSinksTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    @DisplayName("Devrait ajouter les événements en NDJSON à la fin du fichier")
+    void shouldAppendNdjson(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("events.ndjson");
+        FileColisSink sink = new FileColisSink(objectMapper, file);
+
+        sink.publish(List.of(event("e1"), event("e2")));
+        sink.publish(List.of(event("e3")));
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines.get(2), ColisStatusEventDTO.class).getEventId()).isEqualTo("e3");
+    }
+
+    @Test
+    @DisplayName("Devrait poster le lot en JSON et échouer sur une réponse hors 2xx")
+    void shouldPostBatchToWebhook() throws Exception {
+        AtomicReference<String> body = new AtomicReference<>();
+        AtomicReference<Integer> status = new AtomicReference<>(204);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/events", exchange -> {
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/events";
+            WebhookColisSink sink = new WebhookColisSink(objectMapper, url, Duration.ofSeconds(2));
+
+            sink.publish(List.of(event("e1"), event("e2")));
+            assertThat(objectMapper.readValue(body.get(), ColisStatusEventDTO[].class))
+                    .extracting(ColisStatusEventDTO::getEventId).containsExactly("e1", "e2");
+
+            status.set(503);
+            assertThatThrownBy(() -> sink.publish(List.of(event("e3"))))
+                    .hasMessageContaining("503");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private ColisStatusEventDTO event(String id) {
+        return new ColisStatusEventDTO(id, "colis-1", StatutColis.LIVRE, StatutColis.EN_TRANSIT,
+                LocalDateTime.of(2026, 10, 17, 10, 0), null, "livreur-1");
+    }
+}
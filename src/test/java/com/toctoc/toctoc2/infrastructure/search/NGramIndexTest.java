@@ -0,0 +1,104 @@
+package com.toctoc.toctoc2.infrastructure.search;
+
+import com.toctoc.toctoc2.domain.livraison.dto.ZoneDTO;
+import org.junit.jupiter.api.*;
+import org.springframework.data.domain.*;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Tests du NGramIndex")
+class NGramIndexTest {
+
+    private NGramIndex<ZoneDTO> index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NGramIndex<>(
+                ZoneDTO::getId,
+                zone -> Arrays.asList(zone.getNom(), zone.getCodePostal(), zone.getVille()),
+                Comparator.comparing(ZoneDTO::getNom));
+        index.rebuild(List.of(
+                zone("1", "Maarif", "20330", "Casablanca"),
+                zone("2", "Agdal", "10090", "Rabat"),
+                zone("3", "Ain Diab", "20180", "Casablanca")
+        ));
+    }
+
+    @Test
+    @DisplayName("Devrait être prêt après construction")
+    void shouldBeReadyAfterRebuild() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait trouver une sous-chaîne sans tenir compte de la casse")
+    void shouldFindSubstringIgnoringCase() {
+        Page<ZoneDTO> result = index.search("CASA", PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).extracting(ZoneDTO::getNom).containsExactly("Ain Diab", "Maarif");
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Devrait écarter les faux positifs des trigrammes")
+    void shouldRejectTrigramFalsePositives() {
+        // "gdal" et "rab" sont indexés, mais pas la chaîne "gdalrab"
+        assertThat(index.search("gdalrab", PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait gérer les mots-clés plus courts qu'un trigramme")
+    void shouldHandleShortKeywords() {
+        assertThat(index.search("20", PageRequest.of(0, 10)).getContent()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Devrait refléter les mises à jour et suppressions")
+    void shouldReflectUpdatesAndRemovals() {
+        index.put(zone("2", "Hay Riad", "10100", "Rabat"));
+        index.remove("1");
+
+        assertThat(index.search("agdal", PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search("riad", PageRequest.of(0, 10)).getContent()).hasSize(1);
+        assertThat(index.search("maarif", PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Devrait paginer les résultats")
+    void shouldPaginate() {
+        Page<ZoneDTO> result = index.search("a", PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Devrait rejouer les écritures reçues pendant une reconstruction")
+    void shouldReplayWritesDuringRebuild() {
+        index.rebuild(() -> {
+            // Instantané lu avant ces écritures : il contient encore "Agdal" et pas "Hay Riad"
+            List<ZoneDTO> snapshot = List.of(
+                    zone("1", "Maarif", "20330", "Casablanca"),
+                    zone("2", "Agdal", "10090", "Rabat"));
+            index.put(zone("4", "Hay Riad", "10100", "Rabat"));
+            index.remove("2");
+            return snapshot;
+        });
+
+        assertThat(index.search("riad", PageRequest.of(0, 10)).getContent()).hasSize(1);
+        assertThat(index.search("agdal", PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private ZoneDTO zone(String id, String nom, String codePostal, String ville) {
+        ZoneDTO zone = new ZoneDTO();
+        zone.setId(id);
+        zone.setNom(nom);
+        zone.setCodePostal(codePostal);
+        zone.setVille(ville);
+        return zone;
+    }
+}